@@ -0,0 +1,392 @@
+package jMath.func;
+
+import java.util.Arrays;
+
+/**
+ * Approximation of a smooth function on [a, b] by a truncated Chebyshev series
+ *   p(x) = sum_{k=0}^{n} c_k T_k(t),  t = (2x - a - b)/(b - a)
+ * evaluated with Clenshaw's recurrence.  Once built, the approximation can be 
+ * evaluated, differentiated, integrated and searched for zeros without calling 
+ * the original function again.  Outside of [a, b] the series is extrapolated.
+ */
+public class ChebyshevApproximation implements Function1Var {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// interval
+	private final double a, b;
+	
+	// Chebyshev coefficients c_0 ... c_n
+	private final double[] c;
+	
+	// smallest and largest number of intervals tried by the adaptive construction
+	private static final int MIN_N = 16;
+	private static final int MAX_N = 4096;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	/**
+	 * builds an approximation of f on [a, b] accurate to about tol.
+	 * f is sampled at Chebyshev points, doubling their number (and reusing the previous samples)
+	 * until the trailing coefficients fall below tol, after which the series is 
+	 * truncated where the sum of the discarded coefficients is below tol/2.
+	 * @param f
+	 * @param a
+	 * @param b
+	 * @param tol  absolute accuracy
+	 * @throws IllegalArgumentException if f is not resolved with the maximum number of points
+	 */
+	public ChebyshevApproximation(Function1Var f, double a, double b, double tol) throws IllegalArgumentException{
+		checkInterval(a, b);
+		this.a = a;
+		this.b = b;
+		
+		int N = MIN_N;
+		double[] y = new double[N+1];
+		f.f(points(a, b, N), y, 0, N+1);
+		
+		while (true){
+			double[] coef = coefficients(y);
+			
+			if (Math.abs(coef[N]) <= 0.25*tol && Math.abs(coef[N-1]) <= 0.25*tol 
+					&& Math.abs(coef[N-2]) <= 0.25*tol){
+				
+				// truncate while the discarded tail stays below tol/2
+				double tail = 0.0;
+				int m = N;
+				while (m > 0 && tail + Math.abs(coef[m]) <= 0.5*tol){
+					tail += Math.abs(coef[m]);
+					m--;
+				}
+				c = Arrays.copyOf(coef, m+1);
+				return;
+			}
+			
+			if (2*N > MAX_N){
+				throw new IllegalArgumentException("Function not resolved to " + tol + " with " + N + " points");
+			}
+			
+			// double the points, the old ones are the even points of the new set
+			double[] yNew = new double[2*N+1];
+			double[] xOdd = new double[N];
+			for (int k = 0; k < N; k++){
+				xOdd[k] = map(a, b, Math.cos(Math.PI*(2*k + 1)/(2*N)));
+			}
+			double[] yOdd = new double[N];
+			f.f(xOdd, yOdd, 0, N);
+			for (int k = 0; k <= N; k++){
+				yNew[2*k] = y[k];
+			}
+			for (int k = 0; k < N; k++){
+				yNew[2*k+1] = yOdd[k];
+			}
+			y = yNew;
+			N *= 2;
+		}
+	}
+	
+	/**
+	 * builds an approximation of f on [a, b] of fixed degree n, interpolating f 
+	 * at the n+1 Chebyshev extreme points
+	 * @param f
+	 * @param a
+	 * @param b
+	 * @param n  degree, at least 1
+	 * @throws IllegalArgumentException
+	 */
+	public ChebyshevApproximation(Function1Var f, double a, double b, int n) throws IllegalArgumentException{
+		checkInterval(a, b);
+		if (n < 1){
+			throw new IllegalArgumentException("Degree must be at least 1");
+		}
+		this.a = a;
+		this.b = b;
+		
+		double[] y = new double[n+1];
+		f.f(points(a, b, n), y, 0, n+1);
+		c = coefficients(y);
+	}
+	
+	/**
+	 * approximation directly from its Chebyshev coefficients
+	 * @param a
+	 * @param b
+	 * @param c  coefficients c_0 ... c_n
+	 * @throws IllegalArgumentException
+	 */
+	public ChebyshevApproximation(double a, double b, double[] c) throws IllegalArgumentException{
+		checkInterval(a, b);
+		if (c.length == 0){
+			throw new IllegalArgumentException("Need at least one coefficient");
+		}
+		this.a = a;
+		this.b = b;
+		this.c = c.clone();
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	@Override
+	public double f(double x) {
+		return clenshaw((2.0*x - a - b)/(b - a));
+	}
+	
+	@Override
+	public void f(double[] x, double[] out, int off, int len) {
+		double s = 2.0/(b - a);
+		double shift = (a + b)/(b - a);
+		int n = c.length - 1;
+		
+		for (int i = off; i < off + len; i++){
+			double t = s*x[i] - shift;
+			double t2 = 2.0*t;
+			double b1 = 0.0, b2 = 0.0;
+			for (int k = n; k >= 1; k--){
+				double bk = t2*b1 - b2 + c[k];
+				b2 = b1;
+				b1 = bk;
+			}
+			out[i] = t*b1 - b2 + c[0];
+		}
+	}
+	
+	/**
+	 * @return degree of the series
+	 */
+	public int getDegree(){
+		return c.length - 1;
+	}
+	
+	/**
+	 * @return a copy of the Chebyshev coefficients
+	 */
+	public double[] getCoefficients(){
+		return c.clone();
+	}
+	
+	/**
+	 * @return start of the interval
+	 */
+	public double getA(){
+		return a;
+	}
+	
+	/**
+	 * @return end of the interval
+	 */
+	public double getB(){
+		return b;
+	}
+	
+	/**
+	 * @return the derivative of the approximation, as a series of one lower degree
+	 */
+	public ChebyshevApproximation derivative(){
+		int n = c.length - 1;
+		if (n == 0){
+			return new ChebyshevApproximation(a, b, new double[] {0.0});
+		}
+		
+		// c'_{k-1} = c'_{k+1} + 2k c_k
+		double[] d = new double[n];
+		double dkp1 = 0.0, dkp2 = 0.0;
+		for (int k = n; k >= 1; k--){
+			double dk = dkp2 + 2.0*k*c[k];
+			d[k-1] = dk;
+			dkp2 = dkp1;
+			dkp1 = dk;
+		}
+		d[0] *= 0.5;
+		
+		double scale = 2.0/(b - a);
+		for (int k = 0; k < n; k++){
+			d[k] *= scale;
+		}
+		return new ChebyshevApproximation(a, b, d);
+	}
+	
+	/**
+	 * @return the indefinite integral of the approximation that is zero at a, 
+	 * as a series of one higher degree
+	 */
+	public ChebyshevApproximation integral(){
+		int n = c.length - 1;
+		double[] C = new double[n+2];
+		double scale = 0.5*(b - a);
+		
+		// C_k = (c_{k-1} - c_{k+1})/(2k), with c_0 doubled in the k = 1 term
+		for (int k = 1; k <= n+1; k++){
+			double cm = (k == 1)? 2.0*c[0] : c[k-1];
+			double cp = (k+1 <= n)? c[k+1] : 0.0;
+			C[k] = scale*(cm - cp)/(2.0*k);
+		}
+		
+		// choose C_0 so the integral vanishes at a, where T_k(-1) = (-1)^k
+		double sum = 0.0;
+		for (int k = 1; k <= n+1; k++){
+			sum += (k % 2 == 0)? C[k] : -C[k];
+		}
+		C[0] = -sum;
+		return new ChebyshevApproximation(a, b, C);
+	}
+	
+	/**
+	 * @return the definite integral of the approximation over [a, b]
+	 */
+	public double integrate(){
+		// int_{-1}^{1} T_k = 2/(1 - k^2) for even k, 0 for odd k
+		double sum = 0.0;
+		for (int k = 0; k < c.length; k += 2){
+			sum += c[k]*2.0/(1.0 - (double)k*k);
+		}
+		return 0.5*(b - a)*sum;
+	}
+	
+	/**
+	 * finds the zeros of the approximation in [a, b].  The series is sampled at 
+	 * 4 times as many Chebyshev points as its degree, and every change of sign is 
+	 * refined to machine precision by false position on the series itself.  
+	 * Zeros of even multiplicity (where the series touches zero without changing sign) 
+	 * are only found if they land exactly on a sample.
+	 * @return the zeros in ascending order
+	 */
+	public double[] roots(){
+		int N = Math.max(4*(c.length - 1), 8);
+		double[] x = points(a, b, N);
+		
+		// points are ordered from b to a, flip to ascending
+		for (int i = 0, j = N; i < j; i++, j--){
+			double t = x[i];
+			x[i] = x[j];
+			x[j] = t;
+		}
+		double[] y = new double[N+1];
+		f(x, y, 0, N+1);
+		
+		double[] r = new double[N+1];
+		int nr = 0;
+		for (int i = 0; i <= N; i++){
+			if (y[i] == 0.0){
+				r[nr++] = x[i];
+			} else if (i < N && y[i+1] != 0.0 && (y[i] < 0.0) != (y[i+1] < 0.0)){
+				r[nr++] = falsePosition(x[i], x[i+1], y[i], y[i+1]);
+			}
+		}
+		return Arrays.copyOf(r, nr);
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ChebyshevApproximation [a=" + a + ", b=" + b + ", c=" + Arrays.toString(c) + "]";
+	}
+	
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	private static void checkInterval(double a, double b){
+		if (!(b > a)){
+			throw new IllegalArgumentException("Interval requires b > a");
+		}
+	}
+	
+	/**
+	 * map t in [-1, 1] to [a, b]
+	 */
+	private static double map(double a, double b, double t){
+		return 0.5*(a + b) + 0.5*(b - a)*t;
+	}
+	
+	/**
+	 * Chebyshev extreme points cos(pi k/N), k = 0...N, mapped to [a, b]
+	 */
+	private static double[] points(double a, double b, int N){
+		double[] x = new double[N+1];
+		for (int k = 0; k <= N; k++){
+			x[k] = map(a, b, Math.cos(Math.PI*k/N));
+		}
+		x[0] = b;
+		x[N] = a;
+		return x;
+	}
+	
+	/**
+	 * coefficients of the polynomial interpolating y at the N+1 extreme points (a type I DCT).
+	 * cos(pi j k/N) is read from a table of cos(pi m/N), m < 2N.
+	 */
+	private static double[] coefficients(double[] y){
+		int N = y.length - 1;
+		double[] cosTable = new double[2*N];
+		for (int m = 0; m < 2*N; m++){
+			cosTable[m] = Math.cos(Math.PI*m/N);
+		}
+		
+		double[] coef = new double[N+1];
+		for (int j = 0; j <= N; j++){
+			double sum = 0.5*(y[0] + ((j % 2 == 0)? y[N] : -y[N]));
+			int m = 0;
+			for (int k = 1; k < N; k++){
+				m += j;
+				if (m >= 2*N) m -= 2*N;
+				sum += y[k]*cosTable[m];
+			}
+			coef[j] = 2.0*sum/N;
+		}
+		coef[0] *= 0.5;
+		coef[N] *= 0.5;
+		return coef;
+	}
+	
+	/**
+	 * Clenshaw's recurrence at t in [-1, 1]
+	 */
+	private double clenshaw(double t){
+		double t2 = 2.0*t;
+		double b1 = 0.0, b2 = 0.0;
+		for (int k = c.length - 1; k >= 1; k--){
+			double bk = t2*b1 - b2 + c[k];
+			b2 = b1;
+			b1 = bk;
+		}
+		return t*b1 - b2 + c[0];
+	}
+	
+	/**
+	 * Illinois variant of false position in a change of sign interval of the series
+	 */
+	private double falsePosition(double lo, double hi, double flo, double fhi){
+		int side = 0;
+		for (int iter = 0; iter < 200; iter++){
+			double x = (lo*fhi - hi*flo)/(fhi - flo);
+			if (!(x > lo && x < hi)) x = 0.5*(lo + hi);
+			if (x == lo || x == hi) return x;
+			
+			double fx = f(x);
+			if (fx == 0.0) return x;
+			
+			if ((fx < 0.0) == (flo < 0.0)){
+				lo = x;
+				flo = fx;
+				if (side == -1) fhi *= 0.5;
+				side = -1;
+			} else{
+				hi = x;
+				fhi = fx;
+				if (side == 1) flo *= 0.5;
+				side = 1;
+			}
+			if (hi - lo <= 4.0*Math.ulp(Math.max(Math.abs(lo), Math.abs(hi)))) break;
+		}
+		return 0.5*(lo + hi);
+	}
+}
@@ -0,0 +1,12 @@
+package jMath.func;
+
+public interface DifferentiableFunction1Var extends Function1Var {
+	
+	/** Evaluates a one dimensional function and its derivative in one call
+	 * @param x argument of the function
+	 * @param d on output d[0] = f'(x)
+	 * @return f(x) 
+	 */
+	public double f(double x, double[] d);
+
+}
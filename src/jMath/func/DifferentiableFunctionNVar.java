@@ -0,0 +1,12 @@
+package jMath.func;
+
+public interface DifferentiableFunctionNVar extends FunctionNVar {
+	
+	/** Evaluates a scalar function of n variables and its gradient in one call
+	 * @param x argument of the function
+	 * @param g on output g[i] = df/dx_i
+	 * @return f(x) 
+	 */
+	public double f(double[] x, double[] g);
+
+}
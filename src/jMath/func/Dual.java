@@ -0,0 +1,218 @@
+package jMath.func;
+
+/**
+ * A dual number v + d*eps (eps^2 = 0) for forward mode automatic differentiation.
+ * Carrying a derivative d along with every value v, the derivative of a computation 
+ * comes out exactly at roughly twice the cost of the computation itself.
+ * Instances are immutable.
+ */
+public final class Dual {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// value
+	private final double v;
+	
+	// derivative
+	private final double d;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	/**
+	 * @param v  value
+	 * @param d  derivative
+	 */
+	public Dual(double v, double d){
+		this.v = v;
+		this.d = d;
+	}
+	
+	/**
+	 * the independent variable x (derivative one)
+	 * @param x
+	 * @return
+	 */
+	public static Dual variable(double x){
+		return new Dual(x, 1.0);
+	}
+	
+	/**
+	 * a constant (derivative zero)
+	 * @param c
+	 * @return
+	 */
+	public static Dual constant(double c){
+		return new Dual(c, 0.0);
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * @return the value
+	 */
+	public double getValue(){
+		return v;
+	}
+	
+	/**
+	 * @return the derivative
+	 */
+	public double getDerivative(){
+		return d;
+	}
+	
+	/**
+	 * @return this + y
+	 */
+	public Dual add(Dual y){
+		return new Dual(v + y.v, d + y.d);
+	}
+	
+	/**
+	 * @return this + alpha
+	 */
+	public Dual add(double alpha){
+		return new Dual(v + alpha, d);
+	}
+	
+	/**
+	 * @return this - y
+	 */
+	public Dual subtract(Dual y){
+		return new Dual(v - y.v, d - y.d);
+	}
+	
+	/**
+	 * @return this - alpha
+	 */
+	public Dual subtract(double alpha){
+		return new Dual(v - alpha, d);
+	}
+	
+	/**
+	 * @return this*y
+	 */
+	public Dual multiply(Dual y){
+		return new Dual(v*y.v, d*y.v + v*y.d);
+	}
+	
+	/**
+	 * @return alpha*this
+	 */
+	public Dual multiply(double alpha){
+		return new Dual(alpha*v, alpha*d);
+	}
+	
+	/**
+	 * @return this/y
+	 */
+	public Dual divide(Dual y){
+		double q = v/y.v;
+		return new Dual(q, (d - q*y.d)/y.v);
+	}
+	
+	/**
+	 * @return this/alpha
+	 */
+	public Dual divide(double alpha){
+		return new Dual(v/alpha, d/alpha);
+	}
+	
+	/**
+	 * @return -this
+	 */
+	public Dual negative(){
+		return new Dual(-v, -d);
+	}
+	
+	/**
+	 * @return this^p
+	 */
+	public Dual pow(double p){
+		if (p == 0.0) return new Dual(1.0, 0.0);
+		return new Dual(Math.pow(v, p), p*Math.pow(v, p - 1.0)*d);
+	}
+	
+	/**
+	 * @return this^y
+	 */
+	public Dual pow(Dual y){
+		double z = Math.pow(v, y.v);
+		double dz = y.v*Math.pow(v, y.v - 1.0)*d;
+		if (y.d != 0.0) dz += z*Math.log(v)*y.d;
+		return new Dual(z, dz);
+	}
+	
+	/**
+	 * @return sqrt(x)
+	 */
+	public static Dual sqrt(Dual x){
+		double s = Math.sqrt(x.v);
+		return new Dual(s, 0.5*x.d/s);
+	}
+	
+	/**
+	 * @return exp(x)
+	 */
+	public static Dual exp(Dual x){
+		double e = Math.exp(x.v);
+		return new Dual(e, e*x.d);
+	}
+	
+	/**
+	 * @return natural log of x
+	 */
+	public static Dual log(Dual x){
+		return new Dual(Math.log(x.v), x.d/x.v);
+	}
+	
+	/**
+	 * @return sin(x)
+	 */
+	public static Dual sin(Dual x){
+		return new Dual(Math.sin(x.v), Math.cos(x.v)*x.d);
+	}
+	
+	/**
+	 * @return cos(x)
+	 */
+	public static Dual cos(Dual x){
+		return new Dual(Math.cos(x.v), -Math.sin(x.v)*x.d);
+	}
+	
+	/**
+	 * @return tan(x)
+	 */
+	public static Dual tan(Dual x){
+		double t = Math.tan(x.v);
+		return new Dual(t, (1.0 + t*t)*x.d);
+	}
+	
+	/**
+	 * @return atan(x)
+	 */
+	public static Dual atan(Dual x){
+		return new Dual(Math.atan(x.v), x.d/(1.0 + x.v*x.v));
+	}
+	
+	/**
+	 * @return |x|
+	 */
+	public static Dual abs(Dual x){
+		return (x.v < 0.0)? x.negative() : x;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Dual [v=" + v + ", d=" + d + "]";
+	}
+}
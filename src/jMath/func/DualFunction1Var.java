@@ -0,0 +1,29 @@
+package jMath.func;
+
+/**
+ * A one dimensional function written in terms of dual numbers, so its derivative 
+ * is computed exactly by forward mode automatic differentiation.  It can be passed 
+ * anywhere a Function1Var or DifferentiableFunction1Var is expected 
+ * (e.g. the Newton solvers in jMath.nonlinear).
+ */
+public interface DualFunction1Var extends DifferentiableFunction1Var {
+	
+	/** Evaluates a one dimensional function on a dual number
+	 * @param x argument of the function
+	 * @return f(x) along with f'(x) times the derivative of x
+	 */
+	public Dual f(Dual x);
+	
+	@Override
+	public default double f(double x){
+		return f(Dual.constant(x)).getValue();
+	}
+	
+	@Override
+	public default double f(double x, double[] d){
+		Dual y = f(Dual.variable(x));
+		d[0] = y.getDerivative();
+		return y.getValue();
+	}
+
+}
@@ -0,0 +1,297 @@
+package jMath.func;
+
+import java.util.Arrays;
+
+/**
+ * A vector of dual numbers stored as two primitive arrays, values and derivatives
+ * (one directional derivative, or tangent, per element), so that vector valued 
+ * computations can be differentiated without an object per element.  The static 
+ * methods write into an output vector that may be one of the inputs.
+ */
+public class DualVector {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// values
+	protected double[] x;
+	
+	// derivatives
+	protected double[] dx;
+	
+	// dimension
+	protected int n;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	/**
+	 * dual vector of zeros of length n
+	 * @param n
+	 */
+	public DualVector(int n){
+		this.n = n;
+		x = new double[n];
+		dx = new double[n];
+	}
+	
+	/**
+	 * dual vector referencing (not copying) arrays of values and derivatives
+	 * @param x  values
+	 * @param dx  derivatives
+	 * @throws IllegalArgumentException
+	 */
+	public DualVector(double[] x, double[] dx) throws IllegalArgumentException{
+		checkDimension(x.length, dx.length);
+		this.n = x.length;
+		this.x = x;
+		this.dx = dx;
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * @return length of the vector
+	 */
+	public int length(){
+		return n;
+	}
+	
+	/**
+	 * @return pointer to the array of values
+	 */
+	public double[] getValueRef(){
+		return x;
+	}
+	
+	/**
+	 * @return pointer to the array of derivatives
+	 */
+	public double[] getDerivativeRef(){
+		return dx;
+	}
+	
+	/**
+	 * @param i
+	 * @return value of element i
+	 */
+	public double getValue(int i){
+		return x[i];
+	}
+	
+	/**
+	 * @param i
+	 * @return derivative of element i
+	 */
+	public double getDerivative(int i){
+		return dx[i];
+	}
+	
+	/**
+	 * @param i
+	 * @return element i as a dual number
+	 */
+	public Dual get(int i){
+		return new Dual(x[i], dx[i]);
+	}
+	
+	/**
+	 * set element i
+	 * @param i
+	 * @param v  value
+	 * @param d  derivative
+	 */
+	public void set(int i, double v, double d){
+		x[i] = v;
+		dx[i] = d;
+	}
+	
+	/**
+	 * set element i
+	 * @param i
+	 * @param y
+	 */
+	public void set(int i, Dual y){
+		x[i] = y.getValue();
+		dx[i] = y.getDerivative();
+	}
+	
+	/**
+	 * seeds the derivatives with the j-th unit vector, so that derivatives computed 
+	 * from this vector are partial derivatives with respect to element j
+	 * @param j
+	 */
+	public void seed(int j){
+		Arrays.fill(dx, 0.0);
+		dx[j] = 1.0;
+	}
+	
+	/**
+	 * out = x + y
+	 */
+	public static void add(DualVector x, DualVector y, DualVector out){
+		checkDimension(x, y, out);
+		for (int i = 0; i < x.n; i++){
+			out.x[i] = x.x[i] + y.x[i];
+			out.dx[i] = x.dx[i] + y.dx[i];
+		}
+	}
+	
+	/**
+	 * out = x - y
+	 */
+	public static void subtract(DualVector x, DualVector y, DualVector out){
+		checkDimension(x, y, out);
+		for (int i = 0; i < x.n; i++){
+			out.x[i] = x.x[i] - y.x[i];
+			out.dx[i] = x.dx[i] - y.dx[i];
+		}
+	}
+	
+	/**
+	 * out = alpha*x
+	 */
+	public static void multiply(double alpha, DualVector x, DualVector out){
+		checkDimension(x, x, out);
+		for (int i = 0; i < x.n; i++){
+			out.x[i] = alpha*x.x[i];
+			out.dx[i] = alpha*x.dx[i];
+		}
+	}
+	
+	/**
+	 * elementwise out_i = x_i*y_i
+	 */
+	public static void dotMultiply(DualVector x, DualVector y, DualVector out){
+		checkDimension(x, y, out);
+		for (int i = 0; i < x.n; i++){
+			double a = x.x[i], b = y.x[i];
+			out.dx[i] = x.dx[i]*b + a*y.dx[i];
+			out.x[i] = a*b;
+		}
+	}
+	
+	/**
+	 * elementwise out_i = x_i/y_i
+	 */
+	public static void dotDivide(DualVector x, DualVector y, DualVector out){
+		checkDimension(x, y, out);
+		for (int i = 0; i < x.n; i++){
+			double q = x.x[i]/y.x[i];
+			out.dx[i] = (x.dx[i] - q*y.dx[i])/y.x[i];
+			out.x[i] = q;
+		}
+	}
+	
+	/**
+	 * elementwise out_i = x_i^p
+	 */
+	public static void pow(DualVector x, double p, DualVector out){
+		checkDimension(x, x, out);
+		for (int i = 0; i < x.n; i++){
+			double v = x.x[i];
+			out.dx[i] = (p == 0.0)? 0.0 : p*Math.pow(v, p - 1.0)*x.dx[i];
+			out.x[i] = Math.pow(v, p);
+		}
+	}
+	
+	/**
+	 * elementwise out_i = exp(x_i)
+	 */
+	public static void exp(DualVector x, DualVector out){
+		checkDimension(x, x, out);
+		for (int i = 0; i < x.n; i++){
+			double e = Math.exp(x.x[i]);
+			out.dx[i] = e*x.dx[i];
+			out.x[i] = e;
+		}
+	}
+	
+	/**
+	 * elementwise out_i = log(x_i)
+	 */
+	public static void log(DualVector x, DualVector out){
+		checkDimension(x, x, out);
+		for (int i = 0; i < x.n; i++){
+			out.dx[i] = x.dx[i]/x.x[i];
+			out.x[i] = Math.log(x.x[i]);
+		}
+	}
+	
+	/**
+	 * elementwise out_i = sin(x_i)
+	 */
+	public static void sin(DualVector x, DualVector out){
+		checkDimension(x, x, out);
+		for (int i = 0; i < x.n; i++){
+			double v = x.x[i];
+			out.dx[i] = Math.cos(v)*x.dx[i];
+			out.x[i] = Math.sin(v);
+		}
+	}
+	
+	/**
+	 * elementwise out_i = cos(x_i)
+	 */
+	public static void cos(DualVector x, DualVector out){
+		checkDimension(x, x, out);
+		for (int i = 0; i < x.n; i++){
+			double v = x.x[i];
+			out.dx[i] = -Math.sin(v)*x.dx[i];
+			out.x[i] = Math.cos(v);
+		}
+	}
+	
+	/**
+	 * @return sum of the elements
+	 */
+	public static Dual sum(DualVector x){
+		double s = 0.0, ds = 0.0;
+		for (int i = 0; i < x.n; i++){
+			s += x.x[i];
+			ds += x.dx[i];
+		}
+		return new Dual(s, ds);
+	}
+	
+	/**
+	 * @return dot product of x and y
+	 */
+	public static Dual dot(DualVector x, DualVector y){
+		checkDimension(x.n, y.n);
+		double s = 0.0, ds = 0.0;
+		for (int i = 0; i < x.n; i++){
+			s += x.x[i]*y.x[i];
+			ds += x.dx[i]*y.x[i] + x.x[i]*y.dx[i];
+		}
+		return new Dual(s, ds);
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DualVector [n=" + n + ", x=" + Arrays.toString(x) + ", dx=" + Arrays.toString(dx) + "]";
+	}
+	
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	private static void checkDimension(int n, int m){
+		if (n != m) {
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+	}
+	
+	private static void checkDimension(DualVector x, DualVector y, DualVector out){
+		checkDimension(x.n, y.n);
+		checkDimension(x.n, out.n);
+	}
+}
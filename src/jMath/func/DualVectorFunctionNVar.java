@@ -0,0 +1,27 @@
+package jMath.func;
+
+/**
+ * A vector valued function of n variables written in terms of dual vectors, 
+ * so that directional derivatives J*dx (and so whole Jacobians, one column per 
+ * evaluation) are computed exactly by forward mode automatic differentiation.
+ */
+public interface DualVectorFunctionNVar extends VectorFunctionNVar {
+	
+	/** Evaluates a vector valued function of n variables on a dual vector
+	 * @param x argument of the function, values and a tangent direction
+	 * @param y on output F(x) and the directional derivative J*dx
+	 */
+	public void f(DualVector x, DualVector y);
+	
+	/** Evaluates the function on plain arrays.  The default wraps x and y in new dual vectors
+	 * with zero tangents, allocating on every call, so override it (or call f(DualVector, DualVector)
+	 * on reused dual vectors) where that matters.  SystemSolver does the latter.
+	 * @param x argument of the function
+	 * @param y on output F(x)
+	 */
+	@Override
+	public default void f(double[] x, double[] y){
+		f(new DualVector(x, new double[x.length]), new DualVector(y, new double[y.length]));
+	}
+
+}
@@ -0,0 +1,424 @@
+package jMath.func;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A formula in one variable, such as "a*sin(b*x) + exp(-x^2)", compiled to a Function1Var.
+ * Rather than walking a syntax tree on every evaluation, each formula is translated to 
+ * the bytecode of its own small class (defined as a hidden class), so the JIT sees 
+ * straight line arithmetic and calls to java.lang.Math, including a batch loop.
+ * The most recently used formulas are cached by their text, so compiling the same formula 
+ * again is cheap, while formulas that are no longer used (and their classes) can be unloaded.
+ * <p>
+ * Syntax: numbers, the variable, parameters, the constants pi and e, 
+ * + - * / ^ (right associative, binding tighter than unary minus), parentheses, and the functions
+ * sin cos tan asin acos atan sinh cosh tanh exp log log10 sqrt cbrt abs floor ceil
+ * (one argument) and pow atan2 hypot min max (two arguments).
+ */
+public final class Expression {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// original text
+	private final String text;
+	
+	// names of the parameters, in the order their values are bound
+	private final String[] parameters;
+	
+	// constructor of the compiled class, taking one double per parameter
+	private final MethodHandle constructor;
+	
+	// most recently used compiled expressions keyed by variable, parameters and text (guarded by itself)
+	private static final int CACHE_SIZE = 256;
+	private static final Map<String, Expression> cache = new LinkedHashMap<String, Expression>(16, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest){
+			return size() > CACHE_SIZE;
+		}
+	};
+	
+	// functions and their number of arguments
+	private static final Map<String, Integer> FUNCTIONS = new HashMap<String, Integer>();
+	static {
+		for (String fn: new String[] {"sin", "cos", "tan", "asin", "acos", "atan", "sinh", "cosh", "tanh", 
+				"exp", "log", "log10", "sqrt", "cbrt", "abs", "floor", "ceil"}){
+			FUNCTIONS.put(fn, 1);
+		}
+		for (String fn: new String[] {"pow", "atan2", "hypot", "min", "max"}){
+			FUNCTIONS.put(fn, 2);
+		}
+	}
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	private Expression(String text, String[] parameters, MethodHandle constructor){
+		this.text = text;
+		this.parameters = parameters;
+		this.constructor = constructor;
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * compiles a formula in the variable x with no parameters
+	 * @param text  formula
+	 * @return the formula as a function
+	 * @throws IllegalArgumentException if the formula cannot be parsed
+	 */
+	public static Function1Var compile(String text) throws IllegalArgumentException{
+		return parse(text, "x").bind();
+	}
+	
+	/**
+	 * compiles a formula with named parameters, whose values are supplied later by 
+	 * {@link #bind bind}.  The result is cached, so formulas can be compiled freely.
+	 * @param text  formula
+	 * @param variable  name of the independent variable
+	 * @param parameters  names of the parameters
+	 * @return the compiled formula
+	 * @throws IllegalArgumentException if the formula cannot be parsed, or a name is not a valid
+	 * identifier, is repeated, or is reserved (pi, e or a function name)
+	 */
+	public static Expression parse(String text, String variable, String... parameters) throws IllegalArgumentException{
+		checkName(variable);
+		for (int i = 0; i < parameters.length; i++){
+			checkName(parameters[i]);
+			if (parameters[i].equals(variable) || Arrays.asList(parameters).subList(0, i).contains(parameters[i])){
+				throw new IllegalArgumentException("Repeated name " + parameters[i]);
+			}
+		}
+		// the names can not contain the separators, so the key is unambiguous
+		String key = variable + "|" + String.join(",", parameters) + "|" + text;
+		
+		Expression e;
+		synchronized (cache){
+			e = cache.get(key);
+		}
+		if (e == null){
+			Node root = new Parser(text, variable, parameters).parse();
+			MethodHandle ctor = ExpressionCompiler.compile(root, parameters.length);
+			e = new Expression(text, parameters.clone(), ctor);
+			synchronized (cache){
+				Expression old = cache.get(key);
+				if (old != null){
+					e = old;
+				} else{
+					cache.put(key, e);
+				}
+			}
+		}
+		return e;
+	}
+	
+	/**
+	 * creates the function with the given parameter values
+	 * @param values  one value per parameter, in the order they were named
+	 * @return f(x) with the parameters fixed
+	 * @throws IllegalArgumentException
+	 */
+	public Function1Var bind(double... values) throws IllegalArgumentException{
+		if (values.length != parameters.length){
+			throw new IllegalArgumentException("Expected " + parameters.length + " parameter values");
+		}
+		Object[] args = new Object[values.length];
+		for (int i = 0; i < values.length; i++){
+			args[i] = values[i];
+		}
+		try{
+			return (Function1Var) constructor.invokeWithArguments(args);
+		} catch (Throwable t){
+			throw new IllegalStateException("Could not instantiate compiled expression", t);
+		}
+	}
+	
+	/**
+	 * @return names of the parameters
+	 */
+	public String[] getParameters(){
+		return parameters.clone();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Expression [" + text + ", parameters=" + Arrays.toString(parameters) + "]";
+	}
+	
+	
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+	
+	/**
+	 * names follow the same rules as the tokenizer: a letter or underscore, then letters, digits or underscores
+	 */
+	private static void checkName(String name) throws IllegalArgumentException{
+		if (name == null || name.isEmpty()){
+			throw new IllegalArgumentException("Names must not be empty");
+		}
+		for (int i = 0; i < name.length(); i++){
+			char ch = name.charAt(i);
+			if (!(Character.isLetter(ch) || ch == '_' || (i > 0 && Character.isDigit(ch)))){
+				throw new IllegalArgumentException("Invalid name " + name);
+			}
+		}
+		if (name.equals("pi") || name.equals("e") || FUNCTIONS.containsKey(name)){
+			throw new IllegalArgumentException("Reserved name " + name);
+		}
+	}
+	
+	
+/* ------------------------
+   Syntax tree
+* ------------------------ */
+	
+	static abstract class Node {
+	}
+	
+	static final class Num extends Node {
+		final double v;
+		Num(double v){ this.v = v; }
+	}
+	
+	static final class Var extends Node {
+	}
+	
+	static final class Param extends Node {
+		final int index;
+		Param(int index){ this.index = index; }
+	}
+	
+	static final class Negative extends Node {
+		final Node a;
+		Negative(Node a){ this.a = a; }
+	}
+	
+	static final class Binary extends Node {
+		final char op;
+		final Node a, b;
+		Binary(char op, Node a, Node b){ this.op = op; this.a = a; this.b = b; }
+	}
+	
+	static final class Call extends Node {
+		final String fn;
+		final Node[] args;
+		Call(String fn, Node[] args){ this.fn = fn; this.args = args; }
+	}
+	
+	/**
+	 * evaluates a function of constant arguments, for constant folding
+	 */
+	static double apply(String fn, double a, double b){
+		switch (fn){
+			case "sin": return Math.sin(a);
+			case "cos": return Math.cos(a);
+			case "tan": return Math.tan(a);
+			case "asin": return Math.asin(a);
+			case "acos": return Math.acos(a);
+			case "atan": return Math.atan(a);
+			case "sinh": return Math.sinh(a);
+			case "cosh": return Math.cosh(a);
+			case "tanh": return Math.tanh(a);
+			case "exp": return Math.exp(a);
+			case "log": return Math.log(a);
+			case "log10": return Math.log10(a);
+			case "sqrt": return Math.sqrt(a);
+			case "cbrt": return Math.cbrt(a);
+			case "abs": return Math.abs(a);
+			case "floor": return Math.floor(a);
+			case "ceil": return Math.ceil(a);
+			case "pow": return Math.pow(a, b);
+			case "atan2": return Math.atan2(a, b);
+			case "hypot": return Math.hypot(a, b);
+			case "min": return Math.min(a, b);
+			case "max": return Math.max(a, b);
+			default: throw new IllegalArgumentException("Unknown function " + fn);
+		}
+	}
+	
+	/**
+	 * recursive descent parser with constant folding
+	 *   expr    := term (('+' | '-') term)*
+	 *   term    := unary (('*' | '/') unary)*
+	 *   unary   := ('-' | '+') unary | power
+	 *   power   := primary ('^' unary)?
+	 *   primary := number | name | name '(' expr (',' expr)* ')' | '(' expr ')'
+	 */
+	private static final class Parser {
+		
+		private final String s;
+		private final String variable;
+		private final String[] parameters;
+		private int pos;
+		
+		Parser(String s, String variable, String[] parameters){
+			this.s = s;
+			this.variable = variable;
+			this.parameters = parameters;
+		}
+		
+		Node parse(){
+			Node n = expr();
+			skipSpace();
+			if (pos < s.length()) throw error("Unexpected '" + s.charAt(pos) + "'");
+			return n;
+		}
+		
+		private Node expr(){
+			Node n = term();
+			while (true){
+				if (accept('+')) n = binary('+', n, term());
+				else if (accept('-')) n = binary('-', n, term());
+				else return n;
+			}
+		}
+		
+		private Node term(){
+			Node n = unary();
+			while (true){
+				if (accept('*')) n = binary('*', n, unary());
+				else if (accept('/')) n = binary('/', n, unary());
+				else return n;
+			}
+		}
+		
+		private Node unary(){
+			if (accept('-')){
+				Node a = unary();
+				if (a instanceof Num) return new Num(-((Num) a).v);
+				return new Negative(a);
+			}
+			if (accept('+')) return unary();
+			return power();
+		}
+		
+		private Node power(){
+			Node n = primary();
+			if (accept('^')) n = binary('^', n, unary());
+			return n;
+		}
+		
+		private Node primary(){
+			skipSpace();
+			if (pos >= s.length()) throw error("Unexpected end of expression");
+			char ch = s.charAt(pos);
+			
+			if (accept('(')){
+				Node n = expr();
+				expect(')');
+				return n;
+			}
+			if (Character.isDigit(ch) || ch == '.'){
+				return number();
+			}
+			if (Character.isLetter(ch) || ch == '_'){
+				int start = pos;
+				while (pos < s.length() && (Character.isLetterOrDigit(s.charAt(pos)) || s.charAt(pos) == '_')){
+					pos++;
+				}
+				String name = s.substring(start, pos);
+				
+				if (accept('(')){
+					Integer arity = FUNCTIONS.get(name);
+					if (arity == null) throw error("Unknown function " + name);
+					Node[] args = new Node[arity];
+					for (int i = 0; i < arity; i++){
+						if (i > 0) expect(',');
+						args[i] = expr();
+					}
+					expect(')');
+					return call(name, args);
+				}
+				if (name.equals(variable)) return new Var();
+				for (int i = 0; i < parameters.length; i++){
+					if (name.equals(parameters[i])) return new Param(i);
+				}
+				if (name.equals("pi")) return new Num(Math.PI);
+				if (name.equals("e")) return new Num(Math.E);
+				throw error("Unknown name " + name);
+			}
+			throw error("Unexpected '" + ch + "'");
+		}
+		
+		private Node number(){
+			int start = pos;
+			while (pos < s.length() && (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.')){
+				pos++;
+			}
+			if (pos < s.length() && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')){
+				int mark = pos++;
+				if (pos < s.length() && (s.charAt(pos) == '+' || s.charAt(pos) == '-')) pos++;
+				if (pos < s.length() && Character.isDigit(s.charAt(pos))){
+					while (pos < s.length() && Character.isDigit(s.charAt(pos))){
+						pos++;
+					}
+				} else{
+					pos = mark;  // not an exponent
+				}
+			}
+			try{
+				return new Num(Double.parseDouble(s.substring(start, pos)));
+			} catch (NumberFormatException ex){
+				throw error("Bad number " + s.substring(start, pos));
+			}
+		}
+		
+		private static Node binary(char op, Node a, Node b){
+			if (a instanceof Num && b instanceof Num){
+				double x = ((Num) a).v, y = ((Num) b).v;
+				switch (op){
+					case '+': return new Num(x + y);
+					case '-': return new Num(x - y);
+					case '*': return new Num(x * y);
+					case '/': return new Num(x / y);
+					default: return new Num(Math.pow(x, y));
+				}
+			}
+			return new Binary(op, a, b);
+		}
+		
+		private static Node call(String fn, Node[] args){
+			for (Node a: args){
+				if (!(a instanceof Num)) return new Call(fn, args);
+			}
+			return new Num(apply(fn, ((Num) args[0]).v, (args.length > 1)? ((Num) args[1]).v : 0.0));
+		}
+		
+		private void skipSpace(){
+			while (pos < s.length() && Character.isWhitespace(s.charAt(pos))){
+				pos++;
+			}
+		}
+		
+		private boolean accept(char ch){
+			skipSpace();
+			if (pos < s.length() && s.charAt(pos) == ch){
+				pos++;
+				return true;
+			}
+			return false;
+		}
+		
+		private void expect(char ch){
+			if (!accept(ch)) throw error("Expected '" + ch + "'");
+		}
+		
+		private IllegalArgumentException error(String msg){
+			return new IllegalArgumentException(msg + " at position " + pos + " in \"" + s + "\"");
+		}
+	}
+}
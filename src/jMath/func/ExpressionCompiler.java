@@ -0,0 +1,453 @@
+package jMath.func;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import jMath.func.Expression.Binary;
+import jMath.func.Expression.Call;
+import jMath.func.Expression.Negative;
+import jMath.func.Expression.Node;
+import jMath.func.Expression.Num;
+import jMath.func.Expression.Param;
+import jMath.func.Expression.Var;
+
+/**
+ * Translates the syntax tree of an Expression into a class implementing Function1Var:
+ * <pre>
+ * final class Compiled implements Function1Var {
+ *     private final double p0, p1, ...;
+ *     public Compiled(double p0, double p1, ...)
+ *     public double f(double x) { return [expr]; }
+ *     public void f(double[] x, double[] out, int off, int len) {
+ *         for (int i = off, end = off + len; i < end; i++) out[i] = [expr at x[i]];
+ *     }
+ * }
+ * </pre>
+ * and defines it as a hidden class in this package.
+ */
+final class ExpressionCompiler {
+	
+	// class file version (Java 5), verified by type inference so no stack map frames are needed
+	private static final int VERSION = 49;
+	
+	private static final String CLASS_NAME = "jMath/func/ExpressionCompiler$Compiled";
+	
+	// opcodes
+	private static final int ALOAD_0 = 0x2a, ILOAD = 0x15, DLOAD = 0x18, ALOAD = 0x19,
+			ISTORE = 0x36, DSTORE = 0x39, DALOAD = 0x31, DASTORE = 0x52,
+			DCONST_0 = 0x0e, DCONST_1 = 0x0f, LDC2_W = 0x14, DUP2 = 0x5c,
+			IADD = 0x60, DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DDIV = 0x6f, DNEG = 0x77,
+			IINC = 0x84, IF_ICMPGE = 0xa2, GOTO = 0xa7, DRETURN = 0xaf, RETURN = 0xb1,
+			GETFIELD = 0xb4, PUTFIELD = 0xb5, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8;
+	
+	private ExpressionCompiler(){
+	}
+	
+	/**
+	 * compiles the tree and returns the constructor of the new class
+	 * @param root
+	 * @param nParams  number of parameters, one double constructor argument each
+	 */
+	static MethodHandle compile(Node root, int nParams){
+		byte[] bytes = new ClassBuilder(root, nParams).build();
+		
+		Class<?>[] args = new Class<?>[nParams];
+		Arrays.fill(args, double.class);
+		try{
+			MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+			return lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, args));
+		} catch (IllegalAccessException e){
+			throw new IllegalStateException("Could not define compiled expression", e);
+		} catch (NoSuchMethodException e){
+			throw new IllegalStateException("Could not define compiled expression", e);
+		}
+	}
+	
+	/**
+	 * writes the class file
+	 */
+	private static final class ClassBuilder {
+		
+		private final Node root;
+		private final int nParams;
+		
+		// constant pool
+		private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+		private final DataOutputStream pool = new DataOutputStream(poolBytes);
+		private final Map<String, Integer> entries = new HashMap<String, Integer>();
+		private int poolCount = 1;
+		
+		// code of the method being written
+		private ByteArrayOutputStream code;
+		
+		ClassBuilder(Node root, int nParams){
+			this.root = root;
+			this.nParams = nParams;
+		}
+		
+		byte[] build(){
+			try{
+				int thisClass = classRef(CLASS_NAME);
+				int superClass = classRef("java/lang/Object");
+				int iface = classRef("jMath/func/Function1Var");
+				
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(body);
+				
+				// fields
+				out.writeShort(nParams);
+				for (int k = 0; k < nParams; k++){
+					out.writeShort(0x0012);  // private final
+					out.writeShort(utf8("p" + k));
+					out.writeShort(utf8("D"));
+					out.writeShort(0);
+				}
+				
+				// methods
+				out.writeShort(3);
+				writeConstructor(out);
+				writeScalar(out);
+				writeBatch(out);
+				
+				out.writeShort(0);  // class attributes
+				
+				ByteArrayOutputStream file = new ByteArrayOutputStream();
+				DataOutputStream cf = new DataOutputStream(file);
+				cf.writeInt(0xCAFEBABE);
+				cf.writeShort(0);
+				cf.writeShort(VERSION);
+				cf.writeShort(poolCount);
+				poolBytes.writeTo(cf);
+				cf.writeShort(0x0031);  // public final super
+				cf.writeShort(thisClass);
+				cf.writeShort(superClass);
+				cf.writeShort(1);
+				cf.writeShort(iface);
+				body.writeTo(cf);
+				return file.toByteArray();
+				
+			} catch (IOException e){
+				throw new IllegalStateException(e);
+			}
+		}
+		
+		/**
+		 * public Compiled(double p0, ...) { super(); this.p0 = p0; ... }
+		 */
+		private void writeConstructor(DataOutputStream out) throws IOException{
+			code = new ByteArrayOutputStream();
+			StringBuilder desc = new StringBuilder("(");
+			for (int k = 0; k < nParams; k++){
+				desc.append('D');
+			}
+			desc.append(")V");
+			
+			op(ALOAD_0);
+			op(INVOKESPECIAL);
+			u2(methodRef("java/lang/Object", "<init>", "()V"));
+			for (int k = 0; k < nParams; k++){
+				op(ALOAD_0);
+				op(DLOAD);
+				code.write(1 + 2*k);
+				op(PUTFIELD);
+				u2(fieldRef("p" + k));
+			}
+			op(RETURN);
+			
+			writeMethod(out, 0x0001, "<init>", desc.toString(), 3, 1 + 2*nParams);
+		}
+		
+		/**
+		 * public double f(double x) { return expr; }
+		 */
+		private void writeScalar(DataOutputStream out) throws IOException{
+			code = new ByteArrayOutputStream();
+			emit(root, 1);
+			op(DRETURN);
+			writeMethod(out, 0x0001, "f", "(D)D", stack(root), 3);
+		}
+		
+		/**
+		 * public void f(double[] x, double[] out, int off, int len)
+		 * locals: 1 x, 2 out, 3 off, 4 len, 5 i, 6 end, 7 x[i]
+		 */
+		private void writeBatch(DataOutputStream out) throws IOException{
+			code = new ByteArrayOutputStream();
+			
+			op(ILOAD); code.write(3);
+			op(ISTORE); code.write(5);
+			op(ILOAD); code.write(3);
+			op(ILOAD); code.write(4);
+			op(IADD);
+			op(ISTORE); code.write(6);
+			
+			int loop = code.size();
+			op(ILOAD); code.write(5);
+			op(ILOAD); code.write(6);
+			int branch = code.size();
+			op(IF_ICMPGE);
+			u2(0);  // patched below
+			
+			op(ALOAD); code.write(1);
+			op(ILOAD); code.write(5);
+			op(DALOAD);
+			op(DSTORE); code.write(7);
+			op(ALOAD); code.write(2);
+			op(ILOAD); code.write(5);
+			emit(root, 7);
+			op(DASTORE);
+			op(IINC); code.write(5); code.write(1);
+			int jump = code.size();
+			op(GOTO);
+			u2(loop - jump);
+			int end = code.size();
+			op(RETURN);
+			
+			byte[] bytes = code.toByteArray();
+			int offset = end - branch;
+			bytes[branch+1] = (byte)(offset >> 8);
+			bytes[branch+2] = (byte)offset;
+			code = new ByteArrayOutputStream();
+			code.write(bytes);
+			
+			writeMethod(out, 0x0001, "f", "([D[DII)V", 2 + stack(root), 9);
+		}
+		
+		private void writeMethod(DataOutputStream out, int access, String name, String desc, 
+				int maxStack, int maxLocals) throws IOException{
+			out.writeShort(access);
+			out.writeShort(utf8(name));
+			out.writeShort(utf8(desc));
+			out.writeShort(1);
+			
+			out.writeShort(utf8("Code"));
+			out.writeInt(12 + code.size());
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(code.size());
+			code.writeTo(out);
+			out.writeShort(0);  // exception table
+			out.writeShort(0);  // code attributes
+		}
+		
+		/**
+		 * bytecode leaving the value of node on the stack, with the variable in local slot
+		 */
+		private void emit(Node node, int slot) throws IOException{
+			if (node instanceof Num){
+				double v = ((Num) node).v;
+				if (Double.doubleToRawLongBits(v) == 0L) op(DCONST_0);
+				else if (v == 1.0) op(DCONST_1);
+				else{
+					op(LDC2_W);
+					u2(doubleConst(v));
+				}
+			} else if (node instanceof Var){
+				op(DLOAD);
+				code.write(slot);
+			} else if (node instanceof Param){
+				op(ALOAD_0);
+				op(GETFIELD);
+				u2(fieldRef("p" + ((Param) node).index));
+			} else if (node instanceof Negative){
+				emit(((Negative) node).a, slot);
+				op(DNEG);
+			} else if (node instanceof Binary){
+				Binary b = (Binary) node;
+				if (b.op == '^'){
+					emitPower(b, slot);
+					return;
+				}
+				emit(b.a, slot);
+				emit(b.b, slot);
+				switch (b.op){
+					case '+': op(DADD); break;
+					case '-': op(DSUB); break;
+					case '*': op(DMUL); break;
+					default: op(DDIV); break;
+				}
+			} else{
+				Call c = (Call) node;
+				StringBuilder desc = new StringBuilder("(");
+				for (Node a: c.args){
+					emit(a, slot);
+					desc.append('D');
+				}
+				desc.append(")D");
+				op(INVOKESTATIC);
+				u2(methodRef("java/lang/Math", c.fn, desc.toString()));
+			}
+		}
+		
+		/**
+		 * small integer powers are expanded into multiplications, others call Math.pow
+		 */
+		private void emitPower(Binary b, int slot) throws IOException{
+			int n = smallPower(b);
+			switch (n){
+				case 2:
+					emit(b.a, slot);
+					op(DUP2);
+					op(DMUL);
+					return;
+				case 3:
+					emit(b.a, slot);
+					op(DUP2);
+					op(DUP2);
+					op(DMUL);
+					op(DMUL);
+					return;
+				case 4:
+					emit(b.a, slot);
+					op(DUP2);
+					op(DMUL);
+					op(DUP2);
+					op(DMUL);
+					return;
+				case -1:
+					op(DCONST_1);
+					emit(b.a, slot);
+					op(DDIV);
+					return;
+				case -2:
+					op(DCONST_1);
+					emit(b.a, slot);
+					op(DUP2);
+					op(DMUL);
+					op(DDIV);
+					return;
+				default:
+					emit(b.a, slot);
+					emit(b.b, slot);
+					op(INVOKESTATIC);
+					u2(methodRef("java/lang/Math", "pow", "(DD)D"));
+			}
+		}
+		
+		/**
+		 * @return the exponent if it is one of the expanded integers, otherwise 0
+		 */
+		private static int smallPower(Binary b){
+			if (!(b.b instanceof Num)) return 0;
+			double p = ((Num) b.b).v;
+			if (p == 2.0 || p == 3.0 || p == 4.0 || p == -1.0 || p == -2.0) return (int) p;
+			return 0;
+		}
+		
+		/**
+		 * maximum operand stack depth (in slots) needed to evaluate node
+		 */
+		private static int stack(Node node){
+			if (node instanceof Negative){
+				return stack(((Negative) node).a);
+			} else if (node instanceof Binary){
+				Binary b = (Binary) node;
+				if (b.op == '^'){
+					switch (smallPower(b)){
+						case 2: case 4: return Math.max(stack(b.a), 4);
+						case 3: return Math.max(stack(b.a), 6);
+						case -1: return 2 + stack(b.a);
+						case -2: return 2 + Math.max(stack(b.a), 4);
+					}
+				}
+				return Math.max(stack(b.a), 2 + stack(b.b));
+			} else if (node instanceof Call){
+				Node[] args = ((Call) node).args;
+				int depth = 0;
+				for (int i = 0; i < args.length; i++){
+					depth = Math.max(depth, 2*i + stack(args[i]));
+				}
+				return depth;
+			}
+			return 2;
+		}
+		
+		private void op(int opcode){
+			code.write(opcode);
+		}
+		
+		private void u2(int v){
+			code.write(v >> 8);
+			code.write(v);
+		}
+		
+		// constant pool entries, shared when repeated
+		
+		private int utf8(String s) throws IOException{
+			Integer idx = entries.get("U" + s);
+			if (idx != null) return idx;
+			pool.writeByte(1);
+			pool.writeUTF(s);
+			entries.put("U" + s, poolCount);
+			return poolCount++;
+		}
+		
+		private int classRef(String name) throws IOException{
+			Integer idx = entries.get("C" + name);
+			if (idx != null) return idx;
+			int u = utf8(name);
+			pool.writeByte(7);
+			pool.writeShort(u);
+			entries.put("C" + name, poolCount);
+			return poolCount++;
+		}
+		
+		private int nameAndType(String name, String desc) throws IOException{
+			String key = "N" + name + ":" + desc;
+			Integer idx = entries.get(key);
+			if (idx != null) return idx;
+			int n = utf8(name);
+			int d = utf8(desc);
+			pool.writeByte(12);
+			pool.writeShort(n);
+			pool.writeShort(d);
+			entries.put(key, poolCount);
+			return poolCount++;
+		}
+		
+		private int fieldRef(String name) throws IOException{
+			String key = "F" + name;
+			Integer idx = entries.get(key);
+			if (idx != null) return idx;
+			int c = classRef(CLASS_NAME);
+			int nt = nameAndType(name, "D");
+			pool.writeByte(9);
+			pool.writeShort(c);
+			pool.writeShort(nt);
+			entries.put(key, poolCount);
+			return poolCount++;
+		}
+		
+		private int methodRef(String owner, String name, String desc) throws IOException{
+			String key = "M" + owner + "." + name + desc;
+			Integer idx = entries.get(key);
+			if (idx != null) return idx;
+			int c = classRef(owner);
+			int nt = nameAndType(name, desc);
+			pool.writeByte(10);
+			pool.writeShort(c);
+			pool.writeShort(nt);
+			entries.put(key, poolCount);
+			return poolCount++;
+		}
+		
+		private int doubleConst(double v) throws IOException{
+			String key = "D" + Double.doubleToRawLongBits(v);
+			Integer idx = entries.get(key);
+			if (idx != null) return idx;
+			pool.writeByte(6);
+			pool.writeDouble(v);
+			entries.put(key, poolCount);
+			int i = poolCount;
+			poolCount += 2;  // doubles take two entries
+			return i;
+		}
+	}
+}
@@ -7,5 +7,20 @@ public interface Function1Var {
 	 * @return f(x) 
 	 */
 	public double f(double x);
+	
+	/** Evaluates the function at a block of points, out[i] = f(x[i]) for off <= i < off + len.
+	 * The default loops over {@link #f(double)}.  Implementations can override it with a 
+	 * tight (and vectorizable) loop, which avoids a virtual call per point.
+	 * x and out may be the same array.
+	 * @param x arguments of the function
+	 * @param out on output the function values
+	 * @param off index of the first point
+	 * @param len number of points
+	 */
+	public default void f(double[] x, double[] out, int off, int len){
+		for (int i = off; i < off + len; i++){
+			out[i] = f(x[i]);
+		}
+	}
 
 }
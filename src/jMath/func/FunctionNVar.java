@@ -0,0 +1,11 @@
+package jMath.func;
+
+public interface FunctionNVar {
+	
+	/** Evaluates a scalar function of n variables
+	 * @param x argument of the function
+	 * @return f(x) 
+	 */
+	public double f(double[] x);
+
+}
@@ -0,0 +1,94 @@
+package jMath.func;
+
+/**
+ * A class of static methods that wrap a Function1Var to make repeated evaluation cheaper.
+ */
+public class Functions {
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * wraps f with a bounded cache of its values, for expensive functions that are 
+	 * evaluated repeatedly at the same points.  The cache is safe to use from many threads
+	 * and evicts the least recently used entries (approximately, by the CLOCK algorithm)
+	 * once it holds capacity values.
+	 * @param f
+	 * @param capacity  maximum number of cached values
+	 * @return cached version of f
+	 * @throws IllegalArgumentException
+	 */
+	public static MemoizedFunction1Var memoize(Function1Var f, int capacity) throws IllegalArgumentException{
+		return new MemoizedFunction1Var(f, capacity);
+	}
+	
+	/**
+	 * precomputes f at n equally spaced points on [a, b] and afterwards evaluates it 
+	 * by cubic interpolation of the table.  Points outside [a, b] are passed to f.
+	 * An estimate of the interpolation error, from comparing against f once in every interval, 
+	 * is available from {@link TabulatedFunction1Var#getEstimatedError getEstimatedError}.
+	 * @param f
+	 * @param a  start of the table
+	 * @param b  end of the table
+	 * @param n  number of points, at least 4
+	 * @return tabulated version of f
+	 * @throws IllegalArgumentException
+	 */
+	public static TabulatedFunction1Var tabulate(Function1Var f, double a, double b, int n) throws IllegalArgumentException{
+		return new TabulatedFunction1Var(f, a, b, n);
+	}
+	
+	/**
+	 * tabulates f on [a, b], doubling the number of points until the estimated 
+	 * interpolation error is below tol.  The estimate is a heuristic, see 
+	 * {@link TabulatedFunction1Var#getEstimatedError getEstimatedError}.  Use 
+	 * {@link #tabulateWithBound tabulateWithBound} when a guaranteed accuracy is needed.
+	 * @param f
+	 * @param a  start of the table
+	 * @param b  end of the table
+	 * @param tol  required absolute accuracy
+	 * @param maxPoints  upper limit on the size of the table
+	 * @return tabulated version of f
+	 * @throws IllegalArgumentException if the tolerance cannot be met within maxPoints
+	 */
+	public static TabulatedFunction1Var tabulate(Function1Var f, double a, double b, double tol, int maxPoints) 
+			throws IllegalArgumentException{
+		
+		int n = 17;
+		while (true){
+			TabulatedFunction1Var t = new TabulatedFunction1Var(f, a, b, n);
+			if (t.getEstimatedError() <= tol) return t;
+			if (2*n - 1 > maxPoints){
+				throw new IllegalArgumentException("Tolerance " + tol + " not met with " + n + " points");
+			}
+			n = 2*n - 1;
+		}
+	}
+	
+	/**
+	 * tabulates f on [a, b] with the fewest points for which the interpolation error 
+	 * is guaranteed to be below tol (apart from rounding error), given a bound on the 
+	 * fourth derivative of f
+	 * @param f
+	 * @param a  start of the table
+	 * @param b  end of the table
+	 * @param tol  required absolute accuracy
+	 * @param d4  upper bound on |f''''(x)| for x in [a, b]
+	 * @return tabulated version of f
+	 * @throws IllegalArgumentException if more than Integer.MAX_VALUE points would be needed
+	 */
+	public static TabulatedFunction1Var tabulateWithBound(Function1Var f, double a, double b, double tol, double d4) 
+			throws IllegalArgumentException{
+		
+		if (!(tol > 0.0) || !(d4 >= 0.0)){
+			throw new IllegalArgumentException("tol must be positive and d4 non-negative");
+		}
+		// d4 h^4 / 24 <= tol
+		double intervals = Math.ceil((b - a)/Math.pow(24.0*tol/d4, 0.25));
+		if (intervals >= Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Tolerance " + tol + " needs too many points");
+		}
+		return new TabulatedFunction1Var(f, a, b, Math.max(4, (int) intervals + 1));
+	}
+}
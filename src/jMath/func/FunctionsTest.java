@@ -0,0 +1,165 @@
+package jMath.func;
+import static jMath.func.Functions.*;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class FunctionsTest {
+	
+	public static final double tol = 1e-6;
+	
+	private static final Function1Var exp = new Function1Var() {
+		
+		@Override
+		public double f(double x) {
+			return Math.exp(x);
+		}
+	};
+	
+	@Test
+	public void testMemoize(){
+		MemoizedFunction1Var f = memoize(exp, 100);
+		for (int k = 0; k < 3; k++){
+			for (int i = 0; i < 50; i++){
+				assertEquals(Math.exp(0.1*i), f.f(0.1*i), 0.0);
+			}
+		}
+		assertEquals(50, f.getMisses());
+		assertEquals(100, f.getHits());
+		assertEquals(50, f.size());
+	}
+	
+	@Test
+	public void testMemoizeEviction(){
+		MemoizedFunction1Var f = memoize(exp, 10);
+		for (int i = 0; i < 1000; i++){
+			assertEquals(Math.exp(i % 37), f.f(i % 37), 0.0);
+			assertTrue(f.size() <= 10);
+		}
+		
+		double[] x = {1.0, 2.0, 1.0, 3.0};
+		double[] y = new double[4];
+		f.clear();
+		f.f(x, y, 0, 4);
+		for (int i = 0; i < 4; i++){
+			assertEquals(Math.exp(x[i]), y[i], 0.0);
+		}
+		assertEquals(3, f.size());
+	}
+	
+	@Test
+	public void testTabulate(){
+		TabulatedFunction1Var f = tabulate(exp, 0.0, 2.0, 1e-8, 100000);
+		assertTrue(f.getEstimatedError() <= 1e-8);
+		for (int i = 0; i <= 200; i++){
+			double x = 0.01*i + 1e-4;
+			assertEquals(Math.exp(x), f.f(x), 1e-8);
+		}
+		assertEquals(Math.exp(3.0), f.f(3.0), 0.0);
+	}
+	
+	@Test
+	public void testTabulateWithBound(){
+		// |exp''''| <= e^2 on [0, 2]
+		double d4 = Math.exp(2.0);
+		TabulatedFunction1Var f = tabulateWithBound(exp, 0.0, 2.0, 1e-8, d4);
+		assertTrue(f.getErrorBound(d4) <= 1e-8);
+		assertTrue(f.getEstimatedError() <= f.getErrorBound(d4));
+		double err = 0.0;
+		for (int i = 0; i <= 20000; i++){
+			double x = 1e-4*i;
+			err = Math.max(err, Math.abs(Math.exp(x) - f.f(x)));
+		}
+		assertTrue(err <= f.getErrorBound(d4));
+		// the check points find the error in the end intervals to within a few percent
+		assertEquals(err, f.getEstimatedError(), 0.05*err);
+	}
+
+	@Test
+	public void testChebyshev(){
+		ChebyshevApproximation p = new ChebyshevApproximation(exp, -1.0, 2.0, 1e-12);
+		assertTrue(p.getDegree() < 30);
+		
+		double[] x = new double[101];
+		double[] y = new double[101];
+		for (int i = 0; i <= 100; i++){
+			x[i] = -1.0 + 0.03*i;
+		}
+		p.f(x, y, 0, x.length);
+		for (int i = 0; i <= 100; i++){
+			assertEquals(Math.exp(x[i]), p.f(x[i]), 1e-11);
+			assertEquals(p.f(x[i]), y[i], 1e-14);
+		}
+		
+		assertEquals(Math.exp(0.7), p.derivative().f(0.7), 1e-9);
+		assertEquals(Math.exp(0.7) - Math.exp(-1.0), p.integral().f(0.7), 1e-11);
+		assertEquals(Math.exp(2.0) - Math.exp(-1.0), p.integrate(), 1e-11);
+	}
+	
+	@Test
+	public void testChebyshevRoots(){
+		ChebyshevApproximation p = new ChebyshevApproximation(new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return Math.sin(x);
+			}
+		}, -1.0, 10.0, 1e-13);
+		
+		double[] r = p.roots();
+		assertEquals(4, r.length);
+		for (int i = 0; i < 4; i++){
+			assertEquals(i*Math.PI, r[i], 1e-12);
+		}
+	}
+
+	@Test
+	public void testExpression(){
+		Function1Var f = Expression.compile("3*x^2 - sin(x)/2 + exp(-x) + pow(x, 1.5) - 1/x^3");
+		double x = 1.3;
+		assertEquals(3*x*x - Math.sin(x)/2 + Math.exp(-x) + Math.pow(x, 1.5) - 1/(x*x*x), f.f(x), 1e-12);
+		
+		Expression e = Expression.parse("a*sin(b*t) + c", "t", "a", "b", "c");
+		assertSame(e, Expression.parse("a*sin(b*t) + c", "t", "a", "b", "c"));
+		
+		Function1Var g = e.bind(2.0, 3.0, 4.0);
+		double[] t = {0.1, 0.2, 0.3};
+		double[] y = new double[3];
+		g.f(t, y, 0, 3);
+		for (int i = 0; i < 3; i++){
+			assertEquals(2.0*Math.sin(3.0*t[i]) + 4.0, y[i], 1e-14);
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testExpressionError(){
+		Expression.compile("2*(x + y)");
+	}
+	
+	@Test
+	public void testExpressionNames(){
+		String[][] bad = {{"x y"}, {""}, {"2x"}, {"x", "x"}, {"t", "a", "a"}, {"x", "pi"}, {"sin"}, {"x", "a|b"}};
+		for (String[] names: bad){
+			try{
+				Expression.parse("1", names[0], Arrays.copyOfRange(names, 1, names.length));
+				fail(Arrays.toString(names));
+			} catch (IllegalArgumentException e){
+				// expected
+			}
+		}
+		assertEquals(3.0, Expression.parse("x_1 + a2", "x_1", "a2").bind(1.0).f(2.0), 0.0);
+	}
+	
+	@Test
+	public void testExpressionCacheBounded(){
+		Expression first = Expression.parse("x + 0", "x");
+		for (int i = 1; i <= 1000; i++){
+			Expression.parse("x + " + i, "x");
+		}
+		assertNotSame(first, Expression.parse("x + 0", "x"));
+	}
+
+}
@@ -0,0 +1,12 @@
+package jMath.func;
+
+public interface IndexedFunction1Var {
+	
+	/** Evaluates the i-th member of a family of one dimensional functions
+	 * @param i index of the function in the family
+	 * @param x argument of the function
+	 * @return f_i(x) 
+	 */
+	public double f(int i, double x);
+
+}
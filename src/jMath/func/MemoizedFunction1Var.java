@@ -0,0 +1,305 @@
+package jMath.func;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Function1Var that caches the values of another.
+ * Keys are the bits of the argument stored in primitive arrays (no boxing), 
+ * split into independently locked segments.  Each segment is an open addressing 
+ * hash index over a fixed set of slots, with slots reclaimed by the CLOCK algorithm.
+ * Created by {@link Functions#memoize Functions.memoize}.
+ */
+public class MemoizedFunction1Var implements Function1Var {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// wrapped function
+	private final Function1Var f;
+	
+	private final Segment[] segments;
+	
+	// segments.length - 1
+	private final int segmentMask;
+	
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	
+	// target number of entries per segment when choosing the number of segments
+	private static final int SEGMENT_SIZE = 64;
+	
+	private static final int MAX_SEGMENTS = 16;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	MemoizedFunction1Var(Function1Var f, int capacity){
+		if (capacity < 1){
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.f = f;
+		
+		int ns = 1;
+		while (2*ns <= MAX_SEGMENTS && 2*ns*SEGMENT_SIZE <= capacity){
+			ns *= 2;
+		}
+		segments = new Segment[ns];
+		segmentMask = ns - 1;
+		
+		int per = (capacity + ns - 1)/ns;
+		for (int i = 0; i < ns; i++){
+			segments[i] = new Segment(per);
+		}
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	@Override
+	public double f(double x) {
+		long key = Double.doubleToLongBits(x);
+		int h = hash(key);
+		Segment s = segments[h & segmentMask];
+		
+		synchronized (s){
+			int slot = s.find(key, h);
+			if (slot >= 0){
+				hits.increment();
+				return s.vals[slot];
+			}
+		}
+		
+		// evaluate outside the lock, another thread may race us to the same value
+		misses.increment();
+		double y = f.f(x);
+		synchronized (s){
+			s.put(key, h, y);
+		}
+		return y;
+	}
+	
+	@Override
+	public void f(double[] x, double[] out, int off, int len) {
+		// look everything up first, then pass all of the misses to f as one batch
+		int[] missIdx = null;
+		double[] missX = null;
+		int nMiss = 0;
+		
+		for (int i = off; i < off + len; i++){
+			long key = Double.doubleToLongBits(x[i]);
+			int h = hash(key);
+			Segment s = segments[h & segmentMask];
+			int slot;
+			synchronized (s){
+				slot = s.find(key, h);
+				if (slot >= 0) out[i] = s.vals[slot];
+			}
+			if (slot < 0){
+				if (missIdx == null){
+					missIdx = new int[len];
+					missX = new double[len];
+				}
+				missIdx[nMiss] = i;
+				missX[nMiss++] = x[i];
+			}
+		}
+		
+		hits.add(len - nMiss);
+		if (nMiss == 0) return;
+		misses.add(nMiss);
+		
+		double[] missY = new double[nMiss];
+		f.f(missX, missY, 0, nMiss);
+		
+		for (int j = 0; j < nMiss; j++){
+			out[missIdx[j]] = missY[j];
+			long key = Double.doubleToLongBits(missX[j]);
+			int h = hash(key);
+			Segment s = segments[h & segmentMask];
+			synchronized (s){
+				s.put(key, h, missY[j]);
+			}
+		}
+	}
+	
+	/**
+	 * @return number of evaluations answered from the cache
+	 */
+	public long getHits(){
+		return hits.sum();
+	}
+	
+	/**
+	 * @return number of evaluations passed to the wrapped function
+	 */
+	public long getMisses(){
+		return misses.sum();
+	}
+	
+	/**
+	 * @return fraction of evaluations answered from the cache
+	 */
+	public double getHitRate(){
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return (total == 0)? 0.0 : (double)h/total;
+	}
+	
+	/**
+	 * @return number of values currently cached
+	 */
+	public int size(){
+		int n = 0;
+		for (Segment s: segments){
+			synchronized (s){
+				n += s.size;
+			}
+		}
+		return n;
+	}
+	
+	/**
+	 * empties the cache and resets the statistics
+	 */
+	public void clear(){
+		for (Segment s: segments){
+			synchronized (s){
+				s.clear();
+			}
+		}
+		hits.reset();
+		misses.reset();
+	}
+	
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	/**
+	 * spreads the bits of the key (finalizer of MurmurHash3)
+	 */
+	private static int hash(long key){
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int)key;
+	}
+	
+	/**
+	 * one independently locked part of the cache
+	 */
+	private static class Segment {
+		
+		// entries
+		final long[] keys;
+		final double[] vals;
+		final boolean[] ref;
+		final int capacity;
+		int size;
+		
+		// clock hand
+		int hand;
+		
+		// linear probing index, slot + 1 or 0 if empty
+		final int[] table;
+		final int mask;
+		
+		Segment(int capacity){
+			this.capacity = capacity;
+			keys = new long[capacity];
+			vals = new double[capacity];
+			ref = new boolean[capacity];
+			
+			int t = 1;
+			while (t < 2*capacity){
+				t *= 2;
+			}
+			table = new int[t];
+			mask = t - 1;
+		}
+		
+		/**
+		 * @return slot holding key, or -1
+		 */
+		int find(long key, int h){
+			int i = (h >>> 4) & mask;
+			while (true){
+				int e = table[i];
+				if (e == 0) return -1;
+				int slot = e - 1;
+				if (keys[slot] == key){
+					ref[slot] = true;
+					return slot;
+				}
+				i = (i + 1) & mask;
+			}
+		}
+		
+		void put(long key, int h, double val){
+			if (find(key, h) >= 0) return;
+			
+			int slot;
+			if (size < capacity){
+				slot = size++;
+			} else{
+				// advance the clock hand past recently used entries
+				while (ref[hand]){
+					ref[hand] = false;
+					hand = (hand + 1) % capacity;
+				}
+				slot = hand;
+				hand = (hand + 1) % capacity;
+				remove(slot);
+			}
+			
+			keys[slot] = key;
+			vals[slot] = val;
+			ref[slot] = false;
+			
+			int i = (h >>> 4) & mask;
+			while (table[i] != 0){
+				i = (i + 1) & mask;
+			}
+			table[i] = slot + 1;
+		}
+		
+		/**
+		 * removes the index entry of a slot, shifting back later entries of its probe sequence
+		 */
+		private void remove(int slot){
+			int i = (hash(keys[slot]) >>> 4) & mask;
+			while (table[i] != slot + 1){
+				i = (i + 1) & mask;
+			}
+			
+			int j = i;
+			while (true){
+				j = (j + 1) & mask;
+				int e = table[j];
+				if (e == 0) break;
+				int k = (hash(keys[e-1]) >>> 4) & mask;
+				
+				// entry at j can fill the hole at i unless its home is cyclically in (i, j]
+				boolean stays = (i <= j)? (i < k && k <= j) : (i < k || k <= j);
+				if (!stays){
+					table[i] = e;
+					i = j;
+				}
+			}
+			table[i] = 0;
+		}
+		
+		void clear(){
+			java.util.Arrays.fill(table, 0);
+			java.util.Arrays.fill(ref, false);
+			size = 0;
+			hand = 0;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package jMath.func;
+
+/**
+ * A Function1Var approximated by cubic interpolation of a table of its values
+ * on equally spaced points.  Evaluation costs a few multiplications regardless of
+ * the cost of the original function.
+ * Created by {@link Functions#tabulate Functions.tabulate}.
+ */
+public class TabulatedFunction1Var implements Function1Var {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// the node polynomial of an end interval peaks at (3 - sqrt(5))/2 of the spacing from the end
+	private static final double END_PEAK = (3.0 - Math.sqrt(5.0))/2.0;
+	
+	// original function, used outside of the table
+	private final Function1Var f;
+	
+	// table bounds and spacing
+	private final double a, b, h;
+	
+	// tabulated values
+	private final double[] y;
+	
+	// largest interpolation error found at the sampled check points
+	private final double estimatedError;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	TabulatedFunction1Var(Function1Var f, double a, double b, int n){
+		if (n < 4){
+			throw new IllegalArgumentException("Table needs at least 4 points");
+		}
+		if (!(b > a)){
+			throw new IllegalArgumentException("Table requires b > a");
+		}
+		this.f = f;
+		this.a = a;
+		this.b = b;
+		h = (b - a)/(n - 1);
+		
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++){
+			x[i] = a + i*h;
+		}
+		x[n-1] = b;
+		y = new double[n];
+		f.f(x, y, 0, n);
+		
+		// check the interpolant against f where the node polynomial of each interval peaks:
+		// the midpoint of interior intervals, and 0.382h from the outer end of the two
+		// end intervals, whose stencils are off center
+		double[] xm = new double[n-1];
+		for (int i = 0; i < n-1; i++){
+			xm[i] = a + (i + 0.5)*h;
+		}
+		xm[0] = a + END_PEAK*h;
+		xm[n-2] = b - END_PEAK*h;
+		double[] ym = new double[n-1];
+		f.f(xm, ym, 0, n-1);
+		
+		double err = 0.0;
+		for (int i = 0; i < n-1; i++){
+			err = Math.max(err, Math.abs(interpolate(xm[i]) - ym[i]));
+		}
+		estimatedError = err;
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	@Override
+	public double f(double x) {
+		if (x < a || x > b) return f.f(x);
+		return interpolate(x);
+	}
+	
+	@Override
+	public void f(double[] x, double[] out, int off, int len) {
+		for (int i = off; i < off + len; i++){
+			double v = x[i];
+			out[i] = (v < a || v > b)? f.f(v) : interpolate(v);
+		}
+	}
+	
+	/**
+	 * An estimate of the interpolation error, not a guarantee.  It is the largest difference
+	 * between the interpolant and the original function at one check point per interval, 
+	 * placed where the error of a function with slowly varying fourth derivative is largest.
+	 * Features narrower than the table spacing can be missed.  
+	 * See {@link #getErrorBound(double) getErrorBound} for a rigorous bound.
+	 * @return the estimated maximum interpolation error on [a, b]
+	 */
+	public double getEstimatedError(){
+		return estimatedError;
+	}
+	
+	/**
+	 * A rigorous bound on the interpolation error on [a, b] (apart from rounding error) 
+	 * for a function whose fourth derivative is bounded by d4 on [a, b].
+	 * The cubic interpolation error is |f''''(c)/24 * (x - x0)(x - x1)(x - x2)(x - x3)|,
+	 * and the node polynomial is at most h^4 (reached in the end intervals).
+	 * @param d4  upper bound on |f''''(x)| for x in [a, b]
+	 * @return d4 h^4 / 24
+	 */
+	public double getErrorBound(double d4){
+		return d4*Math.pow(h, 4)/24.0;
+	}
+	
+	/**
+	 * @return spacing of the table
+	 */
+	public double getSpacing(){
+		return h;
+	}
+	
+	/**
+	 * @return number of points in the table
+	 */
+	public int getSize(){
+		return y.length;
+	}
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	/**
+	 * 4 point Lagrange interpolation on the uniform grid
+	 */
+	private double interpolate(double x){
+		int n = y.length;
+		double t = (x - a)/h;
+		int i = (int)t;
+		if (i < 1) i = 1;
+		else if (i > n-3) i = n-3;
+		double u = t - i;
+		
+		double um = u + 1.0;
+		double u1 = u - 1.0;
+		double u2 = u - 2.0;
+		
+		return -y[i-1]*u*u1*u2/6.0 
+				+ y[i]*um*u1*u2/2.0 
+				- y[i+1]*um*u*u2/2.0 
+				+ y[i+2]*um*u*u1/6.0;
+	}
+}
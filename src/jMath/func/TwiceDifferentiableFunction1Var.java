@@ -0,0 +1,14 @@
+package jMath.func;
+
+public interface TwiceDifferentiableFunction1Var extends DifferentiableFunction1Var {
+	
+	/** Evaluates a one dimensional function and its first two derivatives in one call.
+	 * If d has length one only the first derivative is required.
+	 * @param x argument of the function
+	 * @param d on output d[0] = f'(x) and d[1] = f''(x)
+	 * @return f(x) 
+	 */
+	@Override
+	public double f(double x, double[] d);
+
+}
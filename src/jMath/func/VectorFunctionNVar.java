@@ -0,0 +1,12 @@
+package jMath.func;
+
+public interface VectorFunctionNVar {
+	
+	/** Evaluates a vector valued function of n variables.
+	 * The result is written into a caller supplied array so that no allocation is needed.
+	 * @param x argument of the function
+	 * @param y on output y = F(x)
+	 */
+	public void f(double[] x, double[] y);
+
+}
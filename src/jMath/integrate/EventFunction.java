@@ -0,0 +1,22 @@
+package jMath.integrate;
+
+public interface EventFunction {
+	
+	/** Event function for ODE integration.  An event occurs where g changes sign.
+	 * @param t  independent variable
+	 * @param y  state
+	 * @return g(t, y)
+	 */
+	public double g(double t, double[] y);
+	
+	/** Called with the located time and state of each event.
+	 * The default stops the integration at the first event.
+	 * @param t  time of the event
+	 * @param y  state at the event (only valid during the call)
+	 * @return true to stop the integration at this event
+	 */
+	public default boolean onEvent(double t, double[] y){
+		return true;
+	}
+
+}
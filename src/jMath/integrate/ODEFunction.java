@@ -0,0 +1,13 @@
+package jMath.integrate;
+
+public interface ODEFunction {
+	
+	/** Evaluates the right hand side of the system of ordinary differential equations dy/dt = f(t, y).
+	 * The result is written into a caller supplied array so that no allocation is needed.
+	 * @param t  independent variable
+	 * @param y  state
+	 * @param dydt  on output dydt = f(t, y)
+	 */
+	public void f(double t, double[] y, double[] dydt);
+
+}
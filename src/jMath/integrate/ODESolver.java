@@ -0,0 +1,893 @@
+package jMath.integrate;
+
+import jMath.func.Function1Var;
+import jMath.linalg.LUFactorization;
+import jMath.linalg.Vector;
+import jMath.nonlinear.RootFinding;
+
+/**
+ * Integrates systems of ordinary differential equations dy/dt = f(t, y).
+ * All work arrays are allocated once for a given dimension, so an instance can be
+ * reused across many integrations without further allocation (instances are not thread safe).
+ * Three methods are provided:
+ *   ode45 - explicit Runge-Kutta (Dormand-Prince 5(4)) with adaptive steps and
+ *           fourth order dense output, like Matlab's ode45,
+ *   rk4 - classical fixed step fourth order Runge-Kutta,
+ *   bdf - implicit variable step backward differentiation (orders 1 and 2) for stiff
+ *         problems, with a finite difference Jacobian that is reused between steps.
+ * Solutions can be returned at requested times (interpolated from the dense output),
+ * and an optional EventFunction stops or reports the integration where g(t, y) changes sign.
+ * Integration may run backwards (tf < t0).
+ */
+public class ODESolver {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// dimension of the system
+	private final int n;
+
+	// options
+	private double relTol = 1e-3;
+	private double absTol = 1e-6;
+	private double initialStep = 0.0;
+	private double maxStep = 0.0;
+	private int maxSteps = 1000000;
+	private EventFunction event;
+
+	// statistics from the last integration
+	private int steps;
+	private int rejected;
+	private int evaluations;
+	private boolean complete;
+	private int eventCount;
+	private double eventTime;
+
+	// current problem and step
+	private ODEFunction f;
+	private double t, h, dir;
+
+	// state and derivative at the start (0) and end (1) of a step, swapped after each step
+	private double[] y0, y1, f0, f1;
+
+	// Runge-Kutta stages, dense output coefficients, and scratch
+	private final double[] k2, k3, k4, k5, k6, yt, r2, r3, r4, r5, ye;
+
+	// dense output over [tA, tA + hA]: Dormand-Prince if true, otherwise cubic Hermite
+	private boolean dopri;
+	private double tA, hA;
+
+	// requested output
+	private double[] tspan;
+	private double[][] yout;
+	private int nOut;
+
+	// event function at the start of the step, and its root finding form
+	private double gOld;
+	private final Function1Var eventRoot = new Function1Var() {
+
+		@Override
+		public double f(double s) {
+			interpolate(s, ye);
+			return event.g(s, ye);
+		}
+	};
+
+	// BDF workspaces, allocated on first use
+	private double[][] J, M;
+	private LUFactorization lu;
+	private double[] yPrev, psi, res;
+
+	// contraction rate of the simplified Newton iteration, NaN until measured for the current matrix
+	private double rate;
+
+	// Dormand-Prince coefficients
+	private static final double C2 = 1.0/5, C3 = 3.0/10, C4 = 4.0/5, C5 = 8.0/9;
+	private static final double A21 = 1.0/5;
+	private static final double A31 = 3.0/40, A32 = 9.0/40;
+	private static final double A41 = 44.0/45, A42 = -56.0/15, A43 = 32.0/9;
+	private static final double A51 = 19372.0/6561, A52 = -25360.0/2187, A53 = 64448.0/6561, A54 = -212.0/729;
+	private static final double A61 = 9017.0/3168, A62 = -355.0/33, A63 = 46732.0/5247, A64 = 49.0/176,
+			A65 = -5103.0/18656;
+	private static final double A71 = 35.0/384, A73 = 500.0/1113, A74 = 125.0/192, A75 = -2187.0/6784,
+			A76 = 11.0/84;
+	private static final double E1 = 71.0/57600, E3 = -71.0/16695, E4 = 71.0/1920, E5 = -17253.0/339200,
+			E6 = 22.0/525, E7 = -1.0/40;
+	private static final double D1 = -12715105075.0/11282082432.0, D3 = 87487479700.0/32700410799.0,
+			D4 = -10690763975.0/1880347072.0, D5 = 701980252875.0/199316789632.0,
+			D6 = -1453857185.0/822651844.0, D7 = 69997945.0/29380423.0;
+
+	// step size control
+	private static final double SAFETY = 0.9;
+	private static final double MIN_FACTOR = 0.2;
+	private static final double MAX_FACTOR = 5.0;
+
+	// largest step ratio for which variable step BDF2 is zero stable is 1 + sqrt(2)
+	private static final double MAX_FACTOR_BDF = 2.0;
+
+	// Newton iterations of the implicit method, converged when the weighted distance to the solution,
+	// estimated from the size of the last correction and the contraction rate, is below NEWTON_TOL
+	private static final int MAX_NEWTON = 4;
+	private static final double NEWTON_TOL = 0.01;
+
+	// a contraction rate above SLOW_RATE refreshes the Jacobian before the next step
+	private static final double SLOW_RATE = 0.5;
+
+	private static final double SQRT_EPS = Math.sqrt(Math.ulp(1.0));
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	/**
+	 * allocates a solver for systems of dimension n
+	 * @param n
+	 */
+	public ODESolver(int n){
+		this.n = n;
+		y0 = new double[n];
+		y1 = new double[n];
+		f0 = new double[n];
+		f1 = new double[n];
+		k2 = new double[n];
+		k3 = new double[n];
+		k4 = new double[n];
+		k5 = new double[n];
+		k6 = new double[n];
+		yt = new double[n];
+		r2 = new double[n];
+		r3 = new double[n];
+		r4 = new double[n];
+		r5 = new double[n];
+		ye = new double[n];
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * @param relTol  relative error tolerance of adaptive methods (default 1e-3)
+	 */
+	public void setRelTol(double relTol){
+		this.relTol = relTol;
+	}
+
+	/**
+	 * @param absTol  absolute error tolerance of adaptive methods (default 1e-6)
+	 */
+	public void setAbsTol(double absTol){
+		this.absTol = absTol;
+	}
+
+	/**
+	 * @param initialStep  size of the first step of adaptive methods, 0 to choose automatically
+	 */
+	public void setInitialStep(double initialStep){
+		this.initialStep = Math.abs(initialStep);
+	}
+
+	/**
+	 * @param maxStep  largest step of adaptive methods, 0 for a tenth of the interval
+	 */
+	public void setMaxStep(double maxStep){
+		this.maxStep = Math.abs(maxStep);
+	}
+
+	/**
+	 * @param maxSteps  maximum number of steps (accepted and rejected) per integration
+	 */
+	public void setMaxSteps(int maxSteps){
+		this.maxSteps = maxSteps;
+	}
+
+	/**
+	 * @param event  event function, or null for none
+	 */
+	public void setEvent(EventFunction event){
+		this.event = event;
+	}
+
+	/**
+	 * @return number of accepted steps in the last integration
+	 */
+	public int getSteps(){
+		return steps;
+	}
+
+	/**
+	 * @return number of rejected steps in the last integration
+	 */
+	public int getRejectedSteps(){
+		return rejected;
+	}
+
+	/**
+	 * @return number of evaluations of f made by the last integration
+	 */
+	public int getEvaluations(){
+		return evaluations;
+	}
+
+	/**
+	 * @return true if the last integration reached the final time or was stopped by an event,
+	 * false if it stopped because the step size became too small or too many steps were taken
+	 */
+	public boolean isComplete(){
+		return complete;
+	}
+
+	/**
+	 * @return number of events located in the last integration
+	 */
+	public int getEventCount(){
+		return eventCount;
+	}
+
+	/**
+	 * @return time of the last event located, NaN if none
+	 */
+	public double getEventTime(){
+		return eventTime;
+	}
+
+	/**
+	 * integrates from t0 to tf with the Dormand-Prince 5(4) pair, like Matlab's ode45.
+	 * @param f
+	 * @param t0  initial time
+	 * @param tf  final time
+	 * @param y  initial state, overwritten with the final state
+	 * @return the time reached (tf, or the time of a stopping event)
+	 * @throws IllegalArgumentException
+	 */
+	public double ode45(ODEFunction f, double t0, double tf, double[] y) throws IllegalArgumentException{
+		start(f, t0, tf, y, null, null);
+		dopri5(tf);
+		return finish(y);
+	}
+
+	/**
+	 * integrates through the times in tspan with the Dormand-Prince 5(4) pair.
+	 * The solution at each requested time is interpolated from the dense output,
+	 * so the outputs do not restrict the step size.
+	 * @param f
+	 * @param tspan  output times, monotonic, starting with the initial time
+	 * @param y0  initial state
+	 * @param yout  on output yout[i] = y(tspan[i])
+	 * @return number of outputs written (fewer than tspan.length if stopped by an event)
+	 * @throws IllegalArgumentException
+	 */
+	public int ode45(ODEFunction f, double[] tspan, double[] y0, double[][] yout) throws IllegalArgumentException{
+		start(f, tspan, y0, yout);
+		dopri5(tspan[tspan.length-1]);
+		return nOut;
+	}
+
+	/**
+	 * integrates from t0 to tf with the Dormand-Prince 5(4) pair
+	 * @param f
+	 * @param t0  initial time
+	 * @param tf  final time
+	 * @param y0  initial state
+	 * @return final state
+	 */
+	public Vector ode45(ODEFunction f, double t0, double tf, Vector y0){
+		double[] y = y0.getArray();
+		ode45(f, t0, tf, y);
+		return new Vector(y);
+	}
+
+	/**
+	 * integrates from t0 to tf with a fixed number of classical Runge-Kutta steps
+	 * @param f
+	 * @param t0  initial time
+	 * @param tf  final time
+	 * @param nSteps  number of steps
+	 * @param y  initial state, overwritten with the final state
+	 * @return the time reached (tf, or the time of a stopping event)
+	 * @throws IllegalArgumentException
+	 */
+	public double rk4(ODEFunction f, double t0, double tf, int nSteps, double[] y) throws IllegalArgumentException{
+		if (nSteps < 1){
+			throw new IllegalArgumentException("Number of steps must be positive");
+		}
+		start(f, t0, tf, y, null, null);
+
+		eval(t, y0, f0);
+		double dt = (tf - t0)/nSteps;
+		for (int i = 1; i <= nSteps; i++){
+			double tNew = (i == nSteps)? tf : t0 + i*dt;
+			if (rk4Step(tNew)) break;
+		}
+		complete = true;
+		return finish(y);
+	}
+
+	/**
+	 * integrates with one classical Runge-Kutta step between consecutive times in tspan
+	 * @param f
+	 * @param tspan  output times, monotonic, starting with the initial time
+	 * @param y0  initial state
+	 * @param yout  on output yout[i] = y(tspan[i])
+	 * @return number of outputs written (fewer than tspan.length if stopped by an event)
+	 * @throws IllegalArgumentException
+	 */
+	public int rk4(ODEFunction f, double[] tspan, double[] y0, double[][] yout) throws IllegalArgumentException{
+		start(f, tspan, y0, yout);
+
+		eval(t, this.y0, f0);
+		for (int i = 1; i < tspan.length; i++){
+			if (rk4Step(tspan[i])) break;
+		}
+		complete = true;
+		return nOut;
+	}
+
+	/**
+	 * integrates from t0 to tf with a fixed number of classical Runge-Kutta steps
+	 * @param f
+	 * @param t0  initial time
+	 * @param tf  final time
+	 * @param nSteps  number of steps
+	 * @param y0  initial state
+	 * @return final state
+	 */
+	public Vector rk4(ODEFunction f, double t0, double tf, int nSteps, Vector y0){
+		double[] y = y0.getArray();
+		rk4(f, t0, tf, nSteps, y);
+		return new Vector(y);
+	}
+
+	/**
+	 * integrates a stiff system from t0 to tf with variable step backward differentiation
+	 * formulas (backward Euler for the first step, then second order).  Each step solves
+	 * the implicit equations by Newton's method with the LU factorization of I - h*gamma*J.
+	 * Newton's method stops when the contraction rate predicts the remaining correction is small.
+	 * The finite difference Jacobian J is recomputed when the iteration fails or converges slowly.
+	 * @param f
+	 * @param t0  initial time
+	 * @param tf  final time
+	 * @param y  initial state, overwritten with the final state
+	 * @return the time reached (tf, or the time of a stopping event)
+	 * @throws IllegalArgumentException
+	 */
+	public double bdf(ODEFunction f, double t0, double tf, double[] y) throws IllegalArgumentException{
+		start(f, t0, tf, y, null, null);
+		bdf(tf);
+		return finish(y);
+	}
+
+	/**
+	 * integrates a stiff system through the times in tspan with variable step backward
+	 * differentiation formulas
+	 * @param f
+	 * @param tspan  output times, monotonic, starting with the initial time
+	 * @param y0  initial state
+	 * @param yout  on output yout[i] = y(tspan[i])
+	 * @return number of outputs written (fewer than tspan.length if stopped by an event)
+	 * @throws IllegalArgumentException
+	 */
+	public int bdf(ODEFunction f, double[] tspan, double[] y0, double[][] yout) throws IllegalArgumentException{
+		start(f, tspan, y0, yout);
+		bdf(tspan[tspan.length-1]);
+		return nOut;
+	}
+
+	/**
+	 * integrates a stiff system from t0 to tf with variable step backward differentiation formulas
+	 * @param f
+	 * @param t0  initial time
+	 * @param tf  final time
+	 * @param y0  initial state
+	 * @return final state
+	 */
+	public Vector bdf(ODEFunction f, double t0, double tf, Vector y0){
+		double[] y = y0.getArray();
+		bdf(f, t0, tf, y);
+		return new Vector(y);
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	private void start(ODEFunction f, double[] tspan, double[] y, double[][] yout){
+		if (tspan.length < 2){
+			throw new IllegalArgumentException("tspan must contain at least two times");
+		}
+		if (yout.length < tspan.length){
+			throw new IllegalArgumentException("Output array is too short");
+		}
+		start(f, tspan[0], tspan[tspan.length-1], y, tspan, yout);
+	}
+
+	private void start(ODEFunction f, double t0, double tf, double[] y, double[] tspan, double[][] yout){
+		if (y.length != n){
+			throw new IllegalArgumentException("Dimension of y must agree with the solver");
+		}
+		this.f = f;
+		this.tspan = tspan;
+		this.yout = yout;
+
+		t = t0;
+		h = 0.0;
+		dir = (tf >= t0)? 1.0 : -1.0;
+		System.arraycopy(y, 0, y0, 0, n);
+
+		steps = 0;
+		rejected = 0;
+		evaluations = 0;
+		complete = (t0 == tf);
+		eventCount = 0;
+		eventTime = Double.NaN;
+
+		nOut = 0;
+		if (tspan != null){
+			System.arraycopy(y, 0, yout[0], 0, n);
+			nOut = 1;
+		}
+		if (event != null) gOld = event.g(t0, y0);
+	}
+
+	private double finish(double[] y){
+		System.arraycopy(y0, 0, y, 0, n);
+		return t;
+	}
+
+	private void eval(double s, double[] y, double[] dydt){
+		f.f(s, y, dydt);
+		evaluations++;
+	}
+
+	/**
+	 * Dormand-Prince steps from t to tf
+	 */
+	private void dopri5(double tf){
+		dopri = true;
+		if (t == tf) return;
+		eval(t, y0, f0);
+		double hmax = (maxStep > 0.0)? maxStep : Math.abs(tf - t)/10;
+		h = initialStep(tf, 5, hmax);
+		boolean failed = false;
+
+		while (dir*(tf - t) > 0.0){
+
+			if (steps + rejected >= maxSteps) return;
+
+			// land exactly on tf
+			boolean last = false;
+			if (Math.abs(h) > hmax) h = dir*hmax;
+			if (dir*(t + 1.01*h - tf) >= 0.0){
+				h = tf - t;
+				last = true;
+			}
+			if (Math.abs(h) < minStep()) return;
+
+			// stages
+			for (int i = 0; i < n; i++){
+				yt[i] = y0[i] + h*A21*f0[i];
+			}
+			eval(t + C2*h, yt, k2);
+			for (int i = 0; i < n; i++){
+				yt[i] = y0[i] + h*(A31*f0[i] + A32*k2[i]);
+			}
+			eval(t + C3*h, yt, k3);
+			for (int i = 0; i < n; i++){
+				yt[i] = y0[i] + h*(A41*f0[i] + A42*k2[i] + A43*k3[i]);
+			}
+			eval(t + C4*h, yt, k4);
+			for (int i = 0; i < n; i++){
+				yt[i] = y0[i] + h*(A51*f0[i] + A52*k2[i] + A53*k3[i] + A54*k4[i]);
+			}
+			eval(t + C5*h, yt, k5);
+			for (int i = 0; i < n; i++){
+				yt[i] = y0[i] + h*(A61*f0[i] + A62*k2[i] + A63*k3[i] + A64*k4[i] + A65*k5[i]);
+			}
+			double tNew = last? tf : t + h;
+			eval(tNew, yt, k6);
+			for (int i = 0; i < n; i++){
+				y1[i] = y0[i] + h*(A71*f0[i] + A73*k3[i] + A74*k4[i] + A75*k5[i] + A76*k6[i]);
+			}
+			eval(tNew, y1, f1);
+
+			// error estimate, root mean square relative to the tolerances
+			double sum = 0.0;
+			for (int i = 0; i < n; i++){
+				double e = h*(E1*f0[i] + E3*k3[i] + E4*k4[i] + E5*k5[i] + E6*k6[i] + E7*f1[i]);
+				double sc = absTol + relTol*Math.max(Math.abs(y0[i]), Math.abs(y1[i]));
+				sum += (e/sc)*(e/sc);
+			}
+			double err = Math.sqrt(sum/n);
+
+			if (err > 1.0){
+				rejected++;
+				h *= Math.max(MIN_FACTOR, SAFETY*Math.pow(err, -0.2));
+				failed = true;
+				continue;
+			}
+
+			// accepted
+			steps++;
+			if (tspan != null || event != null){
+				for (int i = 0; i < n; i++){
+					r2[i] = y1[i] - y0[i];
+					r3[i] = h*f0[i] - r2[i];
+					r4[i] = r2[i] - h*f1[i] - r3[i];
+					r5[i] = h*(D1*f0[i] + D3*k3[i] + D4*k4[i] + D5*k5[i] + D6*k6[i] + D7*f1[i]);
+				}
+			}
+			boolean stop = advance(tNew);
+
+			double factor = (err == 0.0)? MAX_FACTOR :
+				Math.min(MAX_FACTOR, Math.max(MIN_FACTOR, SAFETY*Math.pow(err, -0.2)));
+			if (failed) factor = Math.min(factor, 1.0);
+			h *= factor;
+			failed = false;
+
+			if (stop) return;
+		}
+		complete = true;
+	}
+
+	/**
+	 * one classical Runge-Kutta step from t to tNew, leaving f at the new point in f0
+	 * @return true if stopped by an event
+	 */
+	private boolean rk4Step(double tNew){
+		dopri = false;
+		h = tNew - t;
+		double hh = h/2;
+
+		for (int i = 0; i < n; i++){
+			yt[i] = y0[i] + hh*f0[i];
+		}
+		eval(t + hh, yt, k2);
+		for (int i = 0; i < n; i++){
+			yt[i] = y0[i] + hh*k2[i];
+		}
+		eval(t + hh, yt, k3);
+		for (int i = 0; i < n; i++){
+			yt[i] = y0[i] + h*k3[i];
+		}
+		eval(tNew, yt, k4);
+		for (int i = 0; i < n; i++){
+			y1[i] = y0[i] + h/6*(f0[i] + 2*k2[i] + 2*k3[i] + k4[i]);
+		}
+		eval(tNew, y1, f1);
+
+		steps++;
+		return advance(tNew);
+	}
+
+	/**
+	 * variable step BDF from t to tf
+	 */
+	private void bdf(double tf){
+		dopri = false;
+		if (J == null){
+			J = new double[n][n];
+			M = new double[n][n];
+			lu = new LUFactorization(n);
+			yPrev = new double[n];
+			psi = new double[n];
+			res = new double[n];
+		}
+
+		if (t == tf) return;
+		eval(t, y0, f0);
+		double hmax = (maxStep > 0.0)? maxStep : Math.abs(tf - t)/10;
+		h = initialStep(tf, 1, hmax);
+
+		boolean havePrev = false;
+		double hPrev = 0.0;
+		boolean jacobianCurrent = false;
+		boolean needJacobian = true;
+		double factored = Double.NaN;
+		boolean failed = false;
+
+		while (dir*(tf - t) > 0.0){
+
+			if (steps + rejected >= maxSteps) return;
+
+			boolean last = false;
+			if (Math.abs(h) > hmax) h = dir*hmax;
+			if (dir*(t + 1.01*h - tf) >= 0.0){
+				h = tf - t;
+				last = true;
+			}
+			if (Math.abs(h) < minStep()) return;
+			double tNew = last? tf : t + h;
+
+			if (needJacobian && !jacobianCurrent){
+				jacobian();
+				jacobianCurrent = true;
+				factored = Double.NaN;
+			}
+			needJacobian = false;
+
+			// formula y1 = psi + h*gamma*f(tNew, y1) and predictor y1 (extrapolated from y0, f0, yPrev)
+			int order;
+			double gamma;
+			if (havePrev){
+				order = 2;
+				double w = h/hPrev;
+				double a1 = (1+w)*(1+w)/(1+2*w);
+				double a2 = -w*w/(1+2*w);
+				gamma = (1+w)/(1+2*w);
+				for (int i = 0; i < n; i++){
+					psi[i] = a1*y0[i] + a2*yPrev[i];
+					double c = (yPrev[i] - y0[i] + hPrev*f0[i])/(hPrev*hPrev);
+					y1[i] = y0[i] + h*f0[i] + c*h*h;
+				}
+			} else{
+				order = 1;
+				gamma = 1.0;
+				for (int i = 0; i < n; i++){
+					psi[i] = y0[i];
+					y1[i] = y0[i] + h*f0[i];
+				}
+			}
+			System.arraycopy(y1, 0, yt, 0, n);
+
+			double hg = h*gamma;
+			if (hg != factored){
+				for (int i = 0; i < n; i++){
+					for (int j = 0; j < n; j++){
+						M[i][j] = -hg*J[i][j];
+					}
+					M[i][i] += 1.0;
+				}
+				lu.factor(M);
+				factored = hg;
+				rate = Double.NaN;
+			}
+
+			if (lu.isSingular() || !newton(tNew, hg)){
+				if (!jacobianCurrent){
+					needJacobian = true;
+				} else{
+					rejected++;
+					h *= 0.25;
+					failed = true;
+				}
+				continue;
+			}
+
+			// error from the difference between corrector and predictor.  For step ratio w the 
+			// predictor error is y''' h^3 (1+w)/6w and the BDF2 error y''' h^3 (1+w)^2/(6w(1+2w))
+			double C;
+			if (order == 1){
+				C = 0.5;
+			} else{
+				double w = h/hPrev;
+				C = (1+w)/(2+3*w);
+			}
+			double sum = 0.0;
+			for (int i = 0; i < n; i++){
+				double e = C*(y1[i] - yt[i]);
+				double sc = absTol + relTol*Math.max(Math.abs(y0[i]), Math.abs(y1[i]));
+				sum += (e/sc)*(e/sc);
+			}
+			double err = Math.sqrt(sum/n);
+			double exponent = -1.0/(order + 1);
+
+			if (err > 1.0){
+				rejected++;
+				h *= Math.max(MIN_FACTOR, SAFETY*Math.pow(err, exponent));
+				failed = true;
+				continue;
+			}
+
+			// accepted, derivative at the new point from the formula
+			steps++;
+			for (int i = 0; i < n; i++){
+				f1[i] = (y1[i] - psi[i])/hg;
+			}
+
+			// the previous point is kept for the next step, so copy y0 before advance swaps it
+			System.arraycopy(y0, 0, yPrev, 0, n);
+			boolean stop = advance(tNew);
+
+			hPrev = h;
+			havePrev = true;
+			jacobianCurrent = false;
+
+			// a slowly converging iteration means the Jacobian is out of date
+			if (rate > SLOW_RATE) needJacobian = true;
+
+			double factor = (err == 0.0)? MAX_FACTOR_BDF :
+				Math.min(MAX_FACTOR_BDF, Math.max(MIN_FACTOR, SAFETY*Math.pow(err, exponent)));
+			if (failed) factor = Math.min(factor, 1.0);
+			h *= factor;
+			failed = false;
+
+			if (stop) return;
+		}
+		complete = true;
+	}
+
+	/**
+	 * simplified Newton iteration for y1 = psi + hg*f(tNew, y1), starting from the predictor in y1.
+	 * Converged when the remaining error, estimated as dn*rate/(1 - rate) from the last correction
+	 * dn and the contraction rate (as in Matlab's ode15s), is below NEWTON_TOL.  Fails as soon as
+	 * the iteration diverges or is predicted not to converge within MAX_NEWTON iterations.
+	 */
+	private boolean newton(double tNew, double hg){
+		double previous = 0.0;
+
+		for (int k = 0; k < MAX_NEWTON; k++){
+			eval(tNew, y1, f1);
+			for (int i = 0; i < n; i++){
+				res[i] = y1[i] - psi[i] - hg*f1[i];
+			}
+			lu.solve(res, res);
+
+			double sum = 0.0;
+			for (int i = 0; i < n; i++){
+				y1[i] -= res[i];
+				double sc = absTol + relTol*Math.abs(y1[i]);
+				sum += (res[i]/sc)*(res[i]/sc);
+			}
+			double dn = Math.sqrt(sum/n);
+
+			if (dn <= 1e-3*NEWTON_TOL) return true;
+			if (k == 0){
+				// only a rate measured earlier with the same matrix can accept the first iterate
+				if (!Double.isNaN(rate) && dn*rate/(1 - rate) <= NEWTON_TOL) return true;
+			} else{
+				double r = dn/previous;
+				if (r > 0.9) return false;
+				rate = Double.isNaN(rate)? r : Math.max(0.9*rate, r);
+				double remaining = dn*rate/(1 - rate);
+				if (remaining <= NEWTON_TOL) return true;
+				if (remaining*Math.pow(rate, MAX_NEWTON - 1 - k) > NEWTON_TOL) return false;
+			}
+			previous = dn;
+		}
+		return false;
+	}
+
+	/**
+	 * forward difference Jacobian of f at (t, y0).
+	 * f0 may hold the derivative from the BDF formula, which differs from f(t, y0) by the 
+	 * Newton residual, so the base value is evaluated afresh.
+	 */
+	private void jacobian(){
+		eval(t, y0, k3);
+		for (int j = 0; j < n; j++){
+			double yj = y0[j];
+			double del = SQRT_EPS*Math.max(Math.abs(yj), 1.0);
+			y0[j] = yj + del;
+			del = y0[j] - yj;  // exactly representable step
+			eval(t, y0, k2);
+			y0[j] = yj;
+
+			for (int i = 0; i < n; i++){
+				J[i][j] = (k2[i] - k3[i])/del;
+			}
+		}
+	}
+
+	/**
+	 * after an accepted step from (t, y0, f0) to (tNew, y1, f1): locate events, write
+	 * requested outputs, then make the new point current.
+	 * @return true if an event stopped the integration
+	 */
+	private boolean advance(double tNew){
+		tA = t;
+		hA = tNew - t;
+		double tEnd = tNew;
+		boolean stop = false;
+
+		if (event != null){
+			double g1 = event.g(tNew, y1);
+			if (gOld != 0.0 && (g1 == 0.0 || (gOld < 0.0) != (g1 < 0.0))){
+				double te;
+				if (g1 == 0.0){
+					te = tNew;
+					System.arraycopy(y1, 0, ye, 0, n);
+				} else{
+					double tol = 4*Math.ulp(Math.max(Math.abs(t), Math.abs(tNew)));
+					te = RootFinding.fzero(eventRoot, Math.min(t, tNew), Math.max(t, tNew), tol);
+					interpolate(te, ye);
+				}
+				eventCount++;
+				eventTime = te;
+				if (event.onEvent(te, ye)){
+					stop = true;
+					tEnd = te;
+				}
+			}
+			gOld = g1;
+		}
+
+		if (tspan != null){
+			while (nOut < tspan.length && dir*(tspan[nOut] - tEnd) <= 0.0){
+				if (tspan[nOut] == tNew) System.arraycopy(y1, 0, yout[nOut], 0, n);
+				else interpolate(tspan[nOut], yout[nOut]);
+				nOut++;
+			}
+		}
+
+		if (stop){
+			t = tEnd;
+			System.arraycopy(ye, 0, y0, 0, n);
+			complete = true;
+			return true;
+		}
+
+		t = tNew;
+		double[] tmp = y0;
+		y0 = y1;
+		y1 = tmp;
+		tmp = f0;
+		f0 = f1;
+		f1 = tmp;
+		return false;
+	}
+
+	/**
+	 * dense output at time s within the last step
+	 */
+	private void interpolate(double s, double[] out){
+		double th = (s - tA)/hA;
+		double th1 = 1.0 - th;
+
+		if (dopri){
+			for (int i = 0; i < n; i++){
+				out[i] = y0[i] + th*(r2[i] + th1*(r3[i] + th*(r4[i] + th1*r5[i])));
+			}
+		} else{
+			// cubic Hermite
+			double h00 = (1 + 2*th)*th1*th1;
+			double h10 = th*th1*th1*hA;
+			double h01 = th*th*(3 - 2*th);
+			double h11 = -th*th*th1*hA;
+			for (int i = 0; i < n; i++){
+				out[i] = h00*y0[i] + h10*f0[i] + h01*y1[i] + h11*f1[i];
+			}
+		}
+	}
+
+	/**
+	 * starting step size (Hairer, Norsett and Wanner), f0 must hold f(t, y0)
+	 */
+	private double initialStep(double tf, int order, double hmax){
+		double span = Math.abs(tf - t);
+		if (initialStep > 0.0) return dir*Math.min(initialStep, span);
+
+		double d0 = 0.0, d1 = 0.0;
+		for (int i = 0; i < n; i++){
+			double sc = absTol + relTol*Math.abs(y0[i]);
+			d0 += (y0[i]/sc)*(y0[i]/sc);
+			d1 += (f0[i]/sc)*(f0[i]/sc);
+		}
+		d0 = Math.sqrt(d0/n);
+		d1 = Math.sqrt(d1/n);
+
+		double h0 = (d0 < 1e-5 || d1 < 1e-5)? 1e-6 : 0.01*d0/d1;
+		h0 = Math.min(h0, span);
+
+		for (int i = 0; i < n; i++){
+			yt[i] = y0[i] + dir*h0*f0[i];
+		}
+		eval(t + dir*h0, yt, k2);
+		double d2 = 0.0;
+		for (int i = 0; i < n; i++){
+			double sc = absTol + relTol*Math.abs(y0[i]);
+			double e = (k2[i] - f0[i])/sc;
+			d2 += e*e;
+		}
+		d2 = Math.sqrt(d2/n)/h0;
+
+		double dm = Math.max(d1, d2);
+		double h1 = (dm <= 1e-15)? Math.max(1e-6, 1e-3*h0) : Math.pow(0.01/dm, 1.0/(order + 1));
+		return dir*Math.min(Math.min(100*h0, h1), Math.min(span, hmax));
+	}
+
+	private double minStep(){
+		return 16*Math.ulp(Math.abs(t));
+	}
+}
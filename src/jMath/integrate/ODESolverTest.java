@@ -0,0 +1,158 @@
+package jMath.integrate;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ODESolverTest {
+	
+	public static final double tol = 1e-6;
+	
+	// y' = -y
+	private static final ODEFunction decay = new ODEFunction() {
+		
+		@Override
+		public void f(double t, double[] y, double[] dydt) {
+			dydt[0] = -y[0];
+		}
+	};
+	
+	// y'' = -y
+	private static final ODEFunction oscillator = new ODEFunction() {
+		
+		@Override
+		public void f(double t, double[] y, double[] dydt) {
+			dydt[0] = y[1];
+			dydt[1] = -y[0];
+		}
+	};
+
+	@Test
+	public void testOde45(){
+		ODESolver solver = new ODESolver(1);
+		solver.setRelTol(1e-8);
+		solver.setAbsTol(1e-10);
+		
+		double[] tspan = {0.0, 0.3, 0.5, 1.7, 2.0};
+		double[][] y = new double[tspan.length][1];
+		assertEquals(5, solver.ode45(decay, tspan, new double[]{1.0}, y));
+		for (int i = 0; i < tspan.length; i++){
+			assertEquals(Math.exp(-tspan[i]), y[i][0], tol);
+		}
+		assertTrue(solver.isComplete());
+		
+		// backwards
+		double[] y0 = {Math.exp(-2.0)};
+		assertEquals(0.0, solver.ode45(decay, 2.0, 0.0, y0), 0.0);
+		assertEquals(1.0, y0[0], tol);
+	}
+	
+	@Test
+	public void testEvent(){
+		ODESolver solver = new ODESolver(2);
+		solver.setRelTol(1e-8);
+		solver.setAbsTol(1e-10);
+		solver.setEvent(new EventFunction() {
+			
+			@Override
+			public double g(double t, double[] y) {
+				return y[0];
+			}
+		});
+		
+		double[] y = {1.0, 0.0};
+		double te = solver.ode45(oscillator, 0.0, 10.0, y);
+		assertEquals(Math.PI/2, te, tol);
+		assertEquals(0.0, y[0], tol);
+		assertEquals(-1.0, y[1], tol);
+		assertEquals(1, solver.getEventCount());
+		
+		// count crossings without stopping
+		solver.setEvent(new EventFunction() {
+			
+			@Override
+			public double g(double t, double[] y) {
+				return y[0];
+			}
+			
+			@Override
+			public boolean onEvent(double t, double[] y) {
+				return false;
+			}
+		});
+		y = new double[]{1.0, 0.0};
+		assertEquals(10.0, solver.rk4(oscillator, 0.0, 10.0, 1000, y), 0.0);
+		assertEquals(3, solver.getEventCount());
+		assertEquals(2.5*Math.PI, solver.getEventTime(), 1e-6);
+	}
+	
+	@Test
+	public void testRK4(){
+		ODESolver solver = new ODESolver(2);
+		double[] y = {1.0, 0.0};
+		solver.rk4(oscillator, 0.0, Math.PI, 200, y);
+		assertEquals(-1.0, y[0], 1e-8);
+		assertEquals(0.0, y[1], 1e-8);
+		assertEquals(801, solver.getEvaluations());
+	}
+	
+	@Test
+	public void testBDF(){
+		// stiff: y' = -1000 (y - cos t) - sin t, y = cos t
+		ODEFunction stiff = new ODEFunction() {
+			
+			@Override
+			public void f(double t, double[] y, double[] dydt) {
+				dydt[0] = -1000*(y[0] - Math.cos(t)) - Math.sin(t);
+			}
+		};
+		
+		ODESolver solver = new ODESolver(1);
+		solver.setRelTol(1e-6);
+		solver.setAbsTol(1e-8);
+		double[] tspan = {0.0, 1.0, 2.0, 3.0};
+		double[][] y = new double[4][1];
+		solver.bdf(stiff, tspan, new double[]{1.0}, y);
+		for (int i = 0; i < tspan.length; i++){
+			assertEquals(Math.cos(tspan[i]), y[i][0], 1e-5);
+		}
+		assertTrue(solver.isComplete());
+		int bdfSteps = solver.getSteps();
+		
+		solver.ode45(stiff, 0.0, 3.0, new double[]{1.0});
+		assertTrue(bdfSteps < solver.getSteps());
+	}
+
+	@Test
+	public void testBDFVanDerPol(){
+		// van der Pol with mu = 1000, reference values computed with RelTol = 1e-8
+		ODEFunction vdp = new ODEFunction() {
+			
+			@Override
+			public void f(double t, double[] y, double[] dydt) {
+				dydt[0] = y[1];
+				dydt[1] = 1000*(1 - y[0]*y[0])*y[1] - y[0];
+			}
+		};
+		
+		ODESolver solver = new ODESolver(2);
+		solver.setRelTol(1e-4);
+		solver.setAbsTol(1e-6);
+		double[] y = {2.0, 0.0};
+		solver.bdf(vdp, 0.0, 800.0, y);
+		assertTrue(solver.isComplete());
+		assertEquals(1.08392, y[0], 0.02);
+		
+		y = new double[]{2.0, 0.0};
+		solver.bdf(vdp, 0.0, 3000.0, y);
+		assertTrue(solver.isComplete());
+		assertEquals(-1.5106, y[0], 0.02);
+		
+		solver.setRelTol(1e-6);
+		solver.setAbsTol(1e-8);
+		y = new double[]{2.0, 0.0};
+		solver.bdf(vdp, 0.0, 800.0, y);
+		assertEquals(1.08392, y[0], 1e-3);
+	}
+
+}
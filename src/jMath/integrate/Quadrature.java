@@ -0,0 +1,264 @@
+package jMath.integrate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jMath.func.Function1Var;
+
+/**
+ * Numerical integration of functions (see {@link jMath.linalg.Array1D#trapz trapz} and 
+ * friends for integration of sampled data).
+ */
+public class Quadrature {
+	
+	// Gauss-Kronrod 7-15 nodes on [-1, 1], in decreasing order, the last is the center
+	private static final double[] XGK = {
+		0.991455371120812639206854697526329,
+		0.949107912342758524526189684047851,
+		0.864864423359769072789712788640926,
+		0.741531185599394439863864773280788,
+		0.586087235467691130294144845693013,
+		0.405845151377397166906606412076961,
+		0.207784955007898467600689403773245,
+		0.000000000000000000000000000000000 };
+	
+	// Kronrod weights of the nodes above
+	private static final double[] WGK = {
+		0.022935322010529224963732008058970,
+		0.063092092629978553290700663189204,
+		0.104790010322250183839876322541518,
+		0.140653259715525918745189590510238,
+		0.169004726639267902826583426598550,
+		0.190350578064785409913256402421014,
+		0.204432940075298892414161999234649,
+		0.209482141084727828012999174891714 };
+	
+	// Gauss weights of the odd nodes XGK[1], XGK[3], XGK[5] and the center XGK[7]
+	private static final double[] WG = {
+		0.129484966168869693270611432679082,
+		0.279705391489276667901467771423780,
+		0.381830050505118944950369775488975,
+		0.417959183673469387755102040816327 };
+	
+	// maximum number of subintervals
+	private static final int MAX_INTERVALS = 2000;
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * integral of f from a to b by globally adaptive Gauss-Kronrod (G7-K15) quadrature.
+	 * The subinterval with the largest error estimate is bisected until the total 
+	 * estimated error is below max(absTol, relTol*|integral|).  The 15 nodes of each
+	 * subinterval are evaluated as one batch through f's batch method.
+	 * @param f
+	 * @param a  lower limit
+	 * @param b  upper limit
+	 * @param absTol  absolute error tolerance
+	 * @param relTol  relative error tolerance
+	 * @return the integral
+	 */
+	public static double integral(Function1Var f, double a, double b, double absTol, double relTol){
+		return integral(f, a, b, absTol, relTol, null);
+	}
+	
+	/**
+	 * integral of f from a to b to an absolute tolerance
+	 * @param f
+	 * @param a  lower limit
+	 * @param b  upper limit
+	 * @param tol  absolute error tolerance
+	 * @return the integral
+	 */
+	public static double integral(Function1Var f, double a, double b, double tol){
+		return integral(f, a, b, tol, 0.0, null);
+	}
+	
+	/**
+	 * integral of f from a to b with Matlab's default tolerances 
+	 * (1e-10 absolute, 1e-6 relative)
+	 * @param f
+	 * @param a  lower limit
+	 * @param b  upper limit
+	 * @return the integral
+	 */
+	public static double integral(Function1Var f, double a, double b){
+		return integral(f, a, b, 1e-10, 1e-6, null);
+	}
+	
+	/**
+	 * integral of f from a to b, refining several subintervals at once in parallel on pool.
+	 * f must be safe to call concurrently.
+	 * @param f
+	 * @param a  lower limit
+	 * @param b  upper limit
+	 * @param absTol  absolute error tolerance
+	 * @param relTol  relative error tolerance
+	 * @param pool  pool for the refinement, or null to refine on the calling thread
+	 * @return the integral
+	 */
+	public static double integral(Function1Var f, double a, double b, double absTol, double relTol, 
+			ForkJoinPool pool){
+		
+		if (a == b) return 0.0;
+		
+		int width = (pool == null)? 1 : 2*pool.getParallelism();
+		
+		Segment first = new Segment(a, b);
+		first.evaluate(f);
+		
+		PriorityQueue<Segment> queue = new PriorityQueue<Segment>();
+		queue.add(first);
+		double total = first.integral;
+		double error = first.error;
+		
+		List<Segment> batch = new ArrayList<Segment>(2*width);
+		int count = 1;
+		
+		while (error > Math.max(absTol, relTol*Math.abs(total)) && count < MAX_INTERVALS){
+			
+			// bisect the worst subintervals
+			batch.clear();
+			boolean divided = false;
+			for (int k = 0; k < width && !queue.isEmpty(); k++){
+				Segment s = queue.poll();
+				total -= s.integral;
+				error -= s.error;
+				double mid = 0.5*(s.a + s.b);
+				if (mid <= s.a || mid >= s.b){
+					// cannot be divided any further, keep it as is
+					batch.add(s);
+					continue;
+				}
+				batch.add(new Segment(s.a, mid));
+				batch.add(new Segment(mid, s.b));
+				divided = true;
+				count++;
+			}
+			
+			if (pool == null){
+				for (Segment s: batch){
+					s.evaluate(f);
+				}
+			} else{
+				pool.invoke(new EvalTask(f, batch, 0, batch.size()));
+			}
+			
+			for (Segment s: batch){
+				total += s.integral;
+				error += s.error;
+				queue.add(s);
+			}
+			if (!divided) break;
+			
+			// remove accumulated rounding in the running sums
+			if (count % 100 == 0){
+				total = 0.0;
+				error = 0.0;
+				for (Segment s: queue){
+					total += s.integral;
+					error += s.error;
+				}
+			}
+		}
+		
+		double sum = 0.0;
+		for (Segment s: queue){
+			sum += s.integral;
+		}
+		return sum;
+	}
+	
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	/**
+	 * a subinterval with its Kronrod estimate and error, ordered by decreasing error
+	 */
+	private static class Segment implements Comparable<Segment> {
+		
+		final double a, b;
+		double integral, error;
+		
+		boolean evaluated = false;
+		
+		Segment(double a, double b){
+			this.a = a;
+			this.b = b;
+		}
+		
+		/**
+		 * G7-K15 rule, all 15 nodes in one batch
+		 */
+		void evaluate(Function1Var f){
+			if (evaluated) return;
+			
+			double c = 0.5*(a + b);
+			double h = 0.5*(b - a);
+			
+			double[] x = new double[15];
+			for (int j = 0; j < 7; j++){
+				x[2*j] = c - h*XGK[j];
+				x[2*j+1] = c + h*XGK[j];
+			}
+			x[14] = c;
+			double[] y = new double[15];
+			f.f(x, y, 0, 15);
+			
+			double kronrod = WGK[7]*y[14];
+			double gauss = WG[3]*y[14];
+			for (int j = 0; j < 7; j++){
+				double pair = y[2*j] + y[2*j+1];
+				kronrod += WGK[j]*pair;
+				if (j % 2 == 1) gauss += WG[j/2]*pair;
+			}
+			
+			integral = h*kronrod;
+			error = Math.abs(h*(kronrod - gauss));
+			evaluated = true;
+		}
+
+		@Override
+		public int compareTo(Segment o) {
+			return Double.compare(o.error, error);
+		}
+	}
+	
+	/**
+	 * evaluates a list of subintervals, splitting the list across threads
+	 */
+	private static class EvalTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Function1Var f;
+		private final List<Segment> segments;
+		private final int lo, hi;
+		
+		EvalTask(Function1Var f, List<Segment> segments, int lo, int hi){
+			this.f = f;
+			this.segments = segments;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= 1){
+				for (int i = lo; i < hi; i++){
+					segments.get(i).evaluate(f);
+				}
+			} else{
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new EvalTask(f, segments, lo, mid),
+						  new EvalTask(f, segments, mid, hi));
+			}
+		}
+	}
+}
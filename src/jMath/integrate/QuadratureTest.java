@@ -0,0 +1,63 @@
+package jMath.integrate;
+import static jMath.integrate.Quadrature.*;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import jMath.func.Function1Var;
+
+import org.junit.Test;
+
+public class QuadratureTest {
+	
+	public static final double tol = 1e-10;
+	
+	@Test
+	public void testIntegral(){
+		Function1Var f = new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return Math.exp(-x*x);
+			}
+		};
+		assertEquals(Math.sqrt(Math.PI)/2*0.8427007929497149, integral(f, 0, 1, tol), tol);
+		assertEquals(-Math.sqrt(Math.PI)/2*0.8427007929497149, integral(f, 1, 0, tol), tol);
+		assertEquals(0.0, integral(f, 2, 2), 0.0);
+	}
+	
+	@Test
+	public void testIntegralSingular(){
+		Function1Var f = new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return 1.0/Math.sqrt(x);
+			}
+		};
+		assertEquals(2.0, integral(f, 0, 1, 1e-8), 1e-8);
+	}
+	
+	@Test
+	public void testIntegralParallel(){
+		Function1Var f = new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return Math.sin(50*x)*Math.exp(-x);
+			}
+		};
+		double exact = (50 - Math.exp(-4)*(Math.sin(200) + 50*Math.cos(200)))/2501;
+		double parallel;
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			parallel = integral(f, 0, 4, tol, 0, pool);
+		} finally{
+			pool.shutdown();
+		}
+		assertEquals(exact, parallel, tol);
+		assertEquals(exact, integral(f, 0, 4, tol), tol);
+	}
+
+}
@@ -1,6 +1,9 @@
 package jMath.linalg;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import jMath.func.Function1Var;
 
 
@@ -214,6 +217,61 @@ public class Array1D {
 	}
 	
 	
+	/**
+	 * indices that sort the vector in ascending order, so that x[idx[0]] <= x[idx[1]] <= ...
+	 * The sort is stable (equal values keep their original order) and uses the 
+	 * same ordering as Arrays.sort (-0.0 before 0.0, NaN last).
+	 * Sorted input is detected in a single pass.
+	 * @param x
+	 * @return idx
+	 */
+	public static int[] argsort(double[] x){
+		return argsort(x, false);
+	}
+	
+	/**
+	 * argsort that sorts large vectors on multiple threads of the common ForkJoinPool
+	 * @param x
+	 * @return idx
+	 */
+	public static int[] parallelArgsort(double[] x){
+		return argsort(x, true);
+	}
+	
+	/**
+	 * sort x in ascending order in place and reorder the companion arrays ys
+	 * the same way (e.g. to sort y by x before interp1).  The sort is stable.
+	 * @param x  sorted on return
+	 * @param ys  companion arrays, the same length as x, reordered on return
+	 * @return the permutation applied, x_new = x_old[idx]
+	 * @throws IllegalArgumentException
+	 */
+	public static int[] sortWithPermutation(double[] x, double[]... ys) throws IllegalArgumentException{
+		for (double[] y: ys){
+			checkDimension(x, y);
+		}
+		int[] idx = argsort(x);
+		
+		double[] work = new double[x.length];
+		permute(x, idx, work);
+		for (double[] y: ys){
+			permute(y, idx, work);
+		}
+		return idx;
+	}
+	
+	/**
+	 * is the vector sorted in ascending order?
+	 * @param x
+	 * @return
+	 */
+	public static boolean isSorted(double[] x){
+		for (int i = 1; i < x.length; i++){
+			if (Double.compare(x[i-1], x[i]) > 0) return false;
+		}
+		return true;
+	}
+	
 	/**
 	 * get maximum value in vector
 	 * @param x
@@ -466,9 +524,7 @@ public class Array1D {
 		int n = x.length;
 		double[] y = new double[n];
 		
-		for (int i = 0; i < n; i++){
-			y[i] = func.f(x[i]);
-		}
+		func.f(x, y, 0, n);
 		return y;
 	}
 	
@@ -562,6 +618,83 @@ public class Array1D {
 		return sum;
 	}
 	
+	/**
+	 * numerical integration of y w.r.t x using composite Simpson's rule.
+	 * The spacing need not be uniform.  With an odd number of intervals
+	 * the last interval uses the parabola through the last three points.
+	 * @param x
+	 * @param y
+	 * @return value of the integral
+	 * @throws IllegalArgumentException
+	 */
+	public static double simpson(double[] x, double[] y) throws IllegalArgumentException{
+		checkDimension(x, y);
+		
+		int n = x.length;
+		if (n < 3) return trapz(x, y);
+		
+		double sum = 0;
+		
+		int i;
+		for (i = 0; i < n-2; i += 2){
+			double h0 = x[i+1] - x[i];
+			double h1 = x[i+2] - x[i+1];
+			double hs = h0 + h1;
+			sum += hs/6.0*((2.0 - h1/h0)*y[i] + hs*hs/(h0*h1)*y[i+1] + (2.0 - h0/h1)*y[i+2]);
+		}
+		
+		if (i == n-2){
+			double h0 = x[n-2] - x[n-3];
+			double h1 = x[n-1] - x[n-2];
+			double hs = h0 + h1;
+			sum += (2*h1*h1 + 3*h0*h1)/(6*hs)*y[n-1] + (h1*h1 + 3*h1*h0)/(6*h0)*y[n-2]
+					- h1*h1*h1/(6*h0*hs)*y[n-3];
+		}
+		return sum;
+	}
+	
+	/**
+	 * numerical integration of equally spaced samples using Romberg's method
+	 * (Richardson extrapolation of the trapezoidal rule).
+	 * @param y  function values, length must be 2^k + 1
+	 * @param dx  sample spacing
+	 * @return value of the integral
+	 * @throws IllegalArgumentException
+	 */
+	public static double romberg(double[] y, double dx) throws IllegalArgumentException{
+		int intervals = y.length - 1;
+		if (intervals < 1 || (intervals & (intervals-1)) != 0){
+			throw new IllegalArgumentException("Number of samples must be 2^k + 1");
+		}
+		int k = Integer.numberOfTrailingZeros(intervals);
+		
+		// trapezoidal rule from the coarsest step up to dx
+		double[] R = new double[k+1];
+		double h = intervals*dx;
+		R[0] = h*(y[0] + y[intervals])/2.0;
+		
+		for (int i = 1; i <= k; i++){
+			int step = intervals >> i;
+			double sum = 0;
+			for (int j = step; j < intervals; j += 2*step){
+				sum += y[j];
+			}
+			h /= 2.0;
+			double prev = R[0];
+			R[0] = R[0]/2.0 + h*sum;
+			
+			// extrapolate
+			double factor = 1.0;
+			for (int m = 1; m <= i; m++){
+				factor *= 4.0;
+				double current = R[m-1] + (R[m-1] - prev)/(factor - 1.0);
+				prev = R[m];
+				R[m] = current;
+			}
+		}
+		return R[k];
+	}
+	
 	/**
 	 * numerical derivative of y w.r.t x using central difference
 	 * except at end points.
@@ -585,6 +718,47 @@ public class Array1D {
 		return dydx;
 	}
 	
+	/**
+	 * numerical derivative of y w.r.t x with finite differences of the given
+	 * order of accuracy, on uniform or non-uniform grids.  One-sided stencils 
+	 * are used near the end points so the order holds everywhere.
+	 * Use FiniteDifference directly to reuse the stencils across calls.
+	 * @param x
+	 * @param y
+	 * @param order  order of accuracy (typically 2, 4 or 6)
+	 * @return dy/dx
+	 * @throws IllegalArgumentException
+	 */
+	public static double[] deriv(double[] x, double[] y, int order) throws IllegalArgumentException{
+		checkDimension(x, y);
+		return new FiniteDifference(x, 1, order).apply(y);
+	}
+	
+	/**
+	 * numerical second derivative of y w.r.t x (second order accurate)
+	 * @param x
+	 * @param y
+	 * @return d^2y/dx^2
+	 * @throws IllegalArgumentException
+	 */
+	public static double[] deriv2(double[] x, double[] y) throws IllegalArgumentException{
+		return deriv2(x, y, 2);
+	}
+	
+	/**
+	 * numerical second derivative of y w.r.t x with finite differences of the
+	 * given order of accuracy, on uniform or non-uniform grids
+	 * @param x
+	 * @param y
+	 * @param order  order of accuracy (typically 2, 4 or 6)
+	 * @return d^2y/dx^2
+	 * @throws IllegalArgumentException
+	 */
+	public static double[] deriv2(double[] x, double[] y, int order) throws IllegalArgumentException{
+		checkDimension(x, y);
+		return new FiniteDifference(x, 2, order).apply(y);
+	}
+	
 	/**
 	 * flip a vector around
 	 * @param x
@@ -629,7 +803,9 @@ public class Array1D {
 	/**
 	 * 1d linear interpolation to approximate y(x) at all of the entries in xi.
 	 * x must already be sorted in ascending order.
-	 * If xi is not in the bounds of interpolation it returns value at the closest bound 
+	 * If xi is not in the bounds of interpolation it returns value at the closest bound.
+	 * Uses the batch evaluation of {@link #interp1(double[], double[]) interp1(x, y)}, 
+	 * so sorted xi cost O(n + m) rather than O(m log n).
 	 * @param x
 	 * @param y
 	 * @param xi
@@ -637,18 +813,66 @@ public class Array1D {
 	 * @throws IllegalArgumentException
 	 */
 	public static double[] interp1(double[] x, double[] y, double[] xi) throws IllegalArgumentException{
-		checkDimension(x,y);
-		
-		int n = xi.length;
-		double[] yi = new double[n];
-		
-		for(int i = 0; i < n; i++){
-			yi[i] = interp1(x,y,xi[i]);
-		}
+		double[] yi = new double[xi.length];
+		interp1(x,y).f(xi, yi, 0, xi.length);
 		return yi;
 	}
 	
 	
+	/**
+	 * 1d linear interpolant of the data (x, y) as a function, so that it can be passed
+	 * to eval, the root finders, etc.  x must already be sorted in ascending order.
+	 * Outside the bounds of interpolation it returns the value at the closest bound.
+	 * The data are referenced, not copied.  Batch evaluation walks forward from the 
+	 * previous interval, so sorted queries cost O(n + m) rather than O(m log n).
+	 * @param x
+	 * @param y
+	 * @return f where f(xi) = interp1(x, y, xi)
+	 * @throws IllegalArgumentException
+	 */
+	public static Function1Var interp1(final double[] x, final double[] y) throws IllegalArgumentException{
+		checkDimension(x, y);
+		
+		return new Function1Var() {
+			
+			@Override
+			public double f(double xi) {
+				return interp1(x, y, xi);
+			}
+			
+			@Override
+			public void f(double[] xi, double[] out, int off, int len) {
+				int n = x.length;
+				int ip = 0;  // index of the first x greater than or equal to the query
+				
+				for (int i = off; i < off + len; i++){
+					double v = xi[i];
+					
+					if (v != v){
+						// NaN sorts after everything, as in the binary search
+						out[i] = y[n-1];
+						continue;
+					}
+					if (ip > 0 && v <= x[ip-1]){
+						// query moved backwards, search again
+						int idx = Arrays.binarySearch(x, v);
+						ip = (idx < 0)? -idx - 1 : idx;
+					}
+					while (ip < n && x[ip] < v){
+						ip++;
+					}
+					
+					if (ip == 0) out[i] = y[0];
+					else if (ip == n) out[i] = y[n-1];
+					else{
+						int im = ip - 1;
+						out[i] = y[im] + (v - x[im])/(x[ip] - x[im])*(y[ip] - y[im]);
+					}
+				}
+			}
+		};
+	}
+	
 	/**
 	 * Checks to see if element xi is in the vector x. Array must be sorted first.
 	 * @param x
@@ -666,6 +890,11 @@ public class Array1D {
 	
 	/**
 	 * Checks to see if the elements of xi are in vector x.  Array must be sorted first.
+	 * If xi is also sorted, the two are walked together (galloping forward through x),
+	 * which costs O(m log(n/m)) rather than a full binary search per element.
+	 * Either way the results are those of {@link #find(double[], double) find} for each 
+	 * element: values are compared as by Double.compare (so -0.0 and 0.0 differ, and NaN 
+	 * matches NaN), and for repeated values the index is the one Arrays.binarySearch returns.
 	 * @param x
 	 * @param xi
 	 * @return for each entry in xi returns the index it is found in x, or -1 otherwise
@@ -674,11 +903,188 @@ public class Array1D {
 		int n = xi.length;
 		int[] idx = new int[n];
 		
+		if (isSorted(xi)){
+			int pos = 0;
+			for (int i = 0; i < n; i++){
+				double v = xi[i];
+				pos = gallop(x, pos, v);
+				if (pos < x.length && Double.compare(x[pos], v) == 0){
+					// a repeated value is looked up again so both paths pick the same copy
+					boolean repeated = pos+1 < x.length && Double.compare(x[pos+1], v) == 0;
+					idx[i] = repeated? find(x, v) : pos;
+				} else{
+					idx[i] = -1;
+				}
+			}
+			return idx;
+		}
+		
 		for (int i = 0; i < n; i++) {
 			idx[i] = find(x,xi[i]);
 		}
 		return idx;
 	}
+	
+	/**
+	 * is each element of a also an element of s?
+	 * Neither needs to be sorted.
+	 * @param a
+	 * @param s
+	 * @return
+	 */
+	public static boolean[] ismember(double[] a, double[] s){
+		int[] loc = ismemberIndices(a, s);
+		boolean[] tf = new boolean[a.length];
+		for (int i = 0; i < a.length; i++){
+			tf[i] = loc[i] >= 0;
+		}
+		return tf;
+	}
+	
+	/**
+	 * location of each element of a in s (the first occurrence), or -1 if it is not in s.
+	 * Neither needs to be sorted.
+	 * @param a
+	 * @param s
+	 * @return
+	 */
+	public static int[] ismemberIndices(double[] a, double[] s){
+		int[] us = sortedFirst(s);
+		int ns = countNumbers(s, us);
+		int[] ia = argsort(a);
+		int na = countNumbers(a, ia);
+		
+		int[] loc = new int[a.length];
+		Arrays.fill(loc, -1);
+		
+		int j = 0;
+		for (int i = 0; i < na && j < ns; i++){
+			double v = a[ia[i]];
+			while (j < ns && s[us[j]] < v) j++;
+			if (j < ns && s[us[j]] == v) loc[ia[i]] = us[j];
+		}
+		return loc;
+	}
+	
+	/**
+	 * sorted values common to a and b, without repetitions
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static double[] intersect(double[] a, double[] b){
+		return sub(a, intersectIndices(a, b)[0]);
+	}
+	
+	/**
+	 * indices of the values common to a and b (the first occurrence of each),
+	 * so intersect(a, b) = a[ia] = b[ib]
+	 * @param a
+	 * @param b
+	 * @return {ia, ib}
+	 */
+	public static int[][] intersectIndices(double[] a, double[] b){
+		int[] ua = sortedFirst(a);
+		int[] ub = sortedFirst(b);
+		int na = countNumbers(a, ua);
+		int nb = countNumbers(b, ub);
+		
+		int[] ia = new int[Math.min(na, nb)];
+		int[] ib = new int[ia.length];
+		int i = 0, j = 0, k = 0;
+		while (i < na && j < nb){
+			double va = a[ua[i]], vb = b[ub[j]];
+			if (va < vb) i++;
+			else if (vb < va) j++;
+			else{
+				ia[k] = ua[i++];
+				ib[k++] = ub[j++];
+			}
+		}
+		return new int[][]{Arrays.copyOf(ia, k), Arrays.copyOf(ib, k)};
+	}
+	
+	/**
+	 * sorted values in a or b, without repetitions (NaNs are all kept, last)
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static double[] union(double[] a, double[] b){
+		int[] ua = sortedFirst(a);
+		int[] ub = sortedFirst(b);
+		int na = countNumbers(a, ua);
+		int nb = countNumbers(b, ub);
+		
+		double[] c = new double[ua.length + ub.length];
+		int i = 0, j = 0, k = 0;
+		while (i < na || j < nb){
+			if (j == nb || (i < na && a[ua[i]] <= b[ub[j]])){
+				if (j < nb && a[ua[i]] == b[ub[j]]) j++;
+				c[k++] = a[ua[i++]];
+			} else{
+				c[k++] = b[ub[j++]];
+			}
+		}
+		for (i = na; i < ua.length; i++) c[k++] = a[ua[i]];
+		for (j = nb; j < ub.length; j++) c[k++] = b[ub[j]];
+		return Arrays.copyOf(c, k);
+	}
+	
+	/**
+	 * indices of the values in a or b.  Values in both are taken from a, 
+	 * and union(a, b) is the sorted concatenation of a[ia] and b[ib].
+	 * @param a
+	 * @param b
+	 * @return {ia, ib}
+	 */
+	public static int[][] unionIndices(double[] a, double[] b){
+		int[] ua = sortedFirst(a);
+		int[] ub = sortedFirst(b);
+		int na = countNumbers(a, ua);
+		int nb = countNumbers(b, ub);
+		
+		int[] ib = new int[ub.length];
+		int i = 0, k = 0;
+		for (int j = 0; j < nb; j++){
+			double v = b[ub[j]];
+			while (i < na && a[ua[i]] < v) i++;
+			if (i == na || a[ua[i]] != v) ib[k++] = ub[j];
+		}
+		for (int j = nb; j < ub.length; j++) ib[k++] = ub[j];
+		return new int[][]{ua, Arrays.copyOf(ib, k)};
+	}
+	
+	/**
+	 * sorted values in a that are not in b, without repetitions
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static double[] setdiff(double[] a, double[] b){
+		return sub(a, setdiffIndices(a, b));
+	}
+	
+	/**
+	 * indices of the values in a that are not in b, so setdiff(a, b) = a[ia]
+	 * @param a
+	 * @param b
+	 * @return ia
+	 */
+	public static int[] setdiffIndices(double[] a, double[] b){
+		int[] ua = sortedFirst(a);
+		int[] ub = sortedFirst(b);
+		int nb = countNumbers(b, ub);
+		
+		int[] ia = new int[ua.length];
+		int j = 0, k = 0;
+		for (int i = 0; i < ua.length; i++){
+			double v = a[ua[i]];
+			while (j < nb && b[ub[j]] < v) j++;
+			if (j == nb || b[ub[j]] != v) ia[k++] = ua[i];
+		}
+		return Arrays.copyOf(ia, k);
+	}
 		
 	
 	/**
@@ -752,6 +1158,243 @@ public class Array1D {
 		return divide(add(vectors),N);
 	}
 
+	/**
+	 * sample variance of the vector (normalized by n-1)
+	 * @param x
+	 * @return
+	 */
+	public static double var(double[] x){
+		int n = x.length;
+		if (n == 1) return 0.0;
+		
+		double m = mean(x);
+		double s = 0.0, c = 0.0;
+		for (int i = 0; i < n; i++){
+			double d = x[i] - m;
+			s += d*d;
+			c += d;
+		}
+		// corrected two-pass algorithm
+		return (s - c*c/n)/(n-1);
+	}
+	
+	/**
+	 * sample standard deviation of the vector
+	 * @param x
+	 * @return
+	 */
+	public static double std(double[] x){
+		return Math.sqrt(var(x));
+	}
+	
+	/**
+	 * median value of the vector (NaN if x is empty or any element is NaN)
+	 * @param x
+	 * @return
+	 */
+	public static double median(double[] x){
+		return medianInPlace(copy(x));
+	}
+	
+	/**
+	 * median value of the vector, found by reordering x in place rather than copying
+	 * @param x  reordered on return
+	 * @return
+	 */
+	public static double medianInPlace(double[] x){
+		int n = x.length;
+		if (n == 0 || hasNaN(x)) return Double.NaN;
+		
+		int k = (n-1)/2;
+		select(x, 0, n, k);
+		if (n % 2 == 1) return x[k];
+		
+		// everything above k is >= x[k]
+		double next = x[k+1];
+		for (int i = k+2; i < n; i++){
+			if (x[i] < next) next = x[i];
+		}
+		return (x[k] + next)/2.0;
+	}
+	
+	/**
+	 * quantile of the vector.  Uses Matlab's definition: the sorted values 
+	 * are placed at quantiles (0.5:n-0.5)/n with linear interpolation 
+	 * in between.  The quantiles of an empty vector are NaN.
+	 * @param x
+	 * @param q  quantile in [0, 1]
+	 * @return
+	 */
+	public static double quantile(double[] x, double q){
+		return quantileInPlace(copy(x), new double[]{q})[0];
+	}
+	
+	/**
+	 * several quantiles of the vector in one call
+	 * @param x
+	 * @param q  quantiles in [0, 1]
+	 * @return
+	 */
+	public static double[] quantile(double[] x, double[] q){
+		return quantileInPlace(copy(x), q);
+	}
+	
+	/**
+	 * several quantiles of the vector, reordering x in place rather than copying.
+	 * Only the order statistics that are needed are selected.
+	 * @param x  reordered on return
+	 * @param q  quantiles in [0, 1]
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public static double[] quantileInPlace(double[] x, double[] q) throws IllegalArgumentException{
+		int n = x.length;
+		int nq = q.length;
+		double[] y = new double[nq];
+		
+		if (n == 0 || hasNaN(x)){
+			for (int j = 0; j < nq; j++){
+				if (!(q[j] >= 0.0 && q[j] <= 1.0)){
+					throw new IllegalArgumentException("Quantiles must be between 0 and 1");
+				}
+			}
+			Arrays.fill(y, Double.NaN);
+			return y;
+		}
+		
+		// order statistics needed for each quantile
+		int[] lo = new int[nq];
+		double[] frac = new double[nq];
+		int[] ks = new int[2*nq];
+		int nk = 0;
+		for (int j = 0; j < nq; j++){
+			if (!(q[j] >= 0.0 && q[j] <= 1.0)){
+				throw new IllegalArgumentException("Quantiles must be between 0 and 1");
+			}
+			double h = n*q[j] - 0.5;
+			if (h <= 0.0){
+				lo[j] = 0;
+			} else if (h >= n-1){
+				lo[j] = n-1;
+			} else{
+				lo[j] = (int) h;
+				frac[j] = h - lo[j];
+			}
+			ks[nk++] = lo[j];
+			if (frac[j] > 0.0) ks[nk++] = lo[j]+1;
+		}
+		Arrays.sort(ks, 0, nk);
+		
+		multiSelect(x, 0, n, ks, 0, nk);
+		
+		for (int j = 0; j < nq; j++){
+			y[j] = x[lo[j]];
+			if (frac[j] > 0.0) y[j] += frac[j]*(x[lo[j]+1] - x[lo[j]]);
+		}
+		return y;
+	}
+	
+	/**
+	 * percentile of the vector
+	 * @param x
+	 * @param p  percentile in [0, 100]
+	 * @return
+	 */
+	public static double percentile(double[] x, double p){
+		return quantile(x, p/100.0);
+	}
+	
+	/**
+	 * several percentiles of the vector in one call
+	 * @param x
+	 * @param p  percentiles in [0, 100]
+	 * @return
+	 */
+	public static double[] percentile(double[] x, double[] p){
+		return quantileInPlace(copy(x), divide(p, 100.0));
+	}
+	
+	/**
+	 * most frequent value in the vector.  Ties go to the smallest value.
+	 * The mode of an empty vector is NaN.
+	 * @param x
+	 * @return
+	 */
+	public static double mode(double[] x){
+		return modeInPlace(copy(x));
+	}
+	
+	/**
+	 * most frequent value in the vector, sorting x in place rather than copying
+	 * @param x  sorted on return
+	 * @return
+	 */
+	public static double modeInPlace(double[] x){
+		if (x.length == 0) return Double.NaN;
+		Arrays.sort(x);
+		
+		double best = x[0];
+		int bestCount = 0;
+		int i = 0;
+		while (i < x.length){
+			int j = i+1;
+			while (j < x.length && x[j] == x[i]) j++;
+			if (j - i > bestCount){
+				bestCount = j - i;
+				best = x[i];
+			}
+			i = j;
+		}
+		return best;
+	}
+	
+	/**
+	 * histogram count with bin edges, like Matlab's histc. 
+	 * Bin k counts edges[k] <= x < edges[k+1], and the last bin counts x == edges[end].
+	 * Values outside the edges are not counted.
+	 * @param x
+	 * @param edges  ascending bin edges
+	 * @return counts for each bin
+	 */
+	public static int[] histc(double[] x, double[] edges){
+		int m = edges.length;
+		int[] count = new int[m];
+		
+		for (int i = 0; i < x.length; i++){
+			int k = Arrays.binarySearch(edges, x[i]);
+			if (k < 0) k = -k - 2;
+			else while (k+1 < m && edges[k+1] == x[i]) k++;
+			if (k >= 0 && (k < m-1 || x[i] == edges[m-1])) count[k]++;
+		}
+		return count;
+	}
+	
+	/**
+	 * histogram with nbins equal width bins spanning min(x) to max(x).
+	 * The bin edges are linspace(min(x), max(x), nbins+1).
+	 * @param x
+	 * @param nbins
+	 * @return counts for each bin
+	 */
+	public static int[] histogram(double[] x, int nbins){
+		int[] count = new int[nbins];
+		
+		double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < x.length; i++){
+			if (x[i] < lo) lo = x[i];
+			if (x[i] > hi) hi = x[i];
+		}
+		double scale = (hi > lo)? nbins/(hi - lo) : 0.0;
+		
+		for (int i = 0; i < x.length; i++){
+			if (Double.isNaN(x[i])) continue;
+			int k = (int) ((x[i] - lo)*scale);
+			if (k >= nbins) k = nbins-1;
+			count[k]++;
+		}
+		return count;
+	}
+
 	/**
 	 * computes whether element x[i] == alpha
 	 * @param alpha
@@ -785,13 +1428,7 @@ public class Array1D {
 	 * @return
 	 */
 	public static double[] sin(double[] x){
-		return eval(new Function1Var() {
-
-			@Override
-			public double f(double y) {
-				return Math.sin(y);
-			}
-		}, x);
+		return eval(SIN, x);
 	}
 	
 	/**
@@ -800,13 +1437,7 @@ public class Array1D {
 	 * @return
 	 */
 	public static double[] cos(double[] x){
-		return eval(new Function1Var() {
-
-			@Override
-			public double f(double y) {
-				return Math.cos(y);
-			}
-		}, x);
+		return eval(COS, x);
 	}
 	
 	/**
@@ -815,19 +1446,453 @@ public class Array1D {
 	 * @return
 	 */
 	public static double[] tan(double[] x){
-		return eval(new Function1Var() {
-
-			@Override
-			public double f(double y) {
-				return Math.tan(y);
+		return eval(TAN, x);
+	}	
+	
+/* ------------------------
+   Strided Kernels
+ * ------------------------ */
+	
+	// used by Vector so views are not copied: element i of x is x[offset + i*stride]
+	
+	static double sum(double[] x, int offset, int n, int stride){
+		double sum = 0;
+		
+		if (stride == 1){
+			for (int k = offset; k < offset + n; k++){
+				sum += x[k];
+			}
+		} else{
+			for (int i = 0, k = offset; i < n; i++, k += stride){
+				sum += x[k];
+			}
+		}
+		return sum;
+	}
+	
+	static double norm(double[] x, int offset, int n, int stride, double p){
+		double sum = 0;
+		
+		for (int i = 0, k = offset; i < n; i++, k += stride){
+			sum += Math.pow(Math.abs(x[k]), p);
+		}
+		return Math.pow(sum, 1.0/p);
+	}
+	
+	static double dot(double[] x, int xOffset, int xStride, double[] y, int yOffset, int yStride, int n){
+		double sum = 0;
+		
+		if (xStride == 1 && yStride == 1){
+			for (int i = 0; i < n; i++){
+				sum += x[xOffset + i]*y[yOffset + i];
+			}
+		} else{
+			for (int i = 0, j = xOffset, k = yOffset; i < n; i++, j += xStride, k += yStride){
+				sum += x[j]*y[k];
 			}
-		}, x);
+		}
+		return sum;
+	}
+	
+	static double trapz(double[] x, int xOffset, int xStride, double[] y, int yOffset, int yStride, int n){
+		double sum = 0;
+		
+		for (int i = 0, j = xOffset, k = yOffset; i < n-1; i++, j += xStride, k += yStride){
+			sum += (x[j+xStride]-x[j])*(y[k]+y[k+yStride])/2.0;
+		}
+		return sum;
+	}
+	
+	static double[] deriv(double[] x, int xOffset, int xStride, double[] y, int yOffset, int yStride, int n){
+		double[] dydx = new double[n];
+		int xs = xStride, ys = yStride;
+		
+		dydx[0] = (y[yOffset+ys]-y[yOffset])/(x[xOffset+xs]-x[xOffset]);
+		for (int i = 1, j = xOffset+xs, k = yOffset+ys; i < n-1; i++, j += xs, k += ys){
+			dydx[i] = (y[k+ys]-y[k-ys])/(x[j+xs]-x[j-xs]);
+		}
+		int j = xOffset + (n-1)*xs, k = yOffset + (n-1)*ys;
+		dydx[n-1] = (y[k]-y[k-ys])/(x[j]-x[j-xs]);
+		
+		return dydx;
 	}
 	
 	
 /* ------------------------
    Private Methods
 * ------------------------ */
+	
+	// elementary functions with batch loops, so eval makes no virtual call per element
+	private static final Function1Var SIN = new Function1Var() {
+
+		@Override
+		public double f(double y) {
+			return Math.sin(y);
+		}
+		
+		@Override
+		public void f(double[] x, double[] out, int off, int len) {
+			for (int i = off; i < off + len; i++){
+				out[i] = Math.sin(x[i]);
+			}
+		}
+	};
+	
+	private static final Function1Var COS = new Function1Var() {
+
+		@Override
+		public double f(double y) {
+			return Math.cos(y);
+		}
+		
+		@Override
+		public void f(double[] x, double[] out, int off, int len) {
+			for (int i = off; i < off + len; i++){
+				out[i] = Math.cos(x[i]);
+			}
+		}
+	};
+	
+	private static final Function1Var TAN = new Function1Var() {
+
+		@Override
+		public double f(double y) {
+			return Math.tan(y);
+		}
+		
+		@Override
+		public void f(double[] x, double[] out, int off, int len) {
+			for (int i = off; i < off + len; i++){
+				out[i] = Math.tan(x[i]);
+			}
+		}
+	};
+	
+	// argsort: insertion sort for small ranges, merge sort up to the radix 
+	// threshold, radix sort above it, and split across threads above the parallel threshold
+	private static final int INSERTION_SORT = 32;
+	private static final int RADIX_SORT = 1 << 10;
+	private static final int PARALLEL_SORT = 1 << 16;
+	private static final int RADIX_BITS = 11;
+	
+	private static int[] argsort(double[] x, boolean parallel){
+		int n = x.length;
+		int[] idx = new int[n];
+		for (int i = 0; i < n; i++){
+			idx[i] = i;
+		}
+		if (isSorted(x)) return idx;
+		
+		// strictly descending input is simply reversed (stability is not an issue)
+		boolean descending = true;
+		for (int i = 1; i < n && descending; i++){
+			descending = Double.compare(x[i-1], x[i]) > 0;
+		}
+		if (descending){
+			for (int i = 0; i < n; i++){
+				idx[i] = n-1-i;
+			}
+			return idx;
+		}
+		
+		// sort integer keys carrying the indices along, rather than comparing x indirectly
+		long[] key = new long[n];
+		for (int i = 0; i < n; i++){
+			key[i] = sortKey(x[i]);
+		}
+		long[] keyBuffer = new long[n];
+		int[] idxBuffer = new int[n];
+		
+		if (parallel && n > PARALLEL_SORT){
+			ForkJoinPool.commonPool().invoke(new SortTask(key, idx, keyBuffer, idxBuffer, 0, n));
+		} else{
+			sort(key, idx, keyBuffer, idxBuffer, 0, n);
+		}
+		return idx;
+	}
+	
+	/**
+	 * maps doubles to longs whose signed order matches Double.compare
+	 */
+	private static long sortKey(double d){
+		long bits = Double.doubleToLongBits(d);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+	
+	/**
+	 * stable LSD radix sort of key[lo..hi), 11 bits per pass, applying the same
+	 * moves to idx.  Passes where every key has the same digit are skipped.
+	 */
+	private static void radixSort(long[] key, int[] idx, long[] kb, int[] ib, int lo, int hi){
+		int n = hi - lo;
+		int buckets = 1 << RADIX_BITS;
+		int mask = buckets - 1;
+		int[] count = new int[buckets];
+		
+		long[] k0 = key, k1 = kb;
+		int[] i0 = idx, i1 = ib;
+		for (int shift = 0; shift < 64; shift += RADIX_BITS){
+			Arrays.fill(count, 0);
+			
+			// flip the sign bit so signed order becomes unsigned order
+			for (int i = lo; i < hi; i++){
+				count[(int) ((k0[i] ^ Long.MIN_VALUE) >>> shift) & mask]++;
+			}
+			if (count[(int) ((k0[lo] ^ Long.MIN_VALUE) >>> shift) & mask] == n) continue;
+			
+			int sum = lo;
+			for (int b = 0; b < buckets; b++){
+				int c = count[b];
+				count[b] = sum;
+				sum += c;
+			}
+			for (int i = lo; i < hi; i++){
+				int b = (int) ((k0[i] ^ Long.MIN_VALUE) >>> shift) & mask;
+				int k = count[b]++;
+				k1[k] = k0[i];
+				i1[k] = i0[i];
+			}
+			
+			long[] tk = k0; k0 = k1; k1 = tk;
+			int[] ti = i0; i0 = i1; i1 = ti;
+		}
+		
+		if (k0 != key){
+			System.arraycopy(k0, lo, key, lo, n);
+			System.arraycopy(i0, lo, idx, lo, n);
+		}
+	}
+	
+	/**
+	 * stable sort of key[lo..hi) carrying idx along
+	 */
+	private static void sort(long[] key, int[] idx, long[] kb, int[] ib, int lo, int hi){
+		if (hi - lo > RADIX_SORT) radixSort(key, idx, kb, ib, lo, hi);
+		else mergeSort(key, idx, kb, ib, lo, hi);
+	}
+	
+	/**
+	 * stable merge sort of key[lo..hi), applying the same moves to idx
+	 */
+	private static void mergeSort(long[] key, int[] idx, long[] kb, int[] ib, int lo, int hi){
+		if (hi - lo <= INSERTION_SORT){
+			for (int i = lo+1; i < hi; i++){
+				long k = key[i];
+				int p = idx[i];
+				int j = i-1;
+				while (j >= lo && key[j] > k){
+					key[j+1] = key[j];
+					idx[j+1] = idx[j];
+					j--;
+				}
+				key[j+1] = k;
+				idx[j+1] = p;
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		mergeSort(key, idx, kb, ib, lo, mid);
+		mergeSort(key, idx, kb, ib, mid, hi);
+		merge(key, idx, kb, ib, lo, mid, hi);
+	}
+	
+	/**
+	 * merge the sorted runs [lo, mid) and [mid, hi)
+	 */
+	private static void merge(long[] key, int[] idx, long[] kb, int[] ib, int lo, int mid, int hi){
+		if (key[mid-1] <= key[mid]) return;
+		
+		System.arraycopy(key, lo, kb, lo, mid - lo);
+		System.arraycopy(idx, lo, ib, lo, mid - lo);
+		
+		int i = lo, j = mid, k = lo;
+		while (i < mid && j < hi){
+			if (key[j] < kb[i]){
+				key[k] = key[j];
+				idx[k++] = idx[j++];
+			} else{
+				key[k] = kb[i];
+				idx[k++] = ib[i++];
+			}
+		}
+		while (i < mid){
+			key[k] = kb[i];
+			idx[k++] = ib[i++];
+		}
+	}
+	
+	/**
+	 * parallel merge sort, halves are sorted concurrently then merged
+	 */
+	private static class SortTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final long[] key, kb;
+		private final int[] idx, ib;
+		private final int lo, hi;
+		
+		SortTask(long[] key, int[] idx, long[] kb, int[] ib, int lo, int hi){
+			this.key = key;
+			this.idx = idx;
+			this.kb = kb;
+			this.ib = ib;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= PARALLEL_SORT){
+				sort(key, idx, kb, ib, lo, hi);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new SortTask(key, idx, kb, ib, lo, mid),
+					  new SortTask(key, idx, kb, ib, mid, hi));
+			merge(key, idx, kb, ib, lo, mid, hi);
+		}
+	}
+	
+	/**
+	 * x = x[idx] in place, using work as scratch space
+	 */
+	private static void permute(double[] x, int[] idx, double[] work){
+		for (int i = 0; i < idx.length; i++){
+			work[i] = x[idx[i]];
+		}
+		System.arraycopy(work, 0, x, 0, idx.length);
+	}
+	
+	/**
+	 * first index in x[pos..n) with x[index] >= v in the ordering of Double.compare 
+	 * (n if none), by exponential then binary search from pos
+	 */
+	private static int gallop(double[] x, int pos, double v){
+		int n = x.length;
+		int step = 1;
+		int lo = pos, hi = pos;
+		while (hi < n && Double.compare(x[hi], v) < 0){
+			lo = hi + 1;
+			hi = pos + step;
+			step <<= 1;
+		}
+		if (hi > n) hi = n;
+		while (lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if (Double.compare(x[mid], v) < 0) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+	
+	/**
+	 * indices of the first occurrence of each distinct value of x, in ascending 
+	 * order of value (NaNs, which never equal anything, are all kept at the end)
+	 */
+	private static int[] sortedFirst(double[] x){
+		int[] idx = argsort(x);
+		int k = 0;
+		for (int i = 0; i < idx.length; i++){
+			if (k == 0 || x[idx[i]] != x[idx[k-1]]) idx[k++] = idx[i];
+		}
+		return Arrays.copyOf(idx, k);
+	}
+	
+	/**
+	 * number of non-NaN entries at the front of the sorted index list
+	 */
+	private static int countNumbers(double[] x, int[] idx){
+		int n = idx.length;
+		while (n > 0 && x[idx[n-1]] != x[idx[n-1]]) n--;
+		return n;
+	}
+	
+	/**
+	 * any NaN in x?
+	 */
+	private static boolean hasNaN(double[] x){
+		for (int i = 0; i < x.length; i++){
+			if (x[i] != x[i]) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * introselect: reorder a[lo..hi) so that a[k] holds the value it would have if sorted,
+	 * with smaller or equal values before it and larger or equal values after it.
+	 * Quickselect with median-of-three pivots, falling back to a sort of the 
+	 * remaining range if the partitions stop shrinking.
+	 */
+	private static void select(double[] a, int lo, int hi, int k){
+		int depth = 2*(32 - Integer.numberOfLeadingZeros(hi - lo));
+		
+		while (hi - lo > 16){
+			if (depth-- == 0){
+				Arrays.sort(a, lo, hi);
+				return;
+			}
+			
+			// median of three pivot
+			int mid = (lo + hi) >>> 1;
+			if (a[mid] < a[lo]) swap(a, mid, lo);
+			if (a[hi-1] < a[lo]) swap(a, hi-1, lo);
+			if (a[hi-1] < a[mid]) swap(a, hi-1, mid);
+			double pivot = a[mid];
+			
+			// Hoare partition
+			int i = lo, j = hi-1;
+			while (i <= j){
+				while (a[i] < pivot) i++;
+				while (a[j] > pivot) j--;
+				if (i <= j){
+					swap(a, i, j);
+					i++;
+					j--;
+				}
+			}
+			
+			if (k <= j) hi = j+1;
+			else if (k >= i) lo = i;
+			else return;
+		}
+		
+		// insertion sort of the small remainder
+		for (int i = lo+1; i < hi; i++){
+			double v = a[i];
+			int j = i-1;
+			while (j >= lo && a[j] > v){
+				a[j+1] = a[j];
+				j--;
+			}
+			a[j+1] = v;
+		}
+	}
+	
+	/**
+	 * select every sorted index ks[klo..khi) within a[lo..hi), 
+	 * splitting the range at the middle index each time
+	 */
+	private static void multiSelect(double[] a, int lo, int hi, int[] ks, int klo, int khi){
+		if (klo >= khi) return;
+		
+		int km = (klo + khi) >>> 1;
+		int k = ks[km];
+		select(a, lo, hi, k);
+		
+		int left = km, right = km+1;
+		while (left > klo && ks[left-1] == k) left--;
+		while (right < khi && ks[right] == k) right++;
+		multiSelect(a, lo, k, ks, klo, left);
+		multiSelect(a, k+1, hi, ks, right, khi);
+	}
+	
+	private static void swap(double[] a, int i, int j){
+		double t = a[i];
+		a[i] = a[j];
+		a[j] = t;
+	}
+	
 	private static void checkDimension (double[] x, double[] y) {
 		if (x.length != y.length) {
 			throw new IllegalArgumentException("Vectors must be the same length");
@@ -1,6 +1,7 @@
 package jMath.linalg;
 import static jMath.linalg.Array1D.*;
 import java.util.Arrays;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -171,4 +172,219 @@ public class Array1DTest {
 		assertTrue(Arrays.equals(y, z));
 	}
 
+	@Test
+	public void testSin(){
+		double[] x = {0.3, 1.2, -2.5};
+		double[] y = sin(x);
+		for (int i = 0; i < x.length; i++){
+			assertEquals(Math.sin(x[i]), y[i], tol);
+		}
+	}
+	
+	@Test
+	public void testInterp1Function(){
+		double[] x = {1.0, 2.0, 4.0, 5.0};
+		double[] y = {3.0, 1.0, 5.0, 0.0};
+		double[] xi = {0.5, 1.5, 4.5, 2.0, 3.0, 6.0, 1.0, Double.NaN, 1.5};
+		double[] yi = eval(interp1(x, y), xi);
+		assertTrue(Arrays.equals(interp1(x, y, xi), yi));
+		for (int i = 0; i < xi.length; i++){
+			assertEquals(interp1(x, y, xi[i]), yi[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testSimpson(){
+		// exact for quadratics, even with uneven spacing and an odd number of intervals
+		double[] x = {0.0, 0.3, 1.0, 1.2, 2.0};
+		double[] y = new double[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = x[i]*x[i] - x[i];
+		}
+		assertEquals(2.0/3.0, simpson(x, y), 1e-12);
+		
+		double[] x2 = {0.0, 0.5, 1.1, 2.0};
+		double[] y2 = {0.0, 0.25, 1.21, 4.0};
+		assertEquals(8.0/3.0, simpson(x2, y2), 1e-12);
+	}
+	
+	@Test
+	public void testRomberg(){
+		int n = 33;
+		double[] y = new double[n];
+		double dx = Math.PI/(n-1);
+		for (int i = 0; i < n; i++){
+			y[i] = Math.sin(i*dx);
+		}
+		assertEquals(2.0, romberg(y, dx), 1e-10);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testRombergLength(){
+		romberg(new double[6], 0.1);
+	}
+
+	@Test
+	public void testVarStd(){
+		double[] x = {2.0, 4.0, 4.0, 4.0, 5.0, 5.0, 7.0, 9.0};
+		assertEquals(32.0/7.0, var(x), tol);
+		assertEquals(Math.sqrt(32.0/7.0), std(x), tol);
+		assertEquals(0.0, var(new double[]{3.0}), tol);
+	}
+	
+	@Test
+	public void testMedian(){
+		assertEquals(3.0, median(new double[]{5.0, 3.0, 1.0, 4.0, 2.0}), tol);
+		assertEquals(2.5, median(new double[]{4.0, 1.0, 3.0, 2.0}), tol);
+		assertTrue(Double.isNaN(median(new double[]{1.0, Double.NaN, 2.0})));
+		
+		Random r = new Random(0);
+		for (int n = 1; n < 200; n += 13){
+			double[] x = new double[n];
+			for (int i = 0; i < n; i++){
+				x[i] = r.nextInt(20);
+			}
+			double[] y = sort(x);
+			double expected = (n % 2 == 1)? y[n/2] : (y[n/2-1] + y[n/2])/2.0;
+			assertEquals(expected, median(x), tol);
+		}
+	}
+	
+	@Test
+	public void testQuantile(){
+		double[] x = {2.0, 5.0, 1.0, 4.0, 3.0};
+		double[] q = quantile(x, new double[]{0.0, 0.1, 0.25, 0.5, 0.9, 1.0});
+		assertEquals(1.0, q[0], tol);
+		assertEquals(1.0, q[1], tol);
+		assertEquals(1.75, q[2], tol);
+		assertEquals(3.0, q[3], tol);
+		assertEquals(5.0, q[4], tol);
+		assertEquals(5.0, q[5], tol);
+		assertEquals(4.5, percentile(x, 80), tol);
+		
+		double[] big = new double[1001];
+		for (int i = 0; i < big.length; i++){
+			big[i] = (i*7919) % 1001;
+		}
+		double[] p = percentile(big, new double[]{50, 10, 90});
+		assertEquals(500.0, p[0], tol);
+		assertEquals(99.6, p[1], tol);
+		assertEquals(900.4, p[2], tol);
+	}
+	
+	@Test
+	public void testMode(){
+		assertEquals(2.0, mode(new double[]{3.0, 2.0, 1.0, 2.0, 3.0}), tol);
+	}
+	
+	@Test
+	public void testEmptyStatistics(){
+		double[] x = new double[0];
+		assertTrue(Double.isNaN(mean(x)));
+		assertTrue(Double.isNaN(var(x)));
+		assertTrue(Double.isNaN(median(x)));
+		assertTrue(Double.isNaN(quantile(x, 0.5)));
+		assertTrue(Double.isNaN(percentile(x, new double[]{10, 90})[1]));
+		assertTrue(Double.isNaN(mode(x)));
+	}
+	
+	@Test
+	public void testHist(){
+		double[] x = {0.5, 1.0, 1.5, 2.0, 2.5, 3.0, 3.5};
+		int[] n = histc(x, new double[]{1.0, 2.0, 3.0});
+		assertArrayEquals(new int[]{2, 2, 1}, n);
+		
+		n = histogram(x, 3);
+		assertArrayEquals(new int[]{2, 2, 3}, n);
+	}
+
+	@Test
+	public void testArgsort(){
+		double[] x = {3.0, 1.0, 2.0, 1.0, Double.NaN, -0.0, 0.0};
+		assertArrayEquals(new int[]{5, 6, 1, 3, 2, 0, 4}, argsort(x));
+		assertArrayEquals(new int[]{0, 1, 2}, argsort(new double[]{1.0, 2.0, 2.0}));
+		assertArrayEquals(new int[]{2, 1, 0}, argsort(new double[]{3.0, 2.0, 1.0}));
+		
+		Random r = new Random(0);
+		double[] big = new double[100000];
+		for (int i = 0; i < big.length; i++){
+			big[i] = r.nextInt(1000);
+		}
+		int[] idx = parallelArgsort(big);
+		assertArrayEquals(argsort(big), idx);
+		for (int i = 1; i < big.length; i++){
+			assertTrue(big[idx[i-1]] < big[idx[i]] || 
+					(big[idx[i-1]] == big[idx[i]] && idx[i-1] < idx[i]));
+		}
+	}
+	
+	@Test
+	public void testSortWithPermutation(){
+		double[] x = {3.0, 1.0, 2.0};
+		double[] y = {30.0, 10.0, 20.0};
+		int[] idx = sortWithPermutation(x, y);
+		assertArrayEquals(new int[]{1, 2, 0}, idx);
+		assertArrayEquals(new double[]{1.0, 2.0, 3.0}, x, 0.0);
+		assertArrayEquals(new double[]{10.0, 20.0, 30.0}, y, 0.0);
+		assertTrue(isSorted(x));
+	}
+
+	@Test
+	public void testFindSorted(){
+		double[] x = {1.0, 2.0, 2.0, 4.0, 8.0, 16.0};
+		// the repeated 2.0 resolves to the copy Arrays.binarySearch finds
+		assertArrayEquals(new int[]{-1, 0, 2, -1, 3, 5, -1}, find(x, new double[]{0.0, 1.0, 2.0, 3.0, 4.0, 16.0, 20.0}));
+		assertArrayEquals(new int[]{3, 0}, find(x, new double[]{4.0, 1.0}));
+	}
+	
+	@Test
+	public void testFindSortedMatchesUnsorted(){
+		double[] x = {-0.0, 1.0, Double.NaN};
+		double[] q = {-0.0, 0.0, 1.0, Double.NaN};
+		assertArrayEquals(new int[]{0, -1, 1, 2}, find(x, q));
+		assertArrayEquals(new int[]{2, 1, -1, 0}, find(x, new double[]{Double.NaN, 1.0, 0.0, -0.0}));
+		
+		Random r = new Random(1);
+		double[] y = new double[500];
+		for (int i = 0; i < y.length; i++){
+			y[i] = r.nextInt(100);
+		}
+		y = sort(y);
+		double[] sorted = colon(-1.0, 0.5, 101.0);
+		double[] shuffled = flip(sorted);
+		int[] a = find(y, sorted);
+		int[] b = find(y, shuffled);
+		int n = sorted.length;
+		for (int i = 0; i < n; i++){
+			assertEquals(find(y, sorted[i]), a[i]);
+			assertEquals(a[i], b[n-1-i]);
+		}
+	}
+	
+	@Test
+	public void testSets(){
+		double[] a = {5.0, 1.0, 3.0, 3.0, 7.0, Double.NaN};
+		double[] b = {4.0, 3.0, 1.0, 1.0, Double.NaN};
+		
+		assertArrayEquals(new double[]{1.0, 3.0}, intersect(a, b), 0.0);
+		int[][] ii = intersectIndices(a, b);
+		assertArrayEquals(new int[]{1, 2}, ii[0]);
+		assertArrayEquals(new int[]{2, 1}, ii[1]);
+		
+		double[] u = union(a, b);
+		assertArrayEquals(new double[]{1.0, 3.0, 4.0, 5.0, 7.0}, sub(u, 0, 4), 0.0);
+		assertEquals(7, u.length);
+		assertTrue(Double.isNaN(u[5]) && Double.isNaN(u[6]));
+		int[][] ui = unionIndices(a, b);
+		assertArrayEquals(new int[]{1, 2, 0, 4, 5}, ui[0]);
+		assertArrayEquals(new int[]{0, 4}, ui[1]);
+		
+		assertArrayEquals(new int[]{0, 4, 5}, setdiffIndices(a, b));
+		assertEquals(5.0, setdiff(a, b)[0], 0.0);
+		
+		assertArrayEquals(new int[]{-1, 2, 1, 1, -1, -1}, ismemberIndices(a, b));
+		boolean[] tf = ismember(a, b);
+		assertTrue(tf[1] && tf[2] && !tf[0] && !tf[5]);
+	}
+
 }
@@ -0,0 +1,332 @@
+package jMath.linalg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * A compact binary file format for vectors and matrices that can be memory-mapped,
+ * so large arrays are paged in lazily and shared between processes through the page cache
+ * instead of being parsed at startup.
+ * The file is a 64 byte header followed by the raw elements (matrices row by row):
+ * <pre>
+ * bytes 0-5    magic "JMATH" and format version 1
+ * byte  6      byte order of the rest of the file, 'L' or 'B'
+ * byte  7      element type, 'd' for 64 bit floating point
+ * bytes 8-11   number of dimensions (1 or 2)
+ * bytes 16-    size of each dimension as a long
+ * </pre>
+ * Files are written in the native byte order but either order can be read.
+ */
+public class ArrayFile {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	public static final int HEADER_SIZE = 64;
+
+	private static final byte[] MAGIC = {'J', 'M', 'A', 'T', 'H', 1};
+	private static final byte FLOAT64 = 'd';
+	private static final int MAX_DIMENSIONS = (HEADER_SIZE - 16)/8;
+
+	// doubles per write when streaming to a file
+	private static final int BLOCK = 8192;
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * writes an array to a file (replacing any existing file)
+	 * @param path
+	 * @param x
+	 * @throws IOException
+	 */
+	public static void write(Path path, double[] x) throws IOException{
+		try (FileChannel ch = create(path, x.length)){
+			ByteBuffer buf = block();
+			writeData(ch, buf, x, 0, x.length);
+			flush(ch, buf);
+		}
+	}
+
+	/**
+	 * writes a vector to a file (replacing any existing file)
+	 * @param path
+	 * @param x
+	 * @throws IOException
+	 */
+	public static void write(Path path, Vector x) throws IOException{
+		write(path, x.values());
+	}
+
+	/**
+	 * writes an off-heap vector to a file (replacing any existing file)
+	 * @param path
+	 * @param x
+	 * @throws IOException
+	 */
+	public static void write(Path path, OffHeapVector x) throws IOException{
+		long n = x.length();
+		try (FileChannel ch = create(path, n)){
+			ByteBuffer buf = block();
+			double[] part = new double[BLOCK];
+			for (long i = 0; i < n; i += BLOCK){
+				int len = (int) Math.min(BLOCK, n - i);
+				x.get(i, part, 0, len);
+				writeData(ch, buf, part, 0, len);
+			}
+			flush(ch, buf);
+		}
+	}
+
+	/**
+	 * writes a matrix to a file (replacing any existing file)
+	 * @param path
+	 * @param A  rectangular array
+	 * @throws IOException
+	 * @throws IllegalArgumentException  if A is empty (a Matrix has at least one row and column)
+	 */
+	public static void write(Path path, double[][] A) throws IOException, IllegalArgumentException{
+		int m = A.length;
+		int n = (m == 0) ? 0 : A[0].length;
+		if (n == 0){
+			throw new IllegalArgumentException("Matrix must not be empty");
+		}
+		try (FileChannel ch = create(path, m, n)){
+			ByteBuffer buf = block();
+			for (double[] row : A){
+				if (row.length != n){
+					throw new IllegalArgumentException("Rows must be the same length");
+				}
+				writeData(ch, buf, row, 0, n);
+			}
+			flush(ch, buf);
+		}
+	}
+
+	/**
+	 * writes a matrix to a file (replacing any existing file)
+	 * @param path
+	 * @param A
+	 * @throws IOException
+	 */
+	public static void write(Path path, Matrix A) throws IOException{
+		int m = A.A.getRowDimension();
+		int n = A.A.getColumnDimension();
+		try (FileChannel ch = create(path, m, n)){
+			ByteBuffer buf = block();
+			for (int i = 0; i < m; i++){
+				writeData(ch, buf, A.A.getRow(i), 0, n);
+			}
+			flush(ch, buf);
+		}
+	}
+
+	/**
+	 * reads the dimensions stored in a file
+	 * @param path
+	 * @return length of each dimension
+	 * @throws IOException
+	 * @throws IllegalArgumentException  if the file is not in this format
+	 */
+	public static long[] shape(Path path) throws IOException, IllegalArgumentException{
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)){
+			return readHeader(ch).shape;
+		}
+	}
+
+	/**
+	 * memory-maps a 1D file as a vector.
+	 * Read-only mappings throw ReadOnlyBufferException on writes, PRIVATE mappings are
+	 * copy-on-write, and writes to READ_WRITE mappings go to the file.
+	 * The mapping is released by {@link OffHeapVector#close close}.
+	 * @param path
+	 * @param mode
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException  if the file does not hold a vector
+	 */
+	public static OffHeapVector mapVector(Path path, MapMode mode) throws IOException, IllegalArgumentException{
+		try (FileChannel ch = open(path, mode)){
+			Header h = readHeader(ch);
+			if (h.shape.length != 1){
+				throw new IllegalArgumentException("File does not contain a vector");
+			}
+			return map(ch, mode, h.order, h.shape[0]);
+		}
+	}
+
+	/**
+	 * memory-maps a 2D file as a matrix (see {@link #mapVector mapVector} for the modes).
+	 * Copies of the matrix (and the results of operations) are ordinary in-memory matrices.
+	 * The mapping is released by {@link Matrix#close close}.
+	 * @param path
+	 * @param mode
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException  if the file does not hold a matrix, or the matrix is empty
+	 */
+	public static Matrix mapMatrix(Path path, MapMode mode) throws IOException, IllegalArgumentException{
+		try (FileChannel ch = open(path, mode)){
+			Header h = readHeader(ch);
+			if (h.shape.length != 2 || h.shape[0] > Integer.MAX_VALUE || h.shape[1] > Integer.MAX_VALUE){
+				throw new IllegalArgumentException("File does not contain a matrix");
+			}
+			int m = (int) h.shape[0], n = (int) h.shape[1];
+			if (m == 0 || n == 0){
+				throw new IllegalArgumentException("Matrix must not be empty");
+			}
+			return new Matrix(new BufferRealMatrix(map(ch, mode, h.order, (long) m*n), m, n));
+		}
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	/**
+	 * copy-on-write mappings also need a writable channel, although the file is never changed
+	 */
+	private static FileChannel open(Path path, MapMode mode) throws IOException{
+		if (mode != MapMode.READ_ONLY){
+			return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+		return FileChannel.open(path, StandardOpenOption.READ);
+	}
+
+	/**
+	 * creates the file and writes the header
+	 */
+	private static FileChannel create(Path path, long... shape) throws IOException{
+		FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		ByteOrder order = ByteOrder.nativeOrder();
+		ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).order(order);
+		h.put(MAGIC);
+		h.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 'L' : 'B'));
+		h.put(FLOAT64);
+		h.putInt(shape.length);
+		h.position(16);
+		for (long s : shape){
+			h.putLong(s);
+		}
+		h.clear();
+		while (h.hasRemaining()){
+			ch.write(h);
+		}
+		return ch;
+	}
+
+	/**
+	 * byte order and dimensions of a file
+	 */
+	private static class Header {
+		ByteOrder order;
+		long[] shape;
+	}
+
+	private static Header readHeader(FileChannel ch) throws IOException, IllegalArgumentException{
+		ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE);
+		while (h.hasRemaining()){
+			if (ch.read(h) < 0){
+				throw new IllegalArgumentException("File is too short");
+			}
+		}
+		h.flip();
+		for (byte b : MAGIC){
+			if (h.get() != b){
+				throw new IllegalArgumentException("Not a jMath array file");
+			}
+		}
+		Header header = new Header();
+		header.order = order(h.get());
+		h.order(header.order);
+		if (h.get() != FLOAT64){
+			throw new IllegalArgumentException("Unsupported element type");
+		}
+		int ndim = h.getInt();
+		if (ndim < 1 || ndim > MAX_DIMENSIONS){
+			throw new IllegalArgumentException("Invalid number of dimensions");
+		}
+		h.position(16);
+		long[] shape = header.shape = new long[ndim];
+		long count = 1;
+		for (int i = 0; i < ndim; i++){
+			shape[i] = h.getLong();
+			if (shape[i] < 0){
+				throw new IllegalArgumentException("Invalid dimensions");
+			}
+			try{
+				count = Math.multiplyExact(count, shape[i]);
+			} catch (ArithmeticException e){
+				throw new IllegalArgumentException("Invalid dimensions");
+			}
+		}
+		if (count > (ch.size() - HEADER_SIZE)/Double.BYTES){
+			throw new IllegalArgumentException("File is shorter than its header says");
+		}
+		return header;
+	}
+
+	private static ByteOrder order(byte b) throws IllegalArgumentException{
+		if (b == 'L'){
+			return ByteOrder.LITTLE_ENDIAN;
+		} else if (b == 'B'){
+			return ByteOrder.BIG_ENDIAN;
+		}
+		throw new IllegalArgumentException("Invalid byte order");
+	}
+
+	/**
+	 * maps the n elements after the header, one mapping per OffHeapVector buffer
+	 */
+	private static OffHeapVector map(FileChannel ch, MapMode mode, ByteOrder order, long n) throws IOException{
+		int shift = OffHeapVector.CHUNK_SHIFT;
+		int chunks = (int) ((n + (1L << shift) - 1) >>> shift);
+		ByteBuffer[] buffers = new ByteBuffer[chunks];
+		for (int c = 0; c < chunks; c++){
+			long start = (long) c << shift;
+			long len = Math.min(n - start, 1L << shift);
+			buffers[c] = ch.map(mode, HEADER_SIZE + start*Double.BYTES, len*Double.BYTES).order(order);
+		}
+		return new OffHeapVector(buffers, n, shift);
+	}
+
+	private static ByteBuffer block(){
+		return ByteBuffer.allocateDirect(BLOCK*Double.BYTES).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * copies x[off ... off+len-1] into buf, writing buf to the channel whenever it fills
+	 */
+	private static void writeData(FileChannel ch, ByteBuffer buf, double[] x, int off, int len) throws IOException{
+		while (len > 0){
+			int m = Math.min(len, buf.remaining()/Double.BYTES);
+			DoubleBuffer d = buf.asDoubleBuffer();
+			d.put(x, off, m);
+			buf.position(buf.position() + m*Double.BYTES);
+			off += m;
+			len -= m;
+			if (!buf.hasRemaining()){
+				flush(ch, buf);
+			}
+		}
+	}
+
+	private static void flush(FileChannel ch, ByteBuffer buf) throws IOException{
+		buf.flip();
+		while (buf.hasRemaining()){
+			ch.write(buf);
+		}
+		buf.clear();
+	}
+}
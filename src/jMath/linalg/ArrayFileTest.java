@@ -0,0 +1,180 @@
+package jMath.linalg;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+public class ArrayFileTest {
+
+	public static final double tol = 0.0;
+
+	@Test
+	public void testVector() throws IOException{
+		Path path = Files.createTempFile("vector", ".bin");
+		try{
+			Vector x = Vector.linspace(-1.0, 3.0, 101);
+			ArrayFile.write(path, x);
+			assertArrayEquals(new long[]{101}, ArrayFile.shape(path));
+			assertEquals(ArrayFile.HEADER_SIZE + 101*8, Files.size(path));
+
+			try (OffHeapVector v = Vector.map(path)){
+				assertArrayEquals(x.getArray(), v.getArray(), tol);
+				try{
+					v.set(0, 1.0);
+					fail();
+				} catch (ReadOnlyBufferException e){
+					// expected
+				}
+			}
+
+			// copy-on-write changes are not saved
+			try (OffHeapVector v = Vector.map(path, MapMode.PRIVATE)){
+				v.multiplyEquals(2.0);
+				assertEquals(-2.0, v.get(0), tol);
+			}
+			try (OffHeapVector v = Vector.map(path, MapMode.READ_WRITE)){
+				assertEquals(-1.0, v.get(0), tol);
+				v.set(0, 5.0);
+			}
+			try (OffHeapVector v = Vector.map(path)){
+				assertEquals(5.0, v.get(0), tol);
+			}
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testMatrix() throws IOException{
+		Path path = Files.createTempFile("matrix", ".bin");
+		try{
+			double[][] A = {{1, 2, 3}, {4, 5, 6}};
+			ArrayFile.write(path, new Matrix(A));
+			assertArrayEquals(new long[]{2, 3}, ArrayFile.shape(path));
+
+			Matrix B = Matrix.map(path);
+			assertEquals(6.0, B.get(1, 2), tol);
+			assertArrayEquals(new double[]{4, 5, 6}, B.getRow(1).getArray(), tol);
+			assertArrayEquals(new double[]{2, 5}, B.getColumn(1).getArray(), tol);
+			assertArrayEquals(new double[]{14, 32}, B.multiply(new Vector(1, 2, 3)).getArray(), tol);
+
+			Matrix C = B.transpose();
+			C.set(0, 0, -1.0);
+			assertEquals(1.0, B.get(0, 0), tol);
+
+			B.close();
+			try{
+				B.get(0, 0);
+				fail();
+			} catch (IllegalStateException e){
+				// expected
+			}
+			C.close();
+			assertEquals(-1.0, C.get(0, 0), tol);
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testByteOrder() throws IOException{
+		Path path = Files.createTempFile("swapped", ".bin");
+		try{
+			ByteOrder other = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ?
+					ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+			ByteBuffer b = ByteBuffer.allocate(ArrayFile.HEADER_SIZE + 16).order(other);
+			b.put(new byte[]{'J', 'M', 'A', 'T', 'H', 1});
+			b.put((byte) (other == ByteOrder.LITTLE_ENDIAN ? 'L' : 'B'));
+			b.put((byte) 'd');
+			b.putInt(1);
+			b.putLong(16, 2);
+			b.putDouble(ArrayFile.HEADER_SIZE, 1.5);
+			b.putDouble(ArrayFile.HEADER_SIZE + 8, -7.25);
+			Files.write(path, b.array());
+
+			try (OffHeapVector v = Vector.map(path)){
+				assertArrayEquals(new double[]{1.5, -7.25}, v.getArray(), tol);
+			}
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testEmptyMatrix() throws IOException{
+		Path path = Files.createTempFile("empty", ".bin");
+		try{
+			try{
+				ArrayFile.write(path, new double[0][3]);
+				fail();
+			} catch (IllegalArgumentException e){
+				// expected
+			}
+
+			// a 0 x 3 file from elsewhere
+			ByteBuffer b = ByteBuffer.allocate(ArrayFile.HEADER_SIZE).order(ByteOrder.nativeOrder());
+			b.put(new byte[]{'J', 'M', 'A', 'T', 'H', 1});
+			b.put((byte) (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 'L' : 'B'));
+			b.put((byte) 'd');
+			b.putInt(2);
+			b.putLong(16, 0);
+			b.putLong(24, 3);
+			Files.write(path, b.array());
+			try{
+				Matrix.map(path);
+				fail();
+			} catch (IllegalArgumentException e){
+				// expected
+			}
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testOverflowingHeader() throws IOException{
+		Path path = Files.createTempFile("corrupt", ".bin");
+		try{
+			// 2^32 x 2^32 doubles wraps to 0 bytes, 2^61 + 1 elements wraps to 8 bytes
+			long[][] shapes = {{1L << 32, 1L << 32}, {(1L << 61) + 1}};
+			for (long[] shape: shapes){
+				ByteBuffer b = ByteBuffer.allocate(ArrayFile.HEADER_SIZE + 8).order(ByteOrder.nativeOrder());
+				b.put(new byte[]{'J', 'M', 'A', 'T', 'H', 1});
+				b.put((byte) (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 'L' : 'B'));
+				b.put((byte) 'd');
+				b.putInt(shape.length);
+				for (int i = 0; i < shape.length; i++){
+					b.putLong(16 + 8*i, shape[i]);
+				}
+				Files.write(path, b.array());
+				try{
+					ArrayFile.shape(path);
+					fail();
+				} catch (IllegalArgumentException e){
+					// expected
+				}
+			}
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotVector() throws IOException{
+		Path path = Files.createTempFile("matrix", ".bin");
+		try{
+			ArrayFile.write(path, new double[][]{{1, 2}});
+			Vector.map(path);
+		} finally{
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package jMath.linalg;
+
+import org.apache.commons.math.linear.AbstractRealMatrix;
+import org.apache.commons.math.linear.Array2DRowRealMatrix;
+import org.apache.commons.math.linear.RealMatrix;
+
+
+/**
+ * A RealMatrix whose entries are stored row by row in an OffHeapVector
+ * (e.g. a memory-mapped file, see {@link ArrayFile#mapMatrix ArrayFile.mapMatrix}).
+ * New matrices created from it are ordinary in-memory matrices.
+ */
+class BufferRealMatrix extends AbstractRealMatrix {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	private final OffHeapVector data;
+	private final int m, n;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	/**
+	 * @param data  m*n entries, row by row
+	 * @param m  number of rows
+	 * @param n  number of columns
+	 */
+	BufferRealMatrix(OffHeapVector data, int m, int n){
+		super(m, n);
+		this.data = data;
+		this.m = m;
+		this.n = n;
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	@Override
+	public RealMatrix createMatrix(int rowDimension, int columnDimension){
+		return new Array2DRowRealMatrix(rowDimension, columnDimension);
+	}
+
+	@Override
+	public RealMatrix copy(){
+		return new Array2DRowRealMatrix(getData(), false);
+	}
+
+	@Override
+	public double[][] getData(){
+		double[][] A = new double[m][n];
+		for (int i = 0; i < m; i++){
+			data.get((long) i*n, A[i], 0, n);
+		}
+		return A;
+	}
+
+	@Override
+	public double[] getRow(int i){
+		checkRow(i);
+		double[] row = new double[n];
+		data.get((long) i*n, row, 0, n);
+		return row;
+	}
+
+	@Override
+	public void setRow(int i, double[] row){
+		checkRow(i);
+		if (row.length != n){
+			throw new IllegalArgumentException("Row must have " + n + " entries");
+		}
+		data.set((long) i*n, row, 0, n);
+	}
+
+	@Override
+	public double getEntry(int i, int j){
+		return data.get(index(i, j));
+	}
+
+	@Override
+	public void setEntry(int i, int j, double value){
+		data.set(index(i, j), value);
+	}
+
+	@Override
+	public void addToEntry(int i, int j, double increment){
+		long k = index(i, j);
+		data.set(k, data.get(k) + increment);
+	}
+
+	@Override
+	public void multiplyEntry(int i, int j, double factor){
+		long k = index(i, j);
+		data.set(k, data.get(k)*factor);
+	}
+
+	@Override
+	public int getRowDimension(){
+		return m;
+	}
+
+	@Override
+	public int getColumnDimension(){
+		return n;
+	}
+
+	/**
+	 * releases the buffers (unmaps a mapped file).  The matrix can not be used afterwards.
+	 */
+	void close(){
+		data.close();
+	}
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	private long index(int i, int j){
+		checkRow(i);
+		if (j < 0 || j >= n){
+			throw new IndexOutOfBoundsException("Column " + j + " of " + n);
+		}
+		return (long) i*n + j;
+	}
+
+	private void checkRow(int i){
+		if (i < 0 || i >= m){
+			throw new IndexOutOfBoundsException("Row " + i + " of " + m);
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package jMath.linalg;
+
+import org.apache.commons.math.complex.Complex;
+
+/**
+ * LU factorization with partial pivoting of a square complex matrix, PA = LU.
+ * The complex counterpart of {@link LUFactorization}: the factors are held in split
+ * real and imaginary rows, and the storage is allocated once for a given dimension so that
+ * the same object can repeatedly factor and solve without any further allocation.
+ */
+public class ComplexLUFactorization {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// combined L (unit diagonal, below) and U (on and above diagonal) factors
+	private final double[][] LUr, LUi;
+
+	// row permutation
+	private final int[] piv;
+
+	// dimension
+	private final int n;
+
+	// sign of the permutation
+	private int pivSign;
+
+	private boolean singular;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	/**
+	 * allocates storage for factoring n X n matrices
+	 * @param n
+	 */
+	public ComplexLUFactorization(int n){
+		this.n = n;
+		LUr = new double[n][n];
+		LUi = new double[n][n];
+		piv = new int[n];
+	}
+
+	/**
+	 * allocates storage and factors A
+	 * @param A  square matrix
+	 */
+	public ComplexLUFactorization(ComplexMatrix A){
+		this(A.m);
+		factor(A);
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * factor a square matrix.  A is not modified.
+	 * @param A
+	 * @throws IllegalArgumentException
+	 */
+	public void factor(ComplexMatrix A) throws IllegalArgumentException{
+		if (A.m != n || A.n != n){
+			throw new IllegalArgumentException("Matrix must be " + n + " X " + n);
+		}
+		for (int i = 0; i < n; i++){
+			for (int j = 0; j < n; j++){
+				int k = (i*n + j)*A.step;
+				LUr[i][j] = A.re[k];
+				LUi[i][j] = A.im[A.imOffset + k];
+			}
+		}
+		factorInPlace();
+	}
+
+	/**
+	 * @return true if the factored matrix is singular
+	 */
+	public boolean isSingular(){
+		return singular;
+	}
+
+	/**
+	 * solves Ax = b using the current factorization.  b and x may be the same arrays.
+	 * @param bRe  real part of the right hand side
+	 * @param bIm  imaginary part of the right hand side
+	 * @param xRe  on output the real part of the solution
+	 * @param xIm  on output the imaginary part of the solution
+	 * @throws ArithmeticException if the matrix is singular
+	 */
+	public void solve(double[] bRe, double[] bIm, double[] xRe, double[] xIm) throws ArithmeticException{
+		if (singular){
+			throw new ArithmeticException("Matrix is singular");
+		}
+
+		if (bRe != xRe){
+			System.arraycopy(bRe, 0, xRe, 0, n);
+		}
+		if (bIm != xIm){
+			System.arraycopy(bIm, 0, xIm, 0, n);
+		}
+
+		// apply the row interchanges in the order they were made
+		for (int i = 0; i < n; i++){
+			int p = piv[i];
+			if (p != i){
+				double t = xRe[i];
+				xRe[i] = xRe[p];
+				xRe[p] = t;
+				t = xIm[i];
+				xIm[i] = xIm[p];
+				xIm[p] = t;
+			}
+		}
+
+		// forward substitution with unit lower triangle
+		for (int i = 1; i < n; i++){
+			double[] rr = LUr[i], ri = LUi[i];
+			double sr = xRe[i], si = xIm[i];
+			for (int j = 0; j < i; j++){
+				sr -= rr[j]*xRe[j] - ri[j]*xIm[j];
+				si -= rr[j]*xIm[j] + ri[j]*xRe[j];
+			}
+			xRe[i] = sr;
+			xIm[i] = si;
+		}
+
+		// back substitution with upper triangle
+		for (int i = n-1; i >= 0; i--){
+			double[] rr = LUr[i], ri = LUi[i];
+			double sr = xRe[i], si = xIm[i];
+			for (int j = i+1; j < n; j++){
+				sr -= rr[j]*xRe[j] - ri[j]*xIm[j];
+				si -= rr[j]*xIm[j] + ri[j]*xRe[j];
+			}
+			double d = rr[i]*rr[i] + ri[i]*ri[i];
+			xRe[i] = (sr*rr[i] + si*ri[i])/d;
+			xIm[i] = (si*rr[i] - sr*ri[i])/d;
+		}
+	}
+
+	/**
+	 * solves Ax = b
+	 * @param b
+	 * @return x (with the same layout as b)
+	 * @throws IllegalArgumentException  if b has the wrong length
+	 * @throws ArithmeticException  if the matrix is singular
+	 */
+	public ComplexVector solve(ComplexVector b) throws IllegalArgumentException, ArithmeticException{
+		if (b.n != n){
+			throw new IllegalArgumentException("Vector must have length " + n);
+		}
+		double[] xRe = b.realArray();
+		double[] xIm = b.imagArray();
+		solve(xRe, xIm, xRe, xIm);
+		return new ComplexVector(xRe, xIm).toLayout(b.getLayout());
+	}
+
+	/**
+	 * @return determinant of the factored matrix
+	 */
+	public Complex det(){
+		double dr = pivSign, di = 0.0;
+		for (int i = 0; i < n; i++){
+			double ur = LUr[i][i], ui = LUi[i][i];
+			double t = dr*ur - di*ui;
+			di = dr*ui + di*ur;
+			dr = t;
+		}
+		return new Complex(dr, di);
+	}
+
+/* ------------------------
+   Private Methods
+* ------------------------ */
+
+	/**
+	 * right looking Gaussian elimination with partial pivoting, choosing the pivot
+	 * by |re| + |im| as LAPACK does.  piv[k] records the row swapped with row k at step k.
+	 */
+	private void factorInPlace(){
+		singular = false;
+		pivSign = 1;
+
+		for (int k = 0; k < n; k++){
+
+			int p = k;
+			double max = Math.abs(LUr[k][k]) + Math.abs(LUi[k][k]);
+			for (int i = k+1; i < n; i++){
+				double v = Math.abs(LUr[i][k]) + Math.abs(LUi[i][k]);
+				if (v > max){
+					max = v;
+					p = i;
+				}
+			}
+			piv[k] = p;
+
+			if (p != k){
+				double[] t = LUr[k];
+				LUr[k] = LUr[p];
+				LUr[p] = t;
+				t = LUi[k];
+				LUi[k] = LUi[p];
+				LUi[p] = t;
+				pivSign = -pivSign;
+			}
+
+			double[] rkr = LUr[k], rki = LUi[k];
+			double pr = rkr[k], pi = rki[k];
+			if (pr == 0.0 && pi == 0.0){
+				singular = true;
+				continue;
+			}
+			double d = pr*pr + pi*pi;
+
+			for (int i = k+1; i < n; i++){
+				double[] rir = LUr[i], rii = LUi[i];
+				// l = LU[i][k] / pivot
+				double lr = (rir[k]*pr + rii[k]*pi)/d;
+				double li = (rii[k]*pr - rir[k]*pi)/d;
+				rir[k] = lr;
+				rii[k] = li;
+				if (lr != 0.0 || li != 0.0){
+					for (int j = k+1; j < n; j++){
+						double ur = rkr[j], ui = rki[j];
+						rir[j] -= lr*ur - li*ui;
+						rii[j] -= lr*ui + li*ur;
+					}
+				}
+			}
+		}
+	}
+}
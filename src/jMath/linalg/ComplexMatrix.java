@@ -0,0 +1,442 @@
+package jMath.linalg;
+
+import org.apache.commons.math.complex.Complex;
+
+import jMath.linalg.ComplexVector.Layout;
+
+
+/**
+ * The class ComplexMatrix represents an m X n complex matrix.
+ * Mirrors the API of {@link Matrix}.  Elements are stored row by row in primitive arrays,
+ * either split (separate real and imaginary arrays) or interleaved, as in {@link ComplexVector}.
+ */
+public class ComplexMatrix {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// element (i, j) at k = (i*n + j)*step is re[k] + j*im[imOffset + k]
+	double[] re, im;
+	int imOffset, step;
+
+	// dimension m X n
+	int m, n;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	/**
+	 * m X n matrix of zeros with split storage
+	 * @param m
+	 * @param n
+	 */
+	public ComplexMatrix(int m, int n){
+		this(m, n, Layout.SPLIT);
+	}
+
+	/**
+	 * m X n matrix of zeros
+	 * @param m
+	 * @param n
+	 * @param layout  split or interleaved storage
+	 */
+	public ComplexMatrix(int m, int n, Layout layout){
+		this.m = m;
+		this.n = n;
+		if (layout == Layout.SPLIT){
+			re = new double[m*n];
+			im = new double[m*n];
+			imOffset = 0;
+			step = 1;
+		} else{
+			re = new double[2*m*n];
+			im = re;
+			imOffset = 1;
+			step = 2;
+		}
+	}
+
+	/**
+	 * construct from the real and imaginary parts (copied, split storage)
+	 * @param re
+	 * @param im
+	 * @throws IllegalArgumentException  if the arrays are not the same size
+	 */
+	public ComplexMatrix(double[][] re, double[][] im) throws IllegalArgumentException{
+		this(re.length, re.length == 0 ? 0 : re[0].length);
+		if (im.length != m){
+			throw new IllegalArgumentException("Real and imaginary parts must be the same size");
+		}
+		for (int i = 0; i < m; i++){
+			if (re[i].length != n || im[i].length != n){
+				throw new IllegalArgumentException("Real and imaginary parts must be the same size");
+			}
+			System.arraycopy(re[i], 0, this.re, i*n, n);
+			System.arraycopy(im[i], 0, this.im, i*n, n);
+		}
+	}
+
+	/**
+	 * construct from the real and imaginary parts
+	 * @param re
+	 * @param im
+	 */
+	public ComplexMatrix(Matrix re, Matrix im){
+		this(re.getArray(), im.getArray());
+	}
+
+	/**
+	 * construct a real valued complex matrix
+	 * @param re
+	 */
+	public ComplexMatrix(Matrix re){
+		this(re.getArray(), new double[re.m][re.n]);
+	}
+
+	/**
+	 * n X n identity matrix
+	 * @param n
+	 * @return
+	 */
+	public static ComplexMatrix identity(int n){
+		ComplexMatrix I = new ComplexMatrix(n, n);
+		for (int i = 0; i < n; i++){
+			I.re[i*n + i] = 1.0;
+		}
+		return I;
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * @return the storage layout
+	 */
+	public Layout getLayout(){
+		return step == 1 ? Layout.SPLIT : Layout.INTERLEAVED;
+	}
+
+	/**
+	 * @param layout
+	 * @return this matrix if it already has the layout, otherwise a copy with that layout
+	 */
+	public ComplexMatrix toLayout(Layout layout){
+		if (layout == getLayout()){
+			return this;
+		}
+		ComplexMatrix B = new ComplexMatrix(m, n, layout);
+		for (int k = 0; k < m*n; k++){
+			B.re[k*B.step] = re[k*step];
+			B.im[B.imOffset + k*B.step] = im[imOffset + k*step];
+		}
+		return B;
+	}
+
+	/**
+	 * @return number of rows
+	 */
+	public int getRowDimension(){
+		return m;
+	}
+
+	/**
+	 * @return number of columns
+	 */
+	public int getColumnDimension(){
+		return n;
+	}
+
+	public Complex get(int i, int j){
+		int k = index(i, j);
+		return new Complex(re[k], im[imOffset + k]);
+	}
+
+	public double getReal(int i, int j){
+		return re[index(i, j)];
+	}
+
+	public double getImag(int i, int j){
+		return im[imOffset + index(i, j)];
+	}
+
+	public void set(int i, int j, double a, double b){
+		int k = index(i, j);
+		re[k] = a;
+		im[imOffset + k] = b;
+	}
+
+	public void set(int i, int j, Complex z){
+		set(i, j, z.getReal(), z.getImaginary());
+	}
+
+	/**
+	 * @return the real parts
+	 */
+	public Matrix getReal(){
+		double[][] A = new double[m][n];
+		for (int i = 0; i < m; i++){
+			for (int j = 0; j < n; j++){
+				A[i][j] = re[(i*n + j)*step];
+			}
+		}
+		return new Matrix(A, false);
+	}
+
+	/**
+	 * @return the imaginary parts
+	 */
+	public Matrix getImag(){
+		double[][] A = new double[m][n];
+		for (int i = 0; i < m; i++){
+			for (int j = 0; j < n; j++){
+				A[i][j] = im[imOffset + (i*n + j)*step];
+			}
+		}
+		return new Matrix(A, false);
+	}
+
+	/**
+	 * @return A^T (no conjugation)
+	 */
+	public ComplexMatrix transpose(){
+		return transpose(false);
+	}
+
+	/**
+	 * @return A^H, the conjugate transpose
+	 */
+	public ComplexMatrix conjugateTranspose(){
+		return transpose(true);
+	}
+
+	/**
+	 * @param B
+	 * @return A + B
+	 * @throws IllegalArgumentException
+	 */
+	public ComplexMatrix add(ComplexMatrix B) throws IllegalArgumentException{
+		return combine(B, 1.0);
+	}
+
+	/**
+	 * @param B
+	 * @return A - B
+	 * @throws IllegalArgumentException
+	 */
+	public ComplexMatrix subtract(ComplexMatrix B) throws IllegalArgumentException{
+		return combine(B, -1.0);
+	}
+
+	/**
+	 * multiply every entry by a complex constant a + jb
+	 * @param a
+	 * @param b
+	 * @return (a + jb)*A
+	 */
+	public ComplexMatrix multiply(double a, double b){
+		ComplexMatrix C = new ComplexMatrix(m, n, getLayout());
+		for (int k = 0; k < m*n*step; k += step){
+			double ar = re[k], ai = im[imOffset + k];
+			C.re[k] = a*ar - b*ai;
+			C.im[imOffset + k] = a*ai + b*ar;
+		}
+		return C;
+	}
+
+	/**
+	 * matrix-vector product
+	 * @param x
+	 * @return A*x
+	 * @throws IllegalArgumentException
+	 */
+	public ComplexVector multiply(ComplexVector x) throws IllegalArgumentException{
+		if (x.n != n){
+			throw new IllegalArgumentException("Matrix and vector dimensions do not agree");
+		}
+		ComplexVector y = new ComplexVector(m, x.getLayout());
+		for (int i = 0; i < m; i++){
+			double sr = 0.0, si = 0.0;
+			for (int j = 0; j < n; j++){
+				int k = (i*n + j)*step, kx = j*x.step;
+				double ar = re[k], ai = im[imOffset + k];
+				double xr = x.re[kx], xi = x.im[x.imOffset + kx];
+				sr += ar*xr - ai*xi;
+				si += ar*xi + ai*xr;
+			}
+			y.re[i*y.step] = sr;
+			y.im[y.imOffset + i*y.step] = si;
+		}
+		return y;
+	}
+
+	/**
+	 * matrix-matrix product (complex GEMM).  The operands are packed into split form and
+	 * multiplied in i-k-j order so the inner loop runs along contiguous rows of B and C.
+	 * @param B
+	 * @return A*B
+	 * @throws IllegalArgumentException
+	 */
+	public ComplexMatrix multiply(ComplexMatrix B) throws IllegalArgumentException{
+		if (B.m != n){
+			throw new IllegalArgumentException("Matrix dimensions do not agree");
+		}
+		int p = B.n;
+		ComplexMatrix As = toLayout(Layout.SPLIT);
+		ComplexMatrix Bs = B.toLayout(Layout.SPLIT);
+		double[] ar = As.re, ai = As.im, br = Bs.re, bi = Bs.im;
+
+		ComplexMatrix C = new ComplexMatrix(m, p);
+		double[] cr = C.re, ci = C.im;
+		for (int i = 0; i < m; i++){
+			int ic = i*p;
+			for (int k = 0; k < n; k++){
+				double xr = ar[i*n + k], xi = ai[i*n + k];
+				if (xr == 0.0 && xi == 0.0){
+					continue;
+				}
+				int kb = k*p;
+				for (int j = 0; j < p; j++){
+					double yr = br[kb + j], yi = bi[kb + j];
+					cr[ic + j] += xr*yr - xi*yi;
+					ci[ic + j] += xr*yi + xi*yr;
+				}
+			}
+		}
+		return C.toLayout(getLayout());
+	}
+
+	public void setColumn(int j, ComplexVector x){
+		if (x.n != m){
+			throw new IllegalArgumentException("Vector length must equal the number of rows");
+		}
+		for (int i = 0; i < m; i++){
+			set(i, j, x.re[i*x.step], x.im[x.imOffset + i*x.step]);
+		}
+	}
+
+	public void setRow(int i, ComplexVector x){
+		if (x.n != n){
+			throw new IllegalArgumentException("Vector length must equal the number of columns");
+		}
+		for (int j = 0; j < n; j++){
+			set(i, j, x.re[j*x.step], x.im[x.imOffset + j*x.step]);
+		}
+	}
+
+	public ComplexVector getColumn(int j){
+		ComplexVector x = new ComplexVector(m, getLayout());
+		for (int i = 0; i < m; i++){
+			int k = index(i, j);
+			x.re[i*step] = re[k];
+			x.im[imOffset + i*step] = im[imOffset + k];
+		}
+		return x;
+	}
+
+	public ComplexVector getRow(int i){
+		ComplexVector x = new ComplexVector(n, getLayout());
+		for (int j = 0; j < n; j++){
+			int k = index(i, j);
+			x.re[j*step] = re[k];
+			x.im[imOffset + j*step] = im[imOffset + k];
+		}
+		return x;
+	}
+
+	public boolean isSquare(){
+		return m == n;
+	}
+
+	/**
+	 * @return true if A equals its conjugate transpose
+	 */
+	public boolean isHermitian(){
+		if (!isSquare()){
+			return false;
+		}
+		for (int i = 0; i < n; i++){
+			for (int j = i; j < n; j++){
+				if (getReal(i, j) != getReal(j, i) || getImag(i, j) != -getImag(j, i)){
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * solves the square system Ax = b using LU decomposition with partial pivoting
+	 * @param b
+	 * @return x
+	 * @throws IllegalArgumentException  if A is not square
+	 * @throws ArithmeticException  if A is singular
+	 */
+	public ComplexVector solve(ComplexVector b) throws IllegalArgumentException, ArithmeticException{
+		if (!isSquare()){
+			throw new IllegalArgumentException("Matrix must be square");
+		}
+		return new ComplexLUFactorization(this).solve(b);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder("ComplexMatrix [m=" + m + ", n=" + n + ", A=[");
+		for (int i = 0; i < m; i++){
+			s.append(i > 0 ? ", [" : "[");
+			for (int j = 0; j < n; j++){
+				double b = getImag(i, j);
+				s.append(j > 0 ? ", " : "").append(getReal(i, j)).append(b < 0 ? " - " : " + ")
+					.append(Math.abs(b)).append('j');
+			}
+			s.append(']');
+		}
+		return s.append("]]").toString();
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	private int index(int i, int j){
+		if (i < 0 || i >= m || j < 0 || j >= n){
+			throw new ArrayIndexOutOfBoundsException("(" + i + ", " + j + ")");
+		}
+		return (i*n + j)*step;
+	}
+
+	private ComplexMatrix transpose(boolean conjugate){
+		ComplexMatrix T = new ComplexMatrix(n, m, getLayout());
+		double sign = conjugate ? -1.0 : 1.0;
+		for (int i = 0; i < m; i++){
+			for (int j = 0; j < n; j++){
+				int k = (i*n + j)*step, kt = (j*m + i)*step;
+				T.re[kt] = re[k];
+				T.im[imOffset + kt] = sign*im[imOffset + k];
+			}
+		}
+		return T;
+	}
+
+	/**
+	 * @return A + alpha*B
+	 */
+	private ComplexMatrix combine(ComplexMatrix B, double alpha){
+		if (B.m != m || B.n != n){
+			throw new IllegalArgumentException("Matrices must be the same size");
+		}
+		ComplexMatrix C = new ComplexMatrix(m, n, getLayout());
+		for (int k = 0; k < m*n; k++){
+			int kc = k*step, kb = k*B.step;
+			C.re[kc] = re[kc] + alpha*B.re[kb];
+			C.im[imOffset + kc] = im[imOffset + kc] + alpha*B.im[B.imOffset + kb];
+		}
+		return C;
+	}
+}
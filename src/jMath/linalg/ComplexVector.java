@@ -0,0 +1,642 @@
+package jMath.linalg;
+
+import java.util.Arrays;
+
+import org.apache.commons.math.complex.Complex;
+
+
+/**
+ * The class ComplexVector represents an n-dimensional complex vector.
+ * Mirrors the API of {@link Vector}.  Elements are stored in primitive arrays, either split
+ * (separate real and imaginary arrays, the form used by {@link jMath.signal.FFT}) or
+ * interleaved (re0, im0, re1, im1, ...), so no object is allocated per element.
+ * Scalar results (get, dot, sum) are returned as commons-math Complex numbers.
+ */
+public class ComplexVector {
+
+	/**
+	 * storage layout of the real and imaginary parts
+	 */
+	public enum Layout { SPLIT, INTERLEAVED }
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// element i is re[i*step] + j*im[imOffset + i*step]
+	// split: re and im are separate arrays, imOffset = 0, step = 1
+	// interleaved: re and im are the same array, imOffset = 1, step = 2
+	protected double[] re, im;
+	protected int imOffset, step;
+
+	// dimension of array
+	protected int n;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	/**
+	 * Construct a vector of zeros of size n with split storage.
+	 */
+	public ComplexVector(int n){
+		this(n, Layout.SPLIT);
+	}
+
+	/**
+	 * Construct a vector of zeros of size n.
+	 * @param n
+	 * @param layout  split or interleaved storage
+	 */
+	public ComplexVector(int n, Layout layout){
+		this.n = n;
+		if (layout == Layout.SPLIT){
+			re = new double[n];
+			im = new double[n];
+			imOffset = 0;
+			step = 1;
+		} else{
+			re = new double[2*n];
+			im = re;
+			imOffset = 1;
+			step = 2;
+		}
+	}
+
+	/**
+	 * Construct from the real and imaginary parts (copied, split storage)
+	 * @param re
+	 * @param im
+	 * @throws IllegalArgumentException
+	 */
+	public ComplexVector(double[] re, double[] im) throws IllegalArgumentException{
+		if (re.length != im.length){
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+		n = re.length;
+		this.re = re.clone();
+		this.im = im.clone();
+		imOffset = 0;
+		step = 1;
+	}
+
+	/**
+	 * Construct from the real and imaginary parts
+	 * @param re
+	 * @param im
+	 */
+	public ComplexVector(Vector re, Vector im){
+		this(re.values(), im.values());
+	}
+
+	/**
+	 * Construct a real valued complex vector
+	 * @param re
+	 */
+	public ComplexVector(Vector re){
+		this(re.values(), new double[re.n]);
+	}
+
+	/**
+	 * Construct from interleaved data (re0, im0, re1, im1, ...).  The data is copied.
+	 * @param z
+	 * @return
+	 * @throws IllegalArgumentException  if z has odd length
+	 */
+	public static ComplexVector interleaved(double[] z) throws IllegalArgumentException{
+		if (z.length % 2 != 0){
+			throw new IllegalArgumentException("Interleaved data must have even length");
+		}
+		ComplexVector v = new ComplexVector(z.length/2, Layout.INTERLEAVED);
+		System.arraycopy(z, 0, v.re, 0, z.length);
+		return v;
+	}
+
+	/**
+	 * Creates a vector of zeros
+	 * @param n
+	 * @return
+	 */
+	public static ComplexVector zeros(int n){
+		return new ComplexVector(n);
+	}
+
+	/**
+	 * Create a copy of the vector (with the same layout)
+	 * @param x
+	 * @return
+	 */
+	public static ComplexVector copy(ComplexVector x){
+		return x.toLayout(x.getLayout(), true);
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * @return the storage layout
+	 */
+	public Layout getLayout(){
+		return step == 1 ? Layout.SPLIT : Layout.INTERLEAVED;
+	}
+
+	/**
+	 * @param layout
+	 * @return this vector if it already has the layout, otherwise a copy with that layout
+	 */
+	public ComplexVector toLayout(Layout layout){
+		return toLayout(layout, false);
+	}
+
+	/**
+	 * Get length of vector
+	 * @return  n, the number of elements in the vector
+	 */
+	public int length(){
+		return n;
+	}
+
+	/** Get a single element.
+	 * @param i  index.
+	 * @return x(i)
+	 * @exception: ArrayIndexOutOfBoundsException
+	 */
+	public Complex get(int i){
+		checkIndex(i);
+		return new Complex(re[i*step], im[imOffset + i*step]);
+	}
+
+	/**
+	 * @param i
+	 * @return real(x(i))
+	 */
+	public double getReal(int i){
+		checkIndex(i);
+		return re[i*step];
+	}
+
+	/**
+	 * @param i
+	 * @return imag(x(i))
+	 */
+	public double getImag(int i){
+		checkIndex(i);
+		return im[imOffset + i*step];
+	}
+
+	/**
+	 * Set a single element.
+	 * @param i  index
+	 * @param a  real part
+	 * @param b  imaginary part
+	 */
+	public void set(int i, double a, double b){
+		checkIndex(i);
+		re[i*step] = a;
+		im[imOffset + i*step] = b;
+	}
+
+	/**
+	 * Set a single element.
+	 * @param i  index
+	 * @param z
+	 */
+	public void set(int i, Complex z){
+		set(i, z.getReal(), z.getImaginary());
+	}
+
+	/**
+	 * @return the real parts
+	 */
+	public Vector getReal(){
+		return new Vector(realArray());
+	}
+
+	/**
+	 * @return the imaginary parts
+	 */
+	public Vector getImag(){
+		return new Vector(imagArray());
+	}
+
+	/**
+	 * @return a copy of the elements interleaved (re0, im0, re1, im1, ...)
+	 */
+	public double[] getInterleaved(){
+		return toLayout(Layout.INTERLEAVED, true).re;
+	}
+
+	/**
+	 * Get a sub-vector
+	 * @param iStart  Starting index
+	 * @param iEnd  Ending index
+	 * @return  x(iStart:iEnd)
+	 * @exception  ArrayIndexOutOfBoundsException
+	 */
+	public ComplexVector sub(int iStart, int iEnd){
+		if (iStart < 0 || iEnd >= n){
+			throw new ArrayIndexOutOfBoundsException(iStart < 0 ? iStart : iEnd);
+		}
+		ComplexVector v = new ComplexVector(Math.max(iEnd - iStart + 1, 0), getLayout());
+		System.arraycopy(re, iStart*step, v.re, 0, v.n*step);
+		if (step == 1){
+			System.arraycopy(im, iStart, v.im, 0, v.n);
+		}
+		return v;
+	}
+
+	/**
+	 * Set a part of the vector
+	 * this(istart:istart+length(v)-1) = v
+	 * @param iStart  starting index
+	 * @param v
+	 */
+	public void setSub(ComplexVector v, int iStart){
+		if (iStart < 0 || iStart + v.n > n){
+			throw new ArrayIndexOutOfBoundsException(iStart + v.n - 1);
+		}
+		if (v.re == re){
+			v = copy(v);
+		}
+		for (int i = 0; i < v.n; i++){
+			re[(iStart + i)*step] = v.re[i*v.step];
+			im[imOffset + (iStart + i)*step] = v.im[v.imOffset + i*v.step];
+		}
+	}
+
+	/**
+	 * concatenate vectors into one larger one (with split storage)
+	 * [v1 v2 .... vn]
+	 * @param vlist
+	 * @return
+	 */
+	public static ComplexVector concat(ComplexVector... vlist){
+		int size = 0;
+		for (ComplexVector v : vlist){
+			size += v.n;
+		}
+		ComplexVector vNew = new ComplexVector(size);
+		int pos = 0;
+		for (ComplexVector v : vlist){
+			vNew.setSub(v, pos);
+			pos += v.n;
+		}
+		return vNew;
+	}
+
+	/**
+	 * @return the complex conjugate
+	 */
+	public ComplexVector conj(){
+		ComplexVector z = copy(this);
+		for (int i = 0, k = z.imOffset; i < n; i++, k += step){
+			z.im[k] = -z.im[k];
+		}
+		return z;
+	}
+
+	/**
+	 * Change sign of vector
+	 * @param x
+	 * @return -x
+	 */
+	public static ComplexVector negative(ComplexVector x){
+		return x.multiply(-1.0);
+	}
+
+	/**
+	 * add two vectors
+	 * @param y  vector
+	 * @return the sum of the vectors
+	 */
+	public ComplexVector add(ComplexVector y){
+		ComplexVector z = copy(this);
+		z.addEquals(y);
+		return z;
+	}
+
+	/**
+	 * x += y
+	 * @param y
+	 */
+	public void addEquals(ComplexVector y){
+		addEquals(1.0, 0.0, y);
+	}
+
+	/**
+	 * x += alpha*y for a complex constant alpha = a + jb
+	 * @param a
+	 * @param b
+	 * @param y
+	 */
+	public void addEquals(double a, double b, ComplexVector y){
+		checkDimension(y);
+		if (y.re == re && y != this){
+			y = copy(y);
+		}
+		for (int i = 0; i < n; i++){
+			int k = i*step, ky = i*y.step;
+			double yr = y.re[ky], yi = y.im[y.imOffset + ky];
+			re[k] += a*yr - b*yi;
+			im[imOffset + k] += a*yi + b*yr;
+		}
+	}
+
+	/**
+	 * subtract two vectors
+	 * @param y  vector
+	 * @return x - y
+	 */
+	public ComplexVector subtract(ComplexVector y){
+		ComplexVector z = copy(this);
+		z.subtractEquals(y);
+		return z;
+	}
+
+	/**
+	 * x -= y
+	 * @param y
+	 */
+	public void subtractEquals(ComplexVector y){
+		addEquals(-1.0, 0.0, y);
+	}
+
+	/**
+	 * multiply every entry by a real constant
+	 * @param alpha  constant
+	 * @return alpha*x
+	 */
+	public ComplexVector multiply(double alpha){
+		return multiply(alpha, 0.0);
+	}
+
+	/**
+	 * multiply every entry by a complex constant a + jb
+	 * @param a
+	 * @param b
+	 * @return (a + jb)*x
+	 */
+	public ComplexVector multiply(double a, double b){
+		ComplexVector z = copy(this);
+		z.multiplyEquals(a, b);
+		return z;
+	}
+
+	/**
+	 * x *= a + jb
+	 * @param a
+	 * @param b
+	 */
+	public void multiplyEquals(double a, double b){
+		for (int i = 0; i < n; i++){
+			int k = i*step;
+			double xr = re[k], xi = im[imOffset + k];
+			re[k] = a*xr - b*xi;
+			im[imOffset + k] = a*xi + b*xr;
+		}
+	}
+
+	/**
+	 * element by element multiplication
+	 * @param y  vector
+	 * @return a vector z where z_i = x_i*y_i
+	 */
+	public ComplexVector dotTimes(ComplexVector y){
+		checkDimension(y);
+		ComplexVector z = new ComplexVector(n, getLayout());
+		for (int i = 0; i < n; i++){
+			int k = i*step, ky = i*y.step;
+			double xr = re[k], xi = im[imOffset + k];
+			double yr = y.re[ky], yi = y.im[y.imOffset + ky];
+			z.re[k] = xr*yr - xi*yi;
+			z.im[z.imOffset + k] = xr*yi + xi*yr;
+		}
+		return z;
+	}
+
+	/**
+	 * element by element division
+	 * @param y  vector
+	 * @return a vector z where z_i = x_i/y_i
+	 */
+	public ComplexVector dotDivide(ComplexVector y){
+		checkDimension(y);
+		ComplexVector z = new ComplexVector(n, getLayout());
+		for (int i = 0; i < n; i++){
+			int k = i*step, ky = i*y.step;
+			double xr = re[k], xi = im[imOffset + k];
+			double yr = y.re[ky], yi = y.im[y.imOffset + ky];
+			// Smith's algorithm avoids overflow in |y|^2
+			double zr, zi;
+			if (Math.abs(yr) >= Math.abs(yi)){
+				double r = yi/yr, d = yr + yi*r;
+				zr = (xr + xi*r)/d;
+				zi = (xi - xr*r)/d;
+			} else{
+				double r = yr/yi, d = yr*r + yi;
+				zr = (xr*r + xi)/d;
+				zi = (xi*r - xr)/d;
+			}
+			z.re[k] = zr;
+			z.im[z.imOffset + k] = zi;
+		}
+		return z;
+	}
+
+	/**
+	 * dot product without conjugation
+	 * @param y
+	 * @return sum(x_i*y_i)
+	 */
+	public Complex dot(ComplexVector y){
+		checkDimension(y);
+		double sr = 0.0, si = 0.0;
+		for (int i = 0; i < n; i++){
+			int k = i*step, ky = i*y.step;
+			double xr = re[k], xi = im[imOffset + k];
+			double yr = y.re[ky], yi = y.im[y.imOffset + ky];
+			sr += xr*yr - xi*yi;
+			si += xr*yi + xi*yr;
+		}
+		return new Complex(sr, si);
+	}
+
+	/**
+	 * conjugate dot product (the inner product x^H y)
+	 * @param y
+	 * @return sum(conj(x_i)*y_i)
+	 */
+	public Complex dotc(ComplexVector y){
+		checkDimension(y);
+		double sr = 0.0, si = 0.0;
+		for (int i = 0; i < n; i++){
+			int k = i*step, ky = i*y.step;
+			double xr = re[k], xi = im[imOffset + k];
+			double yr = y.re[ky], yi = y.im[y.imOffset + ky];
+			sr += xr*yr + xi*yi;
+			si += xr*yi - xi*yr;
+		}
+		return new Complex(sr, si);
+	}
+
+	/**
+	 * @param x
+	 * @return the sum of the entries of x
+	 */
+	public static Complex sum(ComplexVector x){
+		double sr = 0.0, si = 0.0;
+		for (int i = 0, k = 0; i < x.n; i++, k += x.step){
+			sr += x.re[k];
+			si += x.im[x.imOffset + k];
+		}
+		return new Complex(sr, si);
+	}
+
+	/**
+	 * @param x
+	 * @return the 2-norm sqrt(x^H x)
+	 */
+	public static double norm(ComplexVector x){
+		double scale = 0.0;
+		for (int i = 0, k = 0; i < x.n; i++, k += x.step){
+			scale = Math.max(scale, Math.max(Math.abs(x.re[k]), Math.abs(x.im[x.imOffset + k])));
+		}
+		if (scale == 0.0 || Double.isInfinite(scale)){
+			return scale;
+		}
+		double sum = 0.0;
+		for (int i = 0, k = 0; i < x.n; i++, k += x.step){
+			double a = x.re[k]/scale, b = x.im[x.imOffset + k]/scale;
+			sum += a*a + b*b;
+		}
+		return scale*Math.sqrt(sum);
+	}
+
+	/**
+	 * @param x
+	 * @return |x_i|
+	 */
+	public static Vector abs(ComplexVector x){
+		double[] a = new double[x.n];
+		for (int i = 0, k = 0; i < x.n; i++, k += x.step){
+			a[i] = Math.hypot(x.re[k], x.im[x.imOffset + k]);
+		}
+		return new Vector(a);
+	}
+
+	/**
+	 * @param x
+	 * @return the phase angle of each element, in (-pi, pi]
+	 */
+	public static Vector angle(ComplexVector x){
+		double[] a = new double[x.n];
+		for (int i = 0, k = 0; i < x.n; i++, k += x.step){
+			a[i] = Math.atan2(x.im[x.imOffset + k], x.re[k]);
+		}
+		return new Vector(a);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder("ComplexVector [n=" + n + ", x=[");
+		for (int i = 0; i < n; i++){
+			double b = getImag(i);
+			s.append(i > 0 ? ", " : "").append(getReal(i)).append(b < 0 ? " - " : " + ")
+				.append(Math.abs(b)).append('j');
+		}
+		return s.append("]]").toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + n;
+		result = prime * result + Arrays.hashCode(realArray());
+		result = prime * result + Arrays.hashCode(imagArray());
+		return result;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ComplexVector other = (ComplexVector) obj;
+		if (n != other.n)
+			return false;
+		if (!Arrays.equals(realArray(), other.realArray()) || !Arrays.equals(imagArray(), other.imagArray()))
+			return false;
+		return true;
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	/**
+	 * copy of the real parts as a contiguous array
+	 */
+	double[] realArray(){
+		if (step == 1){
+			return re.clone();
+		}
+		double[] a = new double[n];
+		for (int i = 0; i < n; i++){
+			a[i] = re[2*i];
+		}
+		return a;
+	}
+
+	/**
+	 * copy of the imaginary parts as a contiguous array
+	 */
+	double[] imagArray(){
+		if (step == 1){
+			return im.clone();
+		}
+		double[] a = new double[n];
+		for (int i = 0; i < n; i++){
+			a[i] = im[2*i + 1];
+		}
+		return a;
+	}
+
+	private ComplexVector toLayout(Layout layout, boolean alwaysCopy){
+		if (layout == getLayout() && !alwaysCopy){
+			return this;
+		}
+		ComplexVector v = new ComplexVector(n, layout);
+		for (int i = 0; i < n; i++){
+			v.re[i*v.step] = re[i*step];
+			v.im[v.imOffset + i*v.step] = im[imOffset + i*step];
+		}
+		return v;
+	}
+
+	private void checkIndex(int i){
+		if (i < 0 || i >= n){
+			throw new ArrayIndexOutOfBoundsException(i);
+		}
+	}
+
+	private void checkDimension(ComplexVector y){
+		if (y.n != n){
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package jMath.linalg;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.apache.commons.math.complex.Complex;
+import org.junit.Test;
+
+import jMath.linalg.ComplexVector.Layout;
+
+public class ComplexVectorTest {
+
+	public static final double tol = 1e-12;
+
+	@Test
+	public void testArithmetic(){
+		ComplexVector x = new ComplexVector(new double[]{1, 2}, new double[]{1, -1});
+		ComplexVector y = ComplexVector.interleaved(new double[]{3, 0, 0, 2});
+
+		// (1+j)*3 + (2-j)*2j = 3+3j + 2+4j
+		Complex d = x.dot(y);
+		assertEquals(5.0, d.getReal(), tol);
+		assertEquals(7.0, d.getImaginary(), tol);
+
+		// (1-j)*3 + (2+j)*2j = 3-3j - 2+4j
+		Complex c = x.dotc(y);
+		assertEquals(1.0, c.getReal(), tol);
+		assertEquals(1.0, c.getImaginary(), tol);
+
+		ComplexVector p = x.dotTimes(y);
+		assertEquals(Layout.SPLIT, p.getLayout());
+		assertArrayEquals(new double[]{3, 2}, p.getReal().getArray(), tol);
+		assertArrayEquals(new double[]{3, 4}, p.getImag().getArray(), tol);
+
+		ComplexVector q = p.dotDivide(y);
+		assertEquals(x, q);
+		assertEquals(Math.sqrt(7.0), ComplexVector.norm(x), tol);
+		assertEquals(Math.PI/4, ComplexVector.angle(x).get(0), tol);
+
+		// both layouts give the same results
+		ComplexVector xi = x.toLayout(Layout.INTERLEAVED);
+		assertArrayEquals(new double[]{1, 1, 2, -1}, xi.getInterleaved(), 0.0);
+		assertEquals(x, xi);
+		xi.addEquals(0.0, 1.0, y);
+		assertArrayEquals(new double[]{1, 4, 0, -1}, xi.getInterleaved(), tol);
+		assertEquals(-1.0, x.conj().getImag(0), 0.0);
+	}
+
+	@Test
+	public void testMultiply(){
+		Random r = new Random(3);
+		int m = 5, n = 7, p = 4;
+		double[][] ar = rand(r, m, n), ai = rand(r, m, n), br = rand(r, n, p), bi = rand(r, n, p);
+		ComplexMatrix A = new ComplexMatrix(ar, ai);
+		ComplexMatrix B = new ComplexMatrix(br, bi).toLayout(Layout.INTERLEAVED);
+		ComplexMatrix C = A.multiply(B);
+
+		// (Ar + jAi)(Br + jBi) = (ArBr - AiBi) + j(ArBi + AiBr)
+		Matrix Ar = new Matrix(ar), Ai = new Matrix(ai), Br = new Matrix(br), Bi = new Matrix(bi);
+		for (int j = 0; j < p; j++){
+			Vector cr = Ar.multiply(Br.getColumn(j)).subtract(Ai.multiply(Bi.getColumn(j)));
+			Vector ci = Ar.multiply(Bi.getColumn(j)).add(Ai.multiply(Br.getColumn(j)));
+			assertArrayEquals(cr.getArray(), C.getColumn(j).getReal().getArray(), tol);
+			assertArrayEquals(ci.getArray(), C.getColumn(j).getImag().getArray(), tol);
+		}
+
+		ComplexVector x = B.getColumn(2);
+		assertEquals(C.getColumn(2), A.multiply(x).toLayout(Layout.SPLIT));
+
+		ComplexMatrix H = A.multiply(A.conjugateTranspose());
+		assertTrue(H.isHermitian());
+	}
+
+	@Test
+	public void testSolve(){
+		Random r = new Random(7);
+		int n = 6;
+		ComplexMatrix A = new ComplexMatrix(rand(r, n, n), rand(r, n, n));
+		ComplexVector x = new ComplexVector(rand(r, 1, n)[0], rand(r, 1, n)[0]);
+		ComplexVector b = A.multiply(x);
+
+		ComplexVector s = A.solve(b);
+		for (int i = 0; i < n; i++){
+			assertEquals(x.getReal(i), s.getReal(i), 1e-10);
+			assertEquals(x.getImag(i), s.getImag(i), 1e-10);
+		}
+
+		// det(diag(1+j, 2)) with a row swap
+		ComplexMatrix D = new ComplexMatrix(new double[][]{{0, 2}, {1, 0}}, new double[][]{{0, 0}, {1, 0}});
+		Complex det = new ComplexLUFactorization(D).det();
+		assertEquals(-2.0, det.getReal(), tol);
+		assertEquals(-2.0, det.getImaginary(), tol);
+	}
+
+	@Test(expected=ArithmeticException.class)
+	public void testSingular(){
+		new ComplexMatrix(2, 2).solve(new ComplexVector(2));
+	}
+
+	private static double[][] rand(Random r, int m, int n){
+		double[][] A = new double[m][n];
+		for (int i = 0; i < m; i++){
+			for (int j = 0; j < n; j++){
+				A[i][j] = r.nextDouble() - 0.5;
+			}
+		}
+		return A;
+	}
+}
@@ -0,0 +1,376 @@
+package jMath.linalg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Reads and writes numeric delimited text files (CSV, tab or space separated, ...).
+ * Numbers are parsed straight from the bytes of the file with {@link FastDouble}, large files are
+ * split at line boundaries and parsed in parallel, and the values go directly into primitive
+ * column arrays.  Blank lines are skipped, and empty fields are NaN.
+ */
+public class DelimitedFile {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// bytes per parallel chunk (smaller files are read by the calling thread)
+	private static final int CHUNK = 1 << 22;
+
+	// bytes per write
+	private static final int BLOCK = 1 << 16;
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * reads a comma separated file of numbers
+	 * @param path
+	 * @return the columns of the file, columns[j][i] is field j of row i
+	 * @throws IOException
+	 * @throws IllegalArgumentException  if a field is not a number or the rows differ in length
+	 */
+	public static double[][] readColumns(Path path) throws IOException, IllegalArgumentException{
+		return readColumns(path, ',', 0);
+	}
+
+	/**
+	 * reads a delimited file of numbers
+	 * @param path
+	 * @param delimiter  field separator, e.g. ',' or '\t'.  With ' ' any run of spaces separates fields.
+	 * @param skipRows  number of header lines to skip
+	 * @return the columns of the file, columns[j][i] is field j of row i
+	 * @throws IOException
+	 * @throws IllegalArgumentException  if a field is not a number or the rows differ in length
+	 */
+	public static double[][] readColumns(Path path, char delimiter, int skipRows) throws IOException, IllegalArgumentException{
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)){
+			long size = ch.size();
+			long start = skipLines(ch, 0, skipRows);
+
+			// chunk boundaries at the starts of lines
+			List<Long> bounds = new ArrayList<Long>();
+			bounds.add(start);
+			long b = start;
+			while (b + CHUNK < size){
+				b = skipLines(ch, b + CHUNK, 1);
+				if (b < size){
+					bounds.add(b);
+				}
+			}
+			bounds.add(size);
+
+			Chunk[] chunks = new Chunk[bounds.size()-1];
+			for (int i = 0; i < chunks.length; i++){
+				chunks[i] = new Chunk(ch, bounds.get(i), bounds.get(i+1), (byte) delimiter);
+			}
+			if (chunks.length == 1){
+				chunks[0].compute();
+			} else{
+				ForkJoinPool.commonPool().invoke(new RecursiveAction(){
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void compute(){
+						invokeAll(chunks);
+					}
+				});
+			}
+			for (Chunk c : chunks){
+				if (c.ioError != null){
+					throw c.ioError;
+				}
+			}
+			return merge(chunks);
+		}
+	}
+
+	/**
+	 * reads a delimited file of numbers into a matrix (one row per line)
+	 * @param path
+	 * @param delimiter
+	 * @param skipRows  number of header lines to skip
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException  if a field is not a number, or there are no rows
+	 */
+	public static Matrix readMatrix(Path path, char delimiter, int skipRows) throws IOException, IllegalArgumentException{
+		double[][] cols = readColumns(path, delimiter, skipRows);
+		int n = cols.length;
+		int m = (n == 0) ? 0 : cols[0].length;
+		if (m == 0){
+			throw new IllegalArgumentException("File has no rows of numbers");
+		}
+		double[][] A = new double[m][n];
+		for (int j = 0; j < n; j++){
+			double[] c = cols[j];
+			for (int i = 0; i < m; i++){
+				A[i][j] = c[i];
+			}
+		}
+		return new Matrix(A, false);
+	}
+
+	/**
+	 * reads a comma separated file of numbers into a matrix (one row per line)
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 */
+	public static Matrix readMatrix(Path path) throws IOException, IllegalArgumentException{
+		return readMatrix(path, ',', 0);
+	}
+
+	/**
+	 * reads one column of a delimited file of numbers
+	 * @param path
+	 * @param delimiter
+	 * @param skipRows  number of header lines to skip
+	 * @param column  index of the column
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 */
+	public static Vector readVector(Path path, char delimiter, int skipRows, int column) throws IOException, IllegalArgumentException{
+		double[][] cols = readColumns(path, delimiter, skipRows);
+		if (column < 0 || column >= cols.length){
+			throw new IllegalArgumentException("File has " + cols.length + " columns");
+		}
+		return new Vector(cols[column]);
+	}
+
+	/**
+	 * writes columns of numbers, one row per line.
+	 * Each number is written with the fewest digits that read back to the same double.
+	 * @param path
+	 * @param columns  columns[j][i] is field j of row i
+	 * @param delimiter
+	 * @throws IOException
+	 */
+	public static void writeColumns(Path path, double[][] columns, char delimiter) throws IOException{
+		int n = columns.length;
+		int m = (n == 0) ? 0 : columns[0].length;
+		for (double[] c : columns){
+			if (c.length != m){
+				throw new IllegalArgumentException("Columns must be the same length");
+			}
+		}
+		try (OutputStream out = Files.newOutputStream(path)){
+			byte[] buf = new byte[BLOCK];
+			int pos = 0;
+			for (int i = 0; i < m; i++){
+				for (int j = 0; j < n; j++){
+					if (pos > BLOCK - FastDouble.MAX_LENGTH - 2){
+						out.write(buf, 0, pos);
+						pos = 0;
+					}
+					pos = FastDouble.format(columns[j][i], buf, pos);
+					buf[pos++] = (byte) (j < n-1 ? delimiter : '\n');
+				}
+			}
+			out.write(buf, 0, pos);
+		}
+	}
+
+	/**
+	 * writes a matrix, one row per line
+	 * @param path
+	 * @param A
+	 * @param delimiter
+	 * @throws IOException
+	 */
+	public static void write(Path path, Matrix A, char delimiter) throws IOException{
+		int n = A.A.getColumnDimension();
+		double[][] cols = new double[n][];
+		for (int j = 0; j < n; j++){
+			cols[j] = A.A.getColumn(j);
+		}
+		writeColumns(path, cols, delimiter);
+	}
+
+	/**
+	 * writes a vector, one number per line
+	 * @param path
+	 * @param x
+	 * @throws IOException
+	 */
+	public static void write(Path path, Vector x) throws IOException{
+		writeColumns(path, new double[][]{x.values()}, ',');
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	/**
+	 * @return position after the count'th newline at or after pos (or the end of the file)
+	 */
+	private static long skipLines(FileChannel ch, long pos, int count) throws IOException{
+		ByteBuffer buf = ByteBuffer.allocate(8192);
+		long size = ch.size();
+		while (count > 0 && pos < size){
+			buf.clear();
+			int r = ch.read(buf, pos);
+			if (r <= 0){
+				break;
+			}
+			for (int i = 0; i < r && count > 0; i++){
+				if (buf.get(i) == '\n'){
+					count--;
+				}
+				pos++;
+			}
+		}
+		return Math.min(pos, size);
+	}
+
+	/**
+	 * concatenates the rows parsed by each chunk into columns
+	 */
+	private static double[][] merge(Chunk[] chunks) throws IllegalArgumentException{
+		int n = -1;
+		long m = 0;
+		for (Chunk c : chunks){
+			if (c.rows > 0){
+				if (n >= 0 && c.columns != n){
+					throw new IllegalArgumentException("Rows have different numbers of fields: "
+							+ n + " and " + c.columns);
+				}
+				n = c.columns;
+				m += c.rows;
+			}
+		}
+		if (n < 0){
+			return new double[0][];
+		}
+		if (m > Integer.MAX_VALUE - 8){
+			throw new IllegalArgumentException("Too many rows");
+		}
+		double[][] cols = new double[n][(int) m];
+		int row = 0;
+		for (Chunk c : chunks){
+			for (int i = 0; i < c.rows; i++){
+				int k = i*n;
+				for (int j = 0; j < n; j++){
+					cols[j][row] = c.values[k + j];
+				}
+				row++;
+			}
+		}
+		return cols;
+	}
+
+	/**
+	 * parses the lines in bytes [start, end) of a file, row by row into a flat array
+	 */
+	private static class Chunk extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel ch;
+		private final long start, end;
+		private final byte delimiter;
+
+		int rows = 0, columns = -1;
+		double[] values = new double[0];
+		IOException ioError;
+
+		Chunk(FileChannel ch, long start, long end, byte delimiter){
+			this.ch = ch;
+			this.start = start;
+			this.end = end;
+			this.delimiter = delimiter;
+		}
+
+		@Override
+		protected void compute(){
+			byte[] b = new byte[(int) (end - start)];
+			try{
+				ByteBuffer buf = ByteBuffer.wrap(b);
+				while (buf.hasRemaining()){
+					if (ch.read(buf, start + buf.position()) < 0){
+						break;
+					}
+				}
+			} catch (IOException e){
+				ioError = e;
+				return;
+			}
+			values = new double[Math.max(16, b.length/8)];
+			int count = 0;
+
+			int i = 0;
+			while (i < b.length){
+				int eol = i;
+				while (eol < b.length && b[eol] != '\n'){
+					eol++;
+				}
+				if (!blank(b, i, eol)){
+					int fields = 0;
+					int f = (delimiter == ' ') ? skipSpaces(b, i, eol) : i;
+					while (true){
+						int e = f;
+						while (e < eol && b[e] != delimiter){
+							e++;
+						}
+						if (count == values.length){
+							values = Arrays.copyOf(values, 2*count);
+						}
+						try{
+							values[count++] = FastDouble.parse(b, f, e);
+						} catch (NumberFormatException ex){
+							throw new IllegalArgumentException(ex.getMessage() + " at byte " + (start + f));
+						}
+						fields++;
+						if (e >= eol){
+							break;
+						}
+						f = (delimiter == ' ') ? skipSpaces(b, e, eol) : e + 1;
+						if (f >= eol && delimiter == ' '){
+							break;
+						}
+					}
+					if (columns < 0){
+						columns = fields;
+					} else if (fields != columns){
+						throw new IllegalArgumentException("Line at byte " + (start + i) + " has " + fields
+								+ " fields, expected " + columns);
+					}
+					rows++;
+				}
+				i = eol + 1;
+			}
+		}
+
+		private static boolean blank(byte[] b, int start, int end){
+			for (int i = start; i < end; i++){
+				if (b[i] != ' ' && b[i] != '\r' && b[i] != '\t'){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int skipSpaces(byte[] b, int i, int end){
+			while (i < end && (b[i] == ' ' || b[i] == '\r')){
+				i++;
+			}
+			return i;
+		}
+	}
+}
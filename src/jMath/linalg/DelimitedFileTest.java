@@ -0,0 +1,144 @@
+package jMath.linalg;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DelimitedFileTest {
+
+	public static final double tol = 0.0;
+
+	@Test
+	public void testParse(){
+		assertEquals(-2.5, FastDouble.parse("-2.5"), tol);
+		assertEquals(0.5, FastDouble.parse(" .5 "), tol);
+		assertEquals(1e-300, FastDouble.parse("1e-300"), tol);
+		assertEquals(1.2345678901234569e23, FastDouble.parse("123456789012345678901234"), tol);
+		assertEquals(Double.MIN_VALUE, FastDouble.parse("4.9e-324"), tol);
+		assertEquals(Double.NEGATIVE_INFINITY, FastDouble.parse("-inf"), tol);
+		assertTrue(Double.isNaN(FastDouble.parse("")));
+		assertTrue(Double.isNaN(FastDouble.parse("NaN")));
+
+		Random r = new Random(3);
+		for (int i = 0; i < 10000; i++){
+			String s = r.nextInt(1000000) + "." + r.nextInt(1000000000) + "e" + (r.nextInt(600) - 300);
+			assertEquals(Double.parseDouble(s), FastDouble.parse(s), tol);
+		}
+	}
+
+	@Test
+	public void testParse19Digits(){
+		// significands above Long.MAX_VALUE, as written by %.18e
+		assertEquals(0.9999999999999999999, FastDouble.parse("9.999999999999999999e-01"), tol);
+		assertEquals(9269713331679813893.0, FastDouble.parse("9269713331679813893"), tol);
+		assertEquals(9223372036854775808.0, FastDouble.parse("9223372036854775808"), tol);
+		assertEquals(-9.223372036854775807e100, FastDouble.parse("-9.223372036854775807e100"), tol);
+
+		Random r = new Random(5);
+		for (int i = 0; i < 10000; i++){
+			StringBuilder s = new StringBuilder("9.");
+			for (int j = 0; j < 18; j++){
+				s.append((char) ('0' + r.nextInt(10)));
+			}
+			s.append('e').append(r.nextInt(600) - 300);
+			assertEquals(s.toString(), Double.parseDouble(s.toString()), FastDouble.parse(s.toString()), tol);
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testParseInvalid(){
+		FastDouble.parse("1.5x");
+	}
+
+	@Test
+	public void testFormat(){
+		assertEquals("0.1", FastDouble.toString(0.1));
+		assertEquals("100", FastDouble.toString(100.0));
+		assertEquals("-12.375", FastDouble.toString(-12.375));
+		assertEquals("1e23", FastDouble.toString(1e23));
+		assertEquals("2.82879384806159e17", FastDouble.toString(2.82879384806159e17));
+		assertEquals("0.0001", FastDouble.toString(1e-4));
+		assertEquals("1e-5", FastDouble.toString(1e-5));
+		assertEquals("4.9e-324", FastDouble.toString(Double.MIN_VALUE));
+
+		Random r = new Random(4);
+		for (int i = 0; i < 10000; i++){
+			double v = Double.longBitsToDouble(r.nextLong());
+			if (!Double.isNaN(v)){
+				assertEquals(v, Double.parseDouble(FastDouble.toString(v)), tol);
+			}
+		}
+	}
+
+	@Test
+	public void testRead() throws IOException{
+		Path path = Files.createTempFile("data", ".csv");
+		try{
+			String text = "x,y,z\r\n1,2.5,-3\r\n\r\n4, 5e2 ,\r\n7,8,9";
+			Files.write(path, text.getBytes(StandardCharsets.US_ASCII));
+			double[][] cols = DelimitedFile.readColumns(path, ',', 1);
+			assertEquals(3, cols.length);
+			assertArrayEquals(new double[]{1, 4, 7}, cols[0], tol);
+			assertArrayEquals(new double[]{2.5, 500, 8}, cols[1], tol);
+			assertTrue(Double.isNaN(cols[2][1]));
+
+			Files.write(path, "  1  2\n3 4  \n".getBytes(StandardCharsets.US_ASCII));
+			Matrix A = DelimitedFile.readMatrix(path, ' ', 0);
+			assertEquals(4.0, A.get(1, 1), tol);
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException{
+		Path path = Files.createTempFile("data", ".csv");
+		try{
+			// large enough to be read in several chunks
+			int m = 300000;
+			Random r = new Random(5);
+			double[][] cols = new double[3][m];
+			for (int i = 0; i < m; i++){
+				cols[0][i] = i;
+				cols[1][i] = r.nextGaussian();
+				cols[2][i] = Math.exp(40*r.nextDouble() - 20);
+			}
+			DelimitedFile.writeColumns(path, cols, ',');
+			double[][] read = DelimitedFile.readColumns(path);
+			for (int j = 0; j < 3; j++){
+				assertArrayEquals(cols[j], read[j], tol);
+			}
+			assertArrayEquals(cols[1], DelimitedFile.readVector(path, ',', 0, 1).getArray(), tol);
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRagged() throws IOException{
+		Path path = Files.createTempFile("data", ".csv");
+		try{
+			Files.write(path, "1,2\n3\n".getBytes(StandardCharsets.US_ASCII));
+			DelimitedFile.readColumns(path);
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoRows() throws IOException{
+		Path path = Files.createTempFile("data", ".csv");
+		try{
+			Files.write(path, "x,y\n".getBytes(StandardCharsets.US_ASCII));
+			DelimitedFile.readMatrix(path, ',', 1);
+		} finally{
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,488 @@
+package jMath.linalg;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Fast conversions between doubles and decimal text, for reading and writing large numeric files.
+ * Parsing uses the Eisel-Lemire algorithm (exact for all but rare halfway cases, which fall back to
+ * Double.parseDouble).  Formatting produces the shortest decimal that parses back to the same double
+ * (the Schubfach algorithm), in plain notation for 1e-4 &lt;= |v| &lt; 1e16 and scientific otherwise.
+ */
+public class FastDouble {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// longest string produced by format
+	public static final int MAX_LENGTH = 24;
+
+	// 128-bit mantissas (rounded down) of 10^q for q in [MIN_EXP10, MAX_EXP10]
+	private static final int MIN_EXP10 = -342, MAX_EXP10 = 308;
+	private static final long[] POW10_HI, POW10_LO;
+
+	// 126-bit g = floor(10^-k 2^(125 - floor(log2(10^-k)))) + 1 split in 63-bit halves, k in [K_MIN, K_MAX]
+	private static final int K_MIN = -324, K_MAX = 292;
+	private static final long[] G1, G0;
+
+	// exactly representable powers of ten
+	private static final double[] SMALL_POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	private static final long MASK_63 = 0x7fffffffffffffffL;
+
+	// another digit can be appended to a significand up to this without overflowing a long
+	private static final long MAX_SIGNIFICAND = (Long.MAX_VALUE - 9)/10;
+	private static final long C_MIN = 1L << 52;
+	private static final int Q_MIN = -1074;
+	private static final long C_TINY = 3;
+
+	static {
+		BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+		POW10_HI = new long[MAX_EXP10 - MIN_EXP10 + 1];
+		POW10_LO = new long[POW10_HI.length];
+		for (int q = MIN_EXP10; q <= MAX_EXP10; q++){
+			BigInteger m;
+			if (q >= 0){
+				m = BigInteger.valueOf(5).pow(q);
+				int b = m.bitLength();
+				m = (b > 128) ? m.shiftRight(b - 128) : m.shiftLeft(128 - b);
+			} else{
+				BigInteger p = BigInteger.valueOf(5).pow(-q);
+				m = BigInteger.ONE.shiftLeft(p.bitLength() + 127).divide(p);
+			}
+			POW10_HI[q - MIN_EXP10] = m.shiftRight(64).longValue();
+			POW10_LO[q - MIN_EXP10] = m.and(mask64).longValue();
+		}
+
+		BigInteger mask63 = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+		G1 = new long[K_MAX - K_MIN + 1];
+		G0 = new long[G1.length];
+		for (int k = K_MIN; k <= K_MAX; k++){
+			int r = flog2pow10(-k) - 125;
+			BigInteger g;
+			if (k <= 0){
+				BigInteger p = BigInteger.TEN.pow(-k);
+				g = (r <= 0) ? p.shiftLeft(-r) : p.shiftRight(r);
+			} else{
+				g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(k));
+			}
+			g = g.add(BigInteger.ONE);
+			G1[k - K_MIN] = g.shiftRight(63).longValue();
+			G0[k - K_MIN] = g.and(mask63).longValue();
+		}
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * parses a decimal number, with optional sign, fraction and exponent, or nan/inf/infinity
+	 * (in any case).  Surrounding spaces are ignored and an empty field is NaN.
+	 * @param b  ASCII text
+	 * @param start  index of the first character
+	 * @param end  index after the last character
+	 * @return
+	 * @throws NumberFormatException
+	 */
+	public static double parse(byte[] b, int start, int end) throws NumberFormatException{
+		while (start < end && b[start] == ' '){
+			start++;
+		}
+		while (end > start && (b[end-1] == ' ' || b[end-1] == '\r')){
+			end--;
+		}
+		if (start == end){
+			return Double.NaN;
+		}
+
+		int i = start;
+		boolean negative = false;
+		if (b[i] == '-' || b[i] == '+'){
+			negative = b[i] == '-';
+			i++;
+		}
+
+		// digits are gathered while they fit in a long (18 or 19 of them)
+		long w = 0;
+		int digits = 0;
+		int exp10 = 0;
+		boolean any = false, truncated = false;
+		while (i < end && b[i] == '0'){
+			i++;
+			any = true;
+		}
+		while (i < end && isDigit(b[i])){
+			if (w <= MAX_SIGNIFICAND){
+				w = 10*w + (b[i] - '0');
+				digits++;
+			} else{
+				exp10++;
+				truncated |= b[i] != '0';
+			}
+			i++;
+			any = true;
+		}
+		if (i < end && b[i] == '.'){
+			i++;
+			if (digits == 0){
+				while (i < end && b[i] == '0'){
+					exp10--;
+					i++;
+					any = true;
+				}
+			}
+			while (i < end && isDigit(b[i])){
+				if (w <= MAX_SIGNIFICAND){
+					w = 10*w + (b[i] - '0');
+					exp10--;
+					digits++;
+				} else{
+					truncated |= b[i] != '0';
+				}
+				i++;
+				any = true;
+			}
+		}
+		if (!any){
+			return special(b, start, end);
+		}
+		if (i < end && (b[i] == 'e' || b[i] == 'E')){
+			i++;
+			boolean negExp = false;
+			if (i < end && (b[i] == '-' || b[i] == '+')){
+				negExp = b[i] == '-';
+				i++;
+			}
+			if (i == end){
+				throw invalid(b, start, end);
+			}
+			int e = 0;
+			while (i < end && isDigit(b[i])){
+				if (e < 100000){
+					e = 10*e + (b[i] - '0');
+				}
+				i++;
+			}
+			exp10 += negExp ? -e : e;
+		}
+		if (i != end){
+			throw invalid(b, start, end);
+		}
+
+		if (w == 0){
+			return negative ? -0.0 : 0.0;
+		}
+		// more significant digits than fit in a long
+		if (truncated){
+			return Double.parseDouble(new String(b, start, end - start, StandardCharsets.ISO_8859_1));
+		}
+
+		// Clinger's fast path: w and 10^|exp10| are both exact doubles
+		double d;
+		if (w <= (1L << 53) && exp10 >= -22 && exp10 <= 22){
+			d = (exp10 < 0) ? w/SMALL_POW10[-exp10] : w*SMALL_POW10[exp10];
+			return negative ? -d : d;
+		}
+		long bits = eiselLemire(w, exp10);
+		if (bits < 0){
+			return Double.parseDouble(new String(b, start, end - start, StandardCharsets.ISO_8859_1));
+		}
+		d = Double.longBitsToDouble(bits);
+		return negative ? -d : d;
+	}
+
+	/**
+	 * parses a decimal number (see {@link #parse(byte[], int, int) parse})
+	 * @param s
+	 * @return
+	 * @throws NumberFormatException
+	 */
+	public static double parse(String s) throws NumberFormatException{
+		byte[] b = s.getBytes(StandardCharsets.ISO_8859_1);
+		return parse(b, 0, b.length);
+	}
+
+	/**
+	 * writes the shortest decimal representation of v that parses back to v
+	 * @param v
+	 * @param buf
+	 * @param pos  where to start writing (at most MAX_LENGTH characters)
+	 * @return the position after the last character written
+	 */
+	public static int format(double v, byte[] buf, int pos){
+		long bits = Double.doubleToRawLongBits(v);
+		long t = bits & (C_MIN - 1);
+		int bq = (int) (bits >>> 52) & 0x7ff;
+		if (bq == 0x7ff){
+			return put(t != 0 ? "NaN" : (bits < 0 ? "-Infinity" : "Infinity"), buf, pos);
+		}
+		if (bits < 0){
+			buf[pos++] = '-';
+		}
+		if (bq != 0){
+			// normal, v = c 2^q
+			int mq = -Q_MIN + 1 - bq;
+			long c = C_MIN | t;
+			if (0 < mq && mq < 53){
+				long f = c >> mq;
+				if (f << mq == c){
+					return chars(f, 0, buf, pos);
+				}
+			}
+			return toDecimal(-mq, c, 0, buf, pos);
+		}
+		if (t != 0){
+			return (t < C_TINY) ? toDecimal(Q_MIN, 10*t, -1, buf, pos) : toDecimal(Q_MIN, t, 0, buf, pos);
+		}
+		buf[pos++] = '0';
+		return pos;
+	}
+
+	/**
+	 * @param v
+	 * @return the shortest decimal representation of v that parses back to v
+	 */
+	public static String toString(double v){
+		byte[] buf = new byte[MAX_LENGTH];
+		int n = format(v, buf, 0);
+		return new String(buf, 0, n, StandardCharsets.ISO_8859_1);
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	private static boolean isDigit(byte c){
+		return c >= '0' && c <= '9';
+	}
+
+	private static NumberFormatException invalid(byte[] b, int start, int end){
+		return new NumberFormatException("Invalid number \"" + new String(b, start, end - start, StandardCharsets.ISO_8859_1) + "\"");
+	}
+
+	/**
+	 * nan, inf and infinity, with optional sign
+	 */
+	private static double special(byte[] b, int start, int end) throws NumberFormatException{
+		String s = new String(b, start, end - start, StandardCharsets.ISO_8859_1).toLowerCase();
+		boolean negative = s.startsWith("-");
+		if (negative || s.startsWith("+")){
+			s = s.substring(1);
+		}
+		if (s.equals("nan")){
+			return Double.NaN;
+		} else if (s.equals("inf") || s.equals("infinity")){
+			return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		}
+		throw invalid(b, start, end);
+	}
+
+	/**
+	 * Eisel-Lemire: the double nearest w 10^exp10, for w &gt; 0
+	 * @return the bits of the double, or -1 if the result can not be determined this way
+	 */
+	private static long eiselLemire(long w, int exp10){
+		if (exp10 < MIN_EXP10 || exp10 > MAX_EXP10){
+			return -1;
+		}
+		int clz = Long.numberOfLeadingZeros(w);
+		w <<= clz;
+		long exp2 = ((217706L*exp10) >> 16) + 64 + 1023 - clz;
+
+		long hi = POW10_HI[exp10 - MIN_EXP10];
+		long xHi = unsignedMultiplyHigh(w, hi);
+		long xLo = w*hi;
+
+		// the low half of the power of ten can only matter if the product is this close to a boundary
+		if ((xHi & 0x1ff) == 0x1ff && Long.compareUnsigned(xLo + w, w) < 0){
+			long lo = POW10_LO[exp10 - MIN_EXP10];
+			long yHi = unsignedMultiplyHigh(w, lo);
+			long yLo = w*lo;
+			long mergedHi = xHi;
+			long mergedLo = xLo + yHi;
+			if (Long.compareUnsigned(mergedLo, xLo) < 0){
+				mergedHi++;
+			}
+			if ((mergedHi & 0x1ff) == 0x1ff && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + w, w) < 0){
+				return -1;
+			}
+			xHi = mergedHi;
+			xLo = mergedLo;
+		}
+
+		long msb = xHi >>> 63;
+		long mantissa = xHi >>> (msb + 9);
+		exp2 -= 1 ^ msb;
+
+		// halfway between two doubles
+		if (xLo == 0 && (xHi & 0x1ff) == 0 && (mantissa & 3) == 1){
+			return -1;
+		}
+		mantissa += mantissa & 1;
+		mantissa >>>= 1;
+		if ((mantissa >>> 53) > 0){
+			mantissa >>>= 1;
+			exp2++;
+		}
+		// subnormal or overflow
+		if (exp2 < 1 || exp2 >= 0x7ff){
+			return -1;
+		}
+		return exp2 << 52 | mantissa & (C_MIN - 1);
+	}
+
+	private static long unsignedMultiplyHigh(long x, long y){
+		return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+	}
+
+	private static int flog10pow2(int e){
+		return (int) (e*661_971_961_083L >> 41);
+	}
+
+	private static int flog10threeQuartersPow2(int e){
+		return (int) (e*661_971_961_083L + -274_743_187_321L >> 41);
+	}
+
+	private static int flog2pow10(int e){
+		return (int) (e*913_124_641_741L >> 38);
+	}
+
+	/**
+	 * Schubfach: shortest decimal in the rounding interval of c 2^q
+	 */
+	private static int toDecimal(int q, long c, int dk, byte[] buf, int pos){
+		int out = (int) c & 1;
+		long cb = c << 2;
+		long cbr = cb + 2;
+		long cbl;
+		int k;
+		if (c != C_MIN || q == Q_MIN){
+			cbl = cb - 2;
+			k = flog10pow2(q);
+		} else{
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2(q);
+		}
+		int h = q + flog2pow10(-k) + 2;
+		long g1 = G1[k - K_MIN];
+		long g0 = G0[k - K_MIN];
+
+		long vb = rop(g1, g0, cb << h);
+		long vbl = rop(g1, g0, cbl << h);
+		long vbr = rop(g1, g0, cbr << h);
+
+		long s = vb >> 2;
+		if (s >= 100){
+			// one digit fewer, if it is in the interval
+			long sp10 = 10*Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+			long tp10 = sp10 + 10;
+			boolean upin = vbl + out <= sp10 << 2;
+			boolean wpin = (tp10 << 2) + out <= vbr;
+			if (upin != wpin){
+				return chars(upin ? sp10 : tp10, k, buf, pos);
+			}
+		}
+		long t = s + 1;
+		boolean uin = vbl + out <= s << 2;
+		boolean win = (t << 2) + out <= vbr;
+		if (uin != win){
+			return chars(uin ? s : t, k + dk, buf, pos);
+		}
+		long cmp = vb - (s + t << 1);
+		return chars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, buf, pos);
+	}
+
+	private static long rop(long g1, long g0, long cp){
+		long x1 = Math.multiplyHigh(g0, cp);
+		long y0 = g1*cp;
+		long y1 = Math.multiplyHigh(g1, cp);
+		long z = (y0 >>> 1) + x1;
+		long vbp = y1 + (z >>> 63);
+		return vbp | (z & MASK_63) + MASK_63 >>> 63;
+	}
+
+	/**
+	 * writes f 10^e
+	 */
+	private static int chars(long f, int e, byte[] buf, int pos){
+		while (f % 10 == 0){
+			f /= 10;
+			e++;
+		}
+		int len = 1;
+		for (long p = 10; len < 19 && p <= f; p *= 10){
+			len++;
+		}
+		int exp = e + len - 1;
+
+		if (exp >= -4 && exp < 16){
+			if (e >= 0){
+				pos = digits(f, len, buf, pos);
+				for (int i = 0; i < e; i++){
+					buf[pos++] = '0';
+				}
+			} else if (exp >= 0){
+				// point inside the digits
+				int first = pos;
+				pos = digits(f, len, buf, pos + 1);
+				System.arraycopy(buf, first + 1, buf, first, exp + 1);
+				buf[first + exp + 1] = '.';
+			} else{
+				buf[pos++] = '0';
+				buf[pos++] = '.';
+				for (int i = -1; i > exp; i--){
+					buf[pos++] = '0';
+				}
+				pos = digits(f, len, buf, pos);
+			}
+			return pos;
+		}
+
+		// d.ddde-x
+		int first = pos;
+		pos = digits(f, len, buf, pos + 1);
+		buf[first] = buf[first + 1];
+		if (len > 1){
+			buf[first + 1] = '.';
+		} else{
+			pos--;
+		}
+		buf[pos++] = 'e';
+		if (exp < 0){
+			buf[pos++] = '-';
+			exp = -exp;
+		}
+		if (exp >= 100){
+			buf[pos++] = (byte) ('0' + exp/100);
+		}
+		if (exp >= 10){
+			buf[pos++] = (byte) ('0' + exp/10 % 10);
+		}
+		buf[pos++] = (byte) ('0' + exp % 10);
+		return pos;
+	}
+
+	/**
+	 * writes the len digits of f
+	 */
+	private static int digits(long f, int len, byte[] buf, int pos){
+		for (int i = pos + len - 1; i >= pos; i--){
+			buf[i] = (byte) ('0' + f % 10);
+			f /= 10;
+		}
+		return pos + len;
+	}
+
+	private static int put(String s, byte[] buf, int pos){
+		for (int i = 0; i < s.length(); i++){
+			buf[pos++] = (byte) s.charAt(i);
+		}
+		return pos;
+	}
+}
@@ -0,0 +1,271 @@
+package jMath.linalg;
+
+/**
+ * Finite difference stencils for a derivative on a fixed (possibly non-uniform) grid.
+ * The weights for every grid point are computed once (by Fornberg's algorithm) and
+ * can be applied to any number of data sets sampled on the same grid.
+ * Near the ends the stencils are one-sided with order + derivative points, so the order of
+ * accuracy holds at the end points too.  Away from the ends the stencils are centered: when
+ * order + derivative is even, that takes one point fewer for even derivatives (the symmetric
+ * stencil gains an order on uniform and smoothly stretched grids, giving the usual 3, 5 and 7
+ * point second derivatives) and one point more for odd derivatives.
+ */
+public class FiniteDifference {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// number of grid points and the largest number of points per stencil
+	private final int n, size;
+
+	private final int derivative, order;
+
+	// first grid point and number of points of the stencil of point i, and its weights at w[i*size ...]
+	private final int[] start, count;
+	private final double[] w;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	/**
+	 * precomputes stencils for the grid x
+	 * @param x  grid points, strictly increasing or strictly decreasing
+	 * @param derivative  which derivative (1 for first, 2 for second, ...)
+	 * @param order  order of accuracy (typically 2, 4 or 6)
+	 * @throws IllegalArgumentException
+	 */
+	public FiniteDifference(double[] x, int derivative, int order) throws IllegalArgumentException{
+		if (derivative < 1 || order < 1){
+			throw new IllegalArgumentException("Derivative and order must be positive");
+		}
+		// points in the one-sided stencils near the ends, and in the centered ones
+		int sided = order + derivative;
+		int centered = (sided % 2 == 1)? sided : (derivative % 2 == 0)? sided - 1 : sided + 1;
+
+		this.n = x.length;
+		this.size = Math.max(sided, centered);
+		this.derivative = derivative;
+		this.order = order;
+
+		if (n < sided){
+			throw new IllegalArgumentException("Need at least " + sided + " grid points");
+		}
+		for (int i = 1; i < n; i++){
+			if (!((x[i] - x[i-1])*(x[1] - x[0]) > 0.0)){
+				throw new IllegalArgumentException("Grid must be strictly monotonic");
+			}
+		}
+
+		start = new int[n];
+		count = new int[n];
+		w = new double[n*size];
+		double[][] c = new double[size][derivative+1];
+
+		int half = (centered - 1)/2;
+		for (int i = 0; i < n; i++){
+			int s, nd;
+			if (i >= half && i + half < n){
+				s = i - half;
+				nd = centered;
+			} else{
+				s = Math.min(Math.max(i - (sided-1)/2, 0), n - sided);
+				nd = sided;
+			}
+			start[i] = s;
+			count[i] = nd;
+			fornberg(x[i], x, s, nd, derivative, c);
+			for (int j = 0; j < nd; j++){
+				w[i*size + j] = c[j][derivative];
+			}
+		}
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * @return number of grid points
+	 */
+	public int length(){
+		return n;
+	}
+
+	/**
+	 * @return which derivative the stencils approximate
+	 */
+	public int getDerivative(){
+		return derivative;
+	}
+
+	/**
+	 * @return order of accuracy
+	 */
+	public int getOrder(){
+		return order;
+	}
+
+	/**
+	 * derivative of data sampled on the grid
+	 * @param y
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public double[] apply(double[] y) throws IllegalArgumentException{
+		double[] out = new double[n];
+		apply(y, out);
+		return out;
+	}
+
+	/**
+	 * derivative of data sampled on the grid, written to out
+	 * @param y
+	 * @param out  must not be y
+	 * @throws IllegalArgumentException
+	 */
+	public void apply(double[] y, double[] out) throws IllegalArgumentException{
+		if (y.length != n || out.length < n){
+			throw new IllegalArgumentException("Vector length must agree with the grid");
+		}
+		apply(y, 0, 1, out, 0, 1);
+	}
+
+	/**
+	 * derivative along one line of a multidimensional array stored in a flat array:
+	 * the data at grid point i is y[offset + i*stride], and the result goes to
+	 * out[outOffset + i*outStride]
+	 * @param y
+	 * @param offset
+	 * @param stride
+	 * @param out  must not overlap the data
+	 * @param outOffset
+	 * @param outStride
+	 */
+	public void apply(double[] y, int offset, int stride, double[] out, int outOffset, int outStride){
+		for (int i = 0; i < n; i++){
+			int k = offset + start[i]*stride;
+			int m = i*size;
+			double sum = 0.0;
+			for (int j = 0; j < count[i]; j++){
+				sum += w[m+j]*y[k];
+				k += stride;
+			}
+			out[outOffset + i*outStride] = sum;
+		}
+	}
+
+	/**
+	 * gradient of a function sampled on a 2D grid, stored in a flat array with
+	 * f[i*ny + j] = f(x[i], y[j])
+	 * @param f
+	 * @param x  grid in the first dimension
+	 * @param y  grid in the second dimension
+	 * @param order  order of accuracy
+	 * @return {df/dx, df/dy} in the same layout as f
+	 * @throws IllegalArgumentException
+	 */
+	public static double[][] gradient(double[] f, double[] x, double[] y, int order) throws IllegalArgumentException{
+		int nx = x.length, ny = y.length;
+		if (f.length != nx*ny){
+			throw new IllegalArgumentException("Array length must equal the number of grid points");
+		}
+		FiniteDifference dx = new FiniteDifference(x, 1, order);
+		FiniteDifference dy = new FiniteDifference(y, 1, order);
+
+		double[] fx = new double[f.length];
+		double[] fy = new double[f.length];
+		for (int j = 0; j < ny; j++){
+			dx.apply(f, j, ny, fx, j, ny);
+		}
+		for (int i = 0; i < nx; i++){
+			dy.apply(f, i*ny, 1, fy, i*ny, 1);
+		}
+		return new double[][]{fx, fy};
+	}
+
+	/**
+	 * gradient of a function sampled on a 3D grid, stored in a flat array with
+	 * f[(i*ny + j)*nz + k] = f(x[i], y[j], z[k])
+	 * @param f
+	 * @param x  grid in the first dimension
+	 * @param y  grid in the second dimension
+	 * @param z  grid in the third dimension
+	 * @param order  order of accuracy
+	 * @return {df/dx, df/dy, df/dz} in the same layout as f
+	 * @throws IllegalArgumentException
+	 */
+	public static double[][] gradient(double[] f, double[] x, double[] y, double[] z, int order)
+			throws IllegalArgumentException{
+		int nx = x.length, ny = y.length, nz = z.length;
+		if (f.length != nx*ny*nz){
+			throw new IllegalArgumentException("Array length must equal the number of grid points");
+		}
+		FiniteDifference dx = new FiniteDifference(x, 1, order);
+		FiniteDifference dy = new FiniteDifference(y, 1, order);
+		FiniteDifference dz = new FiniteDifference(z, 1, order);
+
+		double[] fx = new double[f.length];
+		double[] fy = new double[f.length];
+		double[] fz = new double[f.length];
+		int plane = ny*nz;
+		for (int jk = 0; jk < plane; jk++){
+			dx.apply(f, jk, plane, fx, jk, plane);
+		}
+		for (int i = 0; i < nx; i++){
+			for (int k = 0; k < nz; k++){
+				int off = i*plane + k;
+				dy.apply(f, off, nz, fy, off, nz);
+			}
+		}
+		for (int ij = 0; ij < nx*ny; ij++){
+			dz.apply(f, ij*nz, 1, fz, ij*nz, 1);
+		}
+		return new double[][]{fx, fy, fz};
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	/**
+	 * Fornberg's weights for derivatives 0 ... m at z using the nodes x[s ... s+nd-1],
+	 * c[j][k] is the weight of node j for derivative k
+	 */
+	private static void fornberg(double z, double[] x, int s, int nd, int m, double[][] c){
+		for (int j = 0; j < nd; j++){
+			for (int k = 0; k <= m; k++){
+				c[j][k] = 0.0;
+			}
+		}
+
+		double c1 = 1.0;
+		double c4 = x[s] - z;
+		c[0][0] = 1.0;
+
+		for (int i = 1; i < nd; i++){
+			int mn = Math.min(i, m);
+			double c2 = 1.0;
+			double c5 = c4;
+			c4 = x[s+i] - z;
+
+			for (int j = 0; j < i; j++){
+				double c3 = x[s+i] - x[s+j];
+				c2 *= c3;
+				if (j == i-1){
+					for (int k = mn; k >= 1; k--){
+						c[i][k] = c1*(k*c[i-1][k-1] - c5*c[i-1][k])/c2;
+					}
+					c[i][0] = -c1*c5*c[i-1][0]/c2;
+				}
+				for (int k = mn; k >= 1; k--){
+					c[j][k] = (c4*c[j][k] - k*c[j][k-1])/c3;
+				}
+				c[j][0] = c4*c[j][0]/c3;
+			}
+			c1 = c2;
+		}
+	}
+}
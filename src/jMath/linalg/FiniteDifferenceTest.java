@@ -0,0 +1,126 @@
+package jMath.linalg;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FiniteDifferenceTest {
+	
+	public static final double tol = 1e-10;
+	
+	// stretched grid on [0, 1]
+	private static double[] grid(int n){
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++){
+			double s = (double) i/(n-1);
+			x[i] = s*s*(3 - 2*s) * 0.5 + 0.5*s;
+		}
+		return x;
+	}
+
+	@Test
+	public void testPolynomial(){
+		// order p stencils are exact for polynomials of degree p + derivative - 1
+		double[] x = grid(12);
+		double[] y = new double[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = Math.pow(x[i], 4) - 2*x[i];
+		}
+		double[] d = new FiniteDifference(x, 1, 4).apply(y);
+		double[] d2 = new FiniteDifference(x, 2, 4).apply(y);
+		for (int i = 0; i < x.length; i++){
+			assertEquals(4*Math.pow(x[i], 3) - 2, d[i], tol);
+			assertEquals(12*x[i]*x[i], d2[i], 1e-8);
+		}
+	}
+	
+	@Test
+	public void testConvergence(){
+		// error falls by about 2^order when the grid is refined
+		for (int order = 2; order <= 6; order += 2){
+			double e1 = error(grid(21), order);
+			double e2 = error(grid(41), order);
+			double rate = Math.log(e1/e2)/Math.log(2);
+			assertTrue(rate > order - 0.5);
+		}
+	}
+	
+	private static double error(double[] x, int order){
+		double[] y = new double[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = Math.sin(3*x[i]);
+		}
+		double[] d = Array1D.deriv(x, y, order);
+		double e = 0;
+		for (int i = 0; i < x.length; i++){
+			e = Math.max(e, Math.abs(d[i] - 3*Math.cos(3*x[i])));
+		}
+		return e;
+	}
+	
+	@Test
+	public void testCentered(){
+		// interior stencils are symmetric about the point, with the classic widths
+		double[] x = Array1D.linspace(0, 1, 15);
+		int[][] cases = {{1, 2, 3}, {1, 3, 5}, {2, 2, 3}, {2, 4, 5}, {2, 6, 7}};
+		for (int[] c: cases){
+			FiniteDifference fd = new FiniteDifference(x, c[0], c[1]);
+			double sign = (c[0] % 2 == 0)? 1.0 : -1.0;
+			int half = (c[2] - 1)/2;
+			for (int k = 0; k <= 7; k++){
+				double plus = weight(fd, 7, 7 + k), minus = weight(fd, 7, 7 - k);
+				assertEquals(sign*minus, plus, 1e-9*(1 + Math.abs(plus)));
+				assertEquals(k > half, plus == 0.0);
+			}
+		}
+		
+		// 3 point second derivative on a uniform grid
+		double h = x[1] - x[0];
+		FiniteDifference fd = new FiniteDifference(x, 2, 2);
+		assertEquals(1/(h*h), weight(fd, 7, 6), 1e-8);
+		assertEquals(-2/(h*h), weight(fd, 7, 7), 1e-8);
+	}
+	
+	// weight of grid point j in the stencil of point i
+	private static double weight(FiniteDifference fd, int i, int j){
+		double[] e = new double[fd.length()];
+		e[j] = 1.0;
+		return fd.apply(e)[i];
+	}
+	
+	@Test
+	public void testGradient(){
+		double[] x = grid(8);
+		double[] y = Array1D.linspace(-1, 2, 9);
+		double[] z = Array1D.linspace(0, 1, 5);
+		
+		double[] f = new double[x.length*y.length];
+		for (int i = 0; i < x.length; i++){
+			for (int j = 0; j < y.length; j++){
+				f[i*y.length + j] = x[i]*x[i]*y[j] + y[j];
+			}
+		}
+		double[][] g = FiniteDifference.gradient(f, x, y, 2);
+		for (int i = 0; i < x.length; i++){
+			for (int j = 0; j < y.length; j++){
+				assertEquals(2*x[i]*y[j], g[0][i*y.length + j], tol);
+				assertEquals(x[i]*x[i] + 1, g[1][i*y.length + j], tol);
+			}
+		}
+		
+		f = new double[x.length*y.length*z.length];
+		for (int i = 0; i < x.length; i++){
+			for (int j = 0; j < y.length; j++){
+				for (int k = 0; k < z.length; k++){
+					f[(i*y.length + j)*z.length + k] = x[i] + 2*y[j]*z[k];
+				}
+			}
+		}
+		g = FiniteDifference.gradient(f, x, y, z, 2);
+		int m = (3*y.length + 4)*z.length + 2;
+		assertEquals(1.0, g[0][m], tol);
+		assertEquals(2*z[2], g[1][m], tol);
+		assertEquals(2*y[4], g[2][m], tol);
+	}
+
+}
@@ -0,0 +1,506 @@
+package jMath.linalg;
+
+import java.util.Arrays;
+
+
+/**
+ * Single precision counterparts of the most common {@link Array1D} operations, for data that
+ * does not need double precision (half the memory, and twice as many elements per SIMD instruction).
+ * Methods have the same names and argument order as in Array1D.  Elementwise results are floats,
+ * but sums, products and integrals are accumulated in double precision and returned as doubles.
+ * <p>
+ * Only elementwise loops, the double precision accumulations (sum, dot, cumsum, trapz, mean) and
+ * the single point interp1 are implemented here, in the same order of operations as Array1D, so
+ * the data is not copied.
+ * Everything else promotes its input to double and calls the Array1D method of the same name,
+ * so the two classes can not drift apart.
+ */
+public class FloatArray1D {
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * Creates a constant vector with value alpha of length n
+	 * @param alpha
+	 * @param n
+	 * @return
+	 */
+	public static float[] constant(float alpha, int n){
+		float[] x = new float[n];
+		Arrays.fill(x, alpha);
+		return x;
+	}
+
+	/**
+	 * Creates a linearly spaced vector (computed in double precision)
+	 * @param x1  starting value
+	 * @param x2  ending value
+	 * @param n  number of points
+	 * @return vector from x1 to x2 with length n
+	 */
+	public static float[] linspace(double x1, double x2, int n){
+		return toFloat(Array1D.linspace(x1, x2, n));
+	}
+
+	/**
+	 * Creates an vector mimicking Matlab's colon operation a:ds:b (computed in double precision)
+	 * @param a
+	 * @param ds
+	 * @param b
+	 */
+	public static float[] colon(double a, double ds, double b){
+		return toFloat(Array1D.colon(a, ds, b));
+	}
+
+	/**
+	 * rounds each element to single precision
+	 * @param x
+	 * @return
+	 */
+	public static float[] toFloat(double[] x){
+		float[] y = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = (float) x[i];
+		}
+		return y;
+	}
+
+	/**
+	 * converts each element to double precision (exactly)
+	 * @param x
+	 * @return
+	 */
+	public static double[] toDouble(float[] x){
+		double[] y = new double[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = x[i];
+		}
+		return y;
+	}
+
+	/**
+	 * Create a copy of the vector
+	 * @param x
+	 * @return
+	 */
+	public static float[] copy(float[] x){
+		return x.clone();
+	}
+
+	/**
+	 * Get a sub-vector
+	 * @param iStart  Starting index
+	 * @param iEnd  Ending index
+	 * @return  x(iStart:iEnd)
+	 * @exception  ArrayIndexOutOfBoundsException
+	 */
+	public static float[] sub(float[] x, int iStart, int iEnd){
+		return Arrays.copyOfRange(x, iStart, iEnd + 1);
+	}
+
+	/**
+	 * Get a sub-vector
+	 * @param e  array of elements of vector to extract
+	 * @return x(e(:))
+	 * @exception  ArrayIndexOutOfBoundsException
+	 */
+	public static float[] sub(float[] x, int[] e){
+		float[] y = new float[e.length];
+		for (int i = 0; i < e.length; i++){
+			y[i] = x[e[i]];
+		}
+		return y;
+	}
+
+	/**
+	 * Set a part of the vector y starting at iStart to x
+	 * @param y
+	 * @param x
+	 * @param iStart
+	 */
+	public static void setSub(float[] y, float[] x, int iStart){
+		System.arraycopy(x, 0, y, iStart, x.length);
+	}
+
+	/**
+	 * concatenate vectors into one larger one
+	 * [v1 v2 .... vn]
+	 * @param vlist
+	 * @return
+	 */
+	public static float[] concat(float[]... vlist){
+		int size = 0;
+		for (float[] v : vlist){
+			size += v.length;
+		}
+		float[] x = new float[size];
+		int pos = 0;
+		for (float[] v : vlist){
+			System.arraycopy(v, 0, x, pos, v.length);
+			pos += v.length;
+		}
+		return x;
+	}
+
+	/**
+	 * Vector norm (see {@link Array1D#norm Array1D.norm})
+	 * @return norm(V,P) = sum(abs(V).^P)^(1/P).
+	 */
+	public static double norm(float[] x, double p){
+		return Array1D.norm(toDouble(x), p);
+	}
+
+	/**
+	 * sort vector in ascending order
+	 * @param x
+	 * @return the new sorted vector
+	 */
+	public static float[] sort(float[] x){
+		float[] y = copy(x);
+		Arrays.sort(y);
+		return y;
+	}
+
+	/**
+	 * find maximum value in vector (see {@link Array1D#max Array1D.max})
+	 * @param x
+	 * @return
+	 */
+	public static float max(float... x){
+		return (float) Array1D.max(toDouble(x));
+	}
+
+	/**
+	 * find minimum value in vector (see {@link Array1D#min Array1D.min})
+	 * @param x
+	 * @return
+	 */
+	public static float min(float... x){
+		return (float) Array1D.min(toDouble(x));
+	}
+
+	/**
+	 * Change sign of vector
+	 * @param x
+	 * @return -x
+	 */
+	public static float[] negative(float[] x){
+		return multiply(-1.0f, x);
+	}
+
+	/**
+	 * add a constant to every entry in the vector
+	 * @param x
+	 * @param alpha
+	 * @return x + alpha{<b>1</b>}
+	 */
+	public static float[] add(float[] x, float alpha){
+		float[] y = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = x[i] + alpha;
+		}
+		return y;
+	}
+
+	/**
+	 * add two vectors
+	 * @param x
+	 * @param y
+	 * @return x + y
+	 * @throws IllegalArgumentException
+	 */
+	public static float[] add(float[] x, float[] y) throws IllegalArgumentException{
+		checkDimension(x, y);
+		float[] z = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			z[i] = x[i] + y[i];
+		}
+		return z;
+	}
+
+	/**
+	 * subtract a constant from every entry in the vector
+	 * @param x
+	 * @param alpha
+	 * @return x - alpha{<b>1</b>}
+	 */
+	public static float[] subtract(float[] x, float alpha){
+		return add(x, -alpha);
+	}
+
+	/**
+	 * subtract two vectors
+	 * @param x
+	 * @param y
+	 * @return x - y
+	 * @throws IllegalArgumentException
+	 */
+	public static float[] subtract(float[] x, float[] y) throws IllegalArgumentException{
+		checkDimension(x, y);
+		float[] z = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			z[i] = x[i] - y[i];
+		}
+		return z;
+	}
+
+	/**
+	 * multiply a vector by a constant
+	 * @param alpha
+	 * @param x
+	 * @return alpha*x
+	 */
+	public static float[] multiply(float alpha, float[] x){
+		float[] y = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = alpha*x[i];
+		}
+		return y;
+	}
+
+	/**
+	 * multiply a vector by a constant
+	 * @param x
+	 * @param alpha
+	 * @return alpha*x
+	 */
+	public static float[] multiply(float[] x, float alpha){
+		return multiply(alpha, x);
+	}
+
+	/**
+	 * element by element multiplication of two vectors
+	 * @param x
+	 * @param y
+	 * @return a vector z where z_i = x_i*y_i
+	 * @throws IllegalArgumentException
+	 */
+	public static float[] dotMultiply(float[] x, float[] y) throws IllegalArgumentException{
+		checkDimension(x, y);
+		float[] z = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			z[i] = x[i]*y[i];
+		}
+		return z;
+	}
+
+	/**
+	 * divide a vector by a constant
+	 * @param x
+	 * @param alpha
+	 * @return x/alpha
+	 */
+	public static float[] divide(float[] x, float alpha){
+		float[] y = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = x[i]/alpha;
+		}
+		return y;
+	}
+
+	/**
+	 * element by element division of two vectors
+	 * @param x
+	 * @param y
+	 * @return a vector z where z_i = x_i/y_i
+	 * @throws IllegalArgumentException
+	 */
+	public static float[] dotDivide(float[] x, float[] y) throws IllegalArgumentException{
+		checkDimension(x, y);
+		float[] z = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			z[i] = x[i]/y[i];
+		}
+		return z;
+	}
+
+	/**
+	 * computes powers of vectors elementwise
+	 * @param x
+	 * @param exp
+	 * @return x_i^exp
+	 */
+	public static float[] pow(float[] x, double exp){
+		float[] y = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = (float) Math.pow(x[i], exp);
+		}
+		return y;
+	}
+
+	/**
+	 * elementwise square root of a vector
+	 * @param x
+	 * @return x.^(1/2)
+	 */
+	public static float[] sqrt(float[] x){
+		float[] y = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = (float) Math.sqrt(x[i]);
+		}
+		return y;
+	}
+
+	/**
+	 * @param x
+	 * @return |x|
+	 */
+	public static float[] abs(float[] x){
+		float[] y = new float[x.length];
+		for (int i = 0; i < x.length; i++){
+			y[i] = Math.abs(x[i]);
+		}
+		return y;
+	}
+
+	/**
+	 * dot product, accumulated in double precision
+	 * @param x
+	 * @param y
+	 * @return the dot product of x and y
+	 * @throws IllegalArgumentException
+	 */
+	public static double dot(float[] x, float[] y) throws IllegalArgumentException{
+		checkDimension(x, y);
+		double sum = 0.0;
+		for (int i = 0; i < x.length; i++){
+			sum += (double) x[i]*y[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * sum of the entries, accumulated in double precision
+	 * @param x
+	 * @return the sum of the entries of x
+	 */
+	public static double sum(float[] x){
+		double sum = 0.0;
+		for (int i = 0; i < x.length; i++){
+			sum += x[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * cumulative sum of elements in x (accumulated in double precision, so the
+	 * rounding error does not grow along the vector)
+	 * @param x
+	 * @return the cumulative sum of element in x
+	 */
+	public static float[] cumsum(float[] x){
+		float[] y = new float[x.length];
+		double sum = 0.0;
+		for (int i = 0; i < x.length; i++){
+			sum += x[i];
+			y[i] = (float) sum;
+		}
+		return y;
+	}
+
+	/**
+	 * numerical integration of y w.r.t x using trapezoidal method, accumulated in double precision
+	 * @param x
+	 * @param y
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public static double trapz(float[] x, float[] y) throws IllegalArgumentException{
+		checkDimension(x, y);
+		double sum = 0.0;
+		for (int i = 0; i < x.length-1; i++){
+			sum += ((double) x[i+1] - x[i])*((double) y[i] + y[i+1])/2.0;
+		}
+		return sum;
+	}
+
+	/**
+	 * @param x
+	 * @return the mean of x
+	 */
+	public static double mean(float[] x){
+		return sum(x)/x.length;
+	}
+
+	/**
+	 * sample variance (normalized by n-1).  x is promoted to double precision and passed to
+	 * {@link Array1D#var Array1D.var}, so both versions share one algorithm (NaN if x is empty).
+	 * @param x
+	 * @return
+	 */
+	public static double var(float[] x){
+		return Array1D.var(toDouble(x));
+	}
+
+	/**
+	 * sample standard deviation
+	 * @param x
+	 * @return
+	 */
+	public static double std(float[] x){
+		return Math.sqrt(var(x));
+	}
+
+	/**
+	 * flips the order of the vector
+	 * @param x
+	 * @return
+	 */
+	public static float[] flip(float[] x){
+		int n = x.length;
+		float[] y = new float[n];
+		for (int i = 0; i < n; i++){
+			y[i] = x[n-1-i];
+		}
+		return y;
+	}
+
+	/**
+	 * 1d linear interpolation to find yi, the approximate value of y(x) at xi.
+	 * x must already be sorted in ascending order.
+	 * If xi is not in bounds of interpolation it returns the closest value in y
+	 * @param x
+	 * @param y
+	 * @param xi
+	 * @return an interpolated approximation for y(xi)
+	 */
+	public static float interp1(float[] x, float[] y, float xi){
+		int n = x.length;
+
+		int idx = Arrays.binarySearch(x, xi);
+		int ip = (idx < 0) ? -idx - 1 : idx;
+
+		if (ip == 0) return y[0];
+		if (ip == n) return y[n-1];
+
+		int im = ip - 1;
+		return (float) (y[im] + ((double) xi - x[im])/((double) x[ip] - x[im])*((double) y[ip] - y[im]));
+	}
+
+	/**
+	 * 1d linear interpolation to approximate y(x) at all of the entries in xi
+	 * (see {@link Array1D#interp1(double[], double[], double[]) Array1D.interp1}).
+	 * @param x
+	 * @param y
+	 * @param xi
+	 * @return an interpolated approximation for y(x) at every value in xi
+	 * @throws IllegalArgumentException
+	 */
+	public static float[] interp1(float[] x, float[] y, float[] xi) throws IllegalArgumentException{
+		checkDimension(x, y);
+		return toFloat(Array1D.interp1(toDouble(x), toDouble(y), toDouble(xi)));
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	private static void checkDimension(float[] x, float[] y){
+		if (x.length != y.length){
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+	}
+}
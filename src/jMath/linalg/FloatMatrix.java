@@ -0,0 +1,290 @@
+package jMath.linalg;
+
+import java.util.Arrays;
+
+
+/**
+ * Single precision counterpart of {@link Matrix}, with the same method names.
+ * Elements are stored as floats in one row-major array.  Products are accumulated in
+ * double precision, and linear systems are factored and solved in double precision
+ * before rounding the solution back to single precision.
+ */
+public class FloatMatrix {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// element (i, j) is stored at a[i*n + j]
+	float[] a;
+
+	// dimension m X n
+	int m, n;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	public FloatMatrix(int m, int n){
+		this.m = m;
+		this.n = n;
+		a = new float[m*n];
+	}
+
+	/**
+	 * construct matrix from a float array (the contents are copied)
+	 * @param A
+	 * @throws IllegalArgumentException  if the rows differ in length
+	 */
+	public FloatMatrix(float[][] A) throws IllegalArgumentException{
+		this(A.length, A.length == 0 ? 0 : A[0].length);
+		for (int i = 0; i < m; i++){
+			if (A[i].length != n){
+				throw new IllegalArgumentException("Rows must be the same length");
+			}
+			System.arraycopy(A[i], 0, a, i*n, n);
+		}
+	}
+
+	/**
+	 * construct by rounding each element of a double precision matrix
+	 * @param A
+	 */
+	public FloatMatrix(Matrix A){
+		this(A.m, A.n);
+		for (int i = 0; i < m; i++){
+			for (int j = 0; j < n; j++){
+				a[i*n + j] = (float) A.A.getEntry(i, j);
+			}
+		}
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * @return a copy of the elements as a 2D array
+	 */
+	public float[][] getArray(){
+		float[][] A = new float[m][];
+		for (int i = 0; i < m; i++){
+			A[i] = Arrays.copyOfRange(a, i*n, (i+1)*n);
+		}
+		return A;
+	}
+
+	/**
+	 * converts to a double precision matrix (exactly)
+	 * @return
+	 */
+	public Matrix toMatrix(){
+		double[][] A = new double[m][n];
+		for (int i = 0; i < m; i++){
+			for (int j = 0; j < n; j++){
+				A[i][j] = a[i*n + j];
+			}
+		}
+		return new Matrix(A, false);
+	}
+
+	/**
+	 * @return number of rows
+	 */
+	public int getRowDimension(){
+		return m;
+	}
+
+	/**
+	 * @return number of columns
+	 */
+	public int getColumnDimension(){
+		return n;
+	}
+
+	public float get(int i, int j){
+		checkIndex(i, j);
+		return a[i*n + j];
+	}
+
+	public void set(int i, int j, float alpha){
+		checkIndex(i, j);
+		a[i*n + j] = alpha;
+	}
+
+	/**
+	 * @return A^T
+	 */
+	public FloatMatrix transpose(){
+		FloatMatrix T = new FloatMatrix(n, m);
+		for (int i = 0; i < m; i++){
+			for (int j = 0; j < n; j++){
+				T.a[j*m + i] = a[i*n + j];
+			}
+		}
+		return T;
+	}
+
+	/**
+	 * @param B
+	 * @return A + B
+	 * @throws IllegalArgumentException
+	 */
+	public FloatMatrix add(FloatMatrix B) throws IllegalArgumentException{
+		checkSameSize(B);
+		FloatMatrix C = new FloatMatrix(m, n);
+		C.a = FloatArray1D.add(a, B.a);
+		return C;
+	}
+
+	/**
+	 * @param B
+	 * @return A - B
+	 * @throws IllegalArgumentException
+	 */
+	public FloatMatrix subtract(FloatMatrix B) throws IllegalArgumentException{
+		checkSameSize(B);
+		FloatMatrix C = new FloatMatrix(m, n);
+		C.a = FloatArray1D.subtract(a, B.a);
+		return C;
+	}
+
+	/**
+	 * @param alpha
+	 * @return alpha*A
+	 */
+	public FloatMatrix multiply(float alpha){
+		FloatMatrix C = new FloatMatrix(m, n);
+		C.a = FloatArray1D.multiply(alpha, a);
+		return C;
+	}
+
+	/**
+	 * matrix-vector product, each entry accumulated in double precision
+	 * @param x
+	 * @return A*x
+	 * @throws IllegalArgumentException
+	 */
+	public FloatVector multiply(FloatVector x) throws IllegalArgumentException{
+		if (x.n != n){
+			throw new IllegalArgumentException("Matrix and vector dimensions do not agree");
+		}
+		float[] y = new float[m];
+		for (int i = 0; i < m; i++){
+			double sum = 0.0;
+			int k = i*n;
+			for (int j = 0; j < n; j++){
+				sum += (double) a[k + j]*x.x[j];
+			}
+			y[i] = (float) sum;
+		}
+		return new FloatVector(y);
+	}
+
+	/**
+	 * matrix-matrix product, each entry accumulated in double precision
+	 * @param B
+	 * @return A*B
+	 * @throws IllegalArgumentException
+	 */
+	public FloatMatrix multiply(FloatMatrix B) throws IllegalArgumentException{
+		if (B.m != n){
+			throw new IllegalArgumentException("Matrix dimensions do not agree");
+		}
+		int p = B.n;
+		FloatMatrix C = new FloatMatrix(m, p);
+		double[] row = new double[p];
+		for (int i = 0; i < m; i++){
+			Arrays.fill(row, 0.0);
+			for (int k = 0; k < n; k++){
+				double aik = a[i*n + k];
+				int kb = k*p;
+				for (int j = 0; j < p; j++){
+					row[j] += aik*B.a[kb + j];
+				}
+			}
+			for (int j = 0; j < p; j++){
+				C.a[i*p + j] = (float) row[j];
+			}
+		}
+		return C;
+	}
+
+	public void setColumn(int j, FloatVector x){
+		if (x.n != m){
+			throw new IllegalArgumentException("Vector length must equal the number of rows");
+		}
+		for (int i = 0; i < m; i++){
+			a[i*n + j] = x.x[i];
+		}
+	}
+
+	public void setRow(int i, FloatVector x){
+		if (x.n != n){
+			throw new IllegalArgumentException("Vector length must equal the number of columns");
+		}
+		System.arraycopy(x.x, 0, a, i*n, n);
+	}
+
+	public FloatVector getColumn(int j){
+		float[] c = new float[m];
+		for (int i = 0; i < m; i++){
+			c[i] = a[i*n + j];
+		}
+		return new FloatVector(c);
+	}
+
+	public FloatVector getRow(int i){
+		return new FloatVector(Arrays.copyOfRange(a, i*n, (i+1)*n));
+	}
+
+	public boolean isSquare(){
+		return m == n;
+	}
+
+	/**
+	 * solves the square system Ax = b.  A and b are promoted to double precision,
+	 * solved with an LU factorization, and the solution rounded to single precision.
+	 * @param b
+	 * @return x
+	 * @throws IllegalArgumentException  if A is not square or b has the wrong length
+	 * @throws ArithmeticException  if A is singular
+	 */
+	public FloatVector solve(FloatVector b) throws IllegalArgumentException, ArithmeticException{
+		if (!isSquare()){
+			throw new IllegalArgumentException("Matrix must be square");
+		}
+		if (b.n != n){
+			throw new IllegalArgumentException("Matrix and vector dimensions do not agree");
+		}
+		LUFactorization lu = new LUFactorization(toMatrix());
+		double[] x = new double[n];
+		lu.solve(FloatArray1D.toDouble(b.x), x);
+		return new FloatVector(FloatArray1D.toFloat(x));
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "FloatMatrix [m=" + m + ", n=" + n + ", a=" + Arrays.deepToString(getArray()) + "]";
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	private void checkIndex(int i, int j){
+		if (i < 0 || i >= m || j < 0 || j >= n){
+			throw new ArrayIndexOutOfBoundsException("(" + i + ", " + j + ")");
+		}
+	}
+
+	private void checkSameSize(FloatMatrix B){
+		if (B.m != m || B.n != n){
+			throw new IllegalArgumentException("Matrices must be the same size");
+		}
+	}
+}
@@ -0,0 +1,564 @@
+package jMath.linalg;
+
+import java.util.Arrays;
+
+
+/**
+ * Single precision counterpart of {@link Vector}, with the same method names.
+ * Elements are stored as floats (half the memory of a Vector), while dot products, sums,
+ * norms and integrals are accumulated in double precision and returned as doubles.
+ */
+public class FloatVector {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// 1D array stores internal elements
+	protected float[] x;
+
+	// dimension of array
+	protected int n;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	/**
+	 * Default constructor
+	 */
+	public FloatVector(){
+		n = 0;
+		x = new float[n];
+	}
+
+	/**
+	 * Construct a vector of zeros of size n.
+	 */
+	public FloatVector(int n){
+		this.n = n;
+		x = new float[n];
+	}
+
+	/**
+	 * Construct a vector directly from a sequence of numbers
+	 * (FloatVector x = new FloatVector(4.3f, 23.4f, 32.3f);)
+	 * or pass in a 1D array.
+	 */
+	public FloatVector(float... nums){
+		n = nums.length;
+		x = nums.clone();
+	}
+
+	/**
+	 * Construct by rounding each element of a double precision vector
+	 * @param v
+	 */
+	public FloatVector(Vector v){
+		x = FloatArray1D.toFloat(v.values());
+		n = x.length;
+	}
+
+	/**
+	 * Creates a constant vector with value alpha of length n
+	 * @param alpha
+	 * @param n
+	 * @return
+	 */
+	public static FloatVector constant(float alpha, int n){
+		return new FloatVector(FloatArray1D.constant(alpha, n));
+	}
+
+	/**
+	 * Creates a vector of zeros
+	 * @param n
+	 * @return
+	 */
+	public static FloatVector zeros(int n){
+		return new FloatVector(n);
+	}
+
+	/**
+	 * Creates a linearly spaced vector
+	 * @param x1  starting value
+	 * @param x2  ending value
+	 * @param n  number of points
+	 * @return vector from x1 to x2 with length n
+	 */
+	public static FloatVector linspace(double x1, double x2, int n){
+		return new FloatVector(FloatArray1D.linspace(x1, x2, n));
+	}
+
+	/**
+	 * Creates an vector mimicking Matlab's colon operation a:ds:b
+	 * @param a
+	 * @param ds
+	 * @param b
+	 */
+	public static FloatVector colon(double a, double ds, double b){
+		return new FloatVector(FloatArray1D.colon(a, ds, b));
+	}
+
+	/**
+	 * Create a copy of the vector
+	 * @param x
+	 * @return
+	 */
+	public static FloatVector copy(FloatVector x){
+		return new FloatVector(x.x);
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * Access the internal one-dimensional array.
+	 * @return  Pointer to the one-dimensional array of vector elements.
+	 */
+	public float[] getArrayRef() {
+		return x;
+	}
+
+	/**
+	 * Copy the internal one-dimensional array.
+	 * @return  one-dimensional array copy of vector elements.
+	 */
+	public float[] getArray(){
+		return x.clone();
+	}
+
+	/**
+	 * converts to a double precision vector (exactly)
+	 * @return
+	 */
+	public Vector toVector(){
+		return new Vector(FloatArray1D.toDouble(x));
+	}
+
+	/**
+	 * Get length of vector
+	 * @return  n, the number of elements in the vector
+	 */
+	public int length(){
+		return n;
+	}
+
+	/** Get a single element.
+	 * @param i  index.
+	 * @return x(i)
+	 * @exception: ArrayIndexOutOfBoundsException
+	 */
+	public float get(int i){
+		return x[i];
+	}
+
+	/**
+	 * get first element in vector
+	 * @return
+	 */
+	public float getFirst(){
+		return x[0];
+	}
+
+	/**
+	 * get last element in vector
+	 * @return
+	 */
+	public float getLast(){
+		return x[n-1];
+	}
+
+	/**
+	 * Set a single element.
+	 * @param i  index
+	 * @param a  number to set to
+	 */
+	public void set(int i, float a){
+		x[i] = a;
+	}
+
+	/**
+	 * Get a sub-vector
+	 * @param iStart  Starting index
+	 * @param iEnd  Ending index
+	 * @return  x(iStart:iEnd)
+	 * @exception  ArrayIndexOutOfBoundsException
+	 */
+	public FloatVector sub(int iStart, int iEnd){
+		return new FloatVector(FloatArray1D.sub(x, iStart, iEnd));
+	}
+
+	/**
+	 * Get a sub-vector
+	 * @param e  array of elements of vector to extract
+	 * @return x(e(:))
+	 * @exception  ArrayIndexOutOfBoundsException
+	 */
+	public FloatVector sub(int[] e){
+		return new FloatVector(FloatArray1D.sub(x, e));
+	}
+
+	/**
+	 * Set a part of the vector
+	 * this(istart:istart+length(v)-1) = v
+	 * @param iStart  starting index
+	 * @param v
+	 */
+	public void setSub(FloatVector v, int iStart){
+		FloatArray1D.setSub(x, v.x, iStart);
+	}
+
+	/**
+	 * concatenate vectors into one larger one
+	 * [v1 v2 .... vn]
+	 * @param vlist
+	 * @return
+	 */
+	public static FloatVector concat(FloatVector... vlist){
+		float[][] arrays = new float[vlist.length][];
+		for (int i = 0; i < vlist.length; i++){
+			arrays[i] = vlist[i].x;
+		}
+		return new FloatVector(FloatArray1D.concat(arrays));
+	}
+
+	/**
+	 * Vector norm (accumulated in double precision)
+	 * @return norm(V,P) = sum(abs(V).^P)^(1/P).
+	 */
+	public static double norm(FloatVector x, double p){
+		return FloatArray1D.norm(x.x, p);
+	}
+
+	/**
+	 * sort vector in ascending order
+	 * @param x
+	 * @return the new sorted vector
+	 */
+	public static FloatVector sort(FloatVector x){
+		return new FloatVector(FloatArray1D.sort(x.x));
+	}
+
+	/**
+	 * find maximum value in vector
+	 * @param x
+	 * @return
+	 */
+	public static float max(FloatVector x){
+		return FloatArray1D.max(x.x);
+	}
+
+	/**
+	 * find minimum value in vector
+	 * @param x
+	 * @return
+	 */
+	public static float min(FloatVector x){
+		return FloatArray1D.min(x.x);
+	}
+
+	/**
+	 * Change sign of vector
+	 * @param x
+	 * @return -x
+	 */
+	public static FloatVector negative(FloatVector x){
+		return x.multiply(-1.0f);
+	}
+
+	/**
+	 * add a constant to every entry in the vector
+	 * @param alpha  constant
+	 * @return x + alpha{<b>1</b>}
+	 */
+	public FloatVector add(float alpha){
+		return new FloatVector(FloatArray1D.add(x, alpha));
+	}
+
+	/**
+	 * add two vectors
+	 * @param y  vector
+	 * @return the sum of the vectors
+	 */
+	public FloatVector add(FloatVector y){
+		return new FloatVector(FloatArray1D.add(x, y.x));
+	}
+
+	/**
+	 * x += y
+	 * @param y
+	 */
+	public void addEquals(FloatVector y){
+		checkDimension(y);
+		for (int i = 0; i < n; i++){
+			x[i] += y.x[i];
+		}
+	}
+
+	/**
+	 * x += alpha*y
+	 * @param alpha
+	 * @param y
+	 */
+	public void addEquals(float alpha, FloatVector y){
+		checkDimension(y);
+		for (int i = 0; i < n; i++){
+			x[i] += alpha*y.x[i];
+		}
+	}
+
+	/**
+	 * subtract a constant from every entry in the vector
+	 * @param alpha  constant
+	 * @return x - alpha{<b>1</b>}
+	 */
+	public FloatVector subtract(float alpha){
+		return new FloatVector(FloatArray1D.subtract(x, alpha));
+	}
+
+	/**
+	 * subtract two vectors
+	 * @param y  vector
+	 * @return x - y
+	 */
+	public FloatVector subtract(FloatVector y){
+		return new FloatVector(FloatArray1D.subtract(x, y.x));
+	}
+
+	/**
+	 * x -= y
+	 * @param y
+	 */
+	public void subtractEquals(FloatVector y){
+		checkDimension(y);
+		for (int i = 0; i < n; i++){
+			x[i] -= y.x[i];
+		}
+	}
+
+	/**
+	 * multiply every entry by a constant
+	 * @param alpha  constant
+	 * @return alpha*x
+	 */
+	public FloatVector multiply(float alpha){
+		return new FloatVector(FloatArray1D.multiply(alpha, x));
+	}
+
+	/**
+	 * x *= alpha
+	 * @param alpha
+	 */
+	public void multiplyEquals(float alpha){
+		for (int i = 0; i < n; i++){
+			x[i] *= alpha;
+		}
+	}
+
+	/**
+	 * element by element multiplication
+	 * @param y  vector
+	 * @return a vector z where z_i = x_i*y_i
+	 */
+	public FloatVector dotTimes(FloatVector y){
+		return new FloatVector(FloatArray1D.dotMultiply(x, y.x));
+	}
+
+	/**
+	 * divide every entry by a constant
+	 * @param alpha  constant
+	 * @return x/alpha
+	 */
+	public FloatVector divide(float alpha){
+		return new FloatVector(FloatArray1D.divide(x, alpha));
+	}
+
+	/**
+	 * x /= alpha
+	 * @param alpha
+	 */
+	public void divideEquals(float alpha){
+		for (int i = 0; i < n; i++){
+			x[i] /= alpha;
+		}
+	}
+
+	/**
+	 * element by element division
+	 * @param y  vector
+	 * @return a vector z where z_i = x_i/y_i
+	 */
+	public FloatVector dotDivide(FloatVector y){
+		return new FloatVector(FloatArray1D.dotDivide(x, y.x));
+	}
+
+	/**
+	 * computes powers of vectors elementwise
+	 * @param exp
+	 * @return x_i^exp
+	 */
+	public FloatVector pow(double exp){
+		return new FloatVector(FloatArray1D.pow(x, exp));
+	}
+
+	/**
+	 * elementwise square root
+	 * @param x
+	 * @return
+	 */
+	public static FloatVector sqrt(FloatVector x){
+		return new FloatVector(FloatArray1D.sqrt(x.x));
+	}
+
+	/**
+	 * dot product, accumulated in double precision
+	 * @param y
+	 * @return the dot product of x and y
+	 */
+	public double dot(FloatVector y){
+		return FloatArray1D.dot(x, y.x);
+	}
+
+	/**
+	 * sum of the entries, accumulated in double precision
+	 * @param x
+	 * @return
+	 */
+	public static double sum(FloatVector x){
+		return FloatArray1D.sum(x.x);
+	}
+
+	/**
+	 * cumulative sum of elements in x
+	 * @param x
+	 * @return
+	 */
+	public static FloatVector cumsum(FloatVector x){
+		return new FloatVector(FloatArray1D.cumsum(x.x));
+	}
+
+	/**
+	 * @param x
+	 * @return |x|
+	 */
+	public static FloatVector abs(FloatVector x){
+		return new FloatVector(FloatArray1D.abs(x.x));
+	}
+
+	/**
+	 * numerical integration of y w.r.t x using trapezoidal method, accumulated in double precision
+	 * @param x
+	 * @param y
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public static double trapz(FloatVector x, FloatVector y) throws IllegalArgumentException{
+		return FloatArray1D.trapz(x.x, y.x);
+	}
+
+	/**
+	 * flips the order of the vector
+	 * @param x
+	 * @return
+	 */
+	public static FloatVector flip(FloatVector x){
+		return new FloatVector(FloatArray1D.flip(x.x));
+	}
+
+	/**
+	 * 1d linear interpolation
+	 * @param x
+	 * @param y
+	 * @param xi
+	 * @return
+	 */
+	public static float interp1(FloatVector x, FloatVector y, float xi){
+		return FloatArray1D.interp1(x.x, y.x, xi);
+	}
+
+	/**
+	 * 1d linear interpolation
+	 * @param x
+	 * @param y
+	 * @param xi
+	 * @return
+	 */
+	public static FloatVector interp1(FloatVector x, FloatVector y, FloatVector xi){
+		return new FloatVector(FloatArray1D.interp1(x.x, y.x, xi.x));
+	}
+
+	/**
+	 * @param x
+	 * @return the mean of x
+	 */
+	public static double mean(FloatVector x){
+		return FloatArray1D.mean(x.x);
+	}
+
+	/**
+	 * @param x
+	 * @return the sample variance of x
+	 */
+	public static double var(FloatVector x){
+		return FloatArray1D.var(x.x);
+	}
+
+	/**
+	 * @param x
+	 * @return the sample standard deviation of x
+	 */
+	public static double std(FloatVector x){
+		return FloatArray1D.std(x.x);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "FloatVector [n=" + n + ", x=" + Arrays.toString(x) + "]";
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + n;
+		result = prime * result + Arrays.hashCode(x);
+		return result;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		FloatVector other = (FloatVector) obj;
+		if (n != other.n)
+			return false;
+		if (!Arrays.equals(x, other.x))
+			return false;
+		return true;
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	private void checkDimension(FloatVector y){
+		if (y.n != n){
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package jMath.linalg;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FloatVectorTest {
+
+	public static final double tol = 1e-6;
+
+	@Test
+	public void testArithmetic(){
+		FloatVector x = new FloatVector(1f, 2f, 3f);
+		FloatVector y = new FloatVector(4f, 5f, 6f);
+
+		assertArrayEquals(new float[]{5f, 7f, 9f}, x.add(y).getArray(), 0f);
+		assertArrayEquals(new float[]{-3f, -3f, -3f}, x.subtract(y).getArray(), 0f);
+		assertArrayEquals(new float[]{4f, 10f, 18f}, x.dotTimes(y).getArray(), 0f);
+		assertEquals(32.0, x.dot(y), 0.0);
+
+		x.addEquals(2f, y);
+		assertArrayEquals(new float[]{9f, 12f, 15f}, x.getArray(), 0f);
+
+		FloatVector v = new FloatVector(Vector.linspace(0.0, 1.0, 5));
+		assertEquals(0.25f, v.get(1), 0f);
+		assertEquals(2.5, FloatVector.sum(v), 0.0);
+		assertArrayEquals(Array1D.linspace(0.0, 1.0, 5), v.toVector().getArray(), 0.0);
+	}
+
+	@Test
+	public void testDoubleAccumulation(){
+		// a float running sum stalls at 2^24, the double accumulator does not
+		int n = 1 << 25;
+		float[] x = FloatArray1D.constant(1f, n);
+		float naive = 0f;
+		for (int i = 0; i < n; i++){
+			naive += x[i];
+		}
+		assertEquals(16777216f, naive, 0f);
+		assertEquals(n, FloatArray1D.sum(x), 0.0);
+		assertEquals(n, FloatArray1D.dot(x, x), 0.0);
+		assertEquals(n, FloatArray1D.cumsum(x)[n-1], 0f);
+
+		float[] t = FloatArray1D.linspace(0.0, Math.PI, 1001);
+		float[] s = new float[t.length];
+		for (int i = 0; i < t.length; i++){
+			s[i] = (float) Math.sin(t[i]);
+		}
+		assertEquals(Array1D.trapz(FloatArray1D.toDouble(t), FloatArray1D.toDouble(s)),
+				FloatArray1D.trapz(t, s), 1e-12);
+	}
+
+	@Test
+	public void testMatrix(){
+		FloatMatrix A = new FloatMatrix(new float[][]{{4f, 1f}, {2f, 3f}});
+		FloatVector x = new FloatVector(1f, 2f);
+
+		assertArrayEquals(new float[]{6f, 8f}, A.multiply(x).getArray(), 0f);
+		assertEquals(2f, A.transpose().get(0, 1), 0f);
+
+		FloatMatrix B = A.multiply(A);
+		assertArrayEquals(new float[]{18f, 7f}, B.getRow(0).getArray(), 0f);
+		assertArrayEquals(new float[]{14f, 11f}, B.getRow(1).getArray(), 0f);
+
+		FloatVector b = A.multiply(x);
+		assertArrayEquals(x.getArray(), A.solve(b).getArray(), (float) tol);
+
+		Matrix D = A.toMatrix();
+		assertEquals(3.0, D.get(1, 1), 0.0);
+		assertEquals(1f, new FloatMatrix(D).get(0, 1), 0f);
+	}
+
+	@Test
+	public void testParity(){
+		// the float versions must agree with the double versions applied to the same (promoted) values
+		Random r = new Random(5);
+		int n = 1000;
+		float[] x = new float[n], y = new float[n];
+		for (int i = 0; i < n; i++){
+			x[i] = (float) r.nextGaussian();
+			y[i] = (float) (1e4 + r.nextGaussian());
+		}
+		float[] t = FloatArray1D.sort(x);
+		double[] xd = FloatArray1D.toDouble(x), yd = FloatArray1D.toDouble(y), td = FloatArray1D.toDouble(t);
+
+		assertArrayEquals(Array1D.sort(xd), td, 0.0);
+		assertEquals(Array1D.sum(xd), FloatArray1D.sum(x), 0.0);
+		assertEquals(Array1D.mean(yd), FloatArray1D.mean(y), 0.0);
+		assertEquals(Array1D.var(yd), FloatArray1D.var(y), 0.0);
+		assertEquals(Array1D.std(xd), FloatArray1D.std(x), 0.0);
+		assertEquals(Array1D.norm(xd, 3), FloatArray1D.norm(x, 3), 1e-12);
+		assertEquals(Array1D.dot(xd, yd), FloatArray1D.dot(x, y), 1e-9);
+		assertEquals(Array1D.trapz(td, yd), FloatArray1D.trapz(t, y), 0.0);
+		assertEquals(Array1D.max(xd), FloatArray1D.max(x), 0.0);
+		assertEquals(Array1D.min(xd), FloatArray1D.min(x), 0.0);
+		assertArrayEquals(FloatArray1D.toFloat(Array1D.cumsum(xd)), FloatArray1D.cumsum(x), 0f);
+		assertArrayEquals(Array1D.flip(xd), FloatArray1D.toDouble(FloatArray1D.flip(x)), 0.0);
+		for (int i = 0; i < 50; i++){
+			float xi = 4*(r.nextFloat() - 0.5f);
+			assertEquals((float) Array1D.interp1(td, yd, xi), FloatArray1D.interp1(t, y, xi), 0f);
+		}
+		float[] xi = FloatArray1D.linspace(-3f, 3f, 101);
+		assertArrayEquals(FloatArray1D.toFloat(Array1D.interp1(td, yd, FloatArray1D.toDouble(xi))),
+				FloatArray1D.interp1(t, y, xi), 0f);
+
+		// NaN handling follows the double versions
+		float[] nan = {1f, Float.NaN, -2f};
+		double[] nand = FloatArray1D.toDouble(nan);
+		assertEquals(Array1D.max(nand), FloatArray1D.max(nan), 0.0);
+		assertEquals(Array1D.min(nand), FloatArray1D.min(nan), 0.0);
+
+		// empty and single element inputs
+		for (float[] e: new float[][]{{}, {2f}}){
+			double[] ed = FloatArray1D.toDouble(e);
+			assertEquals(Array1D.mean(ed), FloatArray1D.mean(e), 0.0);
+			assertEquals(Array1D.var(ed), FloatArray1D.var(e), 0.0);
+			assertEquals(Array1D.std(ed), FloatArray1D.std(e), 0.0);
+		}
+		assertTrue(Double.isNaN(FloatArray1D.var(new float[0])));
+
+		double[][] a = new double[4][4];
+		float[][] af = new float[4][4];
+		for (int i = 0; i < 4; i++){
+			for (int j = 0; j < 4; j++){
+				af[i][j] = (float) r.nextGaussian() + (i == j ? 4f : 0f);
+				a[i][j] = af[i][j];
+			}
+		}
+		FloatMatrix A = new FloatMatrix(af);
+		FloatVector b = new FloatVector(1f, -2f, 3f, 0.5f);
+		Vector bd = new Vector(1, -2, 3, 0.5);
+		assertArrayEquals(FloatArray1D.toFloat(new Matrix(a).multiply(bd).getArray()), A.multiply(b).getArray(), 0f);
+		assertArrayEquals(FloatArray1D.toFloat(new Matrix(a).solve(bd).getArray()), A.solve(b).getArray(), 1e-6f);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDimension(){
+		new FloatVector(1f, 2f).add(new FloatVector(1f));
+	}
+}
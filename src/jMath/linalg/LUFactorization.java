@@ -0,0 +1,213 @@
+package jMath.linalg;
+
+/**
+ * LU factorization with partial pivoting of a square matrix, PA = LU.
+ * The storage is allocated once for a given dimension so that the same object can
+ * repeatedly factor and solve without any further allocation.
+ */
+public class LUFactorization {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// combined L (unit diagonal, below) and U (on and above diagonal) factors
+	private final double[][] LU;
+	
+	// row permutation
+	private final int[] piv;
+	
+	// dimension
+	private final int n;
+	
+	// sign of the permutation
+	private int pivSign;
+	
+	private boolean singular;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	/**
+	 * allocates storage for factoring n X n matrices
+	 * @param n
+	 */
+	public LUFactorization(int n){
+		this.n = n;
+		LU = new double[n][n];
+		piv = new int[n];
+	}
+	
+	/**
+	 * allocates storage and factors A
+	 * @param A  square matrix
+	 */
+	public LUFactorization(Matrix A){
+		this(A.m);
+		factor(A);
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * factor a square matrix.  A is not modified.
+	 * @param A
+	 * @throws IllegalArgumentException
+	 */
+	public void factor(double[][] A) throws IllegalArgumentException{
+		if (A.length != n || A[0].length != n){
+			throw new IllegalArgumentException("Matrix must be " + n + " X " + n);
+		}
+		for (int i = 0; i < n; i++){
+			System.arraycopy(A[i], 0, LU[i], 0, n);
+		}
+		factorInPlace();
+	}
+	
+	/**
+	 * factor a square matrix
+	 * @param A
+	 * @throws IllegalArgumentException
+	 */
+	public void factor(Matrix A) throws IllegalArgumentException{
+		if (A.m != n || A.n != n){
+			throw new IllegalArgumentException("Matrix must be " + n + " X " + n);
+		}
+		for (int i = 0; i < n; i++){
+			for (int j = 0; j < n; j++){
+				LU[i][j] = A.get(i, j);
+			}
+		}
+		factorInPlace();
+	}
+	
+	/**
+	 * @return true if a zero pivot was encountered
+	 */
+	public boolean isSingular(){
+		return singular;
+	}
+	
+	/**
+	 * solves Ax = b using the current factorization.  b and x may be the same array.
+	 * @param b  right hand side
+	 * @param x  on output the solution
+	 * @throws ArithmeticException if the matrix is singular
+	 */
+	public void solve(double[] b, double[] x) throws ArithmeticException{
+		if (singular){
+			throw new ArithmeticException("Matrix is singular");
+		}
+		
+		if (b != x){
+			System.arraycopy(b, 0, x, 0, n);
+		}
+		
+		// apply the row interchanges in the order they were made
+		for (int i = 0; i < n; i++){
+			int p = piv[i];
+			if (p != i){
+				double t = x[i];
+				x[i] = x[p];
+				x[p] = t;
+			}
+		}
+		
+		// forward substitution with unit lower triangle
+		for (int i = 1; i < n; i++){
+			double[] row = LU[i];
+			double s = x[i];
+			for (int j = 0; j < i; j++){
+				s -= row[j]*x[j];
+			}
+			x[i] = s;
+		}
+		
+		// back substitution with upper triangle
+		for (int i = n-1; i >= 0; i--){
+			double[] row = LU[i];
+			double s = x[i];
+			for (int j = i+1; j < n; j++){
+				s -= row[j]*x[j];
+			}
+			x[i] = s/row[i];
+		}
+	}
+	
+	/**
+	 * solves Ax = b
+	 * @param b
+	 * @return x
+	 */
+	public Vector solve(Vector b){
+		double[] x = new double[n];
+		solve(b.values(), x);
+		return new Vector(x);
+	}
+	
+	/**
+	 * @return determinant of the factored matrix
+	 */
+	public double det(){
+		double d = pivSign;
+		for (int i = 0; i < n; i++){
+			d *= LU[i][i];
+		}
+		return d;
+	}
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	/**
+	 * right looking Gaussian elimination with partial pivoting.
+	 * piv[k] records the row swapped with row k at step k.
+	 */
+	private void factorInPlace(){
+		singular = false;
+		pivSign = 1;
+		
+		for (int k = 0; k < n; k++){
+			
+			int p = k;
+			double max = Math.abs(LU[k][k]);
+			for (int i = k+1; i < n; i++){
+				double v = Math.abs(LU[i][k]);
+				if (v > max){
+					max = v;
+					p = i;
+				}
+			}
+			piv[k] = p;
+			
+			if (p != k){
+				double[] t = LU[k];
+				LU[k] = LU[p];
+				LU[p] = t;
+				pivSign = -pivSign;
+			}
+			
+			double[] rowk = LU[k];
+			double pivot = rowk[k];
+			if (pivot == 0.0){
+				singular = true;
+				continue;
+			}
+			
+			for (int i = k+1; i < n; i++){
+				double[] rowi = LU[i];
+				double l = rowi[k] / pivot;
+				rowi[k] = l;
+				if (l != 0.0){
+					for (int j = k+1; j < n; j++){
+						rowi[j] -= l*rowk[j];
+					}
+				}
+			}
+		}
+	}
+}
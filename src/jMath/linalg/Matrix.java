@@ -1,5 +1,8 @@
 package jMath.linalg;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.Arrays;
 
 import org.apache.commons.math.linear.*;
@@ -66,7 +69,7 @@ public class Matrix{
 			A = new Array2DRowRealMatrix(m, n);
 			int i = 0;
 			for (Vector col: data){
-				A.setColumn(i++, col.getArrayRef());
+				setColumn(i++, col);
 			}
 		} else{
 			m = data.length; // number of rows
@@ -74,7 +77,7 @@ public class Matrix{
 			A = new Array2DRowRealMatrix(m, n);
 			int i = 0;
 			for (Vector row: data){
-				A.setRow(i++, row.getArrayRef());
+				setRow(i++, row);
 			}
 		}
 	}
@@ -85,6 +88,28 @@ public class Matrix{
 		n = A.getColumnDimension();
 	}
 	
+	/**
+	 * memory-maps a matrix saved with {@link ArrayFile#write(Path, Matrix) ArrayFile.write} (read only).
+	 * The mapping is released by {@link #close close}.
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	public static Matrix map(Path path) throws IOException{
+		return ArrayFile.mapMatrix(path, MapMode.READ_ONLY);
+	}
+	
+	/**
+	 * memory-maps a matrix saved with {@link ArrayFile#write(Path, Matrix) ArrayFile.write}
+	 * @param path
+	 * @param mode  READ_ONLY, PRIVATE (copy-on-write) or READ_WRITE
+	 * @return
+	 * @throws IOException
+	 */
+	public static Matrix map(Path path, MapMode mode) throws IOException{
+		return ArrayFile.mapMatrix(path, mode);
+	}
+	
 /* ------------------------
    Public Methods
  * ------------------------ */
@@ -93,6 +118,16 @@ public class Matrix{
 		return A.getData();
 	}
 	
+	/**
+	 * releases a memory-mapped matrix (see {@link #map map}), which can not be used afterwards.
+	 * Does nothing for a matrix stored on the heap.
+	 */
+	public void close(){
+		if (A instanceof BufferRealMatrix){
+			((BufferRealMatrix) A).close();
+		}
+	}
+	
 	
 	/**
 	 * get entry A(i,j) of the matrix
@@ -155,7 +190,19 @@ public class Matrix{
 	 * @return
 	 */
 	public Vector multiply(Vector x){
-		return new Vector(A.operate(new ArrayRealVector(x.getArrayRef())));
+		if (x.n != n){
+			throw new IllegalArgumentException("Matrix and vector dimensions do not agree");
+		}
+		if (A instanceof Array2DRowRealMatrix){
+			// dot each row with x in place, so a view of x is not copied
+			double[][] a = ((Array2DRowRealMatrix) A).getDataRef();
+			double[] y = new double[m];
+			for (int i = 0; i < m; i++){
+				y[i] = Array1D.dot(a[i], 0, 1, x.x, x.offset, x.stride, n);
+			}
+			return new Vector(y);
+		}
+		return new Vector(A.operate(new ArrayRealVector(x.values(), false)));
 	}
 	
 	/**
@@ -175,7 +222,17 @@ public class Matrix{
 	 * @param x
 	 */
 	public void setColumn(int i, Vector x){
-		A.setColumn(i, x.getArrayRef());
+		if (x.n != m){
+			throw new IllegalArgumentException("Vector length must equal the number of rows");
+		}
+		if (A instanceof Array2DRowRealMatrix){
+			double[][] a = ((Array2DRowRealMatrix) A).getDataRef();
+			for (int k = 0, j = x.offset; k < m; k++, j += x.stride){
+				a[k][i] = x.x[j];
+			}
+		} else{
+			A.setColumn(i, x.values());
+		}
 	}
 	
 	/**
@@ -184,7 +241,14 @@ public class Matrix{
 	 * @param x
 	 */
 	public void setRow(int i, Vector x){
-		A.setRow(i, x.getArrayRef());
+		if (x.n != n){
+			throw new IllegalArgumentException("Vector length must equal the number of columns");
+		}
+		if (A instanceof Array2DRowRealMatrix && x.stride == 1){
+			System.arraycopy(x.x, x.offset, ((Array2DRowRealMatrix) A).getDataRef()[i], 0, n);
+		} else{
+			A.setRow(i, x.values());
+		}
 	}
 	
 	/**
@@ -249,7 +313,7 @@ public class Matrix{
 	 * @return
 	 */
 	public Vector LUSolve(Vector b) {
-		RealVector bv = new ArrayRealVector(b.getArrayRef());
+		RealVector bv = new ArrayRealVector(b.values(), false);
 		
 		RealVector xv = new LUDecompositionImpl(A).getSolver().solve(bv);
 		return new Vector(xv.getData());
@@ -261,7 +325,7 @@ public class Matrix{
 	 * @return
 	 */
 	public Vector QRSolve(Vector b) {
-		RealVector bv = new ArrayRealVector(b.getArrayRef());
+		RealVector bv = new ArrayRealVector(b.values(), false);
 		
 		RealVector xv = new QRDecompositionImpl(A).getSolver().solve(bv);
 		return new Vector(xv.getData());
@@ -0,0 +1,683 @@
+package jMath.linalg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+
+/**
+ * Reads and writes NumPy .npy files and .npz archives.
+ * Floating point, integer and boolean arrays of either byte order and in C or Fortran order
+ * can be read (as doubles, always returned in C order).  Arrays are written as doubles.
+ * Large files can be read in pieces with a {@link Reader Reader}.
+ */
+public class NpyFile {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	private static final byte[] MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y'};
+
+	// bytes moved per transfer between a channel and the arrays
+	private static final int BLOCK = 1 << 16;
+
+	private static final Pattern DESCR = Pattern.compile("'descr'\\s*:\\s*'([<>|=])([fiub])(\\d+)'");
+	private static final Pattern FORTRAN = Pattern.compile("'fortran_order'\\s*:\\s*(True|False)");
+	private static final Pattern SHAPE = Pattern.compile("'shape'\\s*:\\s*\\(([^)]*)\\)");
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * reads a whole .npy file
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException  if the file is not a supported .npy file
+	 */
+	public static Data read(Path path) throws IOException, IllegalArgumentException{
+		try (Reader r = new Reader(path)){
+			return r.readAll();
+		}
+	}
+
+	/**
+	 * reads a .npy file into a vector (arrays of more than one dimension are flattened in C order)
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	public static Vector readVector(Path path) throws IOException{
+		return read(path).toVector();
+	}
+
+	/**
+	 * reads a 2D .npy file into a matrix
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	public static Matrix readMatrix(Path path) throws IOException{
+		return read(path).toMatrix();
+	}
+
+	/**
+	 * reads the shape of a .npy file (without reading the data)
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	public static long[] shape(Path path) throws IOException{
+		try (Reader r = new Reader(path)){
+			return r.getShape();
+		}
+	}
+
+	/**
+	 * writes a vector as a 1D array of little-endian doubles
+	 * @param path
+	 * @param x
+	 * @throws IOException
+	 */
+	public static void write(Path path, double[] x) throws IOException{
+		write(path, new Data(x, x.length));
+	}
+
+	/**
+	 * writes a vector as a 1D array of little-endian doubles
+	 * @param path
+	 * @param x
+	 * @throws IOException
+	 */
+	public static void write(Path path, Vector x) throws IOException{
+		write(path, x.values());
+	}
+
+	/**
+	 * writes a matrix as a 2D array of little-endian doubles in C order
+	 * @param path
+	 * @param A
+	 * @throws IOException
+	 */
+	public static void write(Path path, Matrix A) throws IOException{
+		write(path, Data.of(A));
+	}
+
+	/**
+	 * writes an array of little-endian doubles in C order
+	 * @param path
+	 * @param data
+	 * @throws IOException
+	 */
+	public static void write(Path path, Data data) throws IOException{
+		write(path, data, false, ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * writes an array of doubles
+	 * @param path
+	 * @param data
+	 * @param fortranOrder  true to store in Fortran (column major) order
+	 * @param order  byte order of the file
+	 * @throws IOException
+	 */
+	public static void write(Path path, Data data, boolean fortranOrder, ByteOrder order) throws IOException{
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)){
+			write(ch, data, fortranOrder, order);
+		}
+	}
+
+	/**
+	 * writes an array of doubles to a stream (which is left open)
+	 * @param out
+	 * @param data
+	 * @param fortranOrder  true to store in Fortran (column major) order
+	 * @param order  byte order of the file
+	 * @throws IOException
+	 */
+	public static void write(OutputStream out, Data data, boolean fortranOrder, ByteOrder order) throws IOException{
+		write(Channels.newChannel(out), data, fortranOrder, order);
+		out.flush();
+	}
+
+	/**
+	 * reads every array in a .npz archive (compressed or not)
+	 * @param path
+	 * @return arrays in the order stored, by name (without the .npy extension)
+	 * @throws IOException
+	 */
+	public static Map<String, Data> readNpz(Path path) throws IOException{
+		Map<String, Data> arrays = new LinkedHashMap<String, Data>();
+		try (ZipInputStream in = new ZipInputStream(Files.newInputStream(path))){
+			ZipEntry e;
+			while ((e = in.getNextEntry()) != null){
+				String name = e.getName();
+				if (name.endsWith(".npy")){
+					arrays.put(name.substring(0, name.length() - 4), new Reader(in).readAll());
+				}
+			}
+		}
+		return arrays;
+	}
+
+	/**
+	 * writes arrays of little-endian doubles to an uncompressed .npz archive
+	 * @param path
+	 * @param arrays  by name
+	 * @throws IOException
+	 */
+	public static void writeNpz(Path path, Map<String, Data> arrays) throws IOException{
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(path))){
+			for (Map.Entry<String, Data> a : arrays.entrySet()){
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				write(bytes, a.getValue(), false, ByteOrder.LITTLE_ENDIAN);
+
+				// stored entries need their size and checksum up front
+				byte[] b = bytes.toByteArray();
+				CRC32 crc = new CRC32();
+				crc.update(b);
+				ZipEntry e = new ZipEntry(a.getKey() + ".npy");
+				e.setMethod(ZipEntry.STORED);
+				e.setSize(b.length);
+				e.setCompressedSize(b.length);
+				e.setCrc(crc.getValue());
+				out.putNextEntry(e);
+				out.write(b);
+				out.closeEntry();
+			}
+		}
+	}
+
+
+/* ------------------------
+   Data
+ * ------------------------ */
+
+	/**
+	 * An array read from or written to a NumPy file: its shape and its elements in C order.
+	 */
+	public static class Data {
+
+		private final long[] shape;
+		private final double[] values;
+
+		/**
+		 * @param values  elements in C (row major) order, used by reference
+		 * @param shape
+		 * @throws IllegalArgumentException  if the shape does not match the number of elements
+		 */
+		public Data(double[] values, long... shape) throws IllegalArgumentException{
+			long count = 1;
+			for (long s : shape){
+				if (s < 0){
+					throw new IllegalArgumentException("Invalid shape");
+				}
+				count *= s;
+			}
+			if (count != values.length){
+				throw new IllegalArgumentException("Shape does not match the number of elements");
+			}
+			this.values = values;
+			this.shape = shape.clone();
+		}
+
+		/**
+		 * @param x
+		 * @return a 1D array
+		 */
+		public static Data of(Vector x){
+			return new Data(x.getArray(), x.length());
+		}
+
+		/**
+		 * @param A
+		 * @return a 2D array
+		 */
+		public static Data of(Matrix A){
+			int m = A.A.getRowDimension();
+			int n = A.A.getColumnDimension();
+			double[] values = new double[m*n];
+			for (int i = 0; i < m; i++){
+				System.arraycopy(A.A.getRow(i), 0, values, i*n, n);
+			}
+			return new Data(values, m, n);
+		}
+
+		/**
+		 * @return size of each dimension
+		 */
+		public long[] getShape(){
+			return shape.clone();
+		}
+
+		/**
+		 * @return elements in C order (by reference)
+		 */
+		public double[] getValues(){
+			return values;
+		}
+
+		/**
+		 * @return all elements, in C order
+		 */
+		public Vector toVector(){
+			return new Vector(values);
+		}
+
+		/**
+		 * @return the array as a matrix
+		 * @throws IllegalArgumentException  if the array is not 2D, or is empty
+		 */
+		public Matrix toMatrix() throws IllegalArgumentException{
+			if (shape.length != 2){
+				throw new IllegalArgumentException("Array is not 2D");
+			}
+			int m = (int) shape[0], n = (int) shape[1];
+			if (m == 0 || n == 0){
+				throw new IllegalArgumentException("Matrix must not be empty");
+			}
+			double[][] A = new double[m][n];
+			for (int i = 0; i < m; i++){
+				System.arraycopy(values, i*n, A[i], 0, n);
+			}
+			return new Matrix(A, false);
+		}
+	}
+
+
+/* ------------------------
+   Reader
+ * ------------------------ */
+
+	/**
+	 * Reads the elements of a .npy file in pieces, in the order they are stored
+	 * (see {@link #isFortranOrder isFortranOrder}), so that files larger than memory
+	 * can be processed.
+	 */
+	public static class Reader implements Closeable {
+
+		private final ReadableByteChannel ch;
+		private final ByteBuffer buf;
+
+		private final char kind;
+		private final int size;
+		private final boolean fortranOrder;
+		private final long[] shape;
+		private final long count;
+
+		// elements not yet read
+		private long left;
+
+		/**
+		 * opens a .npy file and reads its header
+		 * @param path
+		 * @throws IOException
+		 * @throws IllegalArgumentException  if the file is not a supported .npy file
+		 */
+		public Reader(Path path) throws IOException, IllegalArgumentException{
+			this(FileChannel.open(path, StandardOpenOption.READ), true);
+		}
+
+		/**
+		 * reads the header of a .npy file from a stream
+		 * @param in
+		 * @throws IOException
+		 * @throws IllegalArgumentException  if the stream is not a supported .npy file
+		 */
+		public Reader(InputStream in) throws IOException, IllegalArgumentException{
+			this(Channels.newChannel(in), false);
+		}
+
+		/**
+		 * @param owned  close ch if the header can not be read (the caller never receives the Reader)
+		 */
+		private Reader(ReadableByteChannel ch, boolean owned) throws IOException, IllegalArgumentException{
+			this.ch = ch;
+			buf = ByteBuffer.allocateDirect(BLOCK);
+			buf.limit(0);
+			try{
+				fill(10);
+				for (byte b : MAGIC){
+					if (buf.get() != b){
+						throw new IllegalArgumentException("Not a .npy file");
+					}
+				}
+				int major = buf.get();
+				buf.get();
+				buf.order(ByteOrder.LITTLE_ENDIAN);
+				int length;
+				if (major == 1){
+					length = buf.getShort() & 0xffff;
+				} else if (major == 2 || major == 3){
+					fill(4);
+					length = buf.getInt();
+				} else{
+					throw new IllegalArgumentException("Unsupported .npy version " + major);
+				}
+				if (length < 0 || length > BLOCK){
+					throw new IllegalArgumentException("Invalid .npy header");
+				}
+				fill(length);
+				byte[] h = new byte[length];
+				buf.get(h);
+				String header = new String(h, major == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+
+				Matcher d = DESCR.matcher(header);
+				Matcher f = FORTRAN.matcher(header);
+				Matcher s = SHAPE.matcher(header);
+				if (!d.find() || !f.find() || !s.find()){
+					throw new IllegalArgumentException("Invalid .npy header");
+				}
+				kind = d.group(2).charAt(0);
+				size = Integer.parseInt(d.group(3));
+				if (!supported(kind, size)){
+					throw new IllegalArgumentException("Unsupported data type " + d.group(0));
+				}
+				buf.order(d.group(1).equals(">") ? ByteOrder.BIG_ENDIAN :
+					d.group(1).equals("<") ? ByteOrder.LITTLE_ENDIAN : ByteOrder.nativeOrder());
+				fortranOrder = f.group(1).equals("True");
+
+				String[] dims = s.group(1).split(",");
+				int ndim = 0;
+				long[] sh = new long[dims.length];
+				long c = 1;
+				for (String dim : dims){
+					dim = dim.trim();
+					if (!dim.isEmpty()){
+						sh[ndim] = Long.parseLong(dim.endsWith("L") ? dim.substring(0, dim.length()-1) : dim);
+						c *= sh[ndim++];
+					}
+				}
+				shape = Arrays.copyOf(sh, ndim);
+				count = c;
+				left = c;
+			} catch (IOException | RuntimeException e){
+				if (owned){
+					ch.close();
+				}
+				throw e;
+			}
+		}
+
+		/**
+		 * @return size of each dimension
+		 */
+		public long[] getShape(){
+			return shape.clone();
+		}
+
+		/**
+		 * @return total number of elements
+		 */
+		public long length(){
+			return count;
+		}
+
+		/**
+		 * @return true if the elements are stored in Fortran (column major) order
+		 */
+		public boolean isFortranOrder(){
+			return fortranOrder;
+		}
+
+		/**
+		 * reads up to len of the remaining elements, converted to double
+		 * @param dst
+		 * @param off
+		 * @param len
+		 * @return number of elements read, or -1 once all have been read
+		 * @throws IOException
+		 */
+		public int read(double[] dst, int off, int len) throws IOException{
+			if (left == 0){
+				return -1;
+			}
+			int total = (int) Math.min(len, left);
+			int done = 0;
+			while (done < total){
+				fill(size);
+				int m = Math.min(total - done, buf.remaining()/size);
+				convert(dst, off + done, m);
+				done += m;
+			}
+			left -= total;
+			return total;
+		}
+
+		/**
+		 * reads all remaining elements
+		 * @return the array, in C order
+		 * @throws IOException
+		 * @throws IllegalArgumentException  if the array is too large for a double[]
+		 */
+		public Data readAll() throws IOException, IllegalArgumentException{
+			if (left != count || count > Integer.MAX_VALUE - 8){
+				throw new IllegalArgumentException("Array is too large or already partly read");
+			}
+			double[] values = new double[(int) count];
+			int off = 0;
+			while (off < values.length){
+				off += read(values, off, values.length - off);
+			}
+			if (fortranOrder && shape.length > 1){
+				values = fortranToC(values, shape);
+			}
+			return new Data(values, shape);
+		}
+
+		@Override
+		public void close() throws IOException{
+			ch.close();
+		}
+
+		/**
+		 * makes sure at least n bytes are buffered
+		 */
+		private void fill(int n) throws IOException{
+			if (buf.remaining() >= n){
+				return;
+			}
+			buf.compact();
+			while (buf.position() < n){
+				if (ch.read(buf) < 0){
+					throw new IllegalArgumentException("Unexpected end of .npy data");
+				}
+			}
+			buf.flip();
+		}
+
+		/**
+		 * converts m buffered elements into dst
+		 */
+		private void convert(double[] dst, int off, int m){
+			int p = buf.position();
+			if (kind == 'f' && size == 8){
+				buf.asDoubleBuffer().get(dst, off, m);
+			} else if (kind == 'f'){
+				FloatBuffer b = buf.asFloatBuffer();
+				for (int i = 0; i < m; i++){
+					dst[off + i] = b.get(i);
+				}
+			} else if (size == 8){
+				LongBuffer b = buf.asLongBuffer();
+				for (int i = 0; i < m; i++){
+					long v = b.get(i);
+					dst[off + i] = (kind == 'u' && v < 0) ? (v >>> 1)*2.0 + (v & 1) : v;
+				}
+			} else if (size == 4){
+				IntBuffer b = buf.asIntBuffer();
+				for (int i = 0; i < m; i++){
+					dst[off + i] = (kind == 'u') ? b.get(i) & 0xffffffffL : b.get(i);
+				}
+			} else if (size == 2){
+				ShortBuffer b = buf.asShortBuffer();
+				for (int i = 0; i < m; i++){
+					dst[off + i] = (kind == 'u') ? b.get(i) & 0xffff : b.get(i);
+				}
+			} else{
+				for (int i = 0; i < m; i++){
+					byte v = buf.get(p + i);
+					dst[off + i] = (kind == 'i') ? v : v & 0xff;
+				}
+			}
+			buf.position(p + m*size);
+		}
+	}
+
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	private static boolean supported(char kind, int size){
+		switch (kind){
+		case 'f':
+			return size == 4 || size == 8;
+		case 'i':
+		case 'u':
+			return size == 1 || size == 2 || size == 4 || size == 8;
+		case 'b':
+			return size == 1;
+		default:
+			return false;
+		}
+	}
+
+	private static void write(WritableByteChannel ch, Data data, boolean fortranOrder, ByteOrder order)
+			throws IOException{
+		long[] shape = data.shape;
+		double[] values = data.values;
+		if (fortranOrder && shape.length > 1){
+			values = cToFortran(values, shape);
+		}
+
+		StringBuilder dict = new StringBuilder();
+		dict.append("{'descr': '").append(order == ByteOrder.BIG_ENDIAN ? '>' : '<').append("f8', ");
+		dict.append("'fortran_order': ").append(fortranOrder ? "True" : "False").append(", ");
+		dict.append("'shape': (");
+		for (int i = 0; i < shape.length; i++){
+			dict.append(i > 0 ? ", " : "").append(shape[i]);
+		}
+		dict.append(shape.length == 1 ? ",), }" : "), }");
+
+		// pad with spaces and a newline so the data starts on a multiple of 64 bytes
+		int prefix = dict.length() + 1 + 10 > 65535 ? 12 : 10;
+		int total = (prefix + dict.length() + 1 + 63)/64*64;
+		while (prefix + dict.length() + 1 < total){
+			dict.append(' ');
+		}
+		dict.append('\n');
+
+		ByteBuffer buf = ByteBuffer.allocateDirect(BLOCK);
+		buf.order(ByteOrder.LITTLE_ENDIAN);
+		buf.put(MAGIC);
+		if (prefix == 10){
+			buf.put((byte) 1).put((byte) 0).putShort((short) dict.length());
+		} else{
+			buf.put((byte) 2).put((byte) 0).putInt(dict.length());
+		}
+		byte[] h = dict.toString().getBytes(StandardCharsets.ISO_8859_1);
+		if (h.length > buf.remaining()){
+			throw new IllegalArgumentException("Too many dimensions");
+		}
+		buf.put(h);
+
+		buf.order(order);
+		int off = 0;
+		while (off < values.length){
+			int m = Math.min(values.length - off, buf.remaining()/Double.BYTES);
+			buf.asDoubleBuffer().put(values, off, m);
+			buf.position(buf.position() + m*Double.BYTES);
+			off += m;
+			if (buf.remaining() < Double.BYTES){
+				flush(ch, buf);
+			}
+		}
+		flush(ch, buf);
+	}
+
+	private static void flush(WritableByteChannel ch, ByteBuffer buf) throws IOException{
+		buf.flip();
+		while (buf.hasRemaining()){
+			ch.write(buf);
+		}
+		buf.clear();
+	}
+
+	/**
+	 * reorders elements stored in Fortran order into C order
+	 */
+	private static double[] fortranToC(double[] f, long[] shape){
+		double[] c = new double[f.length];
+		reorder(f, c, shape, true);
+		return c;
+	}
+
+	/**
+	 * reorders elements stored in C order into Fortran order
+	 */
+	private static double[] cToFortran(double[] c, long[] shape){
+		double[] f = new double[c.length];
+		reorder(c, f, shape, false);
+		return f;
+	}
+
+	/**
+	 * walks the Fortran-ordered index sequentially, keeping track of the matching C index
+	 */
+	private static void reorder(double[] src, double[] dst, long[] shape, boolean fromFortran){
+		int ndim = shape.length;
+		long[] cStride = new long[ndim];
+		long s = 1;
+		for (int a = ndim - 1; a >= 0; a--){
+			cStride[a] = s;
+			s *= shape[a];
+		}
+		long[] idx = new long[ndim];
+		long ci = 0;
+		for (int fi = 0; fi < src.length; fi++){
+			if (fromFortran){
+				dst[(int) ci] = src[fi];
+			} else{
+				dst[fi] = src[(int) ci];
+			}
+			for (int a = 0; a < ndim; a++){
+				idx[a]++;
+				ci += cStride[a];
+				if (idx[a] < shape[a]){
+					break;
+				}
+				ci -= idx[a]*cStride[a];
+				idx[a] = 0;
+			}
+		}
+	}
+}
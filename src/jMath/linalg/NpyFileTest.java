@@ -0,0 +1,178 @@
+package jMath.linalg;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class NpyFileTest {
+
+	public static final double tol = 0.0;
+
+	/**
+	 * a .npy file the way numpy.save writes it
+	 */
+	private static byte[] npy(String descr, boolean fortran, String shape, ByteBuffer data){
+		String dict = "{'descr': '" + descr + "', 'fortran_order': " + (fortran ? "True" : "False")
+				+ ", 'shape': " + shape + ", }";
+		StringBuilder h = new StringBuilder(dict);
+		while ((10 + h.length() + 1) % 64 != 0){
+			h.append(' ');
+		}
+		h.append('\n');
+		ByteBuffer b = ByteBuffer.allocate(10 + h.length() + data.limit()).order(ByteOrder.LITTLE_ENDIAN);
+		b.put(new byte[]{(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0});
+		b.putShort((short) h.length());
+		b.put(h.toString().getBytes(StandardCharsets.ISO_8859_1));
+		b.put(data);
+		return b.array();
+	}
+
+	@Test
+	public void testHeader() throws IOException{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		NpyFile.write(out, new NpyFile.Data(new double[]{0, 1, 2}, 3), false, ByteOrder.LITTLE_ENDIAN);
+		byte[] b = out.toByteArray();
+
+		ByteBuffer data = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+		data.putDouble(0).putDouble(1).putDouble(2).flip();
+		assertArrayEquals(npy("<f8", false, "(3,)", data), b);
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException{
+		Path path = Files.createTempFile("matrix", ".npy");
+		try{
+			double[][] A = {{1, 2, 3}, {4, 5, 6}};
+			NpyFile.write(path, new Matrix(A));
+			assertArrayEquals(new long[]{2, 3}, NpyFile.shape(path));
+			Matrix B = NpyFile.readMatrix(path);
+			assertArrayEquals(A[1], B.getRow(1).getArray(), tol);
+
+			// Fortran order and big endian come back in C order
+			NpyFile.write(path, NpyFile.Data.of(new Matrix(A)), true, ByteOrder.BIG_ENDIAN);
+			NpyFile.Data d = NpyFile.read(path);
+			assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6}, d.getValues(), tol);
+
+			Vector x = Vector.linspace(0.0, 1.0, 7);
+			NpyFile.write(path, x);
+			assertArrayEquals(x.getArray(), NpyFile.readVector(path).getArray(), tol);
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testEmptyMatrix() throws IOException{
+		Path path = Files.createTempFile("empty", ".npy");
+		try{
+			NpyFile.write(path, new NpyFile.Data(new double[0], 0, 3));
+			assertArrayEquals(new long[]{0, 3}, NpyFile.shape(path));
+			try{
+				NpyFile.readMatrix(path);
+				fail();
+			} catch (IllegalArgumentException e){
+				// expected
+			}
+		} finally{
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testFortranOrder() throws IOException{
+		// 2 x 3 x 2 array with a[i,j,k] = 100i + 10j + k stored in Fortran order
+		ByteBuffer data = ByteBuffer.allocate(12*8).order(ByteOrder.LITTLE_ENDIAN);
+		for (int k = 0; k < 2; k++){
+			for (int j = 0; j < 3; j++){
+				for (int i = 0; i < 2; i++){
+					data.putDouble(100*i + 10*j + k);
+				}
+			}
+		}
+		data.flip();
+		byte[] b = npy("<f8", true, "(2, 3, 2)", data);
+
+		NpyFile.Reader r = new NpyFile.Reader(new ByteArrayInputStream(b));
+		assertTrue(r.isFortranOrder());
+		double[] v = r.readAll().getValues();
+		int c = 0;
+		for (int i = 0; i < 2; i++){
+			for (int j = 0; j < 3; j++){
+				for (int k = 0; k < 2; k++){
+					assertEquals(100*i + 10*j + k, v[c++], tol);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOtherTypes() throws IOException{
+		ByteBuffer f4 = ByteBuffer.allocate(8).order(ByteOrder.BIG_ENDIAN);
+		f4.putFloat(1.5f).putFloat(-2.25f).flip();
+		NpyFile.Reader r = new NpyFile.Reader(new ByteArrayInputStream(npy(">f4", false, "(2,)", f4)));
+		assertArrayEquals(new double[]{1.5, -2.25}, r.readAll().getValues(), tol);
+
+		ByteBuffer i4 = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+		i4.putInt(-7).putInt(0).putInt(123456).flip();
+		r = new NpyFile.Reader(new ByteArrayInputStream(npy("<i4", false, "(3,)", i4)));
+		assertArrayEquals(new double[]{-7, 0, 123456}, r.readAll().getValues(), tol);
+
+		ByteBuffer u1 = ByteBuffer.allocate(2);
+		u1.put((byte) 255).put((byte) 1).flip();
+		r = new NpyFile.Reader(new ByteArrayInputStream(npy("|u1", false, "(2,)", u1)));
+		assertArrayEquals(new double[]{255, 1}, r.readAll().getValues(), tol);
+	}
+
+	@Test
+	public void testStreaming() throws IOException{
+		int n = 20000;
+		double[] x = Array1D.linspace(-1.0, 1.0, n);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		NpyFile.write(out, new NpyFile.Data(x, n), false, ByteOrder.BIG_ENDIAN);
+
+		NpyFile.Reader r = new NpyFile.Reader(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(n, r.length());
+		double[] part = new double[3000];
+		double sum = 0.0;
+		int count = 0, m;
+		while ((m = r.read(part, 0, part.length)) > 0){
+			for (int i = 0; i < m; i++){
+				assertEquals(x[count + i], part[i], tol);
+				sum += part[i];
+			}
+			count += m;
+		}
+		assertEquals(n, count);
+		assertEquals(Array1D.sum(x), sum, 1e-9);
+	}
+
+	@Test
+	public void testNpz() throws IOException{
+		Path path = Files.createTempFile("arrays", ".npz");
+		try{
+			Map<String, NpyFile.Data> arrays = new LinkedHashMap<String, NpyFile.Data>();
+			arrays.put("x", NpyFile.Data.of(new Vector(1, 2, 3)));
+			arrays.put("A", NpyFile.Data.of(new Matrix(new double[][]{{1, 2}, {3, 4}})));
+			NpyFile.writeNpz(path, arrays);
+
+			Map<String, NpyFile.Data> read = NpyFile.readNpz(path);
+			assertEquals(2, read.size());
+			assertArrayEquals(new double[]{1, 2, 3}, read.get("x").getValues(), tol);
+			assertArrayEquals(new long[]{2, 2}, read.get("A").getShape());
+			assertEquals(3.0, read.get("A").toMatrix().get(1, 0), tol);
+		} finally{
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,517 @@
+package jMath.linalg;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+
+/**
+ * A vector stored outside of the Java heap, for long-lived arrays too large to
+ * keep on the heap (or to index with an int).  The elements live in direct buffers
+ * of up to 2^27 doubles each, and are indexed with a long.
+ * The memory is released by {@link #close close} rather than by the garbage collector,
+ * so the vector must not be used after it is closed.
+ * Direct memory is limited by -XX:MaxDirectMemorySize (by default the maximum heap size).
+ * The most common Array1D operations are provided, working directly on the buffers.
+ */
+public class OffHeapVector implements AutoCloseable {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+
+	// default number of doubles per buffer is 2^CHUNK_SHIFT (1 GB)
+	static final int CHUNK_SHIFT = 27;
+
+	// sun.misc.Unsafe.invokeCleaner, to free a direct buffer right away (null if unavailable)
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method cleaner = null;
+		try{
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+			cleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (Exception e){
+			unsafe = null;
+			cleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = cleaner;
+	}
+
+	// length of the vector
+	private final long n;
+
+	// element i is data[i >>> shift].get(i & mask)
+	private final int shift;
+	private final long mask;
+	private ByteBuffer[] bytes;
+	private DoubleBuffer[] data;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+	/**
+	 * Allocates an off-heap vector of zeros
+	 * @param n  length of the vector
+	 * @throws IllegalArgumentException
+	 */
+	public OffHeapVector(long n) throws IllegalArgumentException{
+		this(n, CHUNK_SHIFT);
+	}
+
+	/**
+	 * Allocates an off-heap vector of zeros with 2^shift elements per buffer
+	 */
+	OffHeapVector(long n, int shift) throws IllegalArgumentException{
+		if (n < 0){
+			throw new IllegalArgumentException("Length must not be negative");
+		}
+		this.n = n;
+		this.shift = shift;
+		this.mask = (1L << shift) - 1;
+
+		int chunks = (int) ((n + mask) >>> shift);
+		bytes = new ByteBuffer[chunks];
+		data = new DoubleBuffer[chunks];
+		for (int c = 0; c < chunks; c++){
+			long len = Math.min(n - ((long) c << shift), 1L << shift);
+			bytes[c] = ByteBuffer.allocateDirect((int) len*Double.BYTES).order(ByteOrder.nativeOrder());
+			data[c] = bytes[c].asDoubleBuffer();
+		}
+	}
+
+	/**
+	 * Wraps existing direct (or mapped) buffers of 2^shift elements each, except the last
+	 */
+	OffHeapVector(ByteBuffer[] buffers, long n, int shift){
+		this.n = n;
+		this.shift = shift;
+		this.mask = (1L << shift) - 1;
+		bytes = buffers;
+		data = new DoubleBuffer[buffers.length];
+		for (int c = 0; c < buffers.length; c++){
+			data[c] = buffers[c].asDoubleBuffer();
+		}
+	}
+
+	/**
+	 * Copies an array off the heap
+	 * @param x
+	 * @return
+	 */
+	public static OffHeapVector copyOf(double[] x){
+		OffHeapVector v = new OffHeapVector(x.length);
+		v.set(0, x, 0, x.length);
+		return v;
+	}
+
+	/**
+	 * Copies a vector off the heap
+	 * @param x
+	 * @return
+	 */
+	public static OffHeapVector copyOf(Vector x){
+		return copyOf(x.values());
+	}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+	/**
+	 * @return length of the vector
+	 */
+	public long length(){
+		return n;
+	}
+
+	/**
+	 * Get a single element.
+	 * @param i  index
+	 * @return x(i)
+	 * @throws IllegalStateException  if the vector has been closed
+	 */
+	public double get(long i){
+		return chunks()[(int) (i >>> shift)].get((int) (i & mask));
+	}
+
+	/**
+	 * Set a single element.
+	 * @param i  index
+	 * @param a  number to set to
+	 * @throws IllegalStateException  if the vector has been closed
+	 */
+	public void set(long i, double a){
+		chunks()[(int) (i >>> shift)].put((int) (i & mask), a);
+	}
+
+	/**
+	 * copies x(i:i+len-1) into dst[off ... off+len-1]
+	 * @param i  starting index in the vector
+	 * @param dst
+	 * @param off
+	 * @param len
+	 */
+	public void get(long i, double[] dst, int off, int len){
+		checkRange(i, len);
+		while (len > 0){
+			int c = (int) (i >>> shift);
+			int k = (int) (i & mask);
+			int m = Math.min(len, data[c].capacity() - k);
+			data[c].get(k, dst, off, m);
+			i += m;
+			off += m;
+			len -= m;
+		}
+	}
+
+	/**
+	 * copies src[off ... off+len-1] into x(i:i+len-1)
+	 * @param i  starting index in the vector
+	 * @param src
+	 * @param off
+	 * @param len
+	 */
+	public void set(long i, double[] src, int off, int len){
+		checkRange(i, len);
+		while (len > 0){
+			int c = (int) (i >>> shift);
+			int k = (int) (i & mask);
+			int m = Math.min(len, data[c].capacity() - k);
+			data[c].put(k, src, off, m);
+			i += m;
+			off += m;
+			len -= m;
+		}
+	}
+
+	/**
+	 * Copies the vector back onto the heap
+	 * @return
+	 * @throws IllegalArgumentException  if the vector is too long for an array
+	 */
+	public double[] getArray() throws IllegalArgumentException{
+		if (n > Integer.MAX_VALUE - 8){
+			throw new IllegalArgumentException("Vector is too long for an array");
+		}
+		double[] y = new double[(int) n];
+		get(0, y, 0, y.length);
+		return y;
+	}
+
+	/**
+	 * Copies the vector back onto the heap
+	 * @return
+	 * @throws IllegalArgumentException  if the vector is too long for an array
+	 */
+	public Vector toVector() throws IllegalArgumentException{
+		return new Vector(getArray());
+	}
+
+	/**
+	 * sets every element to alpha
+	 * @param alpha
+	 */
+	public void fill(double alpha){
+		for (DoubleBuffer b : chunks()){
+			for (int k = 0, m = b.capacity(); k < m; k++){
+				b.put(k, alpha);
+			}
+		}
+	}
+
+	/**
+	 * x += alpha
+	 * @param alpha
+	 */
+	public void addEquals(double alpha){
+		for (DoubleBuffer b : chunks()){
+			for (int k = 0, m = b.capacity(); k < m; k++){
+				b.put(k, b.get(k) + alpha);
+			}
+		}
+	}
+
+	/**
+	 * x += y
+	 * @param y
+	 * @throws IllegalArgumentException
+	 */
+	public void addEquals(OffHeapVector y) throws IllegalArgumentException{
+		addEquals(1.0, y);
+	}
+
+	/**
+	 * x += alpha*y
+	 * @param alpha
+	 * @param y
+	 * @throws IllegalArgumentException
+	 */
+	public void addEquals(double alpha, OffHeapVector y) throws IllegalArgumentException{
+		checkDimension(y);
+		DoubleBuffer[] xb = chunks(), yb = y.chunks();
+		for (long i = 0; i < n; ){
+			DoubleBuffer bx = xb[(int) (i >>> shift)], by = yb[(int) (i >>> y.shift)];
+			int kx = (int) (i & mask), ky = (int) (i & y.mask);
+			int m = Math.min(run(i), y.run(i));
+			for (int j = 0; j < m; j++){
+				bx.put(kx + j, bx.get(kx + j) + alpha*by.get(ky + j));
+			}
+			i += m;
+		}
+	}
+
+	/**
+	 * x -= y
+	 * @param y
+	 * @throws IllegalArgumentException
+	 */
+	public void subtractEquals(OffHeapVector y) throws IllegalArgumentException{
+		addEquals(-1.0, y);
+	}
+
+	/**
+	 * x *= alpha
+	 * @param alpha
+	 */
+	public void multiplyEquals(double alpha){
+		for (DoubleBuffer b : chunks()){
+			for (int k = 0, m = b.capacity(); k < m; k++){
+				b.put(k, alpha*b.get(k));
+			}
+		}
+	}
+
+	/**
+	 * x_i *= y_i
+	 * @param y
+	 * @throws IllegalArgumentException
+	 */
+	public void dotTimesEquals(OffHeapVector y) throws IllegalArgumentException{
+		checkDimension(y);
+		DoubleBuffer[] xb = chunks(), yb = y.chunks();
+		for (long i = 0; i < n; ){
+			DoubleBuffer bx = xb[(int) (i >>> shift)], by = yb[(int) (i >>> y.shift)];
+			int kx = (int) (i & mask), ky = (int) (i & y.mask);
+			int m = Math.min(run(i), y.run(i));
+			for (int j = 0; j < m; j++){
+				bx.put(kx + j, bx.get(kx + j)*by.get(ky + j));
+			}
+			i += m;
+		}
+	}
+
+	/**
+	 * replaces x with its cumulative sum
+	 */
+	public void cumsumEquals(){
+		double sum = 0.0;
+		for (DoubleBuffer b : chunks()){
+			for (int k = 0, m = b.capacity(); k < m; k++){
+				sum += b.get(k);
+				b.put(k, sum);
+			}
+		}
+	}
+
+	/**
+	 * @param x
+	 * @return sum of the entries of x
+	 */
+	public static double sum(OffHeapVector x){
+		double sum = 0.0;
+		for (DoubleBuffer b : x.chunks()){
+			for (int k = 0, m = b.capacity(); k < m; k++){
+				sum += b.get(k);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @param x
+	 * @return mean of the entries of x
+	 */
+	public static double mean(OffHeapVector x){
+		return sum(x)/x.n;
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @return the dot product of x and y
+	 * @throws IllegalArgumentException
+	 */
+	public static double dot(OffHeapVector x, OffHeapVector y) throws IllegalArgumentException{
+		x.checkDimension(y);
+		DoubleBuffer[] xb = x.chunks(), yb = y.chunks();
+		double sum = 0.0;
+		for (long i = 0; i < x.n; ){
+			DoubleBuffer bx = xb[(int) (i >>> x.shift)], by = yb[(int) (i >>> y.shift)];
+			int kx = (int) (i & x.mask), ky = (int) (i & y.mask);
+			int m = Math.min(x.run(i), y.run(i));
+			for (int j = 0; j < m; j++){
+				sum += bx.get(kx + j)*by.get(ky + j);
+			}
+			i += m;
+		}
+		return sum;
+	}
+
+	/**
+	 * Vector norm
+	 * @param x
+	 * @param p
+	 * @return norm(V,P) = sum(abs(V).^P)^(1/P).
+	 */
+	public static double norm(OffHeapVector x, double p){
+		double sum = 0.0;
+		for (DoubleBuffer b : x.chunks()){
+			for (int k = 0, m = b.capacity(); k < m; k++){
+				sum += Math.pow(Math.abs(b.get(k)), p);
+			}
+		}
+		return Math.pow(sum, 1.0/p);
+	}
+
+	/**
+	 * @param x
+	 * @return maximum value in x
+	 */
+	public static double max(OffHeapVector x){
+		double max = Double.NEGATIVE_INFINITY;
+		for (DoubleBuffer b : x.chunks()){
+			for (int k = 0, m = b.capacity(); k < m; k++){
+				max = Math.max(max, b.get(k));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @param x
+	 * @return minimum value in x
+	 */
+	public static double min(OffHeapVector x){
+		double min = Double.POSITIVE_INFINITY;
+		for (DoubleBuffer b : x.chunks()){
+			for (int k = 0, m = b.capacity(); k < m; k++){
+				min = Math.min(min, b.get(k));
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * numerical integration of y w.r.t x using trapezoidal method.
+	 * @param x
+	 * @param y
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public static double trapz(OffHeapVector x, OffHeapVector y) throws IllegalArgumentException{
+		x.checkDimension(y);
+		DoubleBuffer[] xb = x.chunks(), yb = y.chunks();
+		double sum = 0.0;
+		if (x.n == 0){
+			return sum;
+		}
+		// the previous point is carried across the ends of the buffers
+		double x0 = x.get(0), y0 = y.get(0);
+		for (long i = 1; i < x.n; ){
+			DoubleBuffer bx = xb[(int) (i >>> x.shift)], by = yb[(int) (i >>> y.shift)];
+			int kx = (int) (i & x.mask), ky = (int) (i & y.mask);
+			int m = Math.min(x.run(i), y.run(i));
+			for (int j = 0; j < m; j++){
+				double x1 = bx.get(kx + j), y1 = by.get(ky + j);
+				sum += (x1 - x0)*(y0 + y1)/2.0;
+				x0 = x1;
+				y0 = y1;
+			}
+			i += m;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return true if the memory has been released
+	 */
+	public boolean isClosed(){
+		return data == null;
+	}
+
+	/**
+	 * Releases the off-heap memory.  The vector can not be used afterwards.
+	 */
+	@Override
+	public void close(){
+		if (data == null){
+			return;
+		}
+		ByteBuffer[] b = bytes;
+		data = null;
+		bytes = null;
+		if (INVOKE_CLEANER != null){
+			for (ByteBuffer buf : b){
+				try{
+					INVOKE_CLEANER.invoke(UNSAFE, buf);
+				} catch (Exception e){
+					// left to the garbage collector
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "OffHeapVector [n=" + n + (isClosed() ? ", closed" : "") + "]";
+	}
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+	/**
+	 * buffers holding the elements, in order
+	 * @throws IllegalStateException  if the vector has been closed
+	 */
+	private DoubleBuffer[] chunks(){
+		if (data == null){
+			throw new IllegalStateException("Vector has been closed");
+		}
+		return data;
+	}
+
+	/**
+	 * number of elements from i to the end of the buffer holding element i
+	 */
+	private int run(long i){
+		return (int) Math.min(data[(int) (i >>> shift)].capacity() - (i & mask), n - i);
+	}
+
+	private void checkRange(long i, int len){
+		chunks();
+		if (len < 0 || i < 0 || i + len > n){
+			throw new IndexOutOfBoundsException("Range " + i + " to " + (i + len - 1) + " of " + n);
+		}
+	}
+
+	private void checkDimension(OffHeapVector y) throws IllegalArgumentException{
+		y.chunks();
+		if (y.n != n){
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+	}
+}
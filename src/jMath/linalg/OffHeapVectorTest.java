@@ -0,0 +1,113 @@
+package jMath.linalg;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class OffHeapVectorTest {
+
+	public static final double tol = 1e-12;
+
+	// small buffers so that every operation crosses buffer boundaries
+	private static OffHeapVector chunked(double[] x){
+		OffHeapVector v = new OffHeapVector(x.length, 3);
+		v.set(0, x, 0, x.length);
+		return v;
+	}
+
+	@Test
+	public void testGetSet(){
+		double[] x = Array1D.linspace(0.0, 1.0, 21);
+		OffHeapVector v = chunked(x);
+
+		assertEquals(21, v.length());
+		assertEquals(x[9], v.get(9), tol);
+		v.set(17, -2.0);
+		assertEquals(-2.0, v.get(17), tol);
+
+		double[] part = new double[10];
+		v.get(5, part, 2, 8);
+		assertEquals(x[5], part[2], tol);
+		assertEquals(x[12], part[9], tol);
+
+		x[17] = -2.0;
+		assertArrayEquals(x, v.getArray(), tol);
+		v.close();
+	}
+
+	@Test
+	public void testKernels(){
+		double[] x = Array1D.linspace(0.0, 2.0, 37);
+		double[] y = Array1D.sin(x);
+		try (OffHeapVector a = chunked(x); OffHeapVector b = chunked(y)){
+			assertEquals(Array1D.sum(x), OffHeapVector.sum(a), tol);
+			assertEquals(Array1D.mean(y), OffHeapVector.mean(b), tol);
+			assertEquals(Array1D.dot(x, y), OffHeapVector.dot(a, b), tol);
+			assertEquals(Array1D.norm(y, 2.0), OffHeapVector.norm(b, 2.0), tol);
+			assertEquals(Array1D.max(y), OffHeapVector.max(b), tol);
+			assertEquals(Array1D.min(y), OffHeapVector.min(b), tol);
+			assertEquals(Array1D.trapz(x, y), OffHeapVector.trapz(a, b), tol);
+
+			b.addEquals(2.0, a);
+			b.multiplyEquals(0.5);
+			b.cumsumEquals();
+			double[] expected = Array1D.cumsum(Array1D.multiply(Array1D.add(y, Array1D.multiply(x, 2.0)), 0.5));
+			assertArrayEquals(expected, b.getArray(), tol);
+		}
+	}
+
+	@Test
+	public void testMixedBuffers(){
+		// buffer boundaries of the two vectors fall at different indices
+		double[] x = Array1D.linspace(0.0, 2.0, 37);
+		double[] y = Array1D.cos(x);
+		OffHeapVector b = new OffHeapVector(y.length, 2);
+		b.set(0, y, 0, y.length);
+		try (OffHeapVector a = chunked(x); OffHeapVector c = OffHeapVector.copyOf(y)){
+			assertEquals(Array1D.dot(x, y), OffHeapVector.dot(a, b), tol);
+			assertEquals(Array1D.trapz(x, y), OffHeapVector.trapz(a, b), tol);
+			assertEquals(Array1D.trapz(y, x), OffHeapVector.trapz(c, a), tol);
+
+			a.dotTimesEquals(b);
+			assertArrayEquals(Array1D.dotMultiply(x, y), a.getArray(), tol);
+			a.addEquals(-1.0, c);
+			b.subtractEquals(c);
+			assertArrayEquals(Array1D.subtract(Array1D.dotMultiply(x, y), y), a.getArray(), tol);
+			assertEquals(0.0, OffHeapVector.norm(b, 1.0), tol);
+		} finally{
+			b.close();
+		}
+	}
+
+	@Test
+	public void testClose(){
+		OffHeapVector v = OffHeapVector.copyOf(new Vector(1, 2, 3));
+		assertEquals(6.0, OffHeapVector.sum(v), tol);
+		v.close();
+		assertTrue(v.isClosed());
+		v.close();
+		try{
+			OffHeapVector.sum(v);
+			fail();
+		} catch (IllegalStateException e){
+			// expected
+		}
+		try{
+			v.get(0);
+			fail();
+		} catch (IllegalStateException e){
+			// expected
+		}
+		try{
+			v.set(0, 1.0);
+			fail();
+		} catch (IllegalStateException e){
+			// expected
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDimension(){
+		OffHeapVector.dot(new OffHeapVector(3), new OffHeapVector(4));
+	}
+}
@@ -1,5 +1,8 @@
 package jMath.linalg;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.*;
 
 import org.apache.commons.math.linear.RealVector;
@@ -26,6 +29,10 @@ public class Vector {
 	// dimension of array
 	protected int n;
 	
+	// element i is stored at x[offset + i*stride] (views share x with their parent)
+	protected int offset = 0;
+	protected int stride = 1;
+	
 /* ------------------------
    Constructors
  * ------------------------ */
@@ -85,6 +92,40 @@ public class Vector {
 		x = v.getData();
 	}
 	
+	/**
+	 * view of n elements of x, starting at offset and separated by stride
+	 */
+	private Vector(double[] x, int offset, int n, int stride){
+		this.x = x;
+		this.offset = offset;
+		this.n = n;
+		this.stride = stride;
+	}
+	
+	/**
+	 * Wraps part of an array without copying it.  Element i of the vector is data[offset + i*stride],
+	 * so changes to the vector are seen in data and vice versa.
+	 * (e.g. view(xyz, 1, n, 3) is the y coordinates of an interleaved xyz buffer)
+	 * @param data  backing array
+	 * @param offset  index of the first element
+	 * @param length  number of elements
+	 * @param stride  distance between elements (may be negative)
+	 * @return a view of data
+	 * @throws IllegalArgumentException
+	 */
+	public static Vector view(double[] data, int offset, int length, int stride) throws IllegalArgumentException{
+		if (length < 0 || stride == 0 && length > 1){
+			throw new IllegalArgumentException("Invalid length or stride");
+		}
+		if (length > 0){
+			long last = offset + (long) (length-1)*stride;
+			if (offset < 0 || offset >= data.length || last < 0 || last >= data.length){
+				throw new IllegalArgumentException("View extends outside of the array");
+			}
+		}
+		return new Vector(data, offset, length, stride);
+	}
+	
 	/**
 	 * Creates a constant vector with value alpha of length n 
 	 * @param alpha
@@ -171,10 +212,29 @@ public class Vector {
 	 * @return
 	 */
 	public static Vector copy(Vector x){
-		Vector y = new Vector(x.n);
-		
-		System.arraycopy(x.x, 0, y.x, 0, x.n);
-		return y;
+		return new Vector(x.getArray());
+	}
+	
+	/**
+	 * memory-maps a vector saved with {@link ArrayFile#write(Path, Vector) ArrayFile.write} (read only).
+	 * The elements stay in the file, so the result is an {@link OffHeapVector}.
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	public static OffHeapVector map(Path path) throws IOException{
+		return ArrayFile.mapVector(path, MapMode.READ_ONLY);
+	}
+	
+	/**
+	 * memory-maps a vector saved with {@link ArrayFile#write(Path, Vector) ArrayFile.write}
+	 * @param path
+	 * @param mode  READ_ONLY, PRIVATE (copy-on-write) or READ_WRITE
+	 * @return
+	 * @throws IOException
+	 */
+	public static OffHeapVector map(Path path, MapMode mode) throws IOException{
+		return ArrayFile.mapVector(path, mode);
 	}
 	
 /* ------------------------
@@ -183,10 +243,25 @@ public class Vector {
 	
 	/** 
 	 * Access the underlying 1D array.
+	 * A view (see {@link #isView isView}) has no array of its own elements, use 
+	 * {@link #getBackingArray getBackingArray} with the offset and stride instead.
 	 * @return Pointer to the one-dimensional array of vector elements
+	 * @throws UnsupportedOperationException  if this vector is a view
 	*/
 
-	public double[] getArrayRef() {
+	public double[] getArrayRef() throws UnsupportedOperationException{
+		if (isView()){
+			throw new UnsupportedOperationException("Vector is a view, use getBackingArray");
+		}
+		return x;
+	}
+	
+	/**
+	 * Access the array that stores the elements, shared with any views of it.  
+	 * Element i is at index getOffset() + i*getStride().
+	 * @return Pointer to the backing array
+	 */
+	public double[] getBackingArray(){
 		return x;
 	}
 	
@@ -197,10 +272,73 @@ public class Vector {
 	public double[] getArray(){
 		double[] y = new double[n];
 		
-		System.arraycopy(x, 0, y, 0, n);
+		if (stride == 1){
+			System.arraycopy(x, offset, y, 0, n);
+		} else{
+			for (int i = 0, k = offset; i < n; i++, k += stride){
+				y[i] = x[k];
+			}
+		}
 		return y;
 	}
 	
+	/**
+	 * @return true if the vector is a view of only part of its backing array,
+	 * or of the array in a different order
+	 */
+	public boolean isView(){
+		return offset != 0 || stride != 1 || n != x.length;
+	}
+	
+	/**
+	 * @return index in the backing array of the first element
+	 */
+	public int getOffset(){
+		return offset;
+	}
+	
+	/**
+	 * @return distance in the backing array between consecutive elements
+	 */
+	public int getStride(){
+		return stride;
+	}
+	
+	/**
+	 * Get a sub-vector that shares its elements with this vector (no copy is made).
+	 * @param iStart  Starting index
+	 * @param iEnd  Ending index (inclusive)
+	 * @return  x(iStart:iEnd)
+	 * @throws IllegalArgumentException
+	 */
+	public Vector view(int iStart, int iEnd) throws IllegalArgumentException{
+		return view(iStart, 1, iEnd);
+	}
+	
+	/**
+	 * Get a strided sub-vector that shares its elements with this vector (no copy is made).
+	 * Mimics Matlab's x(iStart:step:iEnd), so a negative step runs backwards.
+	 * @param iStart  Starting index
+	 * @param step  index increment (nonzero)
+	 * @param iEnd  Ending index (inclusive if reached)
+	 * @return  x(iStart:step:iEnd)
+	 * @throws IllegalArgumentException
+	 */
+	public Vector view(int iStart, int step, int iEnd) throws IllegalArgumentException{
+		if (step == 0){
+			throw new IllegalArgumentException("Step must be nonzero");
+		}
+		if ((iEnd - iStart) != 0 && (iEnd - iStart > 0) != (step > 0)){
+			return new Vector(x, offset, 0, stride);
+		}
+		int len = (iEnd - iStart)/step + 1;
+		int last = iStart + (len-1)*step;
+		if (iStart < 0 || iStart >= n || last < 0 || last >= n){
+			throw new IllegalArgumentException("Index out of bounds");
+		}
+		return new Vector(x, offset + iStart*stride, len, stride*step);
+	}
+	
 	/** 
 	 * Get length of the vector
 	 * @return length of the vector
@@ -215,7 +353,7 @@ public class Vector {
 	 * @exception: ArrayIndexOutOfBoundsException
 	 */
 	public double get (int i) {
-		return x[i];
+		return x[offset + i*stride];
 	}
 	
 	/**
@@ -223,7 +361,7 @@ public class Vector {
 	 * @return
 	 */
 	public double getFirst(){
-		return x[0];
+		return x[offset];
 	}
 	
 	/**
@@ -231,7 +369,7 @@ public class Vector {
 	 * @return
 	 */
 	public double getLast(){
-		return x[x.length-1];
+		return x[offset + (n-1)*stride];
 	}
 	
 	/** 
@@ -240,18 +378,18 @@ public class Vector {
 	 * @param d  number to set to
 	 */
 	public void set(int i, double a){
-		x[i] = a;
+		x[offset + i*stride] = a;
 	}
 	
 	/** 
-	 * Get a sub-vector
+	 * Get a sub-vector (a copy, see {@link #view(int, int) view} to share the elements instead)
 	 * @param iStart  Starting index
 	 * @param iEnd  Ending index
 	 * @return  x(iStart:iEnd)
 	 * @exception  ArrayIndexOutOfBoundsException
 	 */
 	public Vector sub(int iStart, int iEnd){
-		return new Vector(Array1D.sub(x, iStart, iEnd));
+		return new Vector(Array1D.sub(values(), iStart, iEnd));
 	}
 	
 	/** 
@@ -261,18 +399,30 @@ public class Vector {
 	 * @exception  ArrayIndexOutOfBoundsException
 	 */
 	public Vector sub(int[] e){
-		return new Vector(Array1D.sub(x, e));
+		return new Vector(Array1D.sub(values(), e));
 	}
 	
 	/** 
 	 * Set a part of the vector
-	 * this(istart:iend) = v
+	 * this(istart:istart+length(v)-1) = v
+	 * (writes through to the backing array if this is a view)
 	 * @param iStart  starting index
-	 * @param iEnd  ending index (inclusive)
 	 * @param v
 	 */
 	public void setSub(Vector v, int iStart){
-		Array1D.setSub(x, v.x, iStart);
+		if (iStart < 0 || iStart + v.n > n){
+			throw new ArrayIndexOutOfBoundsException(iStart + v.n - 1);
+		}
+		if (v.x == x){
+			v = copy(v);
+		}
+		if (stride == 1){
+			Array1D.setSub(x, v.values(), offset + iStart);
+		} else{
+			for (int i = 0; i < v.n; i++){
+				set(iStart + i, v.get(i));
+			}
+		}
 	}
 	
 	
@@ -283,7 +433,12 @@ public class Vector {
 	 * @param v  vector to insert
 	 */
 	public void setSub(Vector v, int[] e){
-		Array1D.setSub(x, v.x, e);
+		if (v.x == x){
+			v = copy(v);
+		}
+		for (int i = 0; i < e.length; i++){
+			set(e[i], v.get(i));
+		}
 	}
 	
 	/**
@@ -301,7 +456,7 @@ public class Vector {
 		
 		int pos = 0;
 		for (Vector v: vlist){
-			System.arraycopy(v.x, 0, vNew.x, pos, v.n);
+			Array1D.setSub(vNew.x, v.values(), pos);
 			pos += v.n;
 		}
 		return vNew;
@@ -313,7 +468,7 @@ public class Vector {
 	 * @return norm(V,P) = sum(abs(V).^P)^(1/P).
 	 */
 	public static double norm(Vector x, double p){
-		return Array1D.norm(x.x, p);
+		return Array1D.norm(x.x, x.offset, x.n, x.stride, p);
 	}
 	
 	/**
@@ -322,7 +477,16 @@ public class Vector {
 	 * @return the new sorted vector
 	 */
 	public static Vector sort(Vector x){
-		return new Vector(Array1D.sort(x.x));
+		return new Vector(Array1D.sort(x.values()));
+	}
+	
+	/**
+	 * indices that sort the vector in ascending order (stable)
+	 * @param x
+	 * @return idx
+	 */
+	public static int[] argsort(Vector x){
+		return Array1D.argsort(x.values());
 	}
 	
 	/**
@@ -331,7 +495,7 @@ public class Vector {
 	 * @return
 	 */
 	public static double max(Vector x){
-		return Array1D.max(x.x);
+		return Array1D.max(x.values());
 	}
 	
 	/**
@@ -340,7 +504,7 @@ public class Vector {
 	 * @return
 	 */
 	public static double min(Vector x){
-		return Array1D.min(x.x);
+		return Array1D.min(x.values());
 	}
 	
 
@@ -359,7 +523,7 @@ public class Vector {
 	 * @return x + alpha{<b>1</b>}
 	 */
 	public Vector add(double alpha){
-		return new Vector(Array1D.add(x, alpha));
+		return new Vector(Array1D.add(values(), alpha));
 	}
 	
 	/**
@@ -368,7 +532,7 @@ public class Vector {
 	 * @return the sum of the vectors
 	 */
 	public Vector add(Vector y){
-		return new Vector(Array1D.add(x,y.x));
+		return new Vector(Array1D.add(values(),y.values()));
 	}
 	
 	/**
@@ -376,8 +540,15 @@ public class Vector {
 	 * @param y
 	 */
 	public void addEquals(Vector y){
-		Vector z = this.add(y);
-		x = z.x;
+		if (y.n != n){
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+		if (y.x == x){
+			y = copy(y);
+		}
+		for (int i = 0, k = offset; i < n; i++, k += stride){
+			x[k] += y.get(i);
+		}
 	}
 	
 	
@@ -409,7 +580,7 @@ public class Vector {
 	 * @return the sum of the vectors
 	 */
 	public Vector subtract(Vector y){
-		return new Vector(Array1D.subtract(x, y.x));
+		return new Vector(Array1D.subtract(values(), y.values()));
 	}
 	
 	/**
@@ -417,8 +588,15 @@ public class Vector {
 	 * @param y
 	 */
 	public void subtractEquals(Vector y){
-		Vector z = this.subtract(y);
-		x = z.x;
+		if (y.n != n){
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+		if (y.x == x){
+			y = copy(y);
+		}
+		for (int i = 0, k = offset; i < n; i++, k += stride){
+			x[k] -= y.get(i);
+		}
 	}
 	
 	/**
@@ -427,7 +605,7 @@ public class Vector {
 	 * @return alpha*x
 	 */
 	public Vector multiply(double alpha){
-		return new Vector(Array1D.multiply(x, alpha));
+		return new Vector(Array1D.multiply(values(), alpha));
 	}
 	
 	/**
@@ -435,8 +613,9 @@ public class Vector {
 	 * @param alpha
 	 */
 	public void multiplyEquals(double alpha){
-		Vector z = this.multiply(alpha);
-		x = z.x;
+		for (int i = 0, k = offset; i < n; i++, k += stride){
+			x[k] *= alpha;
+		}
 	}
 	
 	/**
@@ -445,7 +624,7 @@ public class Vector {
 	 * @return a vector z where z_i = x_i*y_i
 	 */
 	public Vector dotTimes(Vector y){
-		return new Vector(Array1D.dotMultiply(x, y.x));
+		return new Vector(Array1D.dotMultiply(values(), y.values()));
 	}
 	
 	/**
@@ -462,8 +641,7 @@ public class Vector {
 	 * @param alpha
 	 */
 	public void divideEquals(double alpha){
-		Vector z = this.divide(alpha);
-		x = z.x;
+		multiplyEquals(1.0/alpha);
 	}
 	
 	/**
@@ -472,7 +650,7 @@ public class Vector {
 	 * @return a vector z where z_i = x_i/y_i
 	 */
 	public Vector dotDivide(Vector y){
-		return new Vector(Array1D.dotDivide(x, y.x));
+		return new Vector(Array1D.dotDivide(values(), y.values()));
 	}
 	
 	/**
@@ -482,7 +660,7 @@ public class Vector {
 	 * @return x_i^exp
 	 */
 	public Vector pow(double exp){
-		return new Vector(Array1D.pow(x, exp));
+		return new Vector(Array1D.pow(values(), exp));
 	}
 	
 	
@@ -502,7 +680,7 @@ public class Vector {
 	 * @return
 	 */
 	public static Vector eval(Function1Var func, Vector x){
-		return new Vector(Array1D.eval(func, x.x));
+		return new Vector(Array1D.eval(func, x.values()));
 	}
 	
 
@@ -512,7 +690,8 @@ public class Vector {
 	 * @return the dot product of x and y
 	 */
 	public double dot(Vector y){
-		return sum(dotTimes(y));
+		checkLength(y);
+		return Array1D.dot(x, offset, stride, y.x, y.offset, y.stride, n);
 	}
 	
 	/**
@@ -522,7 +701,7 @@ public class Vector {
 	 * @throws IllegalArgumentException
 	 */
 	public Vector cross (Vector y) throws IllegalArgumentException{
-		return new Vector(Array1D.cross(x, y.x));
+		return new Vector(Array1D.cross(values(), y.values()));
 	}
 
 	
@@ -531,7 +710,7 @@ public class Vector {
 	 * @return the sum entries in the vector
 	 */
 	public static double sum(Vector x){
-		return Array1D.sum(x.x);
+		return Array1D.sum(x.x, x.offset, x.n, x.stride);
 	}
 	
 	/**
@@ -540,7 +719,7 @@ public class Vector {
 	 * @return the cumulative sum of element in x
 	 */
 	public static Vector cumsum(Vector x){
-		return new Vector(Array1D.cumsum(x.x));
+		return new Vector(Array1D.cumsum(x.values()));
 	}
 	
 	/**
@@ -549,7 +728,7 @@ public class Vector {
 	 * @return |x|
 	 */
 	public static Vector abs (Vector x){
-		return new Vector(Array1D.abs(x.x));
+		return new Vector(Array1D.abs(x.values()));
 	}
 	
 	/**
@@ -560,7 +739,30 @@ public class Vector {
 	 * @throws IllegalArgumentException
 	 */
 	public static double trapz(Vector x, Vector y) throws IllegalArgumentException{
-		return Array1D.trapz(x.x, y.x);
+		x.checkLength(y);
+		return Array1D.trapz(x.x, x.offset, x.stride, y.x, y.offset, y.stride, x.n);
+	}
+	
+	/**
+	 * numerical integration of y w.r.t x using composite Simpson's rule.
+	 * @param x
+	 * @param y
+	 * @return value of the integral
+	 * @throws IllegalArgumentException
+	 */
+	public static double simpson(Vector x, Vector y) throws IllegalArgumentException{
+		return Array1D.simpson(x.values(), y.values());
+	}
+	
+	/**
+	 * numerical integration of equally spaced samples using Romberg's method.
+	 * @param y  function values, length must be 2^k + 1
+	 * @param dx  sample spacing
+	 * @return value of the integral
+	 * @throws IllegalArgumentException
+	 */
+	public static double romberg(Vector y, double dx) throws IllegalArgumentException{
+		return Array1D.romberg(y.values(), dx);
 	}
 	
 	/**
@@ -571,7 +773,30 @@ public class Vector {
 	 * @return dy/dx
 	 */
 	public static Vector deriv(Vector x, Vector y){
-		return new Vector(Array1D.deriv(x.x, y.x));
+		x.checkLength(y);
+		return new Vector(Array1D.deriv(x.x, x.offset, x.stride, y.x, y.offset, y.stride, x.n));
+	}
+	
+	/**
+	 * numerical derivative of y w.r.t x with finite differences of the given order of accuracy
+	 * @param x
+	 * @param y
+	 * @param order  order of accuracy (typically 2, 4 or 6)
+	 * @return dy/dx
+	 */
+	public static Vector deriv(Vector x, Vector y, int order){
+		return new Vector(Array1D.deriv(x.values(), y.values(), order));
+	}
+	
+	/**
+	 * numerical second derivative of y w.r.t x with finite differences of the given order of accuracy
+	 * @param x
+	 * @param y
+	 * @param order  order of accuracy (typically 2, 4 or 6)
+	 * @return d^2y/dx^2
+	 */
+	public static Vector deriv2(Vector x, Vector y, int order){
+		return new Vector(Array1D.deriv2(x.values(), y.values(), order));
 	}
 	
 	/**
@@ -580,7 +805,7 @@ public class Vector {
 	 * @return flipped vector
 	 */
 	public static Vector flip(Vector x){
-		return new Vector(Array1D.flip(x.x));
+		return new Vector(Array1D.flip(x.values()));
 	}
 	
 	/**
@@ -595,7 +820,7 @@ public class Vector {
 	 * @return an interpolated approximation for y(xi)
 	 */
 	public static double interp1(Vector x, Vector y, double xi){
-		return Array1D.interp1(x.x, y.x, xi);
+		return Array1D.interp1(x.values(), y.values(), xi);
 	}
 	
 	/**
@@ -608,7 +833,7 @@ public class Vector {
 	 * @return an interpolated approximation for y(x) at every value in xi
 	 */
 	public static Vector interp1(Vector x, Vector y, Vector xi){
-		return new Vector(Array1D.interp1(x.x, y.x, xi.x));
+		return new Vector(Array1D.interp1(x.values(), y.values(), xi.values()));
 	}
 	
 	
@@ -620,7 +845,7 @@ public class Vector {
 	 * @return the index of element xi if it is contained in x.  -1 otherwise.
 	 */
 	public int find (double xi) {
-		return Array1D.find(x, xi);
+		return Array1D.find(values(), xi);
 	}
 	
 	
@@ -631,7 +856,7 @@ public class Vector {
 	 * @return for each entry in xi returns the index it is found in x, or -1 otherwise
 	 */
 	public int[] find (Vector xi) {
-		return Array1D.find(x, xi.x);
+		return Array1D.find(values(), xi.values());
 	}
 		
 	
@@ -642,7 +867,7 @@ public class Vector {
 	 * @return
 	 */
 	public Vector project(Vector y){
-		return new Vector(Array1D.project(x, y.x));
+		return new Vector(Array1D.project(values(), y.values()));
 	}
 	
 	/**
@@ -651,7 +876,7 @@ public class Vector {
 	 * @return
 	 */
 	public static Vector unit(Vector x){
-		return new Vector(Array1D.unit(x.x));
+		return new Vector(Array1D.unit(x.values()));
 	}
 	
 		
@@ -662,7 +887,7 @@ public class Vector {
 	 * @return
 	 */
 	public static double includedAngle (Vector x, Vector y){
-		return Array1D.includedAngle(x.x, y.x);
+		return Array1D.includedAngle(x.values(), y.values());
 	}
 	
 	/**
@@ -671,7 +896,37 @@ public class Vector {
 	 * @return
 	 */
 	public static Vector unique(Vector x){
-		return new Vector(Array1D.unique(x.x));
+		return new Vector(Array1D.unique(x.values()));
+	}
+	
+	/**
+	 * sorted values common to a and b, without repetitions
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static Vector intersect(Vector a, Vector b){
+		return new Vector(Array1D.intersect(a.values(), b.values()));
+	}
+	
+	/**
+	 * sorted values in a or b, without repetitions
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static Vector union(Vector a, Vector b){
+		return new Vector(Array1D.union(a.values(), b.values()));
+	}
+	
+	/**
+	 * sorted values in a that are not in b, without repetitions
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static Vector setdiff(Vector a, Vector b){
+		return new Vector(Array1D.setdiff(a.values(), b.values()));
 	}
 	
 	/**
@@ -683,6 +938,53 @@ public class Vector {
 		return sum(x)/x.n;
 	}
 	
+	/**
+	 * sample variance of the vector (normalized by n-1)
+	 * @param x
+	 * @return
+	 */
+	public static double var(Vector x){
+		return Array1D.var(x.values());
+	}
+	
+	/**
+	 * sample standard deviation of the vector
+	 * @param x
+	 * @return
+	 */
+	public static double std(Vector x){
+		return Array1D.std(x.values());
+	}
+	
+	/**
+	 * median value of the vector
+	 * @param x
+	 * @return
+	 */
+	public static double median(Vector x){
+		return Array1D.median(x.values());
+	}
+	
+	/**
+	 * quantile of the vector
+	 * @param x
+	 * @param q  quantile in [0, 1]
+	 * @return
+	 */
+	public static double quantile(Vector x, double q){
+		return Array1D.quantile(x.values(), q);
+	}
+	
+	/**
+	 * percentile of the vector
+	 * @param x
+	 * @param p  percentile in [0, 100]
+	 * @return
+	 */
+	public static double percentile(Vector x, double p){
+		return Array1D.percentile(x.values(), p);
+	}
+	
 	/**
 	 * Computes the elementwise average of a set of vectors
 	 * @param vectors
@@ -700,7 +1002,7 @@ public class Vector {
 	 * @return
 	 */
 	public boolean[] isEqualTo(double alpha){
-		return Array1D.isEqualTo(x,alpha);
+		return Array1D.isEqualTo(values(),alpha);
 	}
 	
 	/**
@@ -708,7 +1010,7 @@ public class Vector {
 	 * @return sin(x)
 	 */
 	public static Vector sin(Vector x){
-		return new Vector(Array1D.sin(x.x));
+		return new Vector(Array1D.sin(x.values()));
 	}
 	
 	/**
@@ -716,7 +1018,7 @@ public class Vector {
 	 * @return cos(x)
 	 */
 	public static Vector cos(Vector x){
-		return new Vector(Array1D.cos(x.x));
+		return new Vector(Array1D.cos(x.values()));
 	}
 	
 	/**
@@ -724,7 +1026,7 @@ public class Vector {
 	 * @return tan(x)
 	 */
 	public static Vector tan(Vector x){
-		return new Vector(Array1D.tan(x.x));
+		return new Vector(Array1D.tan(x.values()));
 	}
 	
 	/* (non-Javadoc)
@@ -732,7 +1034,7 @@ public class Vector {
 	 */
 	@Override
 	public String toString() {
-		return "Vector [n=" + n + ", x=" + Arrays.toString(x) + "]";
+		return "Vector [n=" + n + ", x=" + Arrays.toString(values()) + "]";
 	}
 	
 
@@ -744,7 +1046,7 @@ public class Vector {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + n;
-		result = prime * result + Arrays.hashCode(x);
+		result = prime * result + Arrays.hashCode(values());
 		return result;
 	}
 
@@ -762,8 +1064,26 @@ public class Vector {
 		Vector other = (Vector) obj;
 		if (n != other.n)
 			return false;
-		if (!Arrays.equals(x, other.x))
+		if (!Arrays.equals(values(), other.values()))
 			return false;
 		return true;
 	}
+
+	
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+	
+	/**
+	 * the elements as a contiguous array: the backing array itself unless this is a view
+	 */
+	double[] values(){
+		return isView() ? getArray() : x;
+	}
+	
+	private void checkLength(Vector y){
+		if (y.n != n){
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+	}
 }
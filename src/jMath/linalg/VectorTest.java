@@ -0,0 +1,121 @@
+package jMath.linalg;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class VectorTest {
+
+	public static final double tol = 1e-12;
+
+	@Test
+	public void testView(){
+		Vector x = Vector.colon(0.0, 9.0);
+		Vector v = x.view(2, 5);
+
+		assertEquals(4, v.length());
+		assertEquals(2.0, v.getFirst(), tol);
+		assertEquals(5.0, v.getLast(), tol);
+		assertTrue(v.isView());
+		assertFalse(x.isView());
+
+		v.set(1, -3.0);
+		assertEquals(-3.0, x.get(3), tol);
+		x.set(4, 40.0);
+		assertEquals(40.0, v.get(2), tol);
+	}
+
+	@Test
+	public void testStridedView(){
+		double[] xyz = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+		Vector y = Vector.view(xyz, 1, 3, 3);
+
+		assertArrayEquals(new double[]{2, 5, 8}, y.getArray(), tol);
+		assertEquals(15.0, Vector.sum(y), tol);
+		assertEquals(5.0, Vector.mean(y), tol);
+
+		Vector r = Vector.colon(1.0, 9.0).view(8, -2, 0);
+		assertArrayEquals(new double[]{9, 7, 5, 3, 1}, r.getArray(), tol);
+		assertArrayEquals(new double[]{7, 5}, r.view(1, 2).getArray(), tol);
+
+		assertEquals(0, r.view(3, 1).length());
+		assertEquals(0, r.view(0, 2, -1).length());
+	}
+
+	@Test
+	public void testOperationsOnViews(){
+		double[] data = {1, 2, 3, 4, 5, 6};
+		Vector a = Vector.view(data, 0, 3, 2);
+		Vector b = Vector.view(data, 1, 3, 2);
+
+		assertArrayEquals(new double[]{3, 7, 11}, a.add(b).getArray(), tol);
+		assertEquals(1*2 + 3*4 + 5*6, a.dot(b), tol);
+		assertEquals(new Vector(1, 3, 5), a);
+		assertEquals(new Vector(1, 3, 5).hashCode(), a.hashCode());
+
+		a.multiplyEquals(10.0);
+		assertArrayEquals(new double[]{10, 2, 30, 4, 50, 6}, data, tol);
+
+		b.addEquals(a);
+		assertArrayEquals(new double[]{10, 12, 30, 34, 50, 56}, data, tol);
+
+		Vector c = Vector.concat(a, b);
+		assertArrayEquals(new double[]{10, 30, 50, 12, 34, 56}, c.getArray(), tol);
+	}
+
+	@Test
+	public void testSetSubThroughView(){
+		Vector x = Vector.zeros(8);
+		Vector w = x.view(2, 6);
+
+		w.setSub(new Vector(1, 2), 1);
+		assertArrayEquals(new double[]{0, 0, 0, 1, 2, 0, 0, 0}, x.getArray(), tol);
+
+		Vector odd = x.view(1, 2, 7);
+		odd.setSub(new Vector(7, 8, 9), new int[]{0, 2, 3});
+		assertArrayEquals(new double[]{0, 7, 0, 1, 2, 8, 0, 9}, x.getArray(), tol);
+
+		// source overlapping the destination
+		Vector y = Vector.colon(1.0, 6.0);
+		y.view(1, 5).setSub(y.view(0, 4), 0);
+		assertArrayEquals(new double[]{1, 1, 2, 3, 4, 5}, y.getArray(), tol);
+	}
+
+	@Test
+	public void testKernelsOnViews(){
+		double[] data = {0, 1, 0, 4, 0, 9, 0, 16, 0, 25};
+		Vector y = Vector.view(data, 1, 5, 2);
+		Vector x = Vector.view(new double[]{1, -1, 2, -1, 3, -1, 4, -1, 5}, 0, 5, 2);
+		double[] xa = {1, 2, 3, 4, 5};
+		double[] ya = {1, 4, 9, 16, 25};
+
+		assertEquals(55.0, Vector.sum(y), tol);
+		assertEquals(Math.sqrt(979.0), Vector.norm(y, 2), tol);
+		assertEquals(Array1D.dot(xa, ya), x.dot(y), tol);
+		assertEquals(Array1D.trapz(xa, ya), Vector.trapz(x, y), tol);
+		assertArrayEquals(Array1D.deriv(xa, ya), Vector.deriv(x, y).getArray(), tol);
+		assertArrayEquals(Array1D.deriv(xa, Array1D.flip(ya)), Vector.deriv(x, y.view(4, -1, 0)).getArray(), tol);
+
+		Matrix A = new Matrix(new double[][]{{1, 2, 3, 4, 5}, {0, 1, 0, 1, 0}});
+		assertArrayEquals(new double[]{225, 20}, A.multiply(y).getArray(), tol);
+		A.setRow(1, y);
+		A.setColumn(0, Vector.view(data, 3, 2, 4));
+		assertArrayEquals(new double[]{4, 2, 3, 4, 5}, A.getRow(0).getArray(), tol);
+		assertArrayEquals(new double[]{16, 4, 9, 16, 25}, A.getRow(1).getArray(), tol);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testArrayRefOfView(){
+		Vector.colon(1.0, 5.0).view(1, 3).getArrayRef();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testViewOutOfBounds(){
+		Vector.view(new double[5], 1, 3, 2);
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void testSetSubOutOfView(){
+		Vector.zeros(8).view(0, 3).setSub(new Vector(1, 2), 3);
+	}
+}
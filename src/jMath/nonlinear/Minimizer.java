@@ -0,0 +1,804 @@
+package jMath.nonlinear;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jMath.func.DifferentiableFunctionNVar;
+import jMath.func.Function1Var;
+import jMath.func.FunctionNVar;
+
+/**
+ * Minimization of functions of one or more variables.
+ * Intentionally mimics Matlab's naming (fminbnd, fminsearch).
+ * An instance holds the options and reports statistics from its last call 
+ * (instances are not thread safe).  If a pool is given, the independent function 
+ * evaluations of the simplex and line search are made in parallel, in which
+ * case the functions must be safe to call concurrently.
+ */
+public class Minimizer {
+	
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// tolerance on x
+	private double tolX = 1e-6;
+	
+	// tolerance on the function value
+	private double tolFun = 1e-6;
+	
+	// maximum number of iterations
+	private int maxIter = 1000;
+	
+	// number of correction pairs kept by L-BFGS
+	private int memory = 10;
+	
+	// pool for parallel evaluations, null for serial
+	private ForkJoinPool pool;
+	
+	// statistics from the last call
+	private int iterations;
+	private int evaluations;
+	private double fval;
+	private boolean converged;
+	
+	// golden section ratio
+	private static final double C = 0.5*(3.0 - Math.sqrt(5.0));
+	
+	private static final double SQRT_EPS = Math.sqrt(Math.ulp(1.0));
+	
+	// sufficient decrease parameter of the line search
+	private static final double ARMIJO = 1e-4;
+	
+	// number of step lengths tried at once by a parallel line search
+	private static final int PARALLEL_STEPS = 4;
+	
+	// maximum number of halvings of the line search
+	private static final int MAX_BACKTRACK = 40;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	public Minimizer(){
+	}
+	
+	/**
+	 * minimizer making independent evaluations in parallel on pool
+	 * @param pool
+	 */
+	public Minimizer(ForkJoinPool pool){
+		this.pool = pool;
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * @param tolX  termination tolerance on x
+	 */
+	public void setTolX(double tolX){
+		this.tolX = tolX;
+	}
+	
+	/**
+	 * @param tolFun  termination tolerance on the function value
+	 */
+	public void setTolFun(double tolFun){
+		this.tolFun = tolFun;
+	}
+	
+	/**
+	 * @param maxIter  maximum number of iterations
+	 */
+	public void setMaxIterations(int maxIter){
+		this.maxIter = maxIter;
+	}
+	
+	/**
+	 * @param m  number of correction pairs stored by L-BFGS
+	 */
+	public void setMemory(int m){
+		this.memory = m;
+	}
+	
+	/**
+	 * @return number of iterations taken by the last call
+	 */
+	public int getIterations(){
+		return iterations;
+	}
+	
+	/**
+	 * @return number of function evaluations made by the last call
+	 */
+	public int getEvaluations(){
+		return evaluations;
+	}
+	
+	/**
+	 * @return function value at the minimum found by the last call
+	 */
+	public double getFval(){
+		return fval;
+	}
+	
+	/**
+	 * @return true if the last call met its tolerances before the iteration limit
+	 */
+	public boolean isConverged(){
+		return converged;
+	}
+	
+	/** fminbnd seeks a local minimum of a function F(X) in an interval [A,B] using Brent's Method
+	*
+	*  Discussion:
+	*
+	*    The method combines golden section search and successive parabolic 
+	*    interpolation.  If F has a continuous second derivative which is positive
+	*    at the minimum (which is not at A or B), convergence is superlinear.
+	*
+	*    The location of the minimum is determined to within an accuracy
+	*    of 3 * SQRT(MACHEPS) * abs ( X ) + T, where T is tolX.
+	*
+	*  Reference:
+	*
+	*    Richard Brent,
+	*    Algorithms for Minimization Without Derivatives,
+	*    Dover, 2002,
+	*    ISBN: 0-486-41998-3,
+	*    LC: QA402.5.B74.
+	*
+	*  Parameters:
+	*
+	*    Input, real A, B, the endpoints of the interval.
+	*
+	*    Input, real value = F ( x ), the name of a user-supplied
+	*    function whose local minimum is being sought.
+	*
+	*    Output, real VALUE, the estimated location of a minimum of F.
+	*/
+	public double fminbnd(Function1Var f, double a, double b){
+		
+		double t = tolX;
+		double eps = SQRT_EPS;
+		
+		double sa = a;
+		double sb = b;
+		double x = sa + C * ( b - a );
+		double w = x;
+		double v = w;
+		double e = 0.0;
+		double d = 0.0;
+		double fx = f.f( x );
+		double fw = fx;
+		double fv = fw;
+		
+		iterations = 0;
+		evaluations = 1;
+		converged = false;
+		
+		while (iterations < maxIter){
+			
+			double m = 0.5 * ( sa + sb );
+			double tol = eps * Math.abs ( x ) + t;
+			double t2 = 2.0 * tol;
+			
+			if ( Math.abs ( x - m ) <= t2 - 0.5 * ( sb - sa ) ){
+				converged = true;
+				break;
+			}
+			iterations++;
+			
+			double r = 0.0;
+			double q = r;
+			double p = q;
+			
+			if ( tol < Math.abs ( e ) ){
+				r = ( x - w ) * ( fx - fv );
+				q = ( x - v ) * ( fx - fw );
+				p = ( x - v ) * q - ( x - w ) * r;
+				q = 2.0 * ( q - r );
+				if ( 0.0 < q ){
+					p = - p;
+				}
+				q = Math.abs ( q );
+				r = e;
+				e = d;
+			}
+			
+			if ( Math.abs ( p ) < Math.abs ( 0.5 * q * r ) && q * ( sa - x ) < p && p < q * ( sb - x ) ){
+				// parabolic interpolation step
+				d = p / q;
+				double u = x + d;
+				if ( ( u - sa ) < t2 || ( sb - u ) < t2 ){
+					d = ( x < m )? tol : -tol;
+				}
+			} else{
+				// golden section step
+				e = ( x < m )? sb - x : sa - x;
+				d = C * e;
+			}
+			
+			double u;
+			if ( tol <= Math.abs ( d ) ){
+				u = x + d;
+			} else if ( 0.0 < d ){
+				u = x + tol;
+			} else{
+				u = x - tol;
+			}
+			
+			double fu = f.f( u );
+			evaluations++;
+			
+			if ( fu <= fx ){
+				if ( u < x ){
+					sb = x;
+				} else{
+					sa = x;
+				}
+				v = w;
+				fv = fw;
+				w = x;
+				fw = fx;
+				x = u;
+				fx = fu;
+			} else{
+				if ( u < x ){
+					sa = u;
+				} else{
+					sb = u;
+				}
+				if ( fu <= fw || w == x ){
+					v = w;
+					fv = fw;
+					w = u;
+					fw = fu;
+				} else if ( fu <= fv || v == x || v == w ){
+					v = u;
+					fv = fu;
+				}
+			}
+		}
+		
+		fval = fx;
+		return x;
+	}
+	
+	/**
+	 * unconstrained minimization of f by the Nelder-Mead simplex method, 
+	 * starting from a simplex around x0 (as in Matlab's fminsearch).  
+	 * Stops when the simplex is within tolX in x and tolFun in f.
+	 * @param f
+	 * @param x0  initial guess
+	 * @return location of the minimum
+	 */
+	public double[] fminsearch(FunctionNVar f, double[] x0){
+		
+		int n = x0.length;
+		
+		// simplex vertices and their function values
+		double[][] S = new double[n+1][];
+		double[] fs = new double[n+1];
+		int[] order = new int[n+1];
+		double[] centroid = new double[n];
+		double[] xr = new double[n];
+		double[] xe = new double[n];
+		double[] xc = new double[n];
+		
+		S[0] = x0.clone();
+		for (int j = 0; j < n; j++){
+			double[] v = x0.clone();
+			v[j] = (v[j] != 0.0)? 1.05*v[j] : 0.00025;
+			S[j+1] = v;
+		}
+		
+		iterations = 0;
+		evaluations = 0;
+		converged = false;
+		evaluate(f, S, fs, 0, n+1);
+		
+		for (int i = 0; i <= n; i++){
+			order[i] = i;
+		}
+		
+		while (true){
+			sortSimplex(fs, order);
+			
+			int best = order[0];
+			int worst = order[n];
+			
+			if (isSimplexConverged(S, fs, order)){
+				converged = true;
+				break;
+			}
+			if (iterations >= maxIter) break;
+			iterations++;
+			
+			// centroid of all but the worst vertex
+			for (int j = 0; j < n; j++){
+				centroid[j] = 0.0;
+			}
+			for (int i = 0; i < n; i++){
+				double[] v = S[order[i]];
+				for (int j = 0; j < n; j++){
+					centroid[j] += v[j];
+				}
+			}
+			for (int j = 0; j < n; j++){
+				centroid[j] /= n;
+			}
+			
+			double[] xw = S[worst];
+			
+			// reflect
+			for (int j = 0; j < n; j++){
+				xr[j] = 2.0*centroid[j] - xw[j];
+			}
+			double fr = f.f(xr);
+			evaluations++;
+			
+			if (fr < fs[best]){
+				// expand
+				for (int j = 0; j < n; j++){
+					xe[j] = 3.0*centroid[j] - 2.0*xw[j];
+				}
+				double fe = f.f(xe);
+				evaluations++;
+				if (fe < fr){
+					replace(S, fs, worst, xe, fe);
+				} else{
+					replace(S, fs, worst, xr, fr);
+				}
+			} else if (fr < fs[order[n-1]]){
+				replace(S, fs, worst, xr, fr);
+			} else{
+				// contract outside or inside
+				boolean outside = fr < fs[worst];
+				for (int j = 0; j < n; j++){
+					xc[j] = outside? 1.5*centroid[j] - 0.5*xw[j] : 0.5*(centroid[j] + xw[j]);
+				}
+				double fc = f.f(xc);
+				evaluations++;
+				
+				if (fc < (outside? fr : fs[worst])){
+					replace(S, fs, worst, xc, fc);
+				} else{
+					// shrink toward the best vertex
+					double[] xb = S[best];
+					for (int i = 0; i <= n; i++){
+						if (i == best) continue;
+						double[] v = S[i];
+						for (int j = 0; j < n; j++){
+							v[j] = xb[j] + 0.5*(v[j] - xb[j]);
+						}
+					}
+					evaluateExcept(f, S, fs, best);
+				}
+			}
+		}
+		
+		fval = fs[order[0]];
+		return S[order[0]].clone();
+	}
+	
+	/**
+	 * minimization of f subject to lb <= x <= ub using a projected limited memory BFGS method.
+	 * Variables at a bound with the gradient pointing out of the feasible box are held fixed 
+	 * for the step, the quasi-Newton direction is computed on the remaining free variables,
+	 * and trial points are projected back into the box.
+	 * Stops when the projected gradient is below tolFun in the infinity norm, or when
+	 * a step changes neither x nor f by more than tolX and tolFun.
+	 * @param f  function returning its value and gradient
+	 * @param x0  initial guess
+	 * @param lb  lower bounds (may be -Infinity), or null if unbounded below
+	 * @param ub  upper bounds (may be Infinity), or null if unbounded above
+	 * @return location of the minimum
+	 */
+	public double[] lbfgs(final DifferentiableFunctionNVar f, double[] x0, double[] lb, double[] ub){
+		
+		int n = x0.length;
+		int m = memory;
+		
+		double[] x = x0.clone();
+		double[] g = new double[n];
+		double[] d = new double[n];
+		double[] q = new double[n];
+		double[] xt = new double[n];
+		double[] gt = new double[n];
+		double[][] s = new double[m][n];
+		double[][] y = new double[m][n];
+		double[] sNew = new double[n];
+		double[] yNew = new double[n];
+		double[] rho = new double[m];
+		double[] alpha = new double[m];
+		boolean[] fixed = new boolean[n];
+		double[][] xp = (pool == null)? null : new double[PARALLEL_STEPS][n];
+		double[] fp = (pool == null)? null : new double[PARALLEL_STEPS];
+		double[] dp = (pool == null)? null : new double[PARALLEL_STEPS];
+		
+		project(x, lb, ub);
+		
+		iterations = 0;
+		evaluations = 1;
+		converged = false;
+		double fx = f.f(x, g);
+		
+		int k = 0;     // number of stored pairs
+		int head = 0;  // index of the newest pair
+		
+		while (iterations < maxIter){
+			
+			// active set and projected gradient
+			double pgNorm = 0.0;
+			for (int i = 0; i < n; i++){
+				fixed[i] = (lb != null && x[i] <= lb[i] && g[i] > 0.0) 
+						|| (ub != null && x[i] >= ub[i] && g[i] < 0.0);
+				if (!fixed[i]) pgNorm = Math.max(pgNorm, Math.abs(g[i]));
+			}
+			if (pgNorm <= tolFun){
+				converged = true;
+				break;
+			}
+			iterations++;
+			
+			// two loop recursion on the free variables
+			for (int i = 0; i < n; i++){
+				q[i] = fixed[i]? 0.0 : g[i];
+			}
+			for (int l = 0; l < k; l++){
+				int c = (head - l + m) % m;
+				alpha[c] = rho[c]*dotFree(s[c], q, fixed);
+				axpyFree(-alpha[c], y[c], q, fixed);
+			}
+			double gamma = 1.0;
+			if (k > 0){
+				gamma = dotFree(s[head], y[head], fixed)/dotFree(y[head], y[head], fixed);
+				if (!(gamma > 0.0) || Double.isInfinite(gamma)) gamma = 1.0;
+			}
+			for (int i = 0; i < n; i++){
+				q[i] *= gamma;
+			}
+			for (int l = k-1; l >= 0; l--){
+				int c = (head - l + m) % m;
+				double beta = rho[c]*dotFree(y[c], q, fixed);
+				axpyFree(alpha[c] - beta, s[c], q, fixed);
+			}
+			
+			double gd = 0.0;
+			for (int i = 0; i < n; i++){
+				d[i] = fixed[i]? 0.0 : -q[i];
+				gd += g[i]*d[i];
+			}
+			if (!(gd < 0.0)){
+				// not a descent direction, restart from steepest descent
+				k = 0;
+				gd = 0.0;
+				for (int i = 0; i < n; i++){
+					d[i] = fixed[i]? 0.0 : -g[i];
+					gd += g[i]*d[i];
+				}
+			}
+			
+			// first step is scaled so that it moves roughly unit distance
+			double step = (iterations == 1 && k == 0)? Math.min(1.0, 1.0/pgNorm) : 1.0;
+			
+			double ft = (pool == null)? 
+					lineSearch(f, x, fx, g, d, step, lb, ub, xt, gt) :
+					lineSearchParallel(f, x, fx, g, d, step, lb, ub, xt, gt, xp, fp, dp);
+			if (Double.isNaN(ft)) break;
+			
+			// store the correction pair if curvature is positive.  The candidate is built in 
+			// spare rows, since slot next still holds the oldest pair in use until it is replaced.
+			int next = (head + 1) % m;
+			double sy = 0.0, yy = 0.0, dxMax = 0.0;
+			for (int i = 0; i < n; i++){
+				sNew[i] = xt[i] - x[i];
+				yNew[i] = gt[i] - g[i];
+				sy += sNew[i]*yNew[i];
+				yy += yNew[i]*yNew[i];
+				dxMax = Math.max(dxMax, Math.abs(sNew[i]));
+			}
+			if (sy > SQRT_EPS*yy){
+				double[] t = s[next];
+				s[next] = sNew;
+				sNew = t;
+				t = y[next];
+				y[next] = yNew;
+				yNew = t;
+				rho[next] = 1.0/sy;
+				head = next;
+				k = Math.min(k+1, m);
+			}
+			
+			double df = fx - ft;
+			System.arraycopy(xt, 0, x, 0, n);
+			System.arraycopy(gt, 0, g, 0, n);
+			fx = ft;
+			
+			if (dxMax <= tolX && Math.abs(df) <= tolFun*(1.0 + Math.abs(fx))){
+				converged = true;
+				break;
+			}
+		}
+		
+		fval = fx;
+		return x;
+	}
+	
+	/**
+	 * bound constrained minimization of a function without a gradient.
+	 * The gradient is approximated by forward differences (in parallel if a pool is set).
+	 * @param f
+	 * @param x0  initial guess
+	 * @param lb  lower bounds, or null
+	 * @param ub  upper bounds, or null
+	 * @return location of the minimum
+	 */
+	public double[] lbfgs(final FunctionNVar f, double[] x0, double[] lb, double[] ub){
+		final int[] count = new int[1];
+		final ForkJoinPool p = pool;
+		
+		double[] x = lbfgs(new DifferentiableFunctionNVar() {
+			
+			@Override
+			public double f(double[] x) {
+				return f.f(x);
+			}
+			
+			@Override
+			public double f(double[] x, double[] g) {
+				double fx = f.f(x);
+				if (p == null){
+					gradient(f, x, fx, g, 0, x.length);
+				} else{
+					p.invoke(new GradientTask(f, x, fx, g, 0, x.length));
+				}
+				count[0] += x.length;
+				return fx;
+			}
+		}, x0, lb, ub);
+		
+		evaluations += count[0];
+		return x;
+	}
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	/**
+	 * evaluate vertices lo <= i < hi of the simplex
+	 */
+	private void evaluate(FunctionNVar f, double[][] S, double[] fs, int lo, int hi){
+		if (pool == null){
+			for (int i = lo; i < hi; i++){
+				fs[i] = f.f(S[i]);
+			}
+		} else{
+			pool.invoke(new EvalTask(f, S, fs, lo, hi, -1));
+		}
+		evaluations += hi - lo;
+	}
+	
+	/**
+	 * evaluate every vertex of the simplex except the one at index skip
+	 */
+	private void evaluateExcept(FunctionNVar f, double[][] S, double[] fs, int skip){
+		if (pool == null){
+			for (int i = 0; i < S.length; i++){
+				if (i != skip) fs[i] = f.f(S[i]);
+			}
+		} else{
+			pool.invoke(new EvalTask(f, S, fs, 0, S.length, skip));
+		}
+		evaluations += S.length - 1;
+	}
+	
+	/**
+	 * insertion sort of the vertex indices by function value (nearly sorted already)
+	 */
+	private static void sortSimplex(double[] fs, int[] order){
+		for (int i = 1; i < order.length; i++){
+			int idx = order[i];
+			double v = fs[idx];
+			int j = i - 1;
+			while (j >= 0 && fs[order[j]] > v){
+				order[j+1] = order[j];
+				j--;
+			}
+			order[j+1] = idx;
+		}
+	}
+	
+	private boolean isSimplexConverged(double[][] S, double[] fs, int[] order){
+		double[] xb = S[order[0]];
+		double fb = fs[order[0]];
+		for (int i = 1; i < order.length; i++){
+			if (Math.abs(fs[order[i]] - fb) > tolFun) return false;
+			double[] v = S[order[i]];
+			for (int j = 0; j < v.length; j++){
+				if (Math.abs(v[j] - xb[j]) > tolX) return false;
+			}
+		}
+		return true;
+	}
+	
+	private static void replace(double[][] S, double[] fs, int i, double[] x, double fx){
+		System.arraycopy(x, 0, S[i], 0, x.length);
+		fs[i] = fx;
+	}
+	
+	/**
+	 * clip x into [lb, ub]
+	 */
+	private static void project(double[] x, double[] lb, double[] ub){
+		for (int i = 0; i < x.length; i++){
+			if (lb != null && x[i] < lb[i]) x[i] = lb[i];
+			if (ub != null && x[i] > ub[i]) x[i] = ub[i];
+		}
+	}
+	
+	/**
+	 * projected backtracking line search.  On success xt, gt hold the accepted point
+	 * and its gradient and the function value is returned, otherwise NaN.
+	 */
+	private double lineSearch(DifferentiableFunctionNVar f, double[] x, double fx, double[] g, double[] d,
+			double step, double[] lb, double[] ub, double[] xt, double[] gt){
+		
+		for (int iter = 0; iter < MAX_BACKTRACK; iter++){
+			double decrease = trialPoint(x, g, d, step, lb, ub, xt);
+			double ft = f.f(xt, gt);
+			evaluations++;
+			if (ft <= fx + ARMIJO*decrease) return ft;
+			step *= 0.5;
+		}
+		return Double.NaN;
+	}
+	
+	/**
+	 * projected backtracking line search that tries several step lengths at once
+	 * and accepts the longest one with sufficient decrease
+	 */
+	private double lineSearchParallel(DifferentiableFunctionNVar f, double[] x, double fx, double[] g, double[] d,
+			double step, double[] lb, double[] ub, double[] xt, double[] gt, double[][] xp, double[] fp, 
+			double[] decrease){
+		
+		for (int iter = 0; iter < MAX_BACKTRACK; iter += PARALLEL_STEPS){
+			double st = step;
+			for (int k = 0; k < PARALLEL_STEPS; k++){
+				decrease[k] = trialPoint(x, g, d, st, lb, ub, xp[k]);
+				st *= 0.5;
+			}
+			pool.invoke(new EvalTask(f, xp, fp, 0, PARALLEL_STEPS, -1));
+			evaluations += PARALLEL_STEPS;
+			
+			for (int k = 0; k < PARALLEL_STEPS; k++){
+				if (fp[k] <= fx + ARMIJO*decrease[k]){
+					System.arraycopy(xp[k], 0, xt, 0, x.length);
+					evaluations++;
+					return f.f(xt, gt);
+				}
+			}
+			step = st;
+		}
+		return Double.NaN;
+	}
+	
+	/**
+	 * xt = P(x + step*d)
+	 * @return the predicted decrease g'(xt - x)
+	 */
+	private static double trialPoint(double[] x, double[] g, double[] d, double step, 
+			double[] lb, double[] ub, double[] xt){
+		double decrease = 0.0;
+		for (int i = 0; i < x.length; i++){
+			double v = x[i] + step*d[i];
+			if (lb != null && v < lb[i]) v = lb[i];
+			if (ub != null && v > ub[i]) v = ub[i];
+			xt[i] = v;
+			decrease += g[i]*(v - x[i]);
+		}
+		return decrease;
+	}
+	
+	private static double dotFree(double[] a, double[] b, boolean[] fixed){
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++){
+			if (!fixed[i]) sum += a[i]*b[i];
+		}
+		return sum;
+	}
+	
+	private static void axpyFree(double alpha, double[] x, double[] y, boolean[] fixed){
+		for (int i = 0; i < x.length; i++){
+			if (!fixed[i]) y[i] += alpha*x[i];
+		}
+	}
+	
+	/**
+	 * forward difference gradient components lo <= j < hi.  x is restored on exit.
+	 */
+	private static void gradient(FunctionNVar f, double[] x, double fx, double[] g, int lo, int hi){
+		for (int j = lo; j < hi; j++){
+			double xj = x[j];
+			double h = SQRT_EPS*Math.max(Math.abs(xj), 1.0);
+			x[j] = xj + h;
+			h = x[j] - xj;
+			g[j] = (f.f(x) - fx)/h;
+			x[j] = xj;
+		}
+	}
+	
+	/**
+	 * evaluates f at the points X[lo..hi), skipping one index, splitting the range across threads
+	 */
+	private static class EvalTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final FunctionNVar f;
+		private final double[][] X;
+		private final double[] fX;
+		private final int lo, hi, skip;
+		
+		EvalTask(FunctionNVar f, double[][] X, double[] fX, int lo, int hi, int skip){
+			this.f = f;
+			this.X = X;
+			this.fX = fX;
+			this.lo = lo;
+			this.hi = hi;
+			this.skip = skip;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo == 1){
+				if (lo != skip) fX[lo] = f.f(X[lo]);
+			} else{
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new EvalTask(f, X, fX, lo, mid, skip),
+						  new EvalTask(f, X, fX, mid, hi, skip));
+			}
+		}
+	}
+	
+	/**
+	 * forward difference gradient with the coordinates split across threads,
+	 * each block perturbing its own copy of x
+	 */
+	private static class GradientTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		// coordinates per block
+		private static final int BLOCK = 4;
+		
+		private final FunctionNVar f;
+		private final double[] x, g;
+		private final double fx;
+		private final int lo, hi;
+		
+		GradientTask(FunctionNVar f, double[] x, double fx, double[] g, int lo, int hi){
+			this.f = f;
+			this.x = x;
+			this.fx = fx;
+			this.g = g;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= BLOCK){
+				gradient(f, x.clone(), fx, g, lo, hi);
+			} else{
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new GradientTask(f, x, fx, g, lo, mid),
+						  new GradientTask(f, x, fx, g, mid, hi));
+			}
+		}
+	}
+}
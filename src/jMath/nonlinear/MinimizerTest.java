@@ -0,0 +1,108 @@
+package jMath.nonlinear;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import jMath.func.DifferentiableFunctionNVar;
+import jMath.func.Function1Var;
+import jMath.func.FunctionNVar;
+
+import org.junit.Test;
+
+public class MinimizerTest {
+	
+	public static final double tol = 1e-4;
+	
+	private static final DifferentiableFunctionNVar rosenbrock = new DifferentiableFunctionNVar() {
+		
+		@Override
+		public double f(double[] x) {
+			return 100*Math.pow(x[1] - x[0]*x[0], 2) + Math.pow(1 - x[0], 2);
+		}
+		
+		@Override
+		public double f(double[] x, double[] g) {
+			g[0] = -400*x[0]*(x[1] - x[0]*x[0]) - 2*(1 - x[0]);
+			g[1] = 200*(x[1] - x[0]*x[0]);
+			return f(x);
+		}
+	};
+	
+	@Test
+	public void testFminbnd(){
+		Minimizer min = new Minimizer();
+		min.setTolX(1e-8);
+		double x = min.fminbnd(new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return Math.cos(x);
+			}
+		}, 3.0, 4.0);
+		assertEquals(Math.PI, x, 1e-7);
+		assertEquals(-1.0, min.getFval(), 1e-12);
+		assertTrue(min.getEvaluations() < 20);
+	}
+	
+	@Test
+	public void testFminsearch(){
+		Minimizer min = new Minimizer();
+		min.setTolX(1e-8);
+		min.setTolFun(1e-10);
+		double[] x = min.fminsearch(rosenbrock, new double[] {-1.2, 1.0});
+		assertTrue(min.isConverged());
+		assertEquals(1.0, x[0], tol);
+		assertEquals(1.0, x[1], tol);
+		
+		double[] xp;
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try{
+			xp = new Minimizer(pool).fminsearch(rosenbrock, new double[] {-1.2, 1.0});
+		} finally{
+			pool.shutdown();
+		}
+		assertEquals(1.0, xp[0], 1e-3);
+		assertEquals(1.0, xp[1], 1e-3);
+	}
+	
+	@Test
+	public void testLbfgs(){
+		Minimizer min = new Minimizer();
+		min.setTolFun(1e-10);
+		double[] x = min.lbfgs(rosenbrock, new double[] {-1.2, 1.0}, null, null);
+		assertTrue(min.isConverged());
+		assertEquals(1.0, x[0], tol);
+		assertEquals(1.0, x[1], tol);
+	}
+	
+	@Test
+	public void testLbfgsBounded(){
+		// minimum of the bounded problem is on the bound x1 <= 0.5 at (0.5, 0.25)
+		double[] ub = {0.5, 10.0};
+		double[] lb = {-10.0, -10.0};
+		
+		Minimizer min = new Minimizer();
+		double[] x = min.lbfgs(rosenbrock, new double[] {-1.2, 1.0}, lb, ub);
+		assertEquals(0.5, x[0], tol);
+		assertEquals(0.25, x[1], tol);
+		
+		FunctionNVar noGradient = new FunctionNVar() {
+			
+			@Override
+			public double f(double[] x) {
+				return rosenbrock.f(x);
+			}
+		};
+		double[] xp;
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try{
+			xp = new Minimizer(pool).lbfgs(noGradient, new double[] {-1.2, 1.0}, lb, ub);
+		} finally{
+			pool.shutdown();
+		}
+		assertEquals(0.5, xp[0], 1e-3);
+		assertEquals(0.25, xp[1], 1e-3);
+	}
+
+}
@@ -1,6 +1,14 @@
 package jMath.nonlinear;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jMath.func.DifferentiableFunction1Var;
 import jMath.func.Function1Var;
+import jMath.func.IndexedFunction1Var;
+import jMath.func.TwiceDifferentiableFunction1Var;
+import jMath.linalg.Array1D;
 
 public class RootFinding {
 
@@ -48,13 +56,16 @@ public class RootFinding {
 	*/
 	
 	public static double fzero(Function1Var f, double a, double b, double t){
+		return fzero(f, a, b, f.f( a ), f.f( b ), t);
+	}
+	
+	/**
+	 * Brent's method where the function values at the ends of the interval are already known
+	 * (e.g. from a bracket search or a scan), so they are not evaluated again.
+	 */
+	private static double fzero(Function1Var f, double sa, double sb, double fa, double fb, double t){
 		
 		double machep = Double.MIN_VALUE;
-	
-		double sa = a;
-		double sb = b;
-		double fa = f.f( sa );
-		double fb = f.f( sb );
 
 		double c = sa;
 		double fc = fa;
@@ -94,7 +105,7 @@ public class RootFinding {
 		    	} else{
 		    		q = fa / fc;
 		    		r = fb / fc;
-		    		p = s * ( 2.0 * m * a * ( q - r ) - ( sb - sa ) * ( r - 1.0 ) );
+		    		p = s * ( 2.0 * m * q * ( q - r ) - ( sb - sa ) * ( r - 1.0 ) );
 		    		q = ( q - 1.0 ) * ( r - 1.0 ) * ( s - 1.0 );
 		    	}
 
@@ -150,4 +161,628 @@ public class RootFinding {
 	public static double fzero(Function1Var f, double a, double b){
 		return fzero(f,a,b,1e-6);
 	}
+
+	/**
+	 * computes a zero of f near the guess x0.  A change of sign interval is first found
+	 * by searching geometrically outward from x0 (see {@link #bracket bracket}), 
+	 * then refined with Brent's method.
+	 * @param f
+	 * @param x0  initial guess
+	 * @param t  a positive error tolerance
+	 * @return x where f(x) = 0
+	 * @throws IllegalArgumentException if no change of sign interval could be found
+	 */
+	public static double fzeroNear(Function1Var f, double x0, double t) throws IllegalArgumentException{
+		double[] ab = expandBracket(f, x0, defaultStep(x0), MAX_EXPAND);
+		return fzero(f, ab[0], ab[1], ab[2], ab[3], t);
+	}
+	
+	/**
+	 * computes a zero of f near the guess x0 using a default tolerance of 1e-6
+	 * @param f
+	 * @param x0  initial guess
+	 * @return x where f(x) = 0
+	 * @throws IllegalArgumentException if no change of sign interval could be found
+	 */
+	public static double fzero(Function1Var f, double x0) throws IllegalArgumentException{
+		return fzeroNear(f, x0, 1e-6);
+	}
+	
+	/**
+	 * finds a change of sign interval for f by searching outward from x0.
+	 * Starting from [x0 - dx, x0 + dx] the half width is grown geometrically 
+	 * until f changes sign, in the manner of Matlab's fzero.
+	 * @param f
+	 * @param x0  initial guess
+	 * @param dx  initial half width of the search, must be positive
+	 * @param maxIter  maximum number of expansions
+	 * @return {a, b} where f(a) and f(b) are of opposite signs
+	 * @throws IllegalArgumentException if no change of sign interval could be found
+	 */
+	public static double[] bracket(Function1Var f, double x0, double dx, int maxIter) throws IllegalArgumentException{
+		double[] ab = expandBracket(f, x0, dx, maxIter);
+		return new double[] {ab[0], ab[1]};
+	}
+	
+	/**
+	 * finds a change of sign interval for f by searching outward from x0
+	 * @param f
+	 * @param x0  initial guess
+	 * @return {a, b} where f(a) and f(b) are of opposite signs
+	 * @throws IllegalArgumentException if no change of sign interval could be found
+	 */
+	public static double[] bracket(Function1Var f, double x0) throws IllegalArgumentException{
+		return bracket(f, x0, defaultStep(x0), MAX_EXPAND);
+	}
+	
+	/**
+	 * finds all of the zeros of f in [a, b].
+	 * f is sampled at n equally spaced points, and intervals where |f| has a local minimum 
+	 * without a sign change are adaptively subdivided to uncover pairs of nearby zeros.  
+	 * Each change of sign interval found is then refined with Brent's method, 
+	 * reusing the function values from the scan.  Zeros closer together than the final 
+	 * sampling resolution, or of even multiplicity, may be missed.
+	 * @param f
+	 * @param a  start of the search interval
+	 * @param b  end of the search interval
+	 * @param n  number of initial samples, at least 2
+	 * @param t  a positive error tolerance
+	 * @return the zeros in ascending order
+	 * @throws IllegalArgumentException  if n < 2
+	 */
+	public static double[] fzeros(Function1Var f, double a, double b, int n, double t){
+		return fzeros(f, a, b, n, t, null);
+	}
+	
+	/**
+	 * finds all of the zeros of f in [a, b] using a default tolerance of 1e-6
+	 * @param f
+	 * @param a
+	 * @param b
+	 * @param n  number of initial samples, at least 2
+	 * @return the zeros in ascending order
+	 * @throws IllegalArgumentException  if n < 2
+	 */
+	public static double[] fzeros(Function1Var f, double a, double b, int n){
+		return fzeros(f, a, b, n, 1e-6);
+	}
+	
+	/**
+	 * finds all of the zeros of f in [a, b], refining the change of sign intervals 
+	 * in parallel on the given pool.  f must be safe to call concurrently.
+	 * @param f
+	 * @param a
+	 * @param b
+	 * @param n  number of initial samples, at least 2
+	 * @param t  a positive error tolerance
+	 * @param pool  pool to refine on, or null to refine on the calling thread
+	 * @return the zeros in ascending order
+	 * @throws IllegalArgumentException  if n < 2
+	 */
+	public static double[] fzeros(final Function1Var f, double a, double b, int n, double t, ForkJoinPool pool){
+		if (n < 2){
+			throw new IllegalArgumentException("At least 2 samples are needed");
+		}
+		
+		double[] x = Array1D.linspace(a, b, n);
+		double[] y = Array1D.eval(f, x);
+		
+		// subdivide suspicious intervals until none are left
+		for (int level = 0; level < MAX_SCAN_LEVELS; level++){
+			
+			int m = x.length;
+			boolean[] split = new boolean[m-1];
+			int nSplit = 0;
+			for (int i = 0; i < m-1; i++){
+				// the end intervals mirror their inner neighbour, so an end sample
+				// smaller in magnitude than the next one counts as a local minimum
+				double yPrev = (i > 0) ? y[i-1] : y[i+1];
+				double yNext = (i < m-2) ? y[i+2] : y[i];
+				if (hidesZeros(yPrev, y[i], y[i+1], yNext)){
+					split[i] = true;
+					nSplit++;
+				}
+			}
+			if (nSplit == 0) break;
+			
+			// evaluate all of the new midpoints in one batch
+			double[] xMid = new double[nSplit];
+			int j = 0;
+			for (int i = 0; i < m-1; i++){
+				if (split[i]) xMid[j++] = 0.5*(x[i] + x[i+1]);
+			}
+			double[] yMid = Array1D.eval(f, xMid);
+			
+			double[] xNew = new double[m + nSplit];
+			double[] yNew = new double[m + nSplit];
+			j = 0;
+			int k = 0;
+			for (int i = 0; i < m-1; i++){
+				xNew[j] = x[i];
+				yNew[j++] = y[i];
+				if (split[i]){
+					xNew[j] = xMid[k];
+					yNew[j++] = yMid[k++];
+				}
+			}
+			xNew[j] = x[m-1];
+			yNew[j] = y[m-1];
+			
+			x = xNew;
+			y = yNew;
+		}
+		
+		// collect change of sign intervals along with their cached function values
+		int m = x.length;
+		double[] lo = new double[m];
+		double[] hi = new double[m];
+		double[] flo = new double[m];
+		double[] fhi = new double[m];
+		double[] exact = new double[m];
+		int nb = 0, nExact = 0;
+		
+		for (int i = 0; i < m; i++){
+			if (y[i] == 0.0){
+				exact[nExact++] = x[i];
+			} else if (i < m-1 && y[i+1] != 0.0 && (y[i] < 0.0) != (y[i+1] < 0.0)){
+				lo[nb] = x[i];
+				hi[nb] = x[i+1];
+				flo[nb] = y[i];
+				fhi[nb] = y[i+1];
+				nb++;
+			}
+		}
+		
+		double[] roots = new double[nb + nExact];
+		IndexedFunction1Var g = new IndexedFunction1Var() {
+			
+			@Override
+			public double f(int i, double x) {
+				return f.f(x);
+			}
+		};
+		if (pool == null){
+			fzeroBatch(g, lo, hi, flo, fhi, t, roots, 0, nb);
+		} else{
+			pool.invoke(new BatchTask(g, lo, hi, flo, fhi, t, roots, 0, nb));
+		}
+		
+		System.arraycopy(exact, 0, roots, nb, nExact);
+		Arrays.sort(roots);
+		return roots;
+	}
+
+	/**
+	 * computes a zero of f in the change of sign interval [a, b] using Newton's method,
+	 * safeguarded by bisection whenever a Newton step would leave the current bracket
+	 * or fails to halve the step taken two iterations before.
+	 * @param f  function returning its value and derivative
+	 * @param a
+	 * @param b
+	 * @param t  a positive error tolerance on x
+	 * @return x where f(x) = 0
+	 * @throws IllegalArgumentException if [a, b] is not a change of sign interval
+	 */
+	public static double newton(DifferentiableFunction1Var f, double a, double b, double t) throws IllegalArgumentException{
+		return safeguarded(f, a, b, t, false);
+	}
+	
+	/**
+	 * computes a zero of f in the change of sign interval [a, b] using safeguarded Newton's method
+	 * with a default tolerance of 1e-6
+	 * @param f
+	 * @param a
+	 * @param b
+	 * @return x where f(x) = 0
+	 * @throws IllegalArgumentException if [a, b] is not a change of sign interval
+	 */
+	public static double newton(DifferentiableFunction1Var f, double a, double b) throws IllegalArgumentException{
+		return newton(f, a, b, 1e-6);
+	}
+	
+	/**
+	 * computes a zero of f in the change of sign interval [a, b] using Halley's method
+	 * (cubic convergence), safeguarded by bisection in the same way as {@link #newton newton}.
+	 * @param f  function returning its value and first two derivatives
+	 * @param a
+	 * @param b
+	 * @param t  a positive error tolerance on x
+	 * @return x where f(x) = 0
+	 * @throws IllegalArgumentException if [a, b] is not a change of sign interval
+	 */
+	public static double halley(TwiceDifferentiableFunction1Var f, double a, double b, double t) throws IllegalArgumentException{
+		return safeguarded(f, a, b, t, true);
+	}
+	
+	/**
+	 * computes a zero of f in the change of sign interval [a, b] using safeguarded Halley's method
+	 * with a default tolerance of 1e-6
+	 * @param f
+	 * @param a
+	 * @param b
+	 * @return x where f(x) = 0
+	 * @throws IllegalArgumentException if [a, b] is not a change of sign interval
+	 */
+	public static double halley(TwiceDifferentiableFunction1Var f, double a, double b) throws IllegalArgumentException{
+		return halley(f, a, b, 1e-6);
+	}
+
+	/**
+	 * computes the zeros of a batch of functions f(i, x), one for each bracket [a[i], b[i]].
+	 * The Brent iterations are run in lockstep across the batch so that each sweep
+	 * makes one tight pass of function evaluations over the lanes that have not yet converged.
+	 * Every interval must be a change of sign interval for its function.
+	 * @param f  indexed function, f(i, x) is the function whose zero is sought in [a[i], b[i]]
+	 * @param a  left ends of the change of sign intervals
+	 * @param b  right ends of the change of sign intervals
+	 * @param t  a positive error tolerance
+	 * @return x where f(i, x[i]) = 0
+	 * @throws IllegalArgumentException
+	 */
+	public static double[] fzero(IndexedFunction1Var f, double[] a, double[] b, double t) throws IllegalArgumentException{
+		checkDimension(a, b);
+		
+		double[] x = new double[a.length];
+		fzeroBatch(f, a, b, null, null, t, x, 0, a.length);
+		return x;
+	}
+	
+	/**
+	 * computes the zeros of a batch of functions f(i, x) in the intervals [a[i], b[i]]
+	 * using a default tolerance of 1e-6
+	 * @param f
+	 * @param a
+	 * @param b
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public static double[] fzero(IndexedFunction1Var f, double[] a, double[] b) throws IllegalArgumentException{
+		return fzero(f, a, b, 1e-6);
+	}
+	
+	/**
+	 * computes the zeros of a batch of functions f(i, x) in the intervals [a[i], b[i]],
+	 * splitting the batch into blocks that are solved in parallel on the given pool.
+	 * f must be safe to call concurrently for different indices.
+	 * @param f
+	 * @param a
+	 * @param b
+	 * @param t  a positive error tolerance
+	 * @param pool  pool to run the blocks on
+	 * @return x where f(i, x[i]) = 0
+	 * @throws IllegalArgumentException
+	 */
+	public static double[] fzero(IndexedFunction1Var f, double[] a, double[] b, double t, ForkJoinPool pool) throws IllegalArgumentException{
+		checkDimension(a, b);
+		
+		double[] x = new double[a.length];
+		pool.invoke(new BatchTask(f, a, b, null, null, t, x, 0, a.length));
+		return x;
+	}
+	
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	// number of brackets below which a batch is no longer split across threads
+	private static final int BATCH_BLOCK = 1024;
+	
+	// maximum number of expansions when searching for a bracket from a guess
+	private static final int MAX_EXPAND = 100;
+	
+	// geometric growth factor of the bracket search
+	private static final double EXPAND_FACTOR = Math.sqrt(2.0);
+	
+	// maximum number of subdivision passes when scanning for multiple zeros
+	private static final int MAX_SCAN_LEVELS = 8;
+	
+	// maximum number of iterations of the safeguarded Newton and Halley methods
+	private static final int MAX_NEWTON = 100;
+	
+	/**
+	 * Newton (or Halley) iteration kept inside a shrinking bracket, falling back to 
+	 * bisection when the step leaves the bracket or is not converging quickly enough.
+	 * Based on rtsafe from Numerical Recipes.
+	 */
+	private static double safeguarded(DifferentiableFunction1Var f, double a, double b, double t, boolean halley){
+		
+		double fa = f.f(a);
+		double fb = f.f(b);
+		
+		if (fa == 0.0) return a;
+		if (fb == 0.0) return b;
+		if ((fa < 0.0) == (fb < 0.0)){
+			throw new IllegalArgumentException("f(a) and f(b) must be of opposite signs");
+		}
+		
+		// orient the bracket so that f(xl) < 0 < f(xh)
+		double xl, xh;
+		if (fa < 0.0){
+			xl = a;
+			xh = b;
+		} else{
+			xl = b;
+			xh = a;
+		}
+		
+		double[] d = new double[halley? 2 : 1];
+		double x = 0.5*(a + b);
+		double dxold = Math.abs(b - a);
+		double dx = dxold;
+		double fx = f.f(x, d);
+		
+		for (int iter = 0; iter < MAX_NEWTON; iter++){
+			
+			double step;
+			if (halley){
+				step = 2.0*fx*d[0] / (2.0*d[0]*d[0] - fx*d[1]);
+			} else{
+				step = fx / d[0];
+			}
+			double xnew = x - step;
+			
+			// a zero derivative or step cannot make progress (f(x) != 0 here), so bisect
+			if (d[0] == 0.0 || step == 0.0 || Double.isNaN(xnew) || Double.isInfinite(xnew)
+					|| (xnew - xl)*(xnew - xh) > 0.0 || Math.abs(2.0*step) > Math.abs(dxold)){
+				dxold = dx;
+				dx = 0.5*(xh - xl);
+				x = xl + dx;
+			} else{
+				dxold = dx;
+				dx = step;
+				x = xnew;
+			}
+			
+			if (Math.abs(dx) < t) return x;
+			
+			fx = f.f(x, d);
+			
+			if (fx == 0.0) return x;
+			if (fx < 0.0) xl = x;
+			else xh = x;
+		}
+		return x;
+	}
+	
+	/**
+	 * initial half width of a bracket search around x0
+	 */
+	private static double defaultStep(double x0){
+		return (x0 == 0.0)? 1.0/50 : Math.abs(x0)/50;
+	}
+	
+	/**
+	 * geometric outward search for a change of sign interval
+	 * @return {a, b, f(a), f(b)}
+	 */
+	private static double[] expandBracket(Function1Var f, double x0, double dx, int maxIter){
+		if (!(dx > 0.0)){
+			throw new IllegalArgumentException("Initial step must be positive");
+		}
+		
+		double f0 = f.f(x0);
+		if (f0 == 0.0){
+			return new double[] {x0, x0, f0, f0};
+		}
+		
+		for (int i = 0; i < maxIter; i++){
+			double a = x0 - dx;
+			double fa = f.f(a);
+			if ((fa < 0.0) != (f0 < 0.0) || fa == 0.0){
+				return new double[] {a, x0, fa, f0};
+			}
+			
+			double b = x0 + dx;
+			double fb = f.f(b);
+			if ((fb < 0.0) != (f0 < 0.0) || fb == 0.0){
+				return new double[] {x0, b, f0, fb};
+			}
+			
+			dx *= EXPAND_FACTOR;
+		}
+		throw new IllegalArgumentException("No change of sign found near x0 = " + x0);
+	}
+	
+	/**
+	 * true if the samples y1, y2 bracket a local minimum of |f| without a change of sign,
+	 * i.e. the function turns back before reaching zero somewhere in the middle interval
+	 */
+	private static boolean hidesZeros(double y0, double y1, double y2, double y3){
+		if (y1 == 0.0 || y2 == 0.0 || (y1 < 0.0) != (y2 < 0.0)) return false;
+		
+		if (y1 > 0.0){
+			return y1 < y0 && y2 < y3;
+		} else{
+			return y1 > y0 && y2 > y3;
+		}
+	}
+	
+	/**
+	 * lockstep version of Brent's method over brackets lo <= i < hi.
+	 * Each lane follows exactly the same sequence of iterates as the scalar fzero.
+	 * fa0 and fb0 hold function values already known at a and b, or are null.
+	 */
+	private static void fzeroBatch(IndexedFunction1Var f, double[] a, double[] b, 
+			double[] fa0, double[] fb0, double t, double[] x, int lo, int hi){
+		
+		double machep = Double.MIN_VALUE;
+		
+		int n = hi - lo;
+		double[] sa = new double[n];
+		double[] sb = new double[n];
+		double[] fa = new double[n];
+		double[] fb = new double[n];
+		double[] c = new double[n];
+		double[] fc = new double[n];
+		double[] e = new double[n];
+		double[] d = new double[n];
+		
+		// indices of the lanes that are still iterating
+		int[] active = new int[n];
+		
+		for (int k = 0; k < n; k++){
+			sa[k] = a[lo+k];
+			sb[k] = b[lo+k];
+			active[k] = k;
+		}
+		if (fa0 == null){
+			for (int k = 0; k < n; k++){
+				fa[k] = f.f(lo+k, sa[k]);
+			}
+		} else{
+			System.arraycopy(fa0, lo, fa, 0, n);
+		}
+		if (fb0 == null){
+			for (int k = 0; k < n; k++){
+				fb[k] = f.f(lo+k, sb[k]);
+			}
+		} else{
+			System.arraycopy(fb0, lo, fb, 0, n);
+		}
+		for (int k = 0; k < n; k++){
+			c[k] = sa[k];
+			fc[k] = fa[k];
+			e[k] = sb[k] - sa[k];
+			d[k] = e[k];
+		}
+		
+		int nActive = n;
+		
+		while (nActive > 0){
+			
+			int nNext = 0;
+			
+			for (int j = 0; j < nActive; j++){
+				int k = active[j];
+				
+				if ( Math.abs ( fc[k] ) < Math.abs ( fb[k] ) ){
+					sa[k] = sb[k];
+					sb[k] = c[k];
+					c[k] = sa[k];
+					fa[k] = fb[k];
+					fb[k] = fc[k];
+					fc[k] = fa[k];
+				}
+				
+				double tol = 2.0 * machep * Math.abs ( sb[k] ) + t;
+				double m = 0.5 * ( c[k] - sb[k] );
+				
+				if ( Math.abs ( m ) <= tol || fb[k] == 0.0 ){
+					x[lo+k] = sb[k];
+					continue;
+				}
+				
+				if ( Math.abs ( e[k] ) < tol || Math.abs ( fa[k] ) <= Math.abs ( fb[k] ) ){
+					e[k] = m;
+					d[k] = m;
+				} else{
+					
+					double s = fb[k] / fa[k];
+					double p, q, r;
+					
+					if ( sa[k] == c[k] ){
+						p = 2.0 * m * s;
+						q = 1.0 - s;
+					} else{
+						q = fa[k] / fc[k];
+						r = fb[k] / fc[k];
+						p = s * ( 2.0 * m * q * ( q - r ) - ( sb[k] - sa[k] ) * ( r - 1.0 ) );
+						q = ( q - 1.0 ) * ( r - 1.0 ) * ( s - 1.0 );
+					}
+					
+					if ( 0.0 < p ){
+						q = - q;
+					} else{
+						p = - p;
+					}
+					
+					s = e[k];
+					e[k] = d[k];
+					
+					if ( 2.0 * p < 3.0 * m * q - Math.abs ( tol * q ) && p < Math.abs ( 0.5 * s * q ) ){
+						d[k] = p / q;
+					} else{
+						e[k] = m;
+						d[k] = m;
+					}
+				}
+				
+				sa[k] = sb[k];
+				fa[k] = fb[k];
+				
+				if ( tol < Math.abs ( d[k] ) ){
+					sb[k] = sb[k] + d[k];
+				} else if ( 0.0 < m ){
+					sb[k] = sb[k] + tol;
+				} else{
+					sb[k] = sb[k] - tol;
+				}
+				
+				active[nNext++] = k;
+			}
+			
+			nActive = nNext;
+			
+			// one pass of function evaluations over the surviving lanes
+			for (int j = 0; j < nActive; j++){
+				int k = active[j];
+				fb[k] = f.f(lo+k, sb[k]);
+			}
+			
+			for (int j = 0; j < nActive; j++){
+				int k = active[j];
+				if ( ( 0.0 < fb[k] && 0.0 < fc[k] ) || ( fb[k] <= 0.0 && fc[k] <= 0.0 ) ){
+					c[k] = sa[k];
+					fc[k] = fa[k];
+					e[k] = sb[k] - sa[k];
+					d[k] = e[k];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Splits a batch of brackets in halves until the blocks are small enough
+	 * to be solved in lockstep on a single thread.
+	 */
+	private static class BatchTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final IndexedFunction1Var f;
+		private final double[] a, b, fa, fb, x;
+		private final double t;
+		private final int lo, hi;
+		
+		BatchTask(IndexedFunction1Var f, double[] a, double[] b, double[] fa, double[] fb, 
+				double t, double[] x, int lo, int hi){
+			this.f = f;
+			this.a = a;
+			this.b = b;
+			this.fa = fa;
+			this.fb = fb;
+			this.t = t;
+			this.x = x;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= BATCH_BLOCK){
+				fzeroBatch(f, a, b, fa, fb, t, x, lo, hi);
+			} else{
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BatchTask(f, a, b, fa, fb, t, x, lo, mid),
+						  new BatchTask(f, a, b, fa, fb, t, x, mid, hi));
+			}
+		}
+	}
+	
+	private static void checkDimension (double[] x, double[] y) {
+		if (x.length != y.length) {
+			throw new IllegalArgumentException("Vectors must be the same length");
+		}
+	}
 }
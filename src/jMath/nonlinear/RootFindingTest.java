@@ -0,0 +1,213 @@
+package jMath.nonlinear;
+import static jMath.nonlinear.RootFinding.*;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import jMath.func.Dual;
+import jMath.func.DualFunction1Var;
+import jMath.func.Function1Var;
+import jMath.func.IndexedFunction1Var;
+import jMath.func.TwiceDifferentiableFunction1Var;
+
+import org.junit.Test;
+
+public class RootFindingTest {
+	
+	public static final double tol = 1e-6;
+	
+	@Test
+	public void testFzero(){
+		double x = fzero(new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return x*x - 2.0;
+			}
+		}, 0.0, 2.0, 1e-10);
+		assertEquals(Math.sqrt(2.0), x, tol);
+	}
+	
+	@Test
+	public void testFzeroBatch(){
+		int n = 3000;
+		final double[] c = new double[n];
+		double[] a = new double[n];
+		double[] b = new double[n];
+		for (int i = 0; i < n; i++){
+			c[i] = 1.0 + i;
+			a[i] = 0.0;
+			b[i] = c[i];
+		}
+		IndexedFunction1Var f = new IndexedFunction1Var() {
+			
+			@Override
+			public double f(int i, double x) {
+				return x*x*x - c[i];
+			}
+		};
+		
+		double[] x = fzero(f, a, b, 1e-10);
+		double[] xp;
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			xp = fzero(f, a, b, 1e-10, pool);
+		} finally{
+			pool.shutdown();
+		}
+		for (int i = 0; i < n; i++){
+			assertEquals(Math.cbrt(c[i]), x[i], tol);
+			assertEquals(x[i], xp[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testFzeroNear(){
+		Function1Var f = new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return Math.exp(x) - 10.0;
+			}
+		};
+		double[] ab = bracket(f, 0.5);
+		assertTrue(f.f(ab[0])*f.f(ab[1]) <= 0.0);
+		assertEquals(Math.log(10.0), fzero(f, 0.5), tol);
+	}
+	
+	@Test
+	public void testFzeros(){
+		double[] x = fzeros(new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return Math.sin(x);
+			}
+		}, 0.0, 10.0, 20, 1e-10);
+		assertEquals(4, x.length);
+		for (int i = 0; i < 4; i++){
+			assertEquals(i*Math.PI, x[i], tol);
+		}
+	}
+	
+	@Test
+	public void testFzerosClosePair(){
+		Function1Var f = new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return (x - 1.0)*(x - 1.05);
+			}
+		};
+		double[] x = fzeros(f, 0.0, 3.0, 5, 1e-10);
+		double[] xp;
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try{
+			xp = fzeros(f, 0.0, 3.0, 5, 1e-10, pool);
+		} finally{
+			pool.shutdown();
+		}
+		assertEquals(2, x.length);
+		assertEquals(1.0, x[0], tol);
+		assertEquals(1.05, x[1], tol);
+		assertTrue(Arrays.equals(x, xp));
+	}
+	
+	@Test
+	public void testFzerosPairAtEnds(){
+		// pairs of zeros inside the first and the last sampling interval
+		Function1Var f = new Function1Var() {
+			
+			@Override
+			public double f(double x) {
+				return (x - 0.1)*(x - 0.2)*(x - 2.8)*(x - 2.9);
+			}
+		};
+		double[] x = fzeros(f, 0.0, 3.0, 5, 1e-10);
+		assertEquals(4, x.length);
+		assertEquals(0.1, x[0], tol);
+		assertEquals(0.2, x[1], tol);
+		assertEquals(2.8, x[2], tol);
+		assertEquals(2.9, x[3], tol);
+		
+		for (int n = -1; n < 2; n++){
+			try{
+				fzeros(f, 0.0, 3.0, n, 1e-10);
+				fail("n = " + n);
+			} catch (IllegalArgumentException e){
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testNewtonHalley(){
+		final int[] count = new int[1];
+		TwiceDifferentiableFunction1Var f = new TwiceDifferentiableFunction1Var() {
+			
+			@Override
+			public double f(double x) {
+				count[0]++;
+				return Math.cos(x) - x;
+			}
+			
+			@Override
+			public double f(double x, double[] d) {
+				count[0]++;
+				d[0] = -Math.sin(x) - 1.0;
+				if (d.length > 1) d[1] = -Math.cos(x);
+				return Math.cos(x) - x;
+			}
+		};
+		double root = 0.7390851332151607;
+		
+		assertEquals(root, newton(f, 0.0, 2.0, 1e-12), 1e-12);
+		int nNewton = count[0];
+		count[0] = 0;
+		assertEquals(root, fzero(f, 0.0, 2.0, 1e-12), 1e-12);
+		assertTrue(nNewton < count[0]);
+		
+		assertEquals(root, halley(f, 2.0, 0.0, 1e-12), 1e-12);
+	}
+
+	@Test
+	public void testZeroDerivative(){
+		// the first iterate x = 1 is a critical point of x^3 - 3x
+		TwiceDifferentiableFunction1Var f = new TwiceDifferentiableFunction1Var() {
+			
+			@Override
+			public double f(double x) {
+				return x*x*x - 3.0*x;
+			}
+			
+			@Override
+			public double f(double x, double[] d) {
+				d[0] = 3.0*x*x - 3.0;
+				if (d.length > 1) d[1] = 6.0*x;
+				return x*x*x - 3.0*x;
+			}
+		};
+		assertEquals(Math.sqrt(3.0), halley(f, 0.2, 1.8, 1e-10), 1e-10);
+		assertEquals(Math.sqrt(3.0), newton(f, 0.2, 1.8, 1e-10), 1e-10);
+	}
+
+	@Test
+	public void testNewtonDual(){
+		DualFunction1Var f = new DualFunction1Var() {
+			
+			@Override
+			public Dual f(Dual x) {
+				return Dual.exp(x).subtract(x.multiply(x)).subtract(2.0);
+			}
+		};
+		double[] d = new double[1];
+		assertEquals(Math.exp(1.5) - 2.25 - 2.0, f.f(1.5, d), 1e-15);
+		assertEquals(Math.exp(1.5) - 3.0, d[0], 1e-15);
+		
+		double x = newton(f, 0.0, 3.0, 1e-12);
+		assertEquals(0.0, f.f(x), 1e-12);
+	}
+
+}
@@ -0,0 +1,654 @@
+package jMath.nonlinear;
+
+import jMath.func.DualVector;
+import jMath.func.DualVectorFunctionNVar;
+import jMath.func.VectorFunctionNVar;
+import jMath.linalg.LUFactorization;
+import jMath.linalg.Matrix;
+import jMath.linalg.Vector;
+
+/**
+ * Solves systems of nonlinear equations F(x) = 0 where F maps R^n to R^n.
+ * All work arrays are allocated once for a given dimension, so an instance can be
+ * reused across many solves without further allocation (instances are not thread safe).
+ * If F is a DualVectorFunctionNVar, Jacobians and Jacobian-vector products are computed 
+ * exactly by automatic differentiation instead of by finite differences.
+ * Three methods are provided:
+ *   newton - damped Newton with a finite difference Jacobian that is reused 
+ *            while convergence is fast,
+ *   broyden - quasi-Newton with rank one updates of the inverse Jacobian,
+ *   newtonKrylov - Jacobian-free Newton-Krylov using GMRES with finite difference
+ *            Jacobian-vector products.
+ */
+public class SystemSolver {
+	
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	// dimension of the system
+	private final int n;
+	
+	// convergence tolerance on the 2-norm of F
+	private double tol = 1e-10;
+	
+	// maximum number of nonlinear iterations
+	private int maxIter = 100;
+	
+	// statistics from the last solve
+	private int iterations;
+	private int evaluations;
+	private double residual;
+	private boolean converged;
+	
+	// workspaces
+	private final double[] fx, dx, xt, ft, fj, xj;
+	private final double[][] J;
+	private final LUFactorization lu;
+	
+	// Broyden workspaces, allocated on first use
+	private double[][] H;
+	private double[] Hy, sH;
+	
+	// automatic differentiation workspaces, allocated on first use
+	private DualVector xd, yd;
+	
+	// GMRES workspaces, allocated on first use
+	private final int kDim;
+	private double[][] V, Hg;
+	private double[] cs, sn, g, y;
+	
+	// minimum sufficient decrease of the line search
+	private static final double ALPHA = 1e-4;
+	
+	// smallest damping factor tried by the line search
+	private static final double LAMBDA_MIN = 1e-10;
+	
+	// Jacobian is reused while each step reduces |F| by at least this factor
+	private static final double REUSE_RATIO = 0.5;
+	
+	// relative tolerance of each GMRES solve (forcing term)
+	private static final double ETA = 1e-4;
+	
+	// maximum number of GMRES restarts per Newton step
+	private static final int MAX_RESTARTS = 10;
+	
+	private static final double SQRT_EPS = Math.sqrt(Math.ulp(1.0));
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	/**
+	 * allocates a solver for systems of dimension n
+	 * @param n
+	 */
+	public SystemSolver(int n){
+		this.n = n;
+		fx = new double[n];
+		dx = new double[n];
+		xt = new double[n];
+		ft = new double[n];
+		fj = new double[n];
+		xj = new double[n];
+		J = new double[n][n];
+		lu = new LUFactorization(n);
+		kDim = Math.min(n, 30);
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * @param tol  convergence tolerance on the 2-norm of F(x)
+	 */
+	public void setTolerance(double tol){
+		this.tol = tol;
+	}
+	
+	/**
+	 * @param maxIter  maximum number of nonlinear iterations
+	 */
+	public void setMaxIterations(int maxIter){
+		this.maxIter = maxIter;
+	}
+	
+	/**
+	 * @return number of nonlinear iterations taken by the last solve
+	 */
+	public int getIterations(){
+		return iterations;
+	}
+	
+	/**
+	 * @return number of evaluations of F made by the last solve
+	 */
+	public int getEvaluations(){
+		return evaluations;
+	}
+	
+	/**
+	 * @return 2-norm of F at the solution returned by the last solve
+	 */
+	public double getResidual(){
+		return residual;
+	}
+	
+	/**
+	 * @return true if the last solve met the tolerance
+	 */
+	public boolean isConverged(){
+		return converged;
+	}
+	
+	/**
+	 * solves F(x) = 0 with damped Newton's method.  The Jacobian is computed by forward 
+	 * differences, factored, and reused for following steps as long as each step reduces
+	 * |F| by at least half.  Each step is damped by a backtracking line search on |F|.
+	 * @param F
+	 * @param x  on input the initial guess, on output the solution
+	 * @return x
+	 * @throws IllegalArgumentException
+	 */
+	public double[] newton(VectorFunctionNVar F, double[] x) throws IllegalArgumentException{
+		start(F, x);
+		
+		boolean fresh = false;
+		boolean needJacobian = true;
+		
+		while (residual > tol && iterations < maxIter){
+			
+			if (needJacobian){
+				jacobian(F, x, fx, J);
+				lu.factor(J);
+				if (lu.isSingular()) break;
+				needJacobian = false;
+				fresh = true;
+			}
+			
+			lu.solve(fx, dx);
+			for (int i = 0; i < n; i++){
+				dx[i] = -dx[i];
+			}
+			
+			double fnew = lineSearch(F, x, dx);
+			if (fnew < 0.0){
+				// no decrease along a stale direction, try again with a new Jacobian
+				if (fresh) break;
+				needJacobian = true;
+				continue;
+			}
+			
+			iterations++;
+			if (fnew > REUSE_RATIO*residual) needJacobian = true;
+			residual = fnew;
+			fresh = false;
+		}
+		
+		converged = residual <= tol;
+		return x;
+	}
+	
+	/**
+	 * solves F(x) = 0 with Broyden's method.  The inverse of a finite difference Jacobian
+	 * is formed once and then improved with a rank one update after every step, so no 
+	 * further Jacobians or factorizations are needed unless the line search fails.
+	 * @param F
+	 * @param x  on input the initial guess, on output the solution
+	 * @return x
+	 * @throws IllegalArgumentException
+	 */
+	public double[] broyden(VectorFunctionNVar F, double[] x) throws IllegalArgumentException{
+		if (H == null){
+			H = new double[n][n];
+			Hy = new double[n];
+			sH = new double[n];
+		}
+		start(F, x);
+		
+		boolean fresh = false;
+		boolean needJacobian = true;
+		
+		while (residual > tol && iterations < maxIter){
+			
+			if (needJacobian){
+				jacobian(F, x, fx, J);
+				lu.factor(J);
+				if (lu.isSingular()) break;
+				invert();
+				needJacobian = false;
+				fresh = true;
+			}
+			
+			// dx = -H fx
+			for (int i = 0; i < n; i++){
+				double[] row = H[i];
+				double s = 0.0;
+				for (int j = 0; j < n; j++){
+					s += row[j]*fx[j];
+				}
+				dx[i] = -s;
+			}
+			
+			// keep the old residual in fj for the update
+			System.arraycopy(fx, 0, fj, 0, n);
+			
+			double fnew = lineSearch(F, x, dx);
+			if (fnew < 0.0){
+				if (fresh) break;
+				needJacobian = true;
+				continue;
+			}
+			iterations++;
+			residual = fnew;
+			fresh = false;
+			
+			// s = dx (scaled by the line search), y = fx - fold
+			// H += (s - H y) s' H / (s' H y)
+			for (int j = 0; j < n; j++){
+				fj[j] = fx[j] - fj[j];
+			}
+			double denom = 0.0;
+			for (int i = 0; i < n; i++){
+				double[] row = H[i];
+				double s = 0.0;
+				for (int j = 0; j < n; j++){
+					s += row[j]*fj[j];
+				}
+				Hy[i] = s;
+				denom += dx[i]*s;
+			}
+			if (denom == 0.0){
+				needJacobian = true;
+				continue;
+			}
+			for (int j = 0; j < n; j++){
+				double s = 0.0;
+				for (int i = 0; i < n; i++){
+					s += dx[i]*H[i][j];
+				}
+				sH[j] = s/denom;
+			}
+			for (int i = 0; i < n; i++){
+				double[] row = H[i];
+				double u = dx[i] - Hy[i];
+				for (int j = 0; j < n; j++){
+					row[j] += u*sH[j];
+				}
+			}
+		}
+		
+		converged = residual <= tol;
+		return x;
+	}
+	
+	/**
+	 * solves F(x) = 0 with the Jacobian-free Newton-Krylov method.  Each Newton step
+	 * is solved approximately with restarted GMRES, where products of the Jacobian with
+	 * a vector are approximated by a directional finite difference of F, so the Jacobian 
+	 * is never formed.  Suited to large systems.
+	 * @param F
+	 * @param x  on input the initial guess, on output the solution
+	 * @return x
+	 * @throws IllegalArgumentException
+	 */
+	public double[] newtonKrylov(VectorFunctionNVar F, double[] x) throws IllegalArgumentException{
+		if (V == null){
+			V = new double[kDim+1][n];
+			Hg = new double[kDim+1][kDim];
+			cs = new double[kDim];
+			sn = new double[kDim];
+			g = new double[kDim+1];
+			y = new double[kDim];
+		}
+		start(F, x);
+		
+		while (residual > tol && iterations < maxIter){
+			
+			gmres(F, x);
+			
+			double fnew = lineSearch(F, x, dx);
+			if (fnew < 0.0) break;
+			
+			iterations++;
+			residual = fnew;
+		}
+		
+		converged = residual <= tol;
+		return x;
+	}
+	
+	/**
+	 * solves F(x) = 0 with damped Newton's method starting from x0
+	 * @param F
+	 * @param x0  initial guess
+	 * @return the solution
+	 */
+	public Vector newton(VectorFunctionNVar F, Vector x0){
+		return new Vector(newton(F, x0.getArray()));
+	}
+	
+	/**
+	 * solves F(x) = 0 with Broyden's method starting from x0
+	 * @param F
+	 * @param x0  initial guess
+	 * @return the solution
+	 */
+	public Vector broyden(VectorFunctionNVar F, Vector x0){
+		return new Vector(broyden(F, x0.getArray()));
+	}
+	
+	/**
+	 * solves F(x) = 0 with the Jacobian-free Newton-Krylov method starting from x0
+	 * @param F
+	 * @param x0  initial guess
+	 * @return the solution
+	 */
+	public Vector newtonKrylov(VectorFunctionNVar F, Vector x0){
+		return new Vector(newtonKrylov(F, x0.getArray()));
+	}
+	
+	/**
+	 * solves F(x) = 0 with damped Newton's method, mimicking Matlab's fsolve
+	 * @param F
+	 * @param x0  initial guess
+	 * @return the solution
+	 */
+	public static Vector fsolve(VectorFunctionNVar F, Vector x0){
+		return new SystemSolver(x0.length()).newton(F, x0);
+	}
+	
+	/**
+	 * Jacobian of F at x, by forward differences or by automatic differentiation 
+	 * if F is a DualVectorFunctionNVar
+	 * @param F
+	 * @param x
+	 * @return J(i,j) = dF_i/dx_j
+	 */
+	public static Matrix jacobian(VectorFunctionNVar F, Vector x){
+		int n = x.length();
+		double[] xa = x.getArray();
+		double[] f0 = new double[n];
+		double[][] Ja = new double[n][n];
+		SystemSolver s = new SystemSolver(n);
+		s.evaluate(F, xa, f0);
+		s.jacobian(F, xa, f0, Ja);
+		return new Matrix(Ja, false);
+	}
+	
+	
+/* ------------------------
+   Private Methods
+* ------------------------ */
+	
+	/**
+	 * evaluate F at the initial guess and reset the statistics
+	 */
+	private void start(VectorFunctionNVar F, double[] x){
+		if (x.length != n){
+			throw new IllegalArgumentException("Initial guess must be of length " + n);
+		}
+		iterations = 0;
+		evaluations = 0;
+		converged = false;
+		evaluate(F, x, fx);
+		evaluations++;
+		residual = norm(fx);
+	}
+	
+	/**
+	 * forward difference Jacobian into Jout, given f0 = F(x).  x is restored on exit.
+	 * Exact, one column per evaluation, if F supports automatic differentiation.
+	 */
+	private void jacobian(VectorFunctionNVar F, double[] x, double[] f0, double[][] Jout){
+		if (F instanceof DualVectorFunctionNVar){
+			DualVectorFunctionNVar G = (DualVectorFunctionNVar) F;
+			dualWorkspace();
+			System.arraycopy(x, 0, xd.getValueRef(), 0, n);
+			
+			for (int j = 0; j < n; j++){
+				xd.seed(j);
+				G.f(xd, yd);
+				evaluations++;
+				double[] col = yd.getDerivativeRef();
+				for (int i = 0; i < n; i++){
+					Jout[i][j] = col[i];
+				}
+			}
+			return;
+		}
+		
+		for (int j = 0; j < n; j++){
+			double xj = x[j];
+			double h = SQRT_EPS*Math.max(Math.abs(xj), 1.0);
+			x[j] = xj + h;
+			h = x[j] - xj;  // exactly representable step
+			F.f(x, fj);
+			evaluations++;
+			x[j] = xj;
+			
+			for (int i = 0; i < n; i++){
+				Jout[i][j] = (fj[i] - f0[i])/h;
+			}
+		}
+	}
+	
+	/**
+	 * inverse of the factored Jacobian into H, one column at a time
+	 */
+	private void invert(){
+		for (int j = 0; j < n; j++){
+			for (int i = 0; i < n; i++){
+				xj[i] = 0.0;
+			}
+			xj[j] = 1.0;
+			lu.solve(xj, xj);
+			for (int i = 0; i < n; i++){
+				H[i][j] = xj[i];
+			}
+		}
+	}
+	
+	/**
+	 * backtracking line search along dx for a sufficient decrease in |F|.
+	 * On success x, fx are updated, dx is scaled to the step actually taken
+	 * and the new |F| is returned.  Returns -1 if no acceptable step was found.
+	 */
+	private double lineSearch(VectorFunctionNVar F, double[] x, double[] dx){
+		double lambda = 1.0;
+		
+		while (lambda >= LAMBDA_MIN){
+			for (int i = 0; i < n; i++){
+				xt[i] = x[i] + lambda*dx[i];
+			}
+			evaluate(F, xt, ft);
+			evaluations++;
+			double fnew = norm(ft);
+			
+			if (fnew <= (1.0 - ALPHA*lambda)*residual){
+				for (int i = 0; i < n; i++){
+					dx[i] *= lambda;
+				}
+				System.arraycopy(xt, 0, x, 0, n);
+				System.arraycopy(ft, 0, fx, 0, n);
+				return fnew;
+			}
+			lambda *= 0.5;
+		}
+		return -1.0;
+	}
+	
+	/**
+	 * restarted GMRES for J dx = -fx, where J v is approximated by (F(x + h v) - F(x))/h
+	 */
+	private void gmres(VectorFunctionNVar F, double[] x){
+		double target = ETA*residual;
+		
+		for (int i = 0; i < n; i++){
+			dx[i] = 0.0;
+		}
+		
+		// initial residual r = -fx
+		for (int i = 0; i < n; i++){
+			V[0][i] = -fx[i];
+		}
+		
+		for (int restart = 0; restart < MAX_RESTARTS; restart++){
+			
+			double beta = norm(V[0]);
+			if (beta <= target) return;
+			scale(V[0], 1.0/beta);
+			
+			for (int i = 0; i <= kDim; i++){
+				g[i] = 0.0;
+			}
+			g[0] = beta;
+			
+			int k = 0;
+			while (k < kDim){
+				int j = k;
+				double[] w = V[j+1];
+				jacobianTimes(F, x, V[j], w);
+				
+				// modified Gram-Schmidt
+				for (int i = 0; i <= j; i++){
+					double h = dot(w, V[i]);
+					Hg[i][j] = h;
+					axpy(-h, V[i], w);
+				}
+				double hn = norm(w);
+				Hg[j+1][j] = hn;
+				if (hn != 0.0) scale(w, 1.0/hn);
+				
+				// apply previous rotations, then eliminate the new subdiagonal
+				for (int i = 0; i < j; i++){
+					double t = cs[i]*Hg[i][j] + sn[i]*Hg[i+1][j];
+					Hg[i+1][j] = -sn[i]*Hg[i][j] + cs[i]*Hg[i+1][j];
+					Hg[i][j] = t;
+				}
+				double r = Math.hypot(Hg[j][j], Hg[j+1][j]);
+				if (r == 0.0){
+					break;
+				}
+				cs[j] = Hg[j][j]/r;
+				sn[j] = Hg[j+1][j]/r;
+				Hg[j][j] = r;
+				Hg[j+1][j] = 0.0;
+				g[j+1] = -sn[j]*g[j];
+				g[j] = cs[j]*g[j];
+				
+				k++;
+				if (Math.abs(g[k]) <= target || hn == 0.0) break;
+			}
+			
+			// back substitution and update of dx
+			for (int i = k-1; i >= 0; i--){
+				double s = g[i];
+				for (int l = i+1; l < k; l++){
+					s -= Hg[i][l]*y[l];
+				}
+				y[i] = s/Hg[i][i];
+			}
+			for (int i = 0; i < k; i++){
+				axpy(y[i], V[i], dx);
+			}
+			
+			if (k == 0 || Math.abs(g[k]) <= target) return;
+			
+			// true residual for the restart, r = -fx - J dx
+			jacobianTimes(F, x, dx, V[0]);
+			for (int i = 0; i < n; i++){
+				V[0][i] = -fx[i] - V[0][i];
+			}
+		}
+	}
+	
+	/**
+	 * directional finite difference Jv = (F(x + h v) - F(x))/h, or exact by 
+	 * automatic differentiation if F supports it
+	 */
+	private void jacobianTimes(VectorFunctionNVar F, double[] x, double[] v, double[] Jv){
+		if (F instanceof DualVectorFunctionNVar){
+			dualWorkspace();
+			System.arraycopy(x, 0, xd.getValueRef(), 0, n);
+			System.arraycopy(v, 0, xd.getDerivativeRef(), 0, n);
+			((DualVectorFunctionNVar) F).f(xd, yd);
+			evaluations++;
+			System.arraycopy(yd.getDerivativeRef(), 0, Jv, 0, n);
+			return;
+		}
+		
+		double vn = norm(v);
+		if (vn == 0.0){
+			for (int i = 0; i < n; i++){
+				Jv[i] = 0.0;
+			}
+			return;
+		}
+		double h = SQRT_EPS*(1.0 + norm(x))/vn;
+		for (int i = 0; i < n; i++){
+			xj[i] = x[i] + h*v[i];
+		}
+		F.f(xj, fj);
+		evaluations++;
+		for (int i = 0; i < n; i++){
+			Jv[i] = (fj[i] - fx[i])/h;
+		}
+	}
+	
+	/**
+	 * y = F(x).  Dual functions are evaluated on the dual workspaces (with a zero tangent) 
+	 * rather than through their default f(double[], double[]), which allocates.
+	 */
+	private void evaluate(VectorFunctionNVar F, double[] x, double[] y){
+		if (F instanceof DualVectorFunctionNVar){
+			dualWorkspace();
+			System.arraycopy(x, 0, xd.getValueRef(), 0, n);
+			double[] t = xd.getDerivativeRef();
+			for (int i = 0; i < n; i++){
+				t[i] = 0.0;
+			}
+			((DualVectorFunctionNVar) F).f(xd, yd);
+			System.arraycopy(yd.getValueRef(), 0, y, 0, n);
+			return;
+		}
+		F.f(x, y);
+	}
+	
+	private void dualWorkspace(){
+		if (xd == null){
+			xd = new DualVector(n);
+			yd = new DualVector(n);
+		}
+	}
+	
+	private static double norm(double[] x){
+		double s = 0.0;
+		for (int i = 0; i < x.length; i++){
+			s += x[i]*x[i];
+		}
+		return Math.sqrt(s);
+	}
+	
+	private static double dot(double[] x, double[] y){
+		double s = 0.0;
+		for (int i = 0; i < x.length; i++){
+			s += x[i]*y[i];
+		}
+		return s;
+	}
+	
+	// y += alpha*x
+	private static void axpy(double alpha, double[] x, double[] y){
+		for (int i = 0; i < x.length; i++){
+			y[i] += alpha*x[i];
+		}
+	}
+	
+	private static void scale(double[] x, double alpha){
+		for (int i = 0; i < x.length; i++){
+			x[i] *= alpha;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package jMath.nonlinear;
+
+import static org.junit.Assert.*;
+
+import jMath.func.Dual;
+import jMath.func.DualVector;
+import jMath.func.DualVectorFunctionNVar;
+import jMath.func.VectorFunctionNVar;
+import jMath.linalg.Matrix;
+import jMath.linalg.Vector;
+
+import org.junit.Test;
+
+public class SystemSolverTest {
+	
+	public static final double tol = 1e-8;
+	
+	// x^2 + y^2 = 4, xy = 1
+	private static final VectorFunctionNVar circle = new VectorFunctionNVar() {
+		
+		@Override
+		public void f(double[] x, double[] y) {
+			y[0] = x[0]*x[0] + x[1]*x[1] - 4.0;
+			y[1] = x[0]*x[1] - 1.0;
+		}
+	};
+	
+	// discretized -u'' + u^3 = 1 on (0, 1) with u = 0 at both ends
+	private static VectorFunctionNVar bvp(final int n){
+		return new VectorFunctionNVar() {
+			
+			@Override
+			public void f(double[] u, double[] r) {
+				double h = 1.0/(n+1);
+				for (int i = 0; i < n; i++){
+					double um = (i == 0)? 0.0 : u[i-1];
+					double up = (i == n-1)? 0.0 : u[i+1];
+					r[i] = (-um + 2*u[i] - up)/(h*h) + u[i]*u[i]*u[i] - 1.0;
+				}
+			}
+		};
+	}
+	
+	private static void checkCircle(double[] x){
+		assertEquals(4.0, x[0]*x[0] + x[1]*x[1], tol);
+		assertEquals(1.0, x[0]*x[1], tol);
+	}
+	
+	@Test
+	public void testNewton(){
+		SystemSolver solver = new SystemSolver(2);
+		double[] x = solver.newton(circle, new double[] {2.0, 0.5});
+		assertTrue(solver.isConverged());
+		checkCircle(x);
+		
+		Vector v = SystemSolver.fsolve(circle, new Vector(2.0, 0.5));
+		checkCircle(v.getArrayRef());
+	}
+	
+	@Test
+	public void testBroyden(){
+		SystemSolver solver = new SystemSolver(2);
+		double[] x = solver.broyden(circle, new double[] {2.0, 0.5});
+		assertTrue(solver.isConverged());
+		checkCircle(x);
+	}
+	
+	@Test
+	public void testNewtonKrylov(){
+		int n = 100;
+		VectorFunctionNVar F = bvp(n);
+		
+		SystemSolver solver = new SystemSolver(n);
+		double[] u = solver.newtonKrylov(F, new double[n]);
+		assertTrue(solver.isConverged());
+		
+		double[] ud = solver.newton(F, new double[n]);
+		for (int i = 0; i < n; i++){
+			assertEquals(ud[i], u[i], 1e-8);
+		}
+	}
+
+	@Test
+	public void testDualJacobian(){
+		DualVectorFunctionNVar F = new DualVectorFunctionNVar() {
+			
+			@Override
+			public void f(DualVector x, DualVector y) {
+				Dual x0 = x.get(0), x1 = x.get(1);
+				y.set(0, x0.multiply(x0).add(x1.multiply(x1)).subtract(4.0));
+				y.set(1, x0.multiply(x1).subtract(1.0));
+			}
+		};
+		
+		Matrix J = SystemSolver.jacobian(F, new Vector(2.0, 0.5));
+		assertEquals(4.0, J.get(0, 0), 0.0);
+		assertEquals(1.0, J.get(0, 1), 0.0);
+		assertEquals(0.5, J.get(1, 0), 0.0);
+		assertEquals(2.0, J.get(1, 1), 0.0);
+		
+		SystemSolver solver = new SystemSolver(2);
+		checkCircle(solver.newton(F, new double[] {2.0, 0.5}));
+		checkCircle(solver.newtonKrylov(F, new double[] {2.0, 0.5}));
+	}
+	
+	@Test
+	public void testDualNoPlainEvaluations(){
+		// the solvers evaluate dual functions on their own dual workspaces
+		DualVectorFunctionNVar F = new DualVectorFunctionNVar() {
+			
+			@Override
+			public void f(DualVector x, DualVector y) {
+				Dual x0 = x.get(0), x1 = x.get(1);
+				y.set(0, x0.multiply(x0).add(x1.multiply(x1)).subtract(4.0));
+				y.set(1, x0.multiply(x1).subtract(1.0));
+			}
+			
+			@Override
+			public void f(double[] x, double[] y) {
+				throw new UnsupportedOperationException();
+			}
+		};
+		
+		SystemSolver solver = new SystemSolver(2);
+		checkCircle(solver.newton(F, new double[] {2.0, 0.5}));
+		checkCircle(solver.broyden(F, new double[] {2.0, 0.5}));
+		checkCircle(solver.newtonKrylov(F, new double[] {2.0, 0.5}));
+		assertEquals(4.0, SystemSolver.jacobian(F, new Vector(2.0, 0.5)).get(0, 0), 0.0);
+	}
+
+}
@@ -0,0 +1,496 @@
+package jMath.signal;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A precomputed plan for discrete Fourier transforms of one length.
+ * Lengths whose prime factors are all small use a mixed-radix (4, 2, 3 and generic
+ * odd radix) Cooley-Tukey algorithm with a precomputed twiddle table; lengths with a
+ * large prime factor use Bluestein's algorithm on a power of two.
+ * Complex data is held in split form (separate real and imaginary arrays).
+ * Plans are immutable and may be shared between threads.
+ * Uses Matlab's conventions: the forward transform has no scaling and the
+ * inverse is scaled by 1/n.
+ */
+public class FFT {
+	
+	// largest prime factor handled by the generic butterfly, above this use Bluestein
+	private static final int MAX_RADIX = 31;
+	
+	// the most recently used plans, kept by plan(n) (guarded by itself)
+	private static final int MAX_PLANS = 64;
+	private static final Map<Integer, FFT> PLANS = new LinkedHashMap<Integer, FFT>(16, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, FFT> eldest){
+			return size() > MAX_PLANS;
+		}
+	};
+	
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	private final int n;
+	
+	// mixed radix: factors of n and the twiddles exp(-2 pi i k/n)
+	private final int[] factors;
+	private final double[] twr, twi;
+	
+	// Bluestein: chirp exp(-pi i k^2/n), transformed filter, and the power of two plan
+	private final double[] chirpr, chirpi, filterr, filteri;
+	private final FFT inner;
+	
+	// plan of length n/2 for real transforms, created when first needed
+	private volatile FFT half;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	/**
+	 * create a plan for transforms of length n
+	 * @param n
+	 * @throws IllegalArgumentException
+	 */
+	public FFT(int n) throws IllegalArgumentException{
+		if (n < 1){
+			throw new IllegalArgumentException("Transform length must be positive");
+		}
+		this.n = n;
+		
+		twr = new double[n];
+		twi = new double[n];
+		for (int k = 0; k < n; k++){
+			double t = -2*Math.PI*k/n;
+			twr[k] = Math.cos(t);
+			twi[k] = Math.sin(t);
+		}
+		
+		int[] f = factor(n);
+		if (f != null){
+			factors = f;
+			chirpr = chirpi = filterr = filteri = null;
+			inner = null;
+			return;
+		}
+		
+		// Bluestein
+		factors = null;
+		int m = Integer.highestOneBit(2*n-1);
+		if (m < 2*n-1) m <<= 1;
+		inner = plan(m);
+		
+		chirpr = new double[n];
+		chirpi = new double[n];
+		for (int k = 0; k < n; k++){
+			long k2 = ((long) k*k) % (2L*n);
+			double t = -Math.PI*k2/n;
+			chirpr[k] = Math.cos(t);
+			chirpi[k] = Math.sin(t);
+		}
+		filterr = new double[m];
+		filteri = new double[m];
+		filterr[0] = chirpr[0];
+		filteri[0] = -chirpi[0];
+		for (int k = 1; k < n; k++){
+			filterr[k] = filterr[m-k] = chirpr[k];
+			filteri[k] = filteri[m-k] = -chirpi[k];
+		}
+		inner.forward(filterr, filteri);
+	}
+	
+	/**
+	 * a shared plan for length n.  Plans for the 64 most recently used lengths are cached.
+	 * @param n
+	 * @return
+	 */
+	public static FFT plan(int n){
+		FFT p;
+		synchronized (PLANS){
+			p = PLANS.get(n);
+		}
+		if (p == null){
+			p = new FFT(n);
+			synchronized (PLANS){
+				FFT old = PLANS.get(n);
+				if (old != null){
+					p = old;
+				} else{
+					PLANS.put(n, p);
+				}
+			}
+		}
+		return p;
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * @return transform length
+	 */
+	public int length(){
+		return n;
+	}
+	
+	/**
+	 * forward transform in place, X_k = sum_j x_j exp(-2 pi i jk/n)
+	 * @param re  real part, length n
+	 * @param im  imaginary part, length n
+	 * @throws IllegalArgumentException
+	 */
+	public void forward(double[] re, double[] im) throws IllegalArgumentException{
+		checkLength(re);
+		checkLength(im);
+		transform(re, im);
+	}
+	
+	/**
+	 * inverse transform in place, x_j = 1/n sum_k X_k exp(2 pi i jk/n)
+	 * @param re  real part, length n
+	 * @param im  imaginary part, length n
+	 * @throws IllegalArgumentException
+	 */
+	public void inverse(double[] re, double[] im) throws IllegalArgumentException{
+		checkLength(re);
+		checkLength(im);
+		
+		// conj(fft(conj(x)))/n
+		for (int k = 0; k < n; k++){
+			im[k] = -im[k];
+		}
+		transform(re, im);
+		double scale = 1.0/n;
+		for (int k = 0; k < n; k++){
+			re[k] *= scale;
+			im[k] *= -scale;
+		}
+	}
+	
+	/**
+	 * forward transform of real data.  For even n this runs a complex transform of
+	 * half the length.
+	 * @param x  real input, length n (not modified)
+	 * @param re  real part of the full spectrum, length n
+	 * @param im  imaginary part of the full spectrum, length n
+	 * @throws IllegalArgumentException
+	 */
+	public void forward(double[] x, double[] re, double[] im) throws IllegalArgumentException{
+		checkLength(x);
+		checkLength(re);
+		checkLength(im);
+		
+		if (n % 2 == 1){
+			System.arraycopy(x, 0, re, 0, n);
+			Arrays.fill(im, 0, n, 0.0);
+			transform(re, im);
+			return;
+		}
+		
+		// pack even and odd samples as one complex sequence of length h
+		int h = n/2;
+		for (int k = 0; k < h; k++){
+			re[k] = x[2*k];
+			im[k] = x[2*k+1];
+		}
+		halfPlan().transform(re, im);
+		
+		// X_k and X_{h-k} both need Z_k and Z_{h-k}, so unpack them in pairs
+		double z0r = re[0], z0i = im[0];
+		re[h] = z0r - z0i;
+		im[h] = 0.0;
+		for (int k = 1; k <= h/2; k++){
+			unpack(re, im, k, h);
+		}
+		re[0] = z0r + z0i;
+		im[0] = 0.0;
+	}
+	
+	/**
+	 * inverse transform of a conjugate symmetric spectrum (X_{n-k} = conj(X_k)),
+	 * giving real data
+	 * @param re  real part of the spectrum, length n (not modified)
+	 * @param im  imaginary part of the spectrum, length n (not modified)
+	 * @param x  real output, length n
+	 * @throws IllegalArgumentException
+	 */
+	public void inverse(double[] re, double[] im, double[] x) throws IllegalArgumentException{
+		checkLength(re);
+		checkLength(im);
+		checkLength(x);
+		
+		double[] wi = new double[n];
+		for (int k = 0; k < n; k++){
+			x[k] = re[k];
+			wi[k] = -im[k];
+		}
+		transform(x, wi);
+		double scale = 1.0/n;
+		for (int k = 0; k < n; k++){
+			x[k] *= scale;
+		}
+	}
+	
+	/**
+	 * smallest length >= n whose only prime factors are 2, 3 and 5, 
+	 * for which transforms are fastest
+	 * @param n
+	 * @return
+	 */
+	public static int nextFastSize(int n){
+		if (n <= 1) return 1;
+		long best = Long.MAX_VALUE;
+		for (long p5 = 1; p5 < best; p5 *= 5){
+			for (long p35 = p5; p35 < best; p35 *= 3){
+				long p = p35;
+				while (p < n) p <<= 1;
+				if (p < best) best = p;
+			}
+		}
+		return (int) best;
+	}
+	
+	
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+	
+	private void checkLength(double[] x){
+		if (x.length < n){
+			throw new IllegalArgumentException("Array shorter than transform length");
+		}
+	}
+	
+	private FFT halfPlan(){
+		FFT h = half;
+		if (h == null){
+			h = plan(n/2);
+			half = h;
+		}
+		return h;
+	}
+	
+	/**
+	 * X_k, X_{h-k} and their mirrors X_{n-k}, X_{h+k} from the half length 
+	 * transform Z held in re[0..h), im[0..h)
+	 */
+	private void unpack(double[] re, double[] im, int k, int h){
+		double zr = re[k], zi = im[k];
+		double cr = re[h-k], ci = -im[h-k];
+		
+		// even part (Z_k + conj Z_{h-k})/2 and odd part (Z_k - conj Z_{h-k})/(2i)
+		double er = 0.5*(zr + cr), ei = 0.5*(zi + ci);
+		double or = 0.5*(zi - ci), oi = -0.5*(zr - cr);
+		
+		double tr = twr[k]*or - twi[k]*oi;
+		double ti = twr[k]*oi + twi[k]*or;
+		
+		// X_{h-k} uses the conjugates of both parts
+		int j = h - k;
+		double er2 = er, ei2 = -ei;
+		double or2 = or, oi2 = -oi;
+		double tr2 = twr[j]*or2 - twi[j]*oi2;
+		double ti2 = twr[j]*oi2 + twi[j]*or2;
+		
+		re[k] = er + tr;
+		im[k] = ei + ti;
+		re[n-k] = er + tr;
+		im[n-k] = -(ei + ti);
+		
+		re[j] = er2 + tr2;
+		im[j] = ei2 + ti2;
+		re[n-j] = er2 + tr2;
+		im[n-j] = -(ei2 + ti2);
+	}
+	
+	/**
+	 * forward transform of re[0..n), im[0..n) in place
+	 */
+	private void transform(double[] re, double[] im){
+		if (n == 1) return;
+		
+		if (factors == null){
+			bluestein(re, im);
+			return;
+		}
+		
+		double[] xr = Arrays.copyOf(re, n);
+		double[] xi = Arrays.copyOf(im, n);
+		double[] scratch = new double[4*MAX_RADIX];
+		work(xr, xi, 0, 1, re, im, 0, n, 0, scratch);
+	}
+	
+	/**
+	 * recursive decimation in time: transform the len inputs starting at inOff 
+	 * with the given stride into out[outOff..outOff+len)
+	 */
+	private void work(double[] inr, double[] ini, int inOff, int stride,
+			double[] outr, double[] outi, int outOff, int len, int stage, double[] scratch){
+		
+		int p = factors[stage];
+		int m = len/p;
+		
+		if (m == 1){
+			for (int k = 0; k < p; k++){
+				outr[outOff+k] = inr[inOff + k*stride];
+				outi[outOff+k] = ini[inOff + k*stride];
+			}
+		} else{
+			for (int k = 0; k < p; k++){
+				work(inr, ini, inOff + k*stride, stride*p, outr, outi, outOff + k*m, m, stage+1, scratch);
+			}
+		}
+		
+		switch (p){
+		case 2: butterfly2(outr, outi, outOff, stride, m); break;
+		case 3: butterfly3(outr, outi, outOff, stride, m); break;
+		case 4: butterfly4(outr, outi, outOff, stride, m); break;
+		default: butterfly(outr, outi, outOff, stride, m, p, scratch);
+		}
+	}
+	
+	private void butterfly2(double[] re, double[] im, int off, int fstride, int m){
+		for (int j = 0; j < m; j++){
+			int a = off + j, b = a + m;
+			int t = j*fstride;
+			double br = re[b]*twr[t] - im[b]*twi[t];
+			double bi = re[b]*twi[t] + im[b]*twr[t];
+			re[b] = re[a] - br;
+			im[b] = im[a] - bi;
+			re[a] += br;
+			im[a] += bi;
+		}
+	}
+	
+	private void butterfly3(double[] re, double[] im, int off, int fstride, int m){
+		final double c = Math.sqrt(3)/2;
+		for (int j = 0; j < m; j++){
+			int a = off + j, b = a + m, d = b + m;
+			int t1 = j*fstride, t2 = 2*t1;
+			double br = re[b]*twr[t1] - im[b]*twi[t1];
+			double bi = re[b]*twi[t1] + im[b]*twr[t1];
+			double dr = re[d]*twr[t2] - im[d]*twi[t2];
+			double di = re[d]*twi[t2] + im[d]*twr[t2];
+			
+			double sr = br + dr, si = bi + di;
+			double tr = br - dr, ti = bi - di;
+			double mr = re[a] - 0.5*sr, mi = im[a] - 0.5*si;
+			
+			re[a] += sr;
+			im[a] += si;
+			re[b] = mr + c*ti;
+			im[b] = mi - c*tr;
+			re[d] = mr - c*ti;
+			im[d] = mi + c*tr;
+		}
+	}
+	
+	private void butterfly4(double[] re, double[] im, int off, int fstride, int m){
+		for (int j = 0; j < m; j++){
+			int i0 = off + j, i1 = i0 + m, i2 = i1 + m, i3 = i2 + m;
+			int t1 = j*fstride, t2 = 2*t1, t3 = 3*t1;
+			double x1r = re[i1]*twr[t1] - im[i1]*twi[t1];
+			double x1i = re[i1]*twi[t1] + im[i1]*twr[t1];
+			double x2r = re[i2]*twr[t2] - im[i2]*twi[t2];
+			double x2i = re[i2]*twi[t2] + im[i2]*twr[t2];
+			double x3r = re[i3]*twr[t3] - im[i3]*twi[t3];
+			double x3i = re[i3]*twi[t3] + im[i3]*twr[t3];
+			
+			double a0r = re[i0] + x2r, a0i = im[i0] + x2i;
+			double a1r = re[i0] - x2r, a1i = im[i0] - x2i;
+			double a2r = x1r + x3r, a2i = x1i + x3i;
+			double a3r = x1r - x3r, a3i = x1i - x3i;
+			
+			re[i0] = a0r + a2r;
+			im[i0] = a0i + a2i;
+			re[i2] = a0r - a2r;
+			im[i2] = a0i - a2i;
+			re[i1] = a1r + a3i;
+			im[i1] = a1i - a3r;
+			re[i3] = a1r - a3i;
+			im[i3] = a1i + a3r;
+		}
+	}
+	
+	/**
+	 * generic radix p butterfly
+	 */
+	private void butterfly(double[] re, double[] im, int off, int fstride, int m, int p, double[] scratch){
+		int wstride = n/p;
+		for (int j = 0; j < m; j++){
+			for (int k = 0; k < p; k++){
+				int i = off + j + k*m;
+				int t = j*k*fstride;
+				scratch[2*k] = re[i]*twr[t] - im[i]*twi[t];
+				scratch[2*k+1] = re[i]*twi[t] + im[i]*twr[t];
+			}
+			for (int q = 0; q < p; q++){
+				double sr = scratch[0], si = scratch[1];
+				int e = 0;
+				for (int k = 1; k < p; k++){
+					e += q;
+					if (e >= p) e -= p;
+					int t = e*wstride;
+					sr += scratch[2*k]*twr[t] - scratch[2*k+1]*twi[t];
+					si += scratch[2*k]*twi[t] + scratch[2*k+1]*twr[t];
+				}
+				re[off + j + q*m] = sr;
+				im[off + j + q*m] = si;
+			}
+		}
+	}
+	
+	/**
+	 * chirp-z transform: the DFT as a circular convolution of power of two length
+	 */
+	private void bluestein(double[] re, double[] im){
+		int m = inner.n;
+		double[] ar = new double[m];
+		double[] ai = new double[m];
+		for (int k = 0; k < n; k++){
+			ar[k] = re[k]*chirpr[k] - im[k]*chirpi[k];
+			ai[k] = re[k]*chirpi[k] + im[k]*chirpr[k];
+		}
+		inner.forward(ar, ai);
+		for (int k = 0; k < m; k++){
+			double r = ar[k]*filterr[k] - ai[k]*filteri[k];
+			ai[k] = ar[k]*filteri[k] + ai[k]*filterr[k];
+			ar[k] = r;
+		}
+		inner.inverse(ar, ai);
+		for (int k = 0; k < n; k++){
+			re[k] = ar[k]*chirpr[k] - ai[k]*chirpi[k];
+			im[k] = ar[k]*chirpi[k] + ai[k]*chirpr[k];
+		}
+	}
+	
+	/**
+	 * prime factors of n (4s first), or null if one exceeds MAX_RADIX
+	 */
+	private static int[] factor(int n){
+		int[] f = new int[32];
+		int k = 0;
+		while (n % 4 == 0){
+			f[k++] = 4;
+			n /= 4;
+		}
+		for (int p = 2; p*p <= n; p += (p == 2)? 1 : 2){
+			while (n % p == 0){
+				if (p > MAX_RADIX) return null;
+				f[k++] = p;
+				n /= p;
+			}
+		}
+		if (n > 1){
+			if (n > MAX_RADIX) return null;
+			f[k++] = n;
+		}
+		if (k == 0) f[k++] = 1;
+		return Arrays.copyOf(f, k);
+	}
+}
@@ -0,0 +1,289 @@
+package jMath.signal;
+
+import jMath.linalg.Vector;
+
+/**
+ * A class of static methods for convolution, correlation and filtering of 
+ * sampled signals.  Each method picks direct summation or FFT based 
+ * convolution depending on the sizes involved.
+ * Intentionally mimics the naming conventions of MATLAB.
+ */
+public class Signal {
+	
+	// use the FFT when the shorter signal is longer than this
+	private static final int DIRECT_LENGTH = 64;
+	
+	// and when the direct work exceeds this multiple of m log2(m)
+	private static final double FFT_COST = 20.0;
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * convolution of a and b (the full result, of length na + nb - 1)
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static double[] conv(double[] a, double[] b){
+		double[] c = new double[a.length + b.length - 1];
+		conv(a, b, c);
+		return c;
+	}
+	
+	/**
+	 * convolution of a and b written to c
+	 * @param a
+	 * @param b
+	 * @param c  output of length at least na + nb - 1
+	 * @throws IllegalArgumentException
+	 */
+	public static void conv(double[] a, double[] b, double[] c) throws IllegalArgumentException{
+		conv(a, 0, 1, a.length, b, 0, 1, b.length, c);
+	}
+	
+	/**
+	 * convolution of vectors a and b
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static Vector conv(Vector a, Vector b){
+		double[] c = new double[a.length() + b.length() - 1];
+		conv(a.getBackingArray(), a.getOffset(), a.getStride(), a.length(), 
+			 b.getBackingArray(), b.getOffset(), b.getStride(), b.length(), c);
+		return new Vector(c);
+	}
+	
+	/**
+	 * cross-correlation of x and y, r(m) = sum_n x(n+m) y(n), for lags 
+	 * m = -(N-1) ... N-1 where N = max(nx, ny) (the shorter is padded with zeros)
+	 * @param x
+	 * @param y
+	 * @return r of length 2N-1, with lag m at index m + N - 1
+	 */
+	public static double[] xcorr(double[] x, double[] y){
+		int N = Math.max(x.length, y.length);
+		double[] r = new double[2*N-1];
+		xcorr(x, y, r);
+		return r;
+	}
+	
+	/**
+	 * cross-correlation of x and y written to r
+	 * @param x
+	 * @param y
+	 * @param r  output of length at least 2*max(nx, ny) - 1
+	 * @throws IllegalArgumentException
+	 */
+	public static void xcorr(double[] x, double[] y, double[] r) throws IllegalArgumentException{
+		xcorr(x, 0, 1, x.length, y, 0, 1, y.length, r);
+	}
+	
+	/**
+	 * autocorrelation of x
+	 * @param x
+	 * @return r of length 2n-1, with lag m at index m + n - 1
+	 */
+	public static double[] xcorr(double[] x){
+		return xcorr(x, x);
+	}
+	
+	/**
+	 * cross-correlation of vectors x and y
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static Vector xcorr(Vector x, Vector y){
+		double[] r = new double[2*Math.max(x.length(), y.length()) - 1];
+		xcorr(x.getBackingArray(), x.getOffset(), x.getStride(), x.length(), 
+			  y.getBackingArray(), y.getOffset(), y.getStride(), y.length(), r);
+		return new Vector(r);
+	}
+	
+	/**
+	 * one-dimensional digital filter, like Matlab's filter:
+	 * a(1) y(n) = b(1) x(n) + ... + b(nb) x(n-nb+1) - a(2) y(n-1) - ... - a(na) y(n-na+1).
+	 * FIR filters (a single coefficient in a) of large order run through the FFT.
+	 * @param b  numerator coefficients
+	 * @param a  denominator coefficients
+	 * @param x  input
+	 * @return y, the same length as x
+	 */
+	public static double[] filter(double[] b, double[] a, double[] x){
+		double[] y = new double[x.length];
+		filter(b, a, x, y);
+		return y;
+	}
+	
+	/**
+	 * digital filter written to y.  y may be the same array as x.
+	 * @param b  numerator coefficients
+	 * @param a  denominator coefficients
+	 * @param x  input
+	 * @param y  output, length at least that of x
+	 * @throws IllegalArgumentException
+	 */
+	public static void filter(double[] b, double[] a, double[] x, double[] y) throws IllegalArgumentException{
+		filter(b, a, x, 0, 1, x.length, y);
+	}
+	
+	/**
+	 * digital filter of a vector
+	 * @param b  numerator coefficients
+	 * @param a  denominator coefficients
+	 * @param x  input
+	 * @return y
+	 */
+	public static Vector filter(Vector b, Vector a, Vector x){
+		// the coefficients are short and are normalized into new arrays anyway
+		double[] y = new double[x.length()];
+		filter(b.getArray(), a.getArray(), x.getBackingArray(), x.getOffset(), x.getStride(), x.length(), y);
+		return new Vector(y);
+	}
+	
+	
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+	
+	// the kernels read element i of an input u at u[uo + i*us], so vector views are not copied
+	
+	private static void conv(double[] a, int ao, int as, int na, double[] b, int bo, int bs, int nb, double[] c){
+		int nc = na + nb - 1;
+		if (na == 0 || nb == 0){
+			throw new IllegalArgumentException("Vectors must not be empty");
+		}
+		if (c.length < nc){
+			throw new IllegalArgumentException("Output vector is too short");
+		}
+		
+		if (useFFT(na, nb)){
+			fftConv(a, ao, as, na, b, bo, bs, nb, c, nc);
+		} else{
+			directConv(a, ao, as, na, b, bo, bs, nb, c, nc);
+		}
+	}
+	
+	private static void xcorr(double[] x, int xo, int xs, int nx, double[] y, int yo, int ys, int ny, double[] r){
+		int N = Math.max(nx, ny);
+		if (r.length < 2*N-1){
+			throw new IllegalArgumentException("Output vector is too short");
+		}
+		
+		// correlation is convolution with y reversed (a negative stride), lag m is at index m + ny - 1
+		double[] c = new double[Math.max(nx + ny - 1, 0)];
+		conv(x, xo, xs, nx, y, yo + (ny-1)*ys, -ys, ny, c);
+		
+		for (int k = 0; k < 2*N-1; k++){
+			int j = k - (N-1) + (ny-1);
+			r[k] = (j >= 0 && j < c.length)? c[j] : 0.0;
+		}
+	}
+	
+	private static void filter(double[] b, double[] a, double[] x, int xo, int xs, int n, double[] y){
+		if (a.length == 0 || b.length == 0 || a[0] == 0.0){
+			throw new IllegalArgumentException("First denominator coefficient must be nonzero");
+		}
+		if (y.length < n){
+			throw new IllegalArgumentException("Output vector is too short");
+		}
+		if (n == 0) return;
+		double a0 = a[0];
+		
+		if (a.length == 1 && useFFT(n, b.length)){
+			double[] c = new double[n + b.length - 1];
+			fftConv(x, xo, xs, n, b, 0, 1, b.length, c, c.length);
+			for (int i = 0; i < n; i++){
+				y[i] = c[i]/a0;
+			}
+			return;
+		}
+		
+		// direct form II transposed
+		int order = Math.max(a.length, b.length);
+		double[] bn = new double[order];
+		double[] an = new double[order];
+		for (int i = 0; i < b.length; i++) bn[i] = b[i]/a0;
+		for (int i = 1; i < a.length; i++) an[i] = a[i]/a0;
+		double[] z = new double[order];
+		
+		for (int i = 0, k = xo; i < n; i++, k += xs){
+			double xi = x[k];
+			double yi = bn[0]*xi + z[0];
+			for (int j = 1; j < order; j++){
+				z[j-1] = bn[j]*xi + z[j] - an[j]*yi;
+			}
+			y[i] = yi;
+		}
+	}
+	
+	private static boolean useFFT(int na, int nb){
+		if (Math.min(na, nb) <= DIRECT_LENGTH) return false;
+		int m = FFT.nextFastSize(na + nb - 1);
+		return (double) na*nb > FFT_COST*m*(Math.log(m)/Math.log(2));
+	}
+	
+	private static void directConv(double[] a, int ao, int as, int na, double[] b, int bo, int bs, int nb, double[] c, int nc){
+		boolean contiguous = (as == 1 && bs == 1);
+		for (int k = 0; k < nc; k++){
+			int lo = Math.max(0, k - nb + 1);
+			int hi = Math.min(na - 1, k);
+			double s = 0.0;
+			if (contiguous){
+				for (int i = lo; i <= hi; i++){
+					s += a[ao+i]*b[bo+k-i];
+				}
+			} else{
+				for (int i = lo; i <= hi; i++){
+					s += a[ao + i*as]*b[bo + (k-i)*bs];
+				}
+			}
+			c[k] = s;
+		}
+	}
+	
+	/**
+	 * both real inputs are transformed together as z = a + ib, 
+	 * then A_k B_k = (Z_k^2 - conj(Z_{m-k})^2)/(4i)
+	 */
+	private static void fftConv(double[] a, int ao, int as, int na, double[] b, int bo, int bs, int nb, double[] c, int nc){
+		int m = FFT.nextFastSize(nc);
+		FFT plan = FFT.plan(m);
+		
+		double[] zr = new double[m];
+		double[] zi = new double[m];
+		gather(a, ao, as, na, zr);
+		gather(b, bo, bs, nb, zi);
+		plan.forward(zr, zi);
+		
+		double[] pr = new double[m];
+		double[] pi = new double[m];
+		for (int k = 0; k < m; k++){
+			int j = (m - k) % m;
+			double sr = zr[k]*zr[k] - zi[k]*zi[k];
+			double si = 2*zr[k]*zi[k];
+			double tr = zr[j]*zr[j] - zi[j]*zi[j];
+			double ti = -2*zr[j]*zi[j];
+			
+			// (s - t)/(4i) = -i (s - t)/4
+			pr[k] = 0.25*(si - ti);
+			pi[k] = -0.25*(sr - tr);
+		}
+		// inverse in place, so nothing past c[nc-1] is written
+		plan.inverse(pr, pi);
+		System.arraycopy(pr, 0, c, 0, nc);
+	}
+	
+	private static void gather(double[] u, int uo, int us, int n, double[] z){
+		if (us == 1){
+			System.arraycopy(u, uo, z, 0, n);
+		} else{
+			for (int i = 0, k = uo; i < n; i++, k += us){
+				z[i] = u[k];
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package jMath.signal;
+import static jMath.signal.Signal.*;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import jMath.linalg.Vector;
+
+import org.junit.Test;
+
+public class SignalTest {
+	
+	public static final double tol = 1e-9;
+	
+	private static double[] random(int n, Random r){
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++){
+			x[i] = r.nextGaussian();
+		}
+		return x;
+	}
+	
+	@Test
+	public void testFFT(){
+		Random r = new Random(0);
+		for (int n: new int[]{1, 6, 16, 45, 49, 101}){
+			double[] xr = random(n, r);
+			double[] xi = random(n, r);
+			double[] yr = xr.clone();
+			double[] yi = xi.clone();
+			FFT plan = FFT.plan(n);
+			plan.forward(yr, yi);
+			
+			for (int k = 0; k < n; k++){
+				double sr = 0, si = 0;
+				for (int j = 0; j < n; j++){
+					double t = -2*Math.PI*((j*k) % n)/n;
+					sr += xr[j]*Math.cos(t) - xi[j]*Math.sin(t);
+					si += xr[j]*Math.sin(t) + xi[j]*Math.cos(t);
+				}
+				assertEquals(sr, yr[k], tol);
+				assertEquals(si, yi[k], tol);
+			}
+			
+			plan.inverse(yr, yi);
+			assertArrayEquals(xr, yr, tol);
+			assertArrayEquals(xi, yi, tol);
+		}
+	}
+	
+	@Test
+	public void testRealFFT(){
+		Random r = new Random(1);
+		for (int n: new int[]{2, 12, 15, 64}){
+			double[] x = random(n, r);
+			FFT plan = new FFT(n);
+			double[] re = new double[n];
+			double[] im = new double[n];
+			plan.forward(x, re, im);
+			
+			double[] cr = x.clone();
+			double[] ci = new double[n];
+			plan.forward(cr, ci);
+			assertArrayEquals(cr, re, tol);
+			assertArrayEquals(ci, im, tol);
+			
+			double[] y = new double[n];
+			plan.inverse(re, im, y);
+			assertArrayEquals(x, y, tol);
+		}
+		assertEquals(360, FFT.nextFastSize(331));
+	}
+	
+	@Test
+	public void testConv(){
+		assertArrayEquals(new double[]{4, 13, 28, 27, 18}, conv(new double[]{1, 2, 3}, new double[]{4, 5, 6}), tol);
+		
+		Random r = new Random(2);
+		double[] a = random(900, r);
+		double[] b = random(700, r);
+		double[] c = conv(a, b);
+		for (int k = 0; k < c.length; k += 37){
+			double s = 0;
+			for (int i = Math.max(0, k-699); i <= Math.min(899, k); i++){
+				s += a[i]*b[k-i];
+			}
+			assertEquals(s, c[k], tol);
+		}
+	}
+	
+	@Test
+	public void testConvLeavesRestOfOutput(){
+		// FFT sized output buffer, only the first na + nb - 1 entries may change
+		Random r = new Random(6);
+		double[] a = random(2000, r);
+		double[] b = random(2000, r);
+		double[] c = new double[FFT.nextFastSize(3999) + 10];
+		Arrays.fill(c, 7.0);
+		conv(a, b, c);
+		assertArrayEquals(conv(a, b), Arrays.copyOf(c, 3999), tol);
+		for (int k = 3999; k < c.length; k++){
+			assertEquals(7.0, c[k], 0.0);
+		}
+	}
+	
+	@Test
+	public void testPlanCache(){
+		FFT p = FFT.plan(48);
+		assertSame(p, FFT.plan(48));
+		for (int n = 100; n < 200; n++){
+			FFT.plan(n);
+		}
+		assertNotSame(p, FFT.plan(48));
+		
+		// recently used lengths stay cached
+		p = FFT.plan(48);
+		assertSame(p, FFT.plan(48));
+	}
+	
+	@Test
+	public void testXcorr(){
+		double[] r = xcorr(new double[]{1, 2, 3}, new double[]{1, 1});
+		assertArrayEquals(new double[]{0, 1, 3, 5, 3}, r, tol);
+		assertArrayEquals(new double[]{3, 8, 14, 8, 3}, xcorr(new double[]{1, 2, 3}), tol);
+	}
+	
+	@Test
+	public void testFilter(){
+		double[] x = {1, 2, 3, 4};
+		assertArrayEquals(new double[]{0.5, 1.5, 2.5, 3.5}, filter(new double[]{0.5, 0.5}, new double[]{1}, x), tol);
+		
+		// y(n) = x(n) + 0.5 y(n-1)
+		assertArrayEquals(new double[]{1, 2.5, 4.25, 6.125}, filter(new double[]{1}, new double[]{1, -0.5}, x), tol);
+		
+		Random rand = new Random(3);
+		double[] s = random(5000, rand);
+		double[] h = random(2000, rand);
+		double[] y = filter(h, new double[]{2}, s);
+		double[] c = conv(s, h);
+		for (int i = 0; i < s.length; i += 101){
+			assertEquals(c[i]/2, y[i], tol);
+		}
+	}
+	
+	@Test
+	public void testViews(){
+		Random rand = new Random(4);
+		for (int n: new int[]{5, 1000}){
+			double[] a = random(2*n, rand);
+			double[] b = random(n+1, rand);
+			
+			// every other element of a, and b reversed
+			Vector av = Vector.view(a, 1, n, 2);
+			Vector bv = Vector.view(b, n, n+1, -1);
+			double[] ac = av.getArray();
+			double[] bc = bv.getArray();
+			
+			assertArrayEquals(conv(ac, bc), conv(av, bv).getArray(), tol);
+			assertArrayEquals(xcorr(ac, bc), xcorr(av, bv).getArray(), tol);
+			assertArrayEquals(filter(bc, new double[]{2}, ac), 
+					filter(bv, new Vector(2.0), av).getArray(), tol);
+			assertArrayEquals(filter(new double[]{1}, new double[]{1, -0.5}, ac), 
+					filter(new Vector(1.0), new Vector(1, -0.5), av).getArray(), tol);
+		}
+	}
+
+}
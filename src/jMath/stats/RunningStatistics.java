@@ -0,0 +1,223 @@
+package jMath.stats;
+
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+
+/**
+ * One-pass accumulator of count, sum, mean, variance, min and max for data
+ * that arrives in pieces (single values, array chunks or streams).
+ * Accumulators filled on different threads can be merged with combine, so
+ * it works directly as a DoubleStream collector:
+ * <pre>
+ * stream.collect(RunningStatistics::new, RunningStatistics::accept, RunningStatistics::combine)
+ * </pre>
+ * The sum is compensated (Kahan-Babuska) and the variance uses Welford's 
+ * update, merged across chunks with Chan's formula.  Not thread safe.
+ */
+public class RunningStatistics implements DoubleConsumer {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	private long n;
+	private double sum, c;
+	private double mean, m2;
+	private double min, max;
+	
+/* ------------------------
+   Constructors
+ * ------------------------ */
+	
+	/**
+	 * empty accumulator
+	 */
+	public RunningStatistics(){
+		reset();
+	}
+	
+	/**
+	 * accumulator of all values in a stream (which may be parallel)
+	 * @param s
+	 * @return statistics of s
+	 */
+	public static RunningStatistics of(DoubleStream s){
+		return s.collect(RunningStatistics::new, RunningStatistics::accept, RunningStatistics::combine);
+	}
+	
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * add a single value
+	 * @param x
+	 */
+	@Override
+	public void accept(double x){
+		n++;
+		addToSum(x);
+		double delta = x - mean;
+		mean += delta/n;
+		m2 += delta*(x - mean);
+		if (x < min) min = x;
+		if (x > max) max = x;
+	}
+	
+	/**
+	 * add a chunk of values
+	 * @param x
+	 */
+	public void accept(double[] x){
+		accept(x, 0, x.length);
+	}
+	
+	/**
+	 * add the values x[off] ... x[off+len-1].  The chunk is reduced on its own
+	 * and then merged, which is both faster and more accurate than adding the 
+	 * values one at a time.
+	 * @param x
+	 * @param off
+	 * @param len
+	 */
+	public void accept(double[] x, int off, int len){
+		if (len <= 0) return;
+		
+		double s = 0.0, cs = 0.0;
+		double lo = min, hi = max;
+		for (int i = off; i < off+len; i++){
+			double v = x[i];
+			double t = s + v;
+			if (Math.abs(s) >= Math.abs(v)) cs += (s - t) + v;
+			else cs += (v - t) + s;
+			s = t;
+			if (v < lo) lo = v;
+			if (v > hi) hi = v;
+		}
+		double chunkMean = (s + cs)/len;
+		
+		double chunkM2 = 0.0;
+		for (int i = off; i < off+len; i++){
+			double d = x[i] - chunkMean;
+			chunkM2 += d*d;
+		}
+		
+		merge(len, s, cs, chunkMean, chunkM2);
+		min = lo;
+		max = hi;
+	}
+	
+	/**
+	 * add all values of a stream
+	 * @param s
+	 */
+	public void accept(DoubleStream s){
+		combine(of(s));
+	}
+	
+	/**
+	 * merge another accumulator into this one
+	 * @param other
+	 */
+	public void combine(RunningStatistics other){
+		if (other.n == 0) return;
+		merge(other.n, other.sum, other.c, other.mean, other.m2);
+		if (other.min < min) min = other.min;
+		if (other.max > max) max = other.max;
+	}
+	
+	/**
+	 * clear all accumulated values
+	 */
+	public void reset(){
+		n = 0;
+		sum = 0.0;
+		c = 0.0;
+		mean = 0.0;
+		m2 = 0.0;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * @return number of values
+	 */
+	public long getCount(){
+		return n;
+	}
+	
+	/**
+	 * @return sum of values
+	 */
+	public double getSum(){
+		return sum + c;
+	}
+	
+	/**
+	 * @return mean of values, NaN if empty
+	 */
+	public double getMean(){
+		return (n == 0)? Double.NaN : mean;
+	}
+	
+	/**
+	 * @return sample variance (normalized by n-1), NaN if empty
+	 */
+	public double getVariance(){
+		if (n == 0) return Double.NaN;
+		if (n == 1) return 0.0;
+		return m2/(n-1);
+	}
+	
+	/**
+	 * @return sample standard deviation
+	 */
+	public double getStd(){
+		return Math.sqrt(getVariance());
+	}
+	
+	/**
+	 * @return smallest value, +inf if empty
+	 */
+	public double getMin(){
+		return min;
+	}
+	
+	/**
+	 * @return largest value, -inf if empty
+	 */
+	public double getMax(){
+		return max;
+	}
+	
+	@Override
+	public String toString(){
+		return "n = " + n + ", mean = " + getMean() + ", std = " + getStd() + 
+				", min = " + min + ", max = " + max;
+	}
+	
+	
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+	
+	private void addToSum(double v){
+		double t = sum + v;
+		if (Math.abs(sum) >= Math.abs(v)) c += (sum - t) + v;
+		else c += (v - t) + sum;
+		sum = t;
+	}
+	
+	/**
+	 * Chan et al. pairwise update
+	 */
+	private void merge(long nb, double sumb, double cb, double meanb, double m2b){
+		long na = n;
+		n = na + nb;
+		double delta = meanb - mean;
+		mean += delta*nb/n;
+		m2 += m2b + delta*delta*((double) na)*nb/n;
+		addToSum(sumb);
+		addToSum(cb);
+	}
+}
@@ -0,0 +1,97 @@
+package jMath.stats;
+
+import static org.junit.Assert.*;
+
+import java.util.stream.DoubleStream;
+
+import jMath.linalg.Array1D;
+
+import org.junit.Test;
+
+public class RunningStatisticsTest {
+	
+	private static double[] data(){
+		double[] x = new double[1000];
+		for (int i = 0; i < x.length; i++){
+			x[i] = 1e6 + Math.sin(i);
+		}
+		return x;
+	}
+	
+	private static double variance(double[] x){
+		double m = Array1D.mean(x);
+		double s = 0;
+		for (double v: x){
+			s += (v - m)*(v - m);
+		}
+		return s/(x.length - 1);
+	}
+
+	@Test
+	public void testChunks(){
+		double[] x = data();
+		RunningStatistics a = new RunningStatistics();
+		a.accept(x, 0, 300);
+		a.accept(x, 300, 7);
+		for (int i = 307; i < 500; i++){
+			a.accept(x[i]);
+		}
+		RunningStatistics b = new RunningStatistics();
+		b.accept(x, 500, 500);
+		a.combine(b);
+		
+		assertEquals(1000, a.getCount());
+		assertEquals(Array1D.sum(x), a.getSum(), 1e-6);
+		assertEquals(Array1D.mean(x), a.getMean(), 1e-8);
+		assertEquals(variance(x), a.getVariance(), 1e-8);
+		assertEquals(Array1D.min(x), a.getMin(), 0.0);
+		assertEquals(Array1D.max(x), a.getMax(), 0.0);
+	}
+	
+	@Test
+	public void testStream(){
+		double[] x = data();
+		RunningStatistics s = RunningStatistics.of(DoubleStream.of(x).parallel());
+		assertEquals(1000, s.getCount());
+		assertEquals(Array1D.mean(x), s.getMean(), 1e-8);
+		assertEquals(variance(x), s.getVariance(), 1e-8);
+		
+		RunningStatistics e = new RunningStatistics();
+		assertTrue(Double.isNaN(e.getMean()));
+		e.combine(new RunningStatistics());
+		assertEquals(0, e.getCount());
+	}
+	
+	@Test
+	public void testRunningSum(){
+		double[] x = data();
+		double[] expected = Array1D.cumsum(x);
+		RunningSum r = new RunningSum();
+		double[] out = new double[x.length];
+		r.cumsum(x, 0, 400, out, 0);
+		r.cumsum(x, 400, 600, out, 400);
+		for (int i = 0; i < x.length; i++){
+			assertEquals(expected[i], out[i], 1e-6);
+		}
+		assertEquals(expected[x.length-1], r.getTotal(), 1e-6);
+	}
+	
+	@Test
+	public void testRunningTrapz(){
+		double[] x = Array1D.linspace(0, Math.PI, 101);
+		double[] y = Array1D.sin(x);
+		double expected = Array1D.trapz(x, y);
+		
+		RunningTrapz a = new RunningTrapz();
+		a.accept(x, y, 0, 40);
+		RunningTrapz b = new RunningTrapz();
+		b.accept(x, y, 40, 30);
+		for (int i = 70; i < 101; i++){
+			b.accept(x[i], y[i]);
+		}
+		a.combine(b);
+		assertEquals(expected, a.getIntegral(), 1e-12);
+		assertEquals(101, a.getCount());
+	}
+
+}
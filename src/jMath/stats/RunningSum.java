@@ -0,0 +1,93 @@
+package jMath.stats;
+
+/**
+ * Cumulative sum over data that arrives in chunks.  The running total is 
+ * carried from one chunk to the next (with compensated summation), so the 
+ * concatenated output equals cumsum of the concatenated input.  
+ * For chunks summed on different threads, compute each chunk with its own
+ * RunningSum and shift the later outputs with offset by the preceding totals.
+ */
+public class RunningSum {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	private double total, c;
+	private long n;
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * cumulative sum of the next chunk
+	 * @param x
+	 * @return running total after each value of x
+	 */
+	public double[] cumsum(double[] x){
+		double[] out = new double[x.length];
+		cumsum(x, 0, x.length, out, 0);
+		return out;
+	}
+	
+	/**
+	 * cumulative sum of x[off] ... x[off+len-1] written to out starting at outOff.
+	 * out may be x (with outOff == off).
+	 * @param x
+	 * @param off
+	 * @param len
+	 * @param out
+	 * @param outOff
+	 */
+	public void cumsum(double[] x, int off, int len, double[] out, int outOff){
+		double s = total, cs = c;
+		for (int i = 0; i < len; i++){
+			double v = x[off+i];
+			double t = s + v;
+			if (Math.abs(s) >= Math.abs(v)) cs += (s - t) + v;
+			else cs += (v - t) + s;
+			s = t;
+			out[outOff+i] = s + cs;
+		}
+		total = s;
+		c = cs;
+		n += len;
+	}
+	
+	/**
+	 * add a constant to a block of previously computed output
+	 * @param out
+	 * @param off
+	 * @param len
+	 * @param carry  total of all data preceding the block
+	 */
+	public static void offset(double[] out, int off, int len, double carry){
+		for (int i = off; i < off+len; i++){
+			out[i] += carry;
+		}
+	}
+	
+	/**
+	 * @return sum of all values so far
+	 */
+	public double getTotal(){
+		return total + c;
+	}
+	
+	/**
+	 * @return number of values so far
+	 */
+	public long getCount(){
+		return n;
+	}
+	
+	/**
+	 * restart from zero
+	 */
+	public void reset(){
+		total = 0.0;
+		c = 0.0;
+		n = 0;
+	}
+}
@@ -0,0 +1,129 @@
+package jMath.stats;
+
+/**
+ * Trapezoidal integral of y w.r.t x over samples that arrive in chunks.  
+ * The last sample of each chunk is carried so the interval between chunks is
+ * included.  Accumulators over consecutive ranges of x can be merged 
+ * (in order) with combine.
+ */
+public class RunningTrapz {
+
+/* ------------------------
+   Instance Variables
+ * ------------------------ */
+	
+	private double integral, c;
+	private double xFirst, yFirst, xLast, yLast;
+	private long n;
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+	
+	/**
+	 * add one sample
+	 * @param x
+	 * @param y
+	 */
+	public void accept(double x, double y){
+		if (n == 0){
+			xFirst = x;
+			yFirst = y;
+		} else{
+			add((x - xLast)*(y + yLast)/2.0);
+		}
+		xLast = x;
+		yLast = y;
+		n++;
+	}
+	
+	/**
+	 * add a chunk of samples
+	 * @param x
+	 * @param y
+	 * @throws IllegalArgumentException
+	 */
+	public void accept(double[] x, double[] y) throws IllegalArgumentException{
+		if (x.length != y.length){
+			throw new IllegalArgumentException("Vector dimensions must agree");
+		}
+		accept(x, y, 0, x.length);
+	}
+	
+	/**
+	 * add the samples (x[i], y[i]) for i = off ... off+len-1
+	 * @param x
+	 * @param y
+	 * @param off
+	 * @param len
+	 */
+	public void accept(double[] x, double[] y, int off, int len){
+		if (len <= 0) return;
+		
+		accept(x[off], y[off]);
+		
+		double s = 0.0;
+		for (int i = off+1; i < off+len; i++){
+			s += (x[i] - x[i-1])*(y[i] + y[i-1])/2.0;
+		}
+		add(s);
+		
+		xLast = x[off+len-1];
+		yLast = y[off+len-1];
+		n += len-1;
+	}
+	
+	/**
+	 * merge the accumulator of the samples that immediately follow this one's
+	 * @param next
+	 */
+	public void combine(RunningTrapz next){
+		if (next.n == 0) return;
+		if (n == 0){
+			xFirst = next.xFirst;
+			yFirst = next.yFirst;
+		} else{
+			add((next.xFirst - xLast)*(next.yFirst + yLast)/2.0);
+		}
+		add(next.integral);
+		add(next.c);
+		xLast = next.xLast;
+		yLast = next.yLast;
+		n += next.n;
+	}
+	
+	/**
+	 * @return integral over all samples so far
+	 */
+	public double getIntegral(){
+		return integral + c;
+	}
+	
+	/**
+	 * @return number of samples so far
+	 */
+	public long getCount(){
+		return n;
+	}
+	
+	/**
+	 * restart from zero
+	 */
+	public void reset(){
+		integral = 0.0;
+		c = 0.0;
+		n = 0;
+	}
+	
+	
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+	
+	private void add(double v){
+		double t = integral + v;
+		if (Math.abs(integral) >= Math.abs(v)) c += (integral - t) + v;
+		else c += (v - t) + integral;
+		integral = t;
+	}
+}